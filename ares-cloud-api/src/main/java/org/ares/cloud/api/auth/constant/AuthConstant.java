@@ -0,0 +1,22 @@
+package org.ares.cloud.api.auth.constant;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 认证相关常量，认证中心与网关共用
+ * @date 2024/11/12 22:10
+ */
+public interface AuthConstant {
+    /**
+     * 令牌吊销频道，消息体为 令牌哈希 + ":" + 失效时间（毫秒时间戳）
+     */
+    String TOKEN_REVOKE_CHANNEL = "auth:token:revoke";
+    /**
+     * 已吊销令牌有序集合，成员为令牌哈希，分值为失效时间（毫秒时间戳）
+     */
+    String REVOKED_TOKEN_KEY = "auth:token:revoked";
+    /**
+     * 吊销消息中令牌哈希与失效时间的分隔符
+     */
+    char REVOKE_SEPARATOR = ':';
+}
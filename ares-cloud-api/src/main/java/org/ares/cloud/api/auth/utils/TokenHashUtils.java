@@ -0,0 +1,30 @@
+package org.ares.cloud.api.auth.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 令牌哈希工具，Redis中的令牌键和吊销记录都以令牌的SHA-256十六进制哈希标识
+ * @date 2024/11/12 22:12
+ */
+public class TokenHashUtils {
+
+    /**
+     * 计算令牌哈希
+     * @param token 令牌
+     * @return SHA-256哈希的小写十六进制字符串
+     */
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // JDK必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
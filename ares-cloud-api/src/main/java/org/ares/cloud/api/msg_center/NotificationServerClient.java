@@ -8,6 +8,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 /**
  * @author hugo
  * @version 1.0
@@ -24,4 +26,12 @@ public interface NotificationServerClient {
      */
     @PostMapping("/internal/v1/notification/send")
     String sendNotification(@RequestBody SendNotificationCommand notification);
+
+    /**
+     * 批量发送通知
+     * @param notifications 通知列表
+     * @return 处理结果
+     */
+    @PostMapping("/internal/v1/notification/send-batch")
+    String sendNotifications(@RequestBody List<SendNotificationCommand> notifications);
 }
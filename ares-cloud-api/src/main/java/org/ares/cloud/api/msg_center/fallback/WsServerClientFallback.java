@@ -5,6 +5,8 @@ import org.ares.cloud.api.msg_center.command.SendNotificationCommand;
 import org.ares.cloud.exception.ServiceUnavailableException;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * @author hugo
  * @version 1.0
@@ -21,4 +23,9 @@ public class WsServerClientFallback implements NotificationServerClient {
     public String sendNotification(SendNotificationCommand notification) {
         throw new ServiceUnavailableException(SERVICE_NAME, "sendNotification");
     }
+
+    @Override
+    public String sendNotifications(List<SendNotificationCommand> notifications) {
+        throw new ServiceUnavailableException(SERVICE_NAME, "sendNotifications");
+    }
 }
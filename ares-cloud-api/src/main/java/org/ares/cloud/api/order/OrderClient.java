@@ -8,6 +8,9 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
 
 /**
  * @author hugo
@@ -32,4 +35,13 @@ public interface OrderClient {
      */
     @PostMapping("/internal/orders/manual-settlement")
     String manualSettlementOrder(@RequestBody PayOrderCommand command);
+
+    /**
+     * 清除商品库存计数
+     * @param merchantId 商户ID
+     * @param productIds 商品ID列表
+     * @return 结果
+     */
+    @PostMapping("/internal/orders/inventory/evict")
+    String evictInventory(@RequestParam("merchantId") String merchantId, @RequestBody List<String> productIds);
 }
@@ -6,6 +6,8 @@ import org.ares.cloud.api.order.commod.PayOrderCommand;
 import org.ares.cloud.exception.ServiceUnavailableException;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * @author hugo
  * @version 1.0
@@ -27,4 +29,9 @@ public class OrderClientFallback implements OrderClient {
     public String manualSettlementOrder(PayOrderCommand command) {
         throw new ServiceUnavailableException(SERVICE_NAME, "manualSettlementOrder");
     }
+
+    @Override
+    public String evictInventory(String merchantId, List<String> productIds) {
+        throw new ServiceUnavailableException(SERVICE_NAME, "evictInventory");
+    }
 }
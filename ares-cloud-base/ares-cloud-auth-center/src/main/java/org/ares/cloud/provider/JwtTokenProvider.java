@@ -1,11 +1,14 @@
 package org.ares.cloud.provider;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.Resource;
 import org.ares.cloud.properties.SecurityProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
@@ -16,10 +19,12 @@ import java.util.Map;
 
 @Component
 public class JwtTokenProvider {
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenProvider.class);
+
     @Resource
     private SecurityProperties securityProperties;
 
-    private SecretKey secretKey; // 32 字节密钥
+    private volatile KeyedParser keyedParser; // 按密钥构建的签名key和解析器，配置刷新后密钥变化时重建
 
     // 生成访问令牌
     public String generateAccessToken(String userId, String tenantId, String role, String scope) {
@@ -66,29 +71,34 @@ public class JwtTokenProvider {
 
     // 验证令牌是否有效
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    /**
+     * 校验令牌并返回声明，只验签一次，调用方直接使用返回的声明
+     *
+     * @param token 令牌
+     * @return 令牌中的声明，签名错误或已过期时返回null
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser().verifyWith(this.getKey()).build().parseSignedClaims(token);
-            return true;
+            return this.getParser().parseSignedClaims(token).getPayload();
         } catch (Exception e) {
-            System.out.println("Invalid or expired JWT token.");
+            log.debug("Invalid or expired JWT token: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 
     // 从令牌中获取用户名
     public String extractUsername(String token) {
-        return Jwts.parser()
-                .verifyWith(this.getKey())
-                .build()
+        return this.getParser()
                 .parseSignedClaims(token)
                 .getPayload()
                 .getSubject();
     }
 
     public Map<String, Object> getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(this.getKey())
-                .build()
+        return this.getParser()
                 .parseSignedClaims(token)
                 .getPayload();
     }
@@ -116,9 +126,7 @@ public class JwtTokenProvider {
      */
     public boolean validateSign(String sign, String sub) {
         try {
-            String subject = Jwts.parser()
-                    .verifyWith(this.getKey())
-                    .build()
+            String subject = this.getParser()
                     .parseSignedClaims(sign)
                     .getPayload()
                     .getSubject();
@@ -143,10 +151,22 @@ public class JwtTokenProvider {
     }
 
     private SecretKey getKey() {
-        if (secretKey == null) {
-            this.secretKey = Keys.hmacShaKeyFor(this.securityProperties.getKey().getBytes(StandardCharsets.UTF_8));
+        return keyedParser().secretKey();
+    }
+
+    private JwtParser getParser() {
+        return keyedParser().parser();
+    }
+
+    private KeyedParser keyedParser() {
+        String key = this.securityProperties.getKey();
+        KeyedParser current = keyedParser;
+        if (current == null || !current.key().equals(key)) {
+            SecretKey secretKey = Keys.hmacShaKeyFor(key.getBytes(StandardCharsets.UTF_8));
+            current = new KeyedParser(key, secretKey, Jwts.parser().verifyWith(secretKey).build());
+            keyedParser = current;
         }
-        return secretKey;
+        return current;
     }
 
     /**
@@ -157,4 +177,7 @@ public class JwtTokenProvider {
     private Date getExpireData(long expireSeconds) {
         return new Date(System.currentTimeMillis() + expireSeconds * 1000);
     }
+
+    private record KeyedParser(String key, SecretKey secretKey, JwtParser parser) {
+    }
 }
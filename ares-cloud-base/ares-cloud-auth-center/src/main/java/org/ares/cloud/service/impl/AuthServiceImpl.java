@@ -212,11 +212,10 @@ public class AuthServiceImpl implements AuthService {
         if (!exist){
             throw new TokenException(AuthError.REFRESH_TOKEN_INVALID);
         }
-        boolean b1 = jwtTokenProvider.validateToken(refreshToken);
-        if (!b1){
+        Map<String, Object> claims = jwtTokenProvider.parseClaims(refreshToken);
+        if (claims == null){
             throw new TokenException(AuthError.REFRESH_TOKEN_INVALID);
         }
-        Map<String, Object> claims = jwtTokenProvider.getClaims(refreshToken);
         AccessTokenClaims accessTokenClaims = AccessTokenClaims.fromAccessTokenClaims(claims);
         String userId = accessTokenClaims.getUserId();
         if (StringUtils.isBlank(userId)) {
@@ -231,11 +230,10 @@ public class AuthServiceImpl implements AuthService {
         if (!tokenStorage.chickTokenExist(token)){
             throw new TokenException(AuthError.REFRESH_TOKEN_INVALID);
         }
-        boolean b1 = jwtTokenProvider.validateToken(token);
-        if (!b1){
+        Map<String, Object> claims = jwtTokenProvider.parseClaims(token);
+        if (claims == null){
             throw new TokenException(AuthError.REFRESH_TOKEN_INVALID);
         }
-        Map<String, Object> claims = jwtTokenProvider.getClaims(token);
         return AccessTokenClaims.fromAccessTokenClaims(claims);
     }
 
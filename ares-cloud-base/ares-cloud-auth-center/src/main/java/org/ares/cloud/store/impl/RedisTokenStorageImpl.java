@@ -1,17 +1,19 @@
 package org.ares.cloud.store.impl;
 
 import jakarta.annotation.Resource;
-import org.ares.cloud.common.exception.BusinessException;
+import org.ares.cloud.api.auth.constant.AuthConstant;
+import org.ares.cloud.api.auth.utils.TokenHashUtils;
 import org.ares.cloud.common.utils.StringUtils;
-import org.ares.cloud.enums.AuthError;
 import org.ares.cloud.properties.SecurityProperties;
 import org.ares.cloud.store.TokenStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -22,15 +24,91 @@ import java.util.concurrent.TimeUnit;
  */
 @Service
 public class RedisTokenStorageImpl implements TokenStorage {
+    private static final Logger log = LoggerFactory.getLogger(RedisTokenStorageImpl.class);
     private static final String tokenKeyPrefix = "token:";
     private static final String refTokenPrefix = "ref_token:";
     private static final String userKeyPrefix = "userKey:";
     private static final String signPrefix = "sign:";
+
+    /**
+     * 解析保存的值，兼容旧版本按JSON序列化写入的带引号字符串
+     */
+    private static final String UNQUOTE_FUNCTION =
+        "local function unquote(v) " +
+        "    if v and string.sub(v, 1, 1) == '\"' then return string.sub(v, 2, -2) end " +
+        "    return v " +
+        "end ";
+
+    /**
+     * 吊销访问令牌：写入吊销有序集合（分值为失效时间）、清理已失效的记录并广播给网关
+     */
+    private static final String REVOKE_FUNCTION =
+        "local function revoke(tokenKey) " +
+        "    redis.call('zadd', ARGV[5], ARGV[8], tokenKey) " +
+        "    redis.call('zremrangebyscore', ARGV[5], 0, ARGV[7]) " +
+        "    redis.call('expire', ARGV[5], ARGV[9]) " +
+        "    redis.call('publish', ARGV[6], tokenKey .. '" + AuthConstant.REVOKE_SEPARATOR + "' .. ARGV[8]) " +
+        "end ";
+
+    /**
+     * 保存令牌脚本，用户哈希、两个令牌键及各自过期时间一次写入
+     * KEYS[1]为userKey，KEYS[2]为token键，KEYS[3]为ref_token键；
+     * ARGV[1]为用户ID，ARGV[2]、ARGV[3]为两个令牌哈希，ARGV[4..6]为token、ref_token、userKey的过期秒数
+     */
+    private static final String SAVE_TOKENS_SCRIPT =
+        "redis.call('hset', KEYS[1], 'tokenKey', ARGV[2], 'refTokenKey', ARGV[3]) " +
+        "redis.call('set', KEYS[2], ARGV[1], 'EX', ARGV[4]) " +
+        "redis.call('set', KEYS[3], ARGV[1], 'EX', ARGV[5]) " +
+        "redis.call('expire', KEYS[1], ARGV[6]) " +
+        "return 1";
+
+    /**
+     * 删除令牌脚本，删除访问令牌、用户当前的刷新令牌及用户哈希中的记录，并吊销访问令牌
+     * KEYS[1]为token键；ARGV[1]为令牌哈希，ARGV[2..4]为token、ref_token、userKey前缀，
+     * ARGV[5]为吊销有序集合，ARGV[6]为吊销频道，ARGV[7]为当前时间，ARGV[8]为吊销记录失效时间，ARGV[9]为有序集合过期秒数。
+     * 返回0表示令牌不存在
+     */
+    private static final String DEL_TOKEN_SCRIPT = UNQUOTE_FUNCTION + REVOKE_FUNCTION +
+        "local userId = unquote(redis.call('get', KEYS[1])) " +
+        "if not userId then return 0 end " +
+        "redis.call('del', KEYS[1]) " +
+        "revoke(ARGV[1]) " +
+        "local userKey = ARGV[4] .. userId " +
+        "local refTokenKey = unquote(redis.call('hget', userKey, 'refTokenKey')) " +
+        "if refTokenKey then redis.call('del', ARGV[3] .. refTokenKey) end " +
+        "redis.call('hdel', userKey, 'tokenKey', 'refTokenKey') " +
+        "return 1";
+
+    /**
+     * 删除用户令牌脚本，删除用户哈希中记录的访问令牌和刷新令牌，并吊销访问令牌
+     * KEYS[1]为userKey；ARGV[1]为用户ID，其余参数同删除令牌脚本
+     */
+    private static final String DEL_USER_SCRIPT = UNQUOTE_FUNCTION + REVOKE_FUNCTION +
+        "local keys = redis.call('hmget', KEYS[1], 'tokenKey', 'refTokenKey') " +
+        "local tokenKey = unquote(keys[1]) " +
+        "local refTokenKey = unquote(keys[2]) " +
+        "if tokenKey then " +
+        "    redis.call('del', ARGV[2] .. tokenKey) " +
+        "    revoke(tokenKey) " +
+        "end " +
+        "if refTokenKey then redis.call('del', ARGV[3] .. refTokenKey) end " +
+        "redis.call('hdel', KEYS[1], 'tokenKey', 'refTokenKey') " +
+        "return 1";
+
+    private final DefaultRedisScript<Long> saveTokensScript = new DefaultRedisScript<>(SAVE_TOKENS_SCRIPT, Long.class);
+    private final DefaultRedisScript<Long> delTokenScript = new DefaultRedisScript<>(DEL_TOKEN_SCRIPT, Long.class);
+    private final DefaultRedisScript<Long> delUserScript = new DefaultRedisScript<>(DEL_USER_SCRIPT, Long.class);
+
     /**
      * 缓存
      */
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
+    /**
+     * 令牌相关的键统一按字符串读写，由脚本一次完成
+     */
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
     /**
      * 认证配置
      */
@@ -43,18 +121,15 @@ public class RedisTokenStorageImpl implements TokenStorage {
             String tokenKey = generateTokenKey(token); // token 的哈希值
             String refTokenKey = generateTokenKey(refToken); // ref token 的哈希值
             String userKey = userKeyPrefix+ userId; // 用户哈希的键
-
-            // 1. 将 tokenKey 和 refTokenKey 存储到 userKey:userId
-            redisTemplate.opsForHash().put( userKey, "tokenKey", tokenKey);
-            redisTemplate.opsForHash().put(userKey, "refTokenKey", refTokenKey);
-
-            // 2. 将 userId 存储到 tokenKey 和 refTokenKey 下
-            redisTemplate.opsForValue().set(tokenKeyPrefix + tokenKey, userId,securityProperties.getAccessTokenExpire(), TimeUnit.SECONDS);
-            redisTemplate.opsForValue().set(refTokenPrefix + refTokenKey, userId,securityProperties.getRefreshTokenExpire(), TimeUnit.SECONDS);
-            // 3. 设置 userKey 的过期时间
-            redisTemplate.expire(userKey, Math.max(securityProperties.getAccessTokenExpire(), securityProperties.getRefreshTokenExpire()), TimeUnit.SECONDS);
+            long userKeyExpire = Math.max(securityProperties.getAccessTokenExpire(), securityProperties.getRefreshTokenExpire());
+            stringRedisTemplate.execute(saveTokensScript,
+                    List.of(userKey, tokenKeyPrefix + tokenKey, refTokenPrefix + refTokenKey),
+                    userId, tokenKey, refTokenKey,
+                    String.valueOf(securityProperties.getAccessTokenExpire()),
+                    String.valueOf(securityProperties.getRefreshTokenExpire()),
+                    String.valueOf(userKeyExpire));
         } catch (Exception e) {
-            e.fillInStackTrace();
+            log.error("保存令牌失败: {}", e.getMessage());
             return false;
         }
         return true;
@@ -78,22 +153,9 @@ public class RedisTokenStorageImpl implements TokenStorage {
     public boolean delToken(String token) {
         try {
             String tokenKey = generateTokenKey(token);
-            String userId = (String) redisTemplate.opsForValue().get(tokenKeyPrefix + tokenKey);
-            if (userId != null) {
-                // 1. 删除 tokenKey
-                redisTemplate.delete(tokenKeyPrefix + tokenKey);
-
-                // 2. 获取 refTokenKey 并删除 refToken
-                String refTokenKey = (String) redisTemplate.opsForHash().get(userKeyPrefix + userId, "refTokenKey");
-                if (refTokenKey != null) {
-                    redisTemplate.delete(refTokenPrefix + refTokenKey);
-                }
-
-                // 3. 删除 userKey:userId 下的 tokenKey 和 refTokenKey
-                redisTemplate.opsForHash().delete(userKeyPrefix + userId, "tokenKey", "refTokenKey");
-            }
+            stringRedisTemplate.execute(delTokenScript, List.of(tokenKeyPrefix + tokenKey), revokeArgs(tokenKey));
         }catch (Exception e){
-            e.fillInStackTrace();
+            log.error("删除令牌失败: {}", e.getMessage());
             return false;
         }
         return true;
@@ -102,22 +164,9 @@ public class RedisTokenStorageImpl implements TokenStorage {
     @Override
     public boolean delUser(String userId) {
         try {
-            // 1. 获取 tokenKey 和 refTokenKey
-            String tokenKey = (String) redisTemplate.opsForHash().get(userKeyPrefix + userId, "tokenKey");
-            String refTokenKey = (String) redisTemplate.opsForHash().get(userKeyPrefix + userId, "refTokenKey");
-
-            // 2. 删除 tokenKey 和 refTokenKey
-            if (tokenKey != null) {
-                redisTemplate.delete(tokenKeyPrefix + tokenKey);
-            }
-            if (refTokenKey != null) {
-                redisTemplate.delete(refTokenPrefix + refTokenKey);
-            }
-
-            // 3. 删除 userKey:userId 下的 tokenKey 和 refTokenKey
-            redisTemplate.opsForHash().delete(userKeyPrefix + userId, "tokenKey", "refTokenKey");
+            stringRedisTemplate.execute(delUserScript, List.of(userKeyPrefix + userId), revokeArgs(userId));
         }catch (Exception e){
-            e.fillInStackTrace();
+            log.error("删除用户令牌失败: {}", e.getMessage());
             return false;
         }
        return true;
@@ -169,22 +218,21 @@ public class RedisTokenStorageImpl implements TokenStorage {
     }
 
 
+    /**
+     * 删除脚本参数，吊销的访问令牌记录保留到其自然过期为止
+     * @param subject 令牌哈希或用户ID
+     * @return 参数
+     */
+    private Object[] revokeArgs(String subject) {
+        long now = System.currentTimeMillis();
+        long expireAt = now + securityProperties.getAccessTokenExpire() * 1000;
+        return new Object[]{subject, tokenKeyPrefix, refTokenPrefix, userKeyPrefix,
+                AuthConstant.REVOKED_TOKEN_KEY, AuthConstant.TOKEN_REVOKE_CHANNEL,
+                String.valueOf(now), String.valueOf(expireAt), String.valueOf(securityProperties.getAccessTokenExpire())};
+    }
+
     // 生成 SHA-256 哈希作为 token key
     private String generateTokenKey(String token) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
-            // 将哈希结果转换为16进制字符串
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            e.fillInStackTrace();
-           throw new BusinessException(AuthError.TOKEN_SAVE_ERROR);
-        }
+        return TokenHashUtils.hash(token);
     }
 }
@@ -0,0 +1,34 @@
+package org.ares.cloud.configs;
+
+import org.ares.cloud.api.auth.constant.AuthConstant;
+import org.ares.cloud.token.TokenRevocationStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: Redis配置，订阅认证中心的令牌吊销广播
+ * @date 2024/11/12 22:50
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * 令牌吊销广播监听
+     * @param factory 连接工厂
+     * @param tokenRevocationStore 吊销记录
+     * @return 监听容器
+     */
+    @Bean
+    public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory factory,
+                                                                          TokenRevocationStore tokenRevocationStore) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(tokenRevocationStore, new ChannelTopic(AuthConstant.TOKEN_REVOKE_CHANNEL));
+        return container;
+    }
+}
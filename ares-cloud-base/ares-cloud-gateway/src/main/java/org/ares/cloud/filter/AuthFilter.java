@@ -5,10 +5,14 @@ import org.ares.cloud.common.enums.ResponseCodeEnum;
 import org.ares.cloud.common.exception.BaseErrorInfoInterface;
 import org.ares.cloud.common.exception.BaseException;
 import org.ares.cloud.common.model.Result;
+import org.ares.cloud.common.utils.LocalUtils;
 import org.ares.cloud.common.utils.StringUtils;
 import org.ares.cloud.properties.GatewayProperties;
+import org.ares.cloud.token.LocalTokenVerifier;
+import org.ares.cloud.token.TokenValidationCache;
 import org.ares.cloud.tuils.SecurityUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.http.HttpHeaders;
@@ -33,20 +37,48 @@ import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Component
 public class AuthFilter implements WebFilter {
+    // 跨域允许的方法，启动时拼接一次
+    private static final String CORS_ALLOW_METHODS = String.join(",",
+            HttpMethod.GET.name(), HttpMethod.POST.name(), HttpMethod.PUT.name(),
+            HttpMethod.DELETE.name(), HttpMethod.OPTIONS.name());
+    // 跨域允许的请求头，启动时拼接一次
+    private static final String CORS_ALLOW_HEADERS = String.join(",",
+            HttpHeaders.AUTHORIZATION,
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.ACCEPT,
+            HttpHeaders.ORIGIN,
+            "X-Requested-With",
+            "timeout",
+            MateData.USER_ID,
+            MateData.TENANT_Id,
+            MateData.ROLE,
+            MateData.IDENTITY,
+            "X-scope");
     private final WebClient webClient; // 用于请求认证中心
     // 从 Nacos 中读取公开路径
     private final GatewayProperties gatewayProperties;
+    // 网关本地校验令牌
+    private final LocalTokenVerifier localTokenVerifier;
+    // 认证中心校验结果缓存
+    private final TokenValidationCache tokenValidationCache;
+    // 预先序列化的认证拒绝响应
+    private final AuthRejectionResponses authRejectionResponses;
 
-    public AuthFilter(@Qualifier("authWebClient") WebClient authWebClient, GatewayProperties gatewayProperties) {
+    public AuthFilter(@Qualifier("authWebClient") WebClient authWebClient, GatewayProperties gatewayProperties,
+                      LocalTokenVerifier localTokenVerifier, TokenValidationCache tokenValidationCache,
+                      AuthRejectionResponses authRejectionResponses) {
         this.webClient = authWebClient;
         this.gatewayProperties = gatewayProperties;
+        this.localTokenVerifier = localTokenVerifier;
+        this.tokenValidationCache = tokenValidationCache;
+        this.authRejectionResponses = authRejectionResponses;
     }
 
     @Override
@@ -72,13 +104,21 @@ public class AuthFilter implements WebFilter {
         if (isNeedAuth(exchange) || StringUtils.hasText(token)) {
             if (StringUtils.isBlank(token)) {
                 // 写入响应体，并返回 Mono<Void> 以符合方法签名
-                return withResult(exchange.getResponse(), Result.error(ResponseCodeEnum.RECODE_TOKEN_BE_OVERDUE));
+                return reject(exchange, ResponseCodeEnum.RECODE_TOKEN_BE_OVERDUE);
             }
             if (!token.startsWith("Bearer ")) {
                 //token格式不正确
-                return withResult(exchange.getResponse(), Result.error(ResponseCodeEnum.RECODE_TOKEN_BE_OVERDUE));
+                return reject(exchange, ResponseCodeEnum.RECODE_TOKEN_BE_OVERDUE);
             }
             token = token.substring(7);  // 去掉 Bearer 前缀
+            if (localTokenVerifier.isAvailable()) {
+                // 本地校验签名、过期时间和吊销记录，不再请求认证中心；吊销记录未同步时请求认证中心
+                Map<String, Object> claims = localTokenVerifier.verify(token);
+                if (claims == null) {
+                    return reject(exchange, ResponseCodeEnum.RECODE_TOKEN_BE_OVERDUE);
+                }
+                return authenticated(exchange, chain, token, claims);
+            }
             return authCheck(exchange,chain,token);
         }
         return chain.filter(mutatedExchange);  // 如果没有 token，继续请求链
@@ -143,23 +183,8 @@ public class AuthFilter implements WebFilter {
         if (origin != null) {
             response.getHeaders().setAccessControlAllowOrigin(origin);
             response.getHeaders().setAccessControlAllowCredentials(true);
-            response.getHeaders().setAccessControlAllowMethods(Arrays.asList(
-                    HttpMethod.GET, HttpMethod.POST, HttpMethod.PUT,
-                    HttpMethod.DELETE, HttpMethod.OPTIONS
-            ));
-            response.getHeaders().setAccessControlAllowHeaders(Arrays.asList(
-                    HttpHeaders.AUTHORIZATION,
-                    HttpHeaders.CONTENT_TYPE,
-                    HttpHeaders.ACCEPT,
-                    HttpHeaders.ORIGIN,
-                    "X-Requested-With",
-                    "timeout",
-                    MateData.USER_ID,
-                    MateData.TENANT_Id,
-                    MateData.ROLE,
-                    MateData.IDENTITY,
-                    "X-scope"
-            ));
+            response.getHeaders().set(HttpHeaders.ACCESS_CONTROL_ALLOW_METHODS, CORS_ALLOW_METHODS);
+            response.getHeaders().set(HttpHeaders.ACCESS_CONTROL_ALLOW_HEADERS, CORS_ALLOW_HEADERS);
         }
     }
        
@@ -174,12 +199,25 @@ public class AuthFilter implements WebFilter {
     // 删除 addCorsHeaders 方法，因为现在由网关统一处理
     
     private <T> Mono<Void> withResult(ServerHttpResponse response, Result<T> result) {
+        // 动态错误信息，固定的认证错误使用 reject
         response.setStatusCode(HttpStatus.OK);
         response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
         DataBufferFactory bufferFactory = response.bufferFactory();
         DataBuffer dataBuffer = bufferFactory.wrap(result.toString().getBytes(StandardCharsets.UTF_8));
         return response.writeWith(Mono.just(dataBuffer));
     }
+
+    /**
+     * 写出固定的认证错误，响应体按请求语言预先序列化
+     * @param exchange web
+     * @param error 错误码
+     * @return Mono<Void>
+     */
+    private Mono<Void> reject(ServerWebExchange exchange, ResponseCodeEnum error) {
+        Locale locale = LocalUtils.getLocale(exchange.getRequest().getHeaders().getFirst(MateData.Accept_Language));
+        return authRejectionResponses.write(exchange.getResponse(), error, locale);
+    }
+
     /**
      * 处理 OPTIONS 请求
      * @param response 响应对象
@@ -196,13 +234,8 @@ public class AuthFilter implements WebFilter {
      * @return w
      */
     private Mono<Void> authCheck(ServerWebExchange exchange,WebFilterChain chain,String token) {
-        // 请求认证中心校验 token 并获取用户信息
-        return this.webClient.post()
-                .uri("/validate")
-                .bodyValue(token)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, this::handleClientError)
-                .bodyToMono(Map.class) // 获取解析后的用户信息
+        // 请求认证中心校验 token 并获取用户信息，短时间内同一令牌复用校验结果
+        return tokenValidationCache.get(token, this::validate)
                 .flatMap(claims -> {
                     // 获取 code
 //                    Object codeObj = claims.get("code");
@@ -213,22 +246,7 @@ public class AuthFilter implements WebFilter {
 //                        Result<String> errorResult = Result.error(code, "认证失败，错误码：" + code);
 //                        return withResult(exchange.getResponse(), errorResult);
 //                    }
-                    String userId = claims.get("userId") != null ? claims.get("userId").toString() : "";
-                    String role = claims.get("role") != null ? claims.get("role").toString() : "";
-                    // 将解析出的用户信息加入请求头
-                    exchange.getRequest().mutate()
-                            //用户ID
-                            .header(MateData.USER_ID, userId)
-                            //租户id
-                            .header(MateData.TENANT_Id, claims.get("tenantId") != null ? claims.get("tenantId").toString() : "")
-                            //角色
-                            .header(MateData.ROLE, role)
-                            //身份
-                            .header(MateData.IDENTITY, claims.get("identity") != null ? claims.get("identity").toString() : "")
-                            //权限
-                            .header("X-scope", claims.get("scope") != null ? claims.get("scope").toString() : "");
-                    Authentication authentication = authenticateToken(token);
-                    return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)); // 继续请求链
+                    return authenticated(exchange, chain, token, claims);
                 }).onErrorResume(e -> {
                     e.printStackTrace();
                     Result<String> errorResult = Result.error(500, "内部服务器错误：" + e.getMessage());
@@ -241,4 +259,45 @@ public class AuthFilter implements WebFilter {
                     return withResult(response, errorResult);
                 });
     }
+
+    /**
+     * 认证通过，将用户信息加入请求头后继续请求链
+     * @param exchange web
+     * @param chain 请求链
+     * @param token 令牌
+     * @param claims 令牌中的用户信息
+     * @return Mono<Void>
+     */
+    private Mono<Void> authenticated(ServerWebExchange exchange, WebFilterChain chain, String token, Map<?, ?> claims) {
+        String userId = claims.get("userId") != null ? claims.get("userId").toString() : "";
+        String role = claims.get("role") != null ? claims.get("role").toString() : "";
+        // 将解析出的用户信息加入请求头
+        exchange.getRequest().mutate()
+                //用户ID
+                .header(MateData.USER_ID, userId)
+                //租户id
+                .header(MateData.TENANT_Id, claims.get("tenantId") != null ? claims.get("tenantId").toString() : "")
+                //角色
+                .header(MateData.ROLE, role)
+                //身份
+                .header(MateData.IDENTITY, claims.get("identity") != null ? claims.get("identity").toString() : "")
+                //权限
+                .header("X-scope", claims.get("scope") != null ? claims.get("scope").toString() : "");
+        Authentication authentication = authenticateToken(token);
+        return chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication)); // 继续请求链
+    }
+
+    /**
+     * 请求认证中心校验令牌
+     * @param token 令牌
+     * @return 解析后的用户信息
+     */
+    private Mono<Map<String, Object>> validate(String token) {
+        return this.webClient.post()
+                .uri("/validate")
+                .bodyValue(token)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError, this::handleClientError)
+                .bodyToMono(new ParameterizedTypeReference<>() {});
+    }
 }
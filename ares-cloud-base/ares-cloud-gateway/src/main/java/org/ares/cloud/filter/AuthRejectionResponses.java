@@ -0,0 +1,106 @@
+package org.ares.cloud.filter;
+
+import org.ares.cloud.common.enums.ResponseCodeEnum;
+import org.ares.cloud.common.model.Result;
+import org.ares.cloud.common.utils.JsonUtils;
+import org.springframework.context.MessageSource;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 认证拒绝响应
+ * 未登录、令牌过期、无权访问等固定错误的响应体按错误码和语言只序列化一次，之后直接写出共享的字节数组；
+ * 响应体在时间戳处拆成前后两段，写出时只拼接当前时间
+ * @date 2024/11/14 20:40
+ */
+@Component
+public class AuthRejectionResponses {
+
+    /**
+     * 序列化时的时间占位值
+     */
+    private static final long TIME_PLACEHOLDER = Long.MIN_VALUE;
+
+    /**
+     * 每个错误码最多缓存的语言数，语言来自请求头，避免被任意值撑大
+     */
+    private static final int MAX_CACHED_LOCALES = 16;
+
+    private final MessageSource messageSource;
+
+    private final Map<ResponseCodeEnum, Map<Locale, Body>> bodies = new ConcurrentHashMap<>();
+
+    public AuthRejectionResponses(MessageSource messageSource) {
+        this.messageSource = messageSource;
+    }
+
+    /**
+     * 写出拒绝响应
+     * @param response 响应对象
+     * @param error 错误码
+     * @param locale 语言
+     * @return Mono<Void>
+     */
+    public Mono<Void> write(ServerHttpResponse response, ResponseCodeEnum error, Locale locale) {
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        Body body = body(error, locale);
+        DataBufferFactory bufferFactory = response.bufferFactory();
+        byte[] time = Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+        return response.writeWith(Flux.just(bufferFactory.wrap(body.prefix()), bufferFactory.wrap(time), bufferFactory.wrap(body.suffix())));
+    }
+
+    private Body body(ResponseCodeEnum error, Locale locale) {
+        Map<Locale, Body> localeBodies = bodies.computeIfAbsent(error, key -> new ConcurrentHashMap<>());
+        Body body = localeBodies.get(locale);
+        if (body == null) {
+            body = serialize(error, locale);
+            if (localeBodies.size() < MAX_CACHED_LOCALES) {
+                localeBodies.putIfAbsent(locale, body);
+            }
+        }
+        return body;
+    }
+
+    private Body serialize(ResponseCodeEnum error, Locale locale) {
+        Result<String> result = Result.error(error);
+        result.setMsg(messageSource.getMessage(error.getMessageKey(), null, error.getMsg(), locale));
+        result.setTime(TIME_PLACEHOLDER);
+        byte[] json = JsonUtils.toJsonString(result).getBytes(StandardCharsets.UTF_8);
+        byte[] placeholder = Long.toString(TIME_PLACEHOLDER).getBytes(StandardCharsets.US_ASCII);
+        int index = indexOf(json, placeholder);
+        return new Body(Arrays.copyOfRange(json, 0, index), Arrays.copyOfRange(json, index + placeholder.length, json.length));
+    }
+
+    private static int indexOf(byte[] source, byte[] target) {
+        outer:
+        for (int i = 0; i <= source.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (source[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalStateException("响应体中缺少时间字段");
+    }
+
+    /**
+     * 以时间戳拆分的响应体
+     */
+    private record Body(byte[] prefix, byte[] suffix) {
+    }
+}
@@ -26,6 +26,24 @@ public class GatewayProperties {
      * 认证的地址
      */
     private String authUrl;
+    /**
+     * 令牌签名key，与认证中心的 ares.cloud.security.key 一致
+     * 配置后网关本地校验令牌，为空时仍请求认证中心校验
+     */
+    private String tokenKey;
+    /**
+     * 认证中心校验结果缓存时间(单位：秒)，默认30秒
+     */
+    private long validateCacheTtl = 30;
+    /**
+     * 认证中心校验结果缓存的最大令牌数
+     */
+    private long validateCacheSize = 10000;
+    /**
+     * 吊销记录最长未同步时间(单位：毫秒)，默认3分钟
+     * 从未同步成功或超过该时间未同步时不使用本地校验，改为请求认证中心校验
+     */
+    private long revocationMaxStaleness = 180000;
 
 
     /**
@@ -52,4 +70,36 @@ public class GatewayProperties {
     public void setAuthUrl(String authUrl) {
         this.authUrl = authUrl;
     }
+
+    public String getTokenKey() {
+        return tokenKey;
+    }
+
+    public void setTokenKey(String tokenKey) {
+        this.tokenKey = tokenKey;
+    }
+
+    public long getValidateCacheTtl() {
+        return validateCacheTtl;
+    }
+
+    public void setValidateCacheTtl(long validateCacheTtl) {
+        this.validateCacheTtl = validateCacheTtl;
+    }
+
+    public long getValidateCacheSize() {
+        return validateCacheSize;
+    }
+
+    public void setValidateCacheSize(long validateCacheSize) {
+        this.validateCacheSize = validateCacheSize;
+    }
+
+    public long getRevocationMaxStaleness() {
+        return revocationMaxStaleness;
+    }
+
+    public void setRevocationMaxStaleness(long revocationMaxStaleness) {
+        this.revocationMaxStaleness = revocationMaxStaleness;
+    }
 }
@@ -0,0 +1,138 @@
+package org.ares.cloud.token;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.ares.cloud.api.auth.constant.AuthConstant;
+import org.ares.cloud.properties.GatewayProperties;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 已吊销令牌的本地副本
+ * 认证中心注销令牌时写入Redis有序集合并广播，网关订阅广播实时更新，
+ * 并定期从有序集合全量同步，补齐启动前或断线期间错过的广播。记录在令牌自然过期后清除。
+ * 启动时在网关接收请求前先同步一次，从未同步成功或同步过期时本地副本不可信
+ * @date 2024/11/12 22:30
+ */
+@Slf4j
+@Component
+public class TokenRevocationStore implements MessageListener {
+
+    /**
+     * 令牌哈希 -> 失效时间（毫秒时间戳）
+     */
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次同步成功的时间（毫秒时间戳），从未同步成功时为0
+     */
+    private volatile long lastSyncedAt;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private TokenValidationCache tokenValidationCache;
+
+    @Resource
+    private GatewayProperties gatewayProperties;
+
+    /**
+     * 启动时同步，Web服务器在所有单例初始化完成后才开始接收请求
+     */
+    @PostConstruct
+    public void init() {
+        sync();
+        if (lastSyncedAt == 0) {
+            log.warn("启动时同步令牌吊销记录失败，同步成功前由认证中心校验令牌");
+        }
+    }
+
+    /**
+     * 本地副本是否可用于校验，从未同步成功或超过最长未同步时间时不可用
+     * @return 是否可用
+     */
+    public boolean isFresh() {
+        long syncedAt = lastSyncedAt;
+        return syncedAt > 0
+                && System.currentTimeMillis() - syncedAt <= gatewayProperties.getRevocationMaxStaleness();
+    }
+
+    /**
+     * 是否没有任何吊销记录，为空时校验无需计算令牌哈希
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return revoked.isEmpty();
+    }
+
+    /**
+     * 令牌是否已吊销
+     * @param tokenHash 令牌哈希
+     * @return 是否已吊销
+     */
+    public boolean isRevoked(String tokenHash) {
+        return revoked.containsKey(tokenHash);
+    }
+
+    /**
+     * 接收认证中心的吊销广播
+     * @param message 消息体为 令牌哈希 + ":" + 失效时间
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(AuthConstant.REVOKE_SEPARATOR);
+        if (separator <= 0) {
+            log.warn("收到格式错误的令牌吊销消息");
+            return;
+        }
+        try {
+            String tokenHash = body.substring(0, separator);
+            revoked.put(tokenHash, Long.parseLong(body.substring(separator + 1)));
+            tokenValidationCache.invalidate(tokenHash);
+        } catch (NumberFormatException e) {
+            log.warn("收到格式错误的令牌吊销消息");
+        }
+    }
+
+    /**
+     * 从Redis同步未过期的吊销记录，并清除本地已过期的记录
+     */
+    @Scheduled(fixedDelayString = "${ares.gateway.revocation-sync-interval:60000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expireAt -> expireAt <= now);
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(AuthConstant.REVOKED_TOKEN_KEY, now, Double.MAX_VALUE);
+            if (tuples == null) {
+                // 事务或管道中才会返回null，不视为同步成功
+                return;
+            }
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null
+                        && revoked.put(tuple.getValue(), tuple.getScore().longValue()) == null) {
+                    // 错过广播的吊销记录，同时移除缓存的校验结果
+                    tokenValidationCache.invalidate(tuple.getValue());
+                }
+            }
+            lastSyncedAt = now;
+        } catch (Exception e) {
+            log.error("同步令牌吊销记录失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.ares.cloud.token;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.ares.cloud.api.auth.utils.TokenHashUtils;
+import org.ares.cloud.common.utils.JsonUtils;
+import org.ares.cloud.properties.GatewayProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 认证中心校验结果缓存
+ * 按令牌哈希缓存校验得到的用户信息，数量有上限，每条的有效期取配置时长与令牌剩余有效期的较小值，
+ * 令牌过期后不会再命中缓存；同一令牌并发校验时只请求认证中心一次，
+ * 其余请求等待同一结果。校验失败不缓存，收到令牌吊销广播时立即失效
+ * @date 2024/11/13 21:20
+ */
+@Component
+public class TokenValidationCache {
+
+    private final AsyncCache<String, Validation> cache;
+
+    public TokenValidationCache(GatewayProperties gatewayProperties) {
+        long ttlNanos = Duration.ofSeconds(gatewayProperties.getValidateCacheTtl()).toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(gatewayProperties.getValidateCacheSize())
+                .expireAfter(new Expiry<String, Validation>() {
+                    @Override
+                    public long expireAfterCreate(String key, Validation value, long currentTime) {
+                        return Math.min(ttlNanos, value.remainingNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Validation value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Validation value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .buildAsync();
+    }
+
+    /**
+     * 获取令牌校验结果，未缓存时调用校验方法
+     * @param token 令牌
+     * @param validator 请求认证中心的校验方法
+     * @return 令牌中的用户信息
+     */
+    public Mono<Map<String, Object>> get(String token, Function<String, Mono<Map<String, Object>>> validator) {
+        // 多个请求共用同一次校验，单个请求取消时不能取消校验本身
+        return Mono.fromFuture(cache.get(TokenHashUtils.hash(token), (key, executor) -> validator.apply(token)
+                        .map(claims -> new Validation(claims, expiresAt(token)))
+                        .toFuture()), true)
+                .map(Validation::claims);
+    }
+
+    /**
+     * 令牌吊销后移除缓存
+     * @param tokenHash 令牌哈希
+     */
+    public void invalidate(String tokenHash) {
+        cache.synchronous().invalidate(tokenHash);
+    }
+
+    /**
+     * 读取令牌载荷中的过期时间，令牌已由认证中心校验通过，这里只解码不验签
+     * @param token 令牌
+     * @return 过期时间戳（毫秒），无法读取时返回 Long.MAX_VALUE，仅按配置时长过期
+     */
+    private static long expiresAt(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length < 2) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            Map<?, ?> payload = JsonUtils.parseObject(Base64.getUrlDecoder().decode(parts[1]), Map.class);
+            if (payload != null && payload.get("exp") instanceof Number exp) {
+                return exp.longValue() * 1000;
+            }
+        } catch (RuntimeException ignored) {
+            // 载荷不是标准 JWT 时按配置时长过期
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 缓存的校验结果
+     * @param claims 令牌中的用户信息
+     * @param expiresAt 令牌过期时间戳（毫秒）
+     */
+    private record Validation(Map<String, Object> claims, long expiresAt) {
+
+        long remainingNanos() {
+            if (expiresAt == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            return Duration.ofMillis(Math.max(0, expiresAt - System.currentTimeMillis())).toNanos();
+        }
+    }
+}
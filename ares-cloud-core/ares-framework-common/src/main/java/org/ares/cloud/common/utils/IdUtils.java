@@ -5,7 +5,9 @@ import cn.hutool.core.lang.UUID;
 import java.net.InetAddress;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author hugo
@@ -34,25 +36,19 @@ public class IdUtils {
 
     private long datacenterId;  // 数据中心
     private long machineId;     // 机器标识
-    private long sequence = 0L; // 序列号
-    private long lastStmp = -1L;// 上一次时间戳
+    private final AtomicLong lastState = new AtomicLong(-1L); // 上一次时间戳（高位）和序列号（低位）
 
     // ==================== 16位短雪花ID生成器相关 ====================
     
     /**
-     * 机器ID（0-99），根据IP地址最后一位生成
+     * 短雪花ID生成器，机器ID默认根据IP地址最后一位生成，接入Redis后由租约分配的机器ID替换
      */
-    private static final int SHORT_SNOWFLAKE_MACHINE_ID;
+    private static volatile SnowflakeIdGenerator shortSnowflakeGenerator;
     
     /**
-     * 序列号（0-9999）
+     * 机器ID租约的截止时间（毫秒时间戳），启用租约后超过截止时间拒绝生成短雪花ID；未启用租约时为-1
      */
-    private static int shortSnowflakeSequence = 0;
-    
-    /**
-     * 上次生成ID的时间戳（秒级）
-     */
-    private static long shortSnowflakeLastTimestamp = -1L;
+    private static volatile long snowflakeLeaseDeadline = -1L;
     
     static {
         // 根据IP地址生成机器ID
@@ -65,7 +61,7 @@ public class IdUtils {
         } catch (Exception e) {
             // 如果获取IP失败，使用默认值
         }
-        SHORT_SNOWFLAKE_MACHINE_ID = machineId;
+        shortSnowflakeGenerator = new SnowflakeIdGenerator(machineId);
     }
 
     public void SnowflakeIdGenerator(long datacenterId, long machineId) {
@@ -80,38 +76,33 @@ public class IdUtils {
     }
 
     // 产生下一个ID
-    public synchronized long nextId() {
-        long currStmp = getNewstmp();
-        if (currStmp < lastStmp) {
-            throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
-        }
-
-        if (currStmp == lastStmp) {
-            // 相同毫秒内，序列号自增
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            // 同一毫秒的序列数已经达到最大
-            if (sequence == 0L) {
-                currStmp = getNextMill();
+    public long nextId() {
+        while (true) {
+            long current = lastState.get();
+            long lastStmp = current >> SEQUENCE_BIT;
+            long currStmp = getNewstmp();
+            if (currStmp < lastStmp) {
+                throw new RuntimeException("Clock moved backwards.  Refusing to generate id");
             }
-        } else {
-            // 不同毫秒内，序列号置为0
-            sequence = 0L;
-        }
-
-        lastStmp = currStmp;
 
-        return (currStmp - START_STMP) << TIMESTMP_LEFT // 时间戳部分
-                | datacenterId << DATACENTER_LEFT       // 数据中心部分
-                | machineId << MACHINE_LEFT             // 机器标识部分
-                | sequence;                             // 序列号部分
-    }
+            long sequence = 0L;
+            if (currStmp == lastStmp) {
+                // 相同毫秒内，序列号自增
+                sequence = ((current & MAX_SEQUENCE) + 1) & MAX_SEQUENCE;
+                // 同一毫秒的序列数已经达到最大，等待下一毫秒
+                if (sequence == 0L) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
 
-    private long getNextMill() {
-        long mill = getNewstmp();
-        while (mill <= lastStmp) {
-            mill = getNewstmp();
+            if (lastState.compareAndSet(current, currStmp << SEQUENCE_BIT | sequence)) {
+                return (currStmp - START_STMP) << TIMESTMP_LEFT // 时间戳部分
+                        | datacenterId << DATACENTER_LEFT       // 数据中心部分
+                        | machineId << MACHINE_LEFT             // 机器标识部分
+                        | sequence;                             // 序列号部分
+            }
         }
-        return mill;
     }
 
     private long getNewstmp() {
@@ -188,25 +179,59 @@ public class IdUtils {
      * 
      * @return 16位雪花ID字符串
      */
-    public static synchronized String generateSnowflakeId() {
-        long now = System.currentTimeMillis() / 1000; // 秒级时间戳
-        
-        if (now == shortSnowflakeLastTimestamp) {
-            // 同一秒内，序列号递增
-            shortSnowflakeSequence = (shortSnowflakeSequence + 1) % 10000;
-            if (shortSnowflakeSequence == 0) {
-                // 序列号用完，等待下一秒
-                while (now <= shortSnowflakeLastTimestamp) {
-                    now = System.currentTimeMillis() / 1000;
-                }
-            }
-        } else {
-            // 新的一秒，序列号重置
-            shortSnowflakeSequence = 0;
-            shortSnowflakeLastTimestamp = now;
+    public static String generateSnowflakeId() {
+        checkSnowflakeLease();
+        return shortSnowflakeGenerator.nextId();
+    }
+
+    /**
+     * 批量生成16位短雪花ID
+     *
+     * @param count 数量
+     * @return 16位雪花ID字符串集合
+     */
+    public static List<String> generateSnowflakeIds(int count) {
+        checkSnowflakeLease();
+        return shortSnowflakeGenerator.nextIds(count);
+    }
+
+    /**
+     * 设置机器ID租约的截止时间，由机器ID租约在获取、续期或丢失租约时调用；
+     * 设置后不再使用根据IP地址生成的机器ID，租约过期或丢失时拒绝生成短雪花ID
+     *
+     * @param deadline 截止时间（毫秒时间戳），租约丢失时为0
+     */
+    public static void setSnowflakeLeaseDeadline(long deadline) {
+        snowflakeLeaseDeadline = deadline;
+    }
+
+    /**
+     * 启用租约后校验租约是否仍然有效，避免与重新获得该机器ID的其他实例生成重复ID
+     */
+    private static void checkSnowflakeLease() {
+        long deadline = snowflakeLeaseDeadline;
+        if (deadline >= 0 && System.currentTimeMillis() >= deadline) {
+            throw new IllegalStateException("Snowflake worker id lease is not held. Refusing to generate id");
         }
-        
-        // 格式化：10位时间戳 + 2位机器ID + 4位序列号 = 16位
-        return String.format("%010d%02d%04d", now, SHORT_SNOWFLAKE_MACHINE_ID, shortSnowflakeSequence);
+    }
+
+    /**
+     * 设置短雪花ID的机器ID，由机器ID租约在获取或更换租约时调用
+     *
+     * @param workerId 机器ID（0-99）
+     */
+    public static synchronized void setSnowflakeWorkerId(int workerId) {
+        if (shortSnowflakeGenerator.getWorkerId() != workerId) {
+            shortSnowflakeGenerator = shortSnowflakeGenerator.withWorkerId(workerId);
+        }
+    }
+
+    /**
+     * 获取短雪花ID当前的机器ID
+     *
+     * @return 机器ID
+     */
+    public static int getSnowflakeWorkerId() {
+        return shortSnowflakeGenerator.getWorkerId();
     }
 }
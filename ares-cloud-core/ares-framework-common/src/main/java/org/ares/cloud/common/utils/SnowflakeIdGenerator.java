@@ -0,0 +1,158 @@
+package org.ares.cloud.common.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 16位短雪花ID生成器
+ * 格式：秒级时间戳(10位) + 机器ID(2位) + 序列号(4位)，示例：1730015724123001
+ * 上次时间戳和序列号打包在一个long中，通过CAS推进，不使用锁；
+ * 时钟小幅回拨时沿用上次时间戳继续发号，回拨超过 {@link #MAX_BACKWARD_SECONDS} 秒时拒绝生成
+ * @date 2024/9/29 15:40
+ */
+public final class SnowflakeIdGenerator {
+
+    /**
+     * 最大机器ID
+     */
+    public static final int MAX_WORKER_ID = 99;
+
+    /**
+     * 每秒最大序列号
+     */
+    private static final long MAX_SEQUENCE = 9999L;
+
+    /**
+     * 打包状态中序列号占用的位数
+     */
+    private static final int SEQUENCE_BITS = 14;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /**
+     * 允许的最大时钟回拨（秒）
+     */
+    private static final long MAX_BACKWARD_SECONDS = 5L;
+
+    /**
+     * 机器ID
+     */
+    private final int workerId;
+
+    /**
+     * 上次发放的时间戳（高位）和序列号（低 {@link #SEQUENCE_BITS} 位）
+     */
+    private final AtomicLong state;
+
+    /**
+     * 构造函数
+     * @param workerId 机器ID（0-99）
+     */
+    public SnowflakeIdGenerator(int workerId) {
+        this(workerId, 0L);
+    }
+
+    private SnowflakeIdGenerator(int workerId, long state) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId can't be greater than " + MAX_WORKER_ID + " or less than 0");
+        }
+        this.workerId = workerId;
+        this.state = new AtomicLong(state);
+    }
+
+    /**
+     * 切换机器ID，新生成器沿用当前的时间戳和序列号，保证切换后不会回到已发放过的时间点
+     * @param workerId 机器ID（0-99）
+     * @return 新的生成器
+     */
+    public SnowflakeIdGenerator withWorkerId(int workerId) {
+        return new SnowflakeIdGenerator(workerId, state.get());
+    }
+
+    /**
+     * 获取机器ID
+     * @return 机器ID
+     */
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 生成一个ID
+     * @return 16位雪花ID字符串
+     */
+    public String nextId() {
+        long reserved = reserve(1);
+        return format(reserved >>> SEQUENCE_BITS, reserved & SEQUENCE_MASK);
+    }
+
+    /**
+     * 批量生成ID，同一秒内的序列号通过一次CAS整段预留
+     * @param count 数量
+     * @return 16位雪花ID字符串集合，按生成顺序排列
+     */
+    public List<String> nextIds(int count) {
+        List<String> ids = new ArrayList<>(Math.max(count, 0));
+        while (ids.size() < count) {
+            int remaining = count - ids.size();
+            long reserved = reserve(remaining);
+            long timestamp = reserved >>> SEQUENCE_BITS;
+            long first = reserved & SEQUENCE_MASK;
+            long last = Math.min(first + remaining - 1, MAX_SEQUENCE);
+            for (long sequence = first; sequence <= last; sequence++) {
+                ids.add(format(timestamp, sequence));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * 预留序列号
+     * @param count 期望数量，当前秒剩余不足时只预留到当前秒的最大序列号
+     * @return 打包的时间戳和预留的第一个序列号
+     */
+    private long reserve(int count) {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = currentSeconds();
+            long timestamp;
+            long first;
+            if (now > lastTimestamp) {
+                timestamp = now;
+                first = 0L;
+            } else {
+                if (lastTimestamp - now > MAX_BACKWARD_SECONDS) {
+                    throw new IllegalStateException("Clock moved backwards. Refusing to generate id");
+                }
+                first = (current & SEQUENCE_MASK) + 1;
+                if (first > MAX_SEQUENCE) {
+                    // 当前秒的序列号用完，等待下一秒
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    continue;
+                }
+                timestamp = lastTimestamp;
+            }
+            long last = Math.min(first + count - 1, MAX_SEQUENCE);
+            if (state.compareAndSet(current, timestamp << SEQUENCE_BITS | last)) {
+                return timestamp << SEQUENCE_BITS | first;
+            }
+        }
+    }
+
+    /**
+     * 格式化：10位时间戳 + 2位机器ID + 4位序列号 = 16位
+     */
+    private String format(long timestamp, long sequence) {
+        return Long.toString(timestamp * 1_000_000L + workerId * 10_000L + sequence);
+    }
+
+    private long currentSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
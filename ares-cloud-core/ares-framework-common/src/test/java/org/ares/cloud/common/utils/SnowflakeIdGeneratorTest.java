@@ -0,0 +1,108 @@
+package org.ares.cloud.common.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SnowflakeIdGenerator 时钟回拨与机器ID边界测试
+ * 通过把上次发放的时间戳推到当前时间之后来模拟时钟回拨
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int SEQUENCE_BITS = 14;
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(1).withWorkerId(SnowflakeIdGenerator.MAX_WORKER_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void encodesWorkerIdAtBounds() {
+        assertThat(workerIdOf(new SnowflakeIdGenerator(0).nextId())).isEqualTo(0);
+        assertThat(workerIdOf(new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID).nextId()))
+                .isEqualTo(SnowflakeIdGenerator.MAX_WORKER_ID);
+    }
+
+    @Test
+    void keepsLastTimestampOnSmallClockRollback() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        long future = currentSeconds() + 2;
+        setState(generator, future, 5);
+
+        String id = generator.nextId();
+        assertThat(id).hasSize(16);
+        assertThat(timestampOf(id)).isEqualTo(future);
+        assertThat(workerIdOf(id)).isEqualTo(7);
+        assertThat(sequenceOf(id)).isEqualTo(6);
+    }
+
+    @Test
+    void refusesLargeClockRollback() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        setState(generator, currentSeconds() + 60, 0);
+
+        assertThatThrownBy(generator::nextId).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> generator.nextIds(3)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void switchingWorkerIdNeverGoesBackInTime() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        long future = currentSeconds() + 2;
+        setState(generator, future, 5);
+
+        String id = generator.withWorkerId(8).nextId();
+        assertThat(timestampOf(id)).isEqualTo(future);
+        assertThat(workerIdOf(id)).isEqualTo(8);
+        assertThat(sequenceOf(id)).isEqualTo(6);
+    }
+
+    @Test
+    void batchContinuesIntoNextSecondWhenSequenceRunsOut() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7);
+        // 上次时间戳取下一秒，避免测试执行中跨秒导致序列号提前归零
+        long last = currentSeconds() + 1;
+        setState(generator, last, 9997);
+
+        List<String> ids = generator.nextIds(4);
+        assertThat(ids).hasSize(4);
+        assertThat(new HashSet<>(ids)).hasSize(4);
+        assertThat(sequenceOf(ids.get(0))).isEqualTo(9998);
+        assertThat(sequenceOf(ids.get(1))).isEqualTo(9999);
+        assertThat(timestampOf(ids.get(1))).isEqualTo(last);
+        assertThat(timestampOf(ids.get(2))).isGreaterThan(last);
+        assertThat(sequenceOf(ids.get(2))).isEqualTo(0);
+    }
+
+    private static void setState(SnowflakeIdGenerator generator, long timestamp, long sequence) {
+        AtomicLong state = (AtomicLong) ReflectionTestUtils.getField(generator, "state");
+        state.set(timestamp << SEQUENCE_BITS | sequence);
+    }
+
+    private static long currentSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static long timestampOf(String id) {
+        return Long.parseLong(id) / 1_000_000L;
+    }
+
+    private static long workerIdOf(String id) {
+        return Long.parseLong(id) / 10_000L % 100;
+    }
+
+    private static long sequenceOf(String id) {
+        return Long.parseLong(id) % 10_000L;
+    }
+}
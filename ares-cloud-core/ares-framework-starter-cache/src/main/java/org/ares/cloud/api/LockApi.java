@@ -1,5 +1,7 @@
 package org.ares.cloud.api;
 
+import java.util.Collection;
+
 /**
  * @author hugo  tangxkwork@163.com
  * @description 锁
@@ -35,6 +37,16 @@ public interface LockApi {
      */
     <T> T lockExecute(String key, LockExecute<T> lockExecute);
 
+    /**
+     * 同时锁定多个key后执行
+     * 所有key在一次原子操作中按固定顺序全部加锁，要么全部成功要么全部失败，共享同一个续期
+     * @param keys 锁的key集合
+     * @param lockExecute 执行器
+     * @param <T> 返回类型
+     * @return 执行结果
+     */
+    <T> T lockExecute(Collection<String> keys, LockExecute<T> lockExecute);
+
     interface LockExecute<T> {
         T execute();
 
@@ -1,12 +1,17 @@
 package org.ares.cloud.redis.config;
 
 import org.ares.cloud.api.LockApi;
+import org.ares.cloud.redis.service.RedisLockNotifier;
 import org.ares.cloud.redis.service.RedisLockService;
+import org.ares.cloud.redis.service.SnowflakeWorkerIdLeaser;
 import org.ares.cloud.redis.util.RedisUtil;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
 /**
@@ -42,14 +47,49 @@ public class RedisConfig {
         //返回工具类
         return redisUtil;
     }
+    /**
+     * 锁释放通知
+     * @return 通知监听
+     */
+    @Bean
+    public RedisLockNotifier redisLockNotifier() {
+        return new RedisLockNotifier();
+    }
+    /**
+     * 订阅锁释放频道
+     * @param factory 连接工厂
+     * @param redisLockNotifier 锁释放通知
+     * @return 监听容器
+     */
+    @Bean
+    public RedisMessageListenerContainer redisLockListenerContainer(RedisConnectionFactory factory,
+                                                                    RedisLockNotifier redisLockNotifier) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(redisLockNotifier, new ChannelTopic(RedisLockNotifier.CHANNEL));
+        return container;
+    }
     /**
      * 锁的redis实现
      * @param redisUtil 工具
      * @param redisTemplate Redis模板
+     * @param redisLockNotifier 锁释放通知
      * @return 锁api
      */
     @Bean
-    public LockApi lockApi(RedisUtil redisUtil, RedisTemplate<String, Object> redisTemplate){
-        return new RedisLockService(redisUtil, redisTemplate);
+    public LockApi lockApi(RedisUtil redisUtil, RedisTemplate<String, Object> redisTemplate,
+                           RedisLockNotifier redisLockNotifier){
+        return new RedisLockService(redisUtil, redisTemplate, redisLockNotifier);
+    }
+    /**
+     * 雪花ID机器ID租约，只在生成短雪花ID的服务中通过 ares.snowflake.lease.enabled=true 开启，
+     * 未开启时使用根据IP地址生成的机器ID
+     * @param redisTemplate Redis模板
+     * @return 机器ID租约
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "ares.snowflake.lease", name = "enabled", havingValue = "true", matchIfMissing = false)
+    public SnowflakeWorkerIdLeaser snowflakeWorkerIdLeaser(RedisTemplate<String, Object> redisTemplate) {
+        return new SnowflakeWorkerIdLeaser(redisTemplate);
     }
 }
@@ -0,0 +1,267 @@
+package org.ares.cloud.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁续期调度器
+ * 基于哈希时间轮管理所有租约，每个tick只处理当前槽位中到期的租约，
+ * 并把它们合并成一次（超过批量上限时分批）Lua调用续期；锁释放时立即取消租约
+ *
+ * @author hugo  tangxkwork@163.com
+ * @description 锁续期调度
+ * @date 2024/01/17/15:03
+ **/
+public class LockRenewalScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LockRenewalScheduler.class);
+
+    /**
+     * 时间轮刻度（毫秒）
+     */
+    private static final long TICK_MILLIS = 100;
+
+    /**
+     * 时间轮槽位数，必须是2的幂
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    /**
+     * 单次Lua调用续期的最大key数量，避免长脚本阻塞Redis
+     */
+    private static final int MAX_BATCH_KEYS = 256;
+
+    /**
+     * 锁续期间隔为锁过期时间的1/3
+     */
+    private static final long RENEWAL_INTERVAL_RATIO = 3;
+
+    /**
+     * 批量续期Lua脚本，ARGV按key依次为锁值和过期秒数，返回每个key是否续期成功
+     */
+    private static final String BATCH_RENEWAL_SCRIPT =
+        "local result = {} " +
+        "for i = 1, #KEYS do " +
+        "    if redis.call('get', KEYS[i]) == ARGV[i * 2 - 1] then " +
+        "        redis.call('expire', KEYS[i], ARGV[i * 2]) " +
+        "        result[i] = 1 " +
+        "    else " +
+        "        result[i] = 0 " +
+        "    end " +
+        "end " +
+        "return result";
+
+    /**
+     * Redis模板
+     */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 批量续期脚本
+     */
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> renewalScript;
+
+    /**
+     * 时间轮槽位，只由调度线程访问
+     */
+    private final List<Queue<Lease>> wheel;
+
+    /**
+     * 新登记的租约，由调度线程在下一个tick放入时间轮
+     */
+    private final Queue<Lease> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 调度线程
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 当前刻度，只由调度线程访问
+     */
+    private long currentTick;
+
+    /**
+     * 构造函数
+     * @param redisTemplate Redis模板
+     */
+    public LockRenewalScheduler(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.renewalScript = new DefaultRedisScript<>();
+        this.renewalScript.setScriptText(BATCH_RENEWAL_SCRIPT);
+        this.renewalScript.setResultType(List.class);
+        this.wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "redis-lock-renewal");
+            t.setDaemon(true);
+            return t;
+        });
+        this.scheduler.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 登记租约，按锁过期时间的1/3周期续期，直到取消或续期失败
+     *
+     * @param keys 锁的key集合
+     * @param lockValue 锁的值
+     * @param timeout 锁过期时间（秒）
+     * @return 租约
+     */
+    public Lease register(List<String> keys, String lockValue, int timeout) {
+        long intervalTicks = Math.max(1, (timeout * 1000L) / RENEWAL_INTERVAL_RATIO / TICK_MILLIS);
+        Lease lease = new Lease(keys, lockValue, timeout, intervalTicks);
+        pending.add(lease);
+        log.debug("Auto-renewal registered for lock: {}, interval: {}ms", keys, intervalTicks * TICK_MILLIS);
+        return lease;
+    }
+
+    /**
+     * 时间轮推进一格
+     */
+    private void tick() {
+        try {
+            Lease lease;
+            while ((lease = pending.poll()) != null) {
+                if (!lease.cancelled) {
+                    schedule(lease, currentTick + lease.intervalTicks);
+                }
+            }
+
+            List<Lease> due = new ArrayList<>();
+            Iterator<Lease> iterator = wheel.get((int) (currentTick & (WHEEL_SIZE - 1))).iterator();
+            while (iterator.hasNext()) {
+                Lease candidate = iterator.next();
+                if (candidate.cancelled) {
+                    iterator.remove();
+                } else if (candidate.deadlineTick <= currentTick) {
+                    iterator.remove();
+                    due.add(candidate);
+                }
+            }
+
+            if (!due.isEmpty()) {
+                renew(due);
+            }
+        } catch (Exception e) {
+            log.error("Error during lock renewal tick", e);
+        } finally {
+            currentTick++;
+        }
+    }
+
+    /**
+     * 放入时间轮
+     */
+    private void schedule(Lease lease, long deadlineTick) {
+        lease.deadlineTick = deadlineTick;
+        wheel.get((int) (deadlineTick & (WHEEL_SIZE - 1))).add(lease);
+    }
+
+    /**
+     * 批量续期到期的租约，成功的租约重新放入时间轮，失败的租约停止续期
+     */
+    private void renew(List<Lease> due) {
+        List<Lease> batch = new ArrayList<>();
+        int batchKeys = 0;
+        for (Lease lease : due) {
+            if (batchKeys > 0 && batchKeys + lease.keys.size() > MAX_BATCH_KEYS) {
+                renewBatch(batch, batchKeys);
+                batch = new ArrayList<>();
+                batchKeys = 0;
+            }
+            batch.add(lease);
+            batchKeys += lease.keys.size();
+        }
+        renewBatch(batch, batchKeys);
+    }
+
+    /**
+     * 一次Lua调用续期一批租约
+     */
+    private void renewBatch(List<Lease> batch, int batchKeys) {
+        List<String> keys = new ArrayList<>(batchKeys);
+        Object[] args = new Object[batchKeys * 2];
+        int index = 0;
+        for (Lease lease : batch) {
+            for (String key : lease.keys) {
+                keys.add(key);
+                // 注意：过期时间传递整数而不是字符串，避免序列化问题
+                args[index++] = lease.lockValue;
+                args[index++] = lease.timeout;
+            }
+        }
+
+        List<?> result;
+        try {
+            result = redisTemplate.execute(renewalScript, keys, args);
+        } catch (Exception e) {
+            // Redis暂时不可用时下一个周期重试，锁在过期前仍有2/3的余量
+            log.error("Error during lock renewal for keys: {}", keys, e);
+            batch.forEach(lease -> schedule(lease, currentTick + lease.intervalTicks));
+            return;
+        }
+
+        int offset = 0;
+        for (Lease lease : batch) {
+            boolean renewed = true;
+            for (int i = 0; i < lease.keys.size(); i++) {
+                Object value = result != null && offset + i < result.size() ? result.get(offset + i) : null;
+                renewed &= value instanceof Number && ((Number) value).longValue() == 1L;
+            }
+            offset += lease.keys.size();
+
+            if (lease.cancelled) {
+                continue;
+            }
+            if (renewed) {
+                schedule(lease, currentTick + lease.intervalTicks);
+                log.debug("Lock renewed for keys: {}", lease.keys);
+            } else {
+                lease.cancelled = true;
+                log.warn("Failed to renew lock for keys: {}", lease.keys);
+            }
+        }
+    }
+
+    /**
+     * 续期租约
+     */
+    public static class Lease {
+        private final List<String> keys;
+        private final String lockValue;
+        private final int timeout;
+        private final long intervalTicks;
+        private long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Lease(List<String> keys, String lockValue, int timeout, long intervalTicks) {
+            this.keys = keys;
+            this.lockValue = lockValue;
+            this.timeout = timeout;
+            this.intervalTicks = intervalTicks;
+        }
+
+        /**
+         * 取消续期，调度线程在所在槽位下一次被访问时移除
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.ares.cloud.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis锁释放通知
+ * 解锁脚本在释放锁时向 {@link #CHANNEL} 发布锁key，本节点上等待该key的线程被唤醒后重新抢锁，
+ * 取代固定间隔的 sleep 轮询
+ *
+ * @author hugo  tangxkwork@163.com
+ * @description 锁释放通知
+ * @date 2024/01/17/15:03
+ **/
+public class RedisLockNotifier implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisLockNotifier.class);
+
+    /**
+     * 锁释放通知频道
+     */
+    public static final String CHANNEL = "lock:release";
+
+    /**
+     * 本节点上每个锁key的等待者
+     */
+    private final ConcurrentMap<String, Set<Waiter>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * 登记等待，必须在抢锁失败之前调用，避免漏掉两者之间发生的释放通知
+     *
+     * @param keys 等待的锁key，任一key释放都会唤醒
+     * @return 等待者
+     */
+    public Waiter register(Collection<String> keys) {
+        Waiter waiter = new Waiter(keys);
+        for (String key : keys) {
+            waiters.compute(key, (k, set) -> {
+                Set<Waiter> target = set == null ? ConcurrentHashMap.newKeySet() : set;
+                target.add(waiter);
+                return target;
+            });
+        }
+        return waiter;
+    }
+
+    /**
+     * 取消等待登记
+     *
+     * @param waiter 等待者
+     */
+    public void unregister(Waiter waiter) {
+        for (String key : waiter.keys) {
+            waiters.computeIfPresent(key, (k, set) -> {
+                set.remove(waiter);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * 收到释放通知，唤醒等待该key的线程
+     *
+     * @param message 消息体为锁key
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        Set<Waiter> set = waiters.get(key);
+        if (set != null) {
+            set.forEach(Waiter::signal);
+            log.debug("Lock release notified for key: {}, waiters: {}", key, set.size());
+        }
+    }
+
+    /**
+     * 等待者
+     */
+    public static class Waiter {
+        private final Collection<String> keys;
+        private final Semaphore semaphore = new Semaphore(0);
+
+        private Waiter(Collection<String> keys) {
+            this.keys = keys;
+        }
+
+        private void signal() {
+            semaphore.release();
+        }
+
+        /**
+         * 等待锁释放通知
+         *
+         * @param timeoutMillis 最长等待时间（毫秒）
+         * @return 是否收到通知
+         * @throws InterruptedException 等待被中断
+         */
+        public boolean await(long timeoutMillis) throws InterruptedException {
+            if (!semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+            // 合并等待期间积累的多次通知
+            semaphore.drainPermits();
+            return true;
+        }
+    }
+}
@@ -8,18 +8,21 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Redis分布式锁服务
- * 基于Redis实现的分布式锁，支持可重入、自动续期、防误删等特性
+ * 基于Redis实现的分布式锁，支持可重入、自动续期、防误删、多key原子加锁等特性
  * 
  * @Author hugo  tangxkwork@163.com
  * @description redis分布式锁
@@ -50,29 +53,33 @@ public class RedisLockService implements LockApi {
     private static final int DEFAULT_RETRY_TIMES = 50;
     
     /**
-     * 锁续期间隔（毫秒），锁过期时间的1/3
+     * 加锁Lua脚本，所有key都空闲时一次性全部加锁，
+     * 成功返回nil，失败返回第一个被占用key剩余的毫秒数
      */
-    private static final long RENEWAL_INTERVAL_RATIO = 3;
+    private static final String LOCK_SCRIPT =
+        "for i = 1, #KEYS do " +
+        "    if redis.call('exists', KEYS[i]) == 1 then " +
+        "        return redis.call('pttl', KEYS[i]) " +
+        "    end " +
+        "end " +
+        "for i = 1, #KEYS do " +
+        "    redis.call('set', KEYS[i], ARGV[1], 'EX', ARGV[2]) " +
+        "end " +
+        "return nil";
     
     /**
-     * 解锁Lua脚本
+     * 解锁Lua脚本，删除成功后发布释放通知唤醒等待者，返回释放的key数量
      */
-    private static final String UNLOCK_SCRIPT = 
-        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
-        "    return redis.call('del', KEYS[1]) " +
-        "else " +
-        "    return 0 " +
-        "end";
-    
-    /**
-     * 续期Lua脚本
-     */
-    private static final String RENEWAL_SCRIPT = 
-        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
-        "    return redis.call('expire', KEYS[1], ARGV[2]) " +
-        "else " +
-        "    return 0 " +
-        "end";
+    private static final String UNLOCK_SCRIPT =
+        "local released = 0 " +
+        "for i = 1, #KEYS do " +
+        "    if redis.call('get', KEYS[i]) == ARGV[1] then " +
+        "        redis.call('del', KEYS[i]) " +
+        "        redis.call('publish', '" + RedisLockNotifier.CHANNEL + "', KEYS[i]) " +
+        "        released = released + 1 " +
+        "    end " +
+        "end " +
+        "return released";
     
     /**
      * Redis工具类
@@ -85,24 +92,30 @@ public class RedisLockService implements LockApi {
     private final RedisTemplate<String, Object> redisTemplate;
     
     /**
-     * 线程本地存储，用于存储当前线程的锁信息
+     * 线程本地存储，按锁key记录当前线程持有的锁信息
+     * 多key加锁时同一个锁信息对应多个key，嵌套加锁已持有的key只增加重入次数，不再访问Redis
      */
-    private final ThreadLocal<LockInfo> lockInfoThreadLocal = new ThreadLocal<>();
+    private final ThreadLocal<Map<String, LockInfo>> heldLocksThreadLocal = new ThreadLocal<>();
     
     /**
-     * 调度器，用于自动续期
+     * 续期调度器，用于自动续期
      */
-    private final ScheduledExecutorService scheduler;
+    private final LockRenewalScheduler renewalScheduler;
     
     /**
-     * 解锁脚本
+     * 锁释放通知，为空时退化为固定间隔重试
      */
-    private final DefaultRedisScript<Long> unlockScript;
+    private final RedisLockNotifier lockNotifier;
     
     /**
-     * 续期脚本
+     * 加锁脚本
      */
-    private final DefaultRedisScript<Long> renewalScript;
+    private final DefaultRedisScript<Long> lockScript;
+    
+    /**
+     * 解锁脚本
+     */
+    private final DefaultRedisScript<Long> unlockScript;
     
     /**
      * 构造函数
@@ -117,6 +130,17 @@ public class RedisLockService implements LockApi {
      * @param redisTemplate Redis模板
      */
     public RedisLockService(RedisUtil redisUtil, RedisTemplate<String, Object> redisTemplate) {
+        this(redisUtil, redisTemplate, null);
+    }
+    
+    /**
+     * 构造函数
+     * @param redisUtil Redis工具类
+     * @param redisTemplate Redis模板
+     * @param lockNotifier 锁释放通知
+     */
+    public RedisLockService(RedisUtil redisUtil, RedisTemplate<String, Object> redisTemplate,
+                            RedisLockNotifier lockNotifier) {
         if (redisUtil == null) {
             throw new IllegalArgumentException("RedisUtil cannot be null");
         }
@@ -126,20 +150,17 @@ public class RedisLockService implements LockApi {
         
         this.redisUtil = redisUtil;
         this.redisTemplate = redisTemplate;
-        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
-            Thread t = new Thread(r, "redis-lock-renewal");
-            t.setDaemon(true);
-            return t;
-        });
+        this.lockNotifier = lockNotifier;
+        this.renewalScheduler = new LockRenewalScheduler(redisTemplate);
         
         // 初始化Lua脚本
+        this.lockScript = new DefaultRedisScript<>();
+        this.lockScript.setScriptText(LOCK_SCRIPT);
+        this.lockScript.setResultType(Long.class);
+        
         this.unlockScript = new DefaultRedisScript<>();
         this.unlockScript.setScriptText(UNLOCK_SCRIPT);
         this.unlockScript.setResultType(Long.class);
-        
-        this.renewalScript = new DefaultRedisScript<>();
-        this.renewalScript.setScriptText(RENEWAL_SCRIPT);
-        this.renewalScript.setResultType(Long.class);
     }
     
     /**
@@ -162,32 +183,52 @@ public class RedisLockService implements LockApi {
             log.warn("Lock key is null or empty, skip unlock");
             return;
         }
-        
-        LockInfo lockInfo = lockInfoThreadLocal.get();
-        if (lockInfo == null || !key.equals(lockInfo.getKey())) {
-            log.warn("No lock info found for key: {}, or key mismatch", key);
+        unLock(Collections.singletonList(key));
+    }
+    
+    /**
+     * 解锁一组key，必须与加锁时的key集合一致
+     * 
+     * @param keys 锁的key集合
+     */
+    public void unLock(Collection<String> keys) {
+        List<String> lockKeys = normalizeKeys(keys);
+        if (lockKeys.isEmpty()) {
+            log.warn("Lock keys are empty, skip unlock");
             return;
         }
         
-        // 减少重入次数
-        lockInfo.decrementCount();
-        
-        if (lockInfo.getCount() > 0) {
-            log.debug("Lock {} is still held by current thread, count: {}", key, lockInfo.getCount());
+        Map<String, LockInfo> heldLocks = heldLocksThreadLocal.get();
+        if (heldLocks == null || !heldLocks.keySet().containsAll(lockKeys)) {
+            log.warn("No lock info found for keys: {}, or keys mismatch", lockKeys);
             return;
         }
         
-        // 重入次数为0，执行真正的解锁
-        String lockValue = lockInfo.getLockValue();
-        boolean unlocked = unlockWithLua(key, lockValue);
-        
-        if (unlocked) {
-            log.debug("Successfully unlocked key: {}", key);
+        for (LockInfo lockInfo : distinctLockInfos(heldLocks, lockKeys)) {
+            // 减少重入次数
+            lockInfo.decrementCount();
+            
+            if (lockInfo.getCount() > 0) {
+                log.debug("Lock {} is still held by current thread, count: {}", lockInfo.getKeys(), lockInfo.getCount());
+                continue;
+            }
+            
+            // 重入次数为0，执行真正的解锁
+            boolean unlocked = unlockWithLua(lockInfo.getKeys(), lockInfo.getLockValue());
+            
             // 停止自动续期
             lockInfo.stopRenewal();
-            lockInfoThreadLocal.remove();
-        } else {
-            log.warn("Failed to unlock key: {}, lock may have expired or been released by other thread", key);
+            lockInfo.getKeys().forEach(heldLocks::remove);
+            
+            if (unlocked) {
+                log.debug("Successfully unlocked keys: {}", lockInfo.getKeys());
+            } else {
+                log.warn("Failed to unlock keys: {}, lock may have expired or been released by other thread", lockInfo.getKeys());
+            }
+        }
+        
+        if (heldLocks.isEmpty()) {
+            heldLocksThreadLocal.remove();
         }
     }
     
@@ -205,40 +246,89 @@ public class RedisLockService implements LockApi {
             log.warn("Lock key is null or empty");
             return false;
         }
+        try {
+            return lock(Collections.singletonList(key), seconds, 0, DEFAULT_RETRY_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * 加锁，锁被占用时等待释放通知后重试
+     * 多个key在一次Lua调用中按字典序全部加锁，要么全部成功要么全部失败，共享同一个锁值和续期任务；
+     * 当前线程已持有的key只增加重入次数，只有尚未持有的key才访问Redis
+     * 
+     * @param keys 锁的key集合
+     * @param seconds 锁超时时间（秒）
+     * @param waitMillis 最长等待时间（毫秒），0表示只尝试一次
+     * @param retryInterval 未开启释放通知或持有者无过期时间时的重试间隔（毫秒）
+     * @return 是否加锁成功
+     * @throws InterruptedException 等待被中断
+     */
+    public boolean lock(Collection<String> keys, int seconds, long waitMillis, long retryInterval)
+            throws InterruptedException {
+        List<String> lockKeys = normalizeKeys(keys);
+        if (lockKeys.isEmpty()) {
+            log.warn("Lock keys are empty");
+            return false;
+        }
         
         if (seconds <= 0) {
             seconds = DEFAULT_LOCK_TIMEOUT;
         }
         
-        LockInfo lockInfo = lockInfoThreadLocal.get();
-        
-        // 检查是否是可重入锁
-        if (lockInfo != null && key.equals(lockInfo.getKey())) {
-            lockInfo.incrementCount();
-            log.debug("Reentrant lock acquired for key: {}, count: {}", key, lockInfo.getCount());
-            return true;
+        Map<String, LockInfo> heldLocks = heldLocksThreadLocal.get();
+        if (heldLocks == null) {
+            heldLocks = new HashMap<>();
+            heldLocksThreadLocal.set(heldLocks);
         }
         
-        // 生成唯一的锁值
-        String lockValue = generateLockValue();
-        
-        // 尝试获取锁
-        boolean acquired = tryLock(key, lockValue, seconds);
+        // 拆分出当前线程尚未持有的key
+        List<String> missingKeys = new ArrayList<>();
+        for (String key : lockKeys) {
+            if (!heldLocks.containsKey(key)) {
+                missingKeys.add(key);
+            }
+        }
         
-        if (acquired) {
-            // 创建新的锁信息
-            lockInfo = new LockInfo(key, lockValue, seconds);
-            lockInfoThreadLocal.set(lockInfo);
+        if (!missingKeys.isEmpty()) {
+            // 生成唯一的锁值
+            String lockValue = generateLockValue();
+            
+            // 尝试获取锁
+            Long ttl = tryLock(missingKeys, lockValue, seconds);
+            if (ttl != null && waitMillis > 0) {
+                ttl = waitLock(missingKeys, lockValue, seconds, waitMillis, retryInterval);
+            }
+            
+            if (ttl != null) {
+                log.debug("Failed to acquire lock for keys: {}", missingKeys);
+                if (heldLocks.isEmpty()) {
+                    heldLocksThreadLocal.remove();
+                }
+                return false;
+            }
+            
+            // 创建新的锁信息，重入次数从0开始，下面统一加1
+            LockInfo lockInfo = new LockInfo(Collections.unmodifiableList(missingKeys), lockValue, seconds);
+            for (String key : missingKeys) {
+                heldLocks.put(key, lockInfo);
+            }
             
             // 启动自动续期
             startRenewal(lockInfo);
             
-            log.debug("Lock acquired for key: {}, value: {}", key, lockValue);
-        } else {
-            log.debug("Failed to acquire lock for key: {}", key);
+            log.debug("Lock acquired for keys: {}, value: {}", missingKeys, lockValue);
         }
         
-        return acquired;
+        for (LockInfo lockInfo : distinctLockInfos(heldLocks, lockKeys)) {
+            lockInfo.incrementCount();
+            if (lockInfo.getCount() > 1) {
+                log.debug("Reentrant lock acquired for keys: {}, count: {}", lockInfo.getKeys(), lockInfo.getCount());
+            }
+        }
+        return true;
     }
     
     /**
@@ -253,8 +343,9 @@ public class RedisLockService implements LockApi {
             return false;
         }
         
-        LockInfo lockInfo = lockInfoThreadLocal.get();
-        if (lockInfo != null && key.equals(lockInfo.getKey())) {
+        Map<String, LockInfo> heldLocks = heldLocksThreadLocal.get();
+        LockInfo lockInfo = heldLocks != null ? heldLocks.get(key) : null;
+        if (lockInfo != null) {
             // 检查当前线程是否持有锁
             return lockInfo.getCount() > 0;
         }
@@ -277,6 +368,19 @@ public class RedisLockService implements LockApi {
         return lockExecute(key, DEFAULT_LOCK_TIMEOUT, DEFAULT_RETRY_TIMES, DEFAULT_RETRY_INTERVAL, lockExecute);
     }
     
+    /**
+     * 执行多key锁
+     * 
+     * @param keys 锁的key集合
+     * @param lockExecute 执行器
+     * @param <T> 返回类型
+     * @return 执行结果
+     */
+    @Override
+    public <T> T lockExecute(Collection<String> keys, LockApi.LockExecute<T> lockExecute) {
+        return lockExecute(keys, DEFAULT_LOCK_TIMEOUT, DEFAULT_RETRY_TIMES, DEFAULT_RETRY_INTERVAL, lockExecute);
+    }
+    
     /**
      * 执行锁（带重试参数）
      * 
@@ -293,91 +397,164 @@ public class RedisLockService implements LockApi {
             log.warn("Lock key is null or empty");
             return lockExecute.waitTimeOut();
         }
+        return lockExecute(Collections.singletonList(key), lockTimeout, retryTimes, retryInterval, lockExecute);
+    }
+    
+    /**
+     * 执行多key锁（带重试参数）
+     * 
+     * @param keys 锁的key集合
+     * @param lockTimeout 锁超时时间（秒）
+     * @param retryTimes 重试次数
+     * @param retryInterval 重试间隔（毫秒）
+     * @param lockExecute 执行器
+     * @param <T> 返回类型
+     * @return 执行结果
+     */
+    public <T> T lockExecute(Collection<String> keys, int lockTimeout, int retryTimes, long retryInterval,
+                             LockApi.LockExecute<T> lockExecute) {
+        List<String> lockKeys = normalizeKeys(keys);
+        if (lockKeys.isEmpty()) {
+            log.warn("Lock keys are empty");
+            return lockExecute.waitTimeOut();
+        }
         
-        boolean acquired = false;
-        int attempts = 0;
-        
-        // 尝试获取锁
-        while (!acquired && attempts < retryTimes) {
-            acquired = lock(key, lockTimeout);
-            
-            if (!acquired) {
-                attempts++;
-                if (attempts < retryTimes) {
-                    log.debug("Failed to acquire lock for key: {}, attempt: {}/{}, retrying in {}ms", 
-                             key, attempts, retryTimes, retryInterval);
-                    
-                    try {
-                        // 添加随机延迟，避免惊群效应
-                        long jitter = ThreadLocalRandom.current().nextLong(retryInterval / 2, retryInterval);
-                        Thread.sleep(jitter);
-                    } catch (InterruptedException e) {
-                        log.warn("Thread interrupted while waiting for lock: {}", e.getMessage());
-                        Thread.currentThread().interrupt();
-                        return lockExecute.waitTimeOut();
-                    }
-                }
-            }
+        // 等待总时长与原先的重试预算一致
+        long waitMillis = Math.max(retryTimes - 1, 0) * retryInterval;
+        boolean acquired;
+        try {
+            acquired = lock(lockKeys, lockTimeout, waitMillis, retryInterval);
+        } catch (InterruptedException e) {
+            log.warn("Thread interrupted while waiting for lock: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return lockExecute.waitTimeOut();
         }
         
         if (!acquired) {
-            log.warn("Failed to acquire lock for key: {} after {} attempts", key, retryTimes);
+            log.warn("Failed to acquire lock for keys: {} within {}ms", lockKeys, waitMillis);
             return lockExecute.waitTimeOut();
         }
         
         try {
-            log.debug("Lock acquired for key: {}, executing business logic", key);
+            log.debug("Lock acquired for keys: {}, executing business logic", lockKeys);
             return lockExecute.execute();
         } catch (Exception e) {
             log.error("Error executing business logic with lock: {}", e.getMessage(), e);
             throw e;
         } finally {
-            unLock(key);
-            log.debug("Lock released for key: {}", key);
+            unLock(lockKeys);
+            log.debug("Lock released for keys: {}", lockKeys);
         }
     }
     
+    /**
+     * 规范化锁key：去空、去重并按字典序排序，保证所有调用方以相同顺序加锁
+     * 
+     * @param keys 锁的key集合
+     * @return 有序的key列表
+     */
+    private List<String> normalizeKeys(Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String key : keys) {
+            if (StringUtils.hasText(key)) {
+                sorted.add(key);
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(sorted));
+    }
+    
+    /**
+     * 取出一组key对应的锁信息，多个key共享同一个锁信息时只返回一次
+     * 
+     * @param heldLocks 当前线程持有的锁
+     * @param keys 锁的key集合
+     * @return 去重后的锁信息
+     */
+    private Set<LockInfo> distinctLockInfos(Map<String, LockInfo> heldLocks, List<String> keys) {
+        Set<LockInfo> lockInfos = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String key : keys) {
+            lockInfos.add(heldLocks.get(key));
+        }
+        return lockInfos;
+    }
+    
     /**
      * 尝试获取锁
      * 
-     * @param key 锁的key
+     * @param keys 锁的key集合
      * @param lockValue 锁的值
      * @param seconds 锁超时时间（秒）
-     * @return 是否获取成功
+     * @return 获取成功返回null，否则返回被占用key剩余的毫秒数（出错时为-1）
      */
-    private boolean tryLock(String key, String lockValue, int seconds) {
+    private Long tryLock(List<String> keys, String lockValue, int seconds) {
         try {
-            // 使用SET NX EX命令原子性地设置锁
-            return redisUtil.set(key, lockValue, seconds);
+            // 单次Lua调用原子性地检查并设置所有key
+            return redisTemplate.execute(lockScript, keys, lockValue, seconds);
         } catch (Exception e) {
-            log.error("Error acquiring lock for key: {}", key, e);
-            return false;
+            log.error("Error acquiring lock for keys: {}", keys, e);
+            return -1L;
         }
     }
     
     /**
-     * 使用Lua脚本解锁，确保原子性
+     * 等待锁释放后重试
+     * 开启释放通知时阻塞到收到通知或持有者锁过期，否则按重试间隔加随机延迟轮询
      * 
-     * @param key 锁的key
+     * @param keys 锁的key集合
      * @param lockValue 锁的值
-     * @return 是否解锁成功
+     * @param seconds 锁超时时间（秒）
+     * @param waitMillis 最长等待时间（毫秒）
+     * @param retryInterval 重试间隔（毫秒）
+     * @return 获取成功返回null，超时返回最后一次的剩余毫秒数
+     * @throws InterruptedException 等待被中断
      */
-    private boolean unlockWithLua(String key, String lockValue) {
+    private Long waitLock(List<String> keys, String lockValue, int seconds, long waitMillis, long retryInterval)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        RedisLockNotifier.Waiter waiter = lockNotifier != null ? lockNotifier.register(keys) : null;
         try {
-            if (redisTemplate != null && unlockScript != null) {
-                // 使用Lua脚本确保原子性
-                Long result = redisTemplate.execute(unlockScript, Collections.singletonList(key), lockValue);
-                return result != null && result == 1L;
-            } else {
-                // 降级到简单删除操作
-                Object currentValue = redisUtil.get(key);
-                if (lockValue.equals(currentValue)) {
-                    return redisUtil.del(key);
+            // 登记后再试一次，覆盖首次失败与登记之间发生的释放
+            Long ttl = tryLock(keys, lockValue, seconds);
+            while (ttl != null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return ttl;
                 }
-                return false;
+                if (waiter != null) {
+                    // 持有者崩溃时不会发布通知，最多等到其锁过期
+                    long timeout = ttl > 0 ? Math.min(ttl, remaining) : Math.min(retryInterval, remaining);
+                    waiter.await(timeout);
+                } else {
+                    // 添加随机延迟，避免惊群效应
+                    long jitter = ThreadLocalRandom.current().nextLong(retryInterval / 2, retryInterval);
+                    Thread.sleep(Math.min(jitter, remaining));
+                }
+                ttl = tryLock(keys, lockValue, seconds);
             }
+            return null;
+        } finally {
+            if (waiter != null) {
+                lockNotifier.unregister(waiter);
+            }
+        }
+    }
+    
+    /**
+     * 使用Lua脚本解锁，确保原子性
+     * 
+     * @param keys 锁的key集合
+     * @param lockValue 锁的值
+     * @return 是否全部解锁成功
+     */
+    private boolean unlockWithLua(List<String> keys, String lockValue) {
+        try {
+            Long result = redisTemplate.execute(unlockScript, keys, lockValue);
+            return result != null && result == keys.size();
         } catch (Exception e) {
-            log.error("Error unlocking key: {}", key, e);
+            log.error("Error unlocking keys: {}", keys, e);
             return false;
         }
     }
@@ -397,35 +574,28 @@ public class RedisLockService implements LockApi {
      * @param lockInfo 锁信息
      */
     private void startRenewal(LockInfo lockInfo) {
-        if (scheduler != null && renewalScript != null) {
-            lockInfo.startRenewal(scheduler, renewalScript, redisTemplate);
-        } else {
-            log.debug("Auto-renewal not available for lock: {}", lockInfo.getKey());
-        }
+        lockInfo.setLease(renewalScheduler.register(lockInfo.getKeys(), lockInfo.getLockValue(), lockInfo.getTimeout()));
     }
     
     /**
      * 锁信息内部类
      */
     private static class LockInfo {
-        private final String key;
+        private final List<String> keys;
         private final String lockValue;
         private final int timeout;
         private int count;
-        private long lastRenewalTime;
-        private ScheduledFuture<?> renewalTask;
-        private final AtomicBoolean renewalActive = new AtomicBoolean(false);
+        private LockRenewalScheduler.Lease lease;
         
-        public LockInfo(String key, String lockValue, int timeout) {
-            this.key = key;
+        public LockInfo(List<String> keys, String lockValue, int timeout) {
+            this.keys = keys;
             this.lockValue = lockValue;
             this.timeout = timeout;
-            this.count = 1;
-            this.lastRenewalTime = System.currentTimeMillis();
+            this.count = 0;
         }
         
-        public String getKey() {
-            return key;
+        public List<String> getKeys() {
+            return keys;
         }
         
         public String getLockValue() {
@@ -450,58 +620,17 @@ public class RedisLockService implements LockApi {
             }
         }
         
-        public long getLastRenewalTime() {
-            return lastRenewalTime;
-        }
-        
-        public void setLastRenewalTime(long lastRenewalTime) {
-            this.lastRenewalTime = lastRenewalTime;
-        }
-        
-        /**
-         * 启动自动续期
-         */
-        public void startRenewal(ScheduledExecutorService scheduler, DefaultRedisScript<Long> renewalScript, 
-                               RedisTemplate<String, Object> redisTemplate) {
-            if (renewalActive.compareAndSet(false, true)) {
-                long renewalInterval = (timeout * 1000L) / RENEWAL_INTERVAL_RATIO;
-                
-                renewalTask = scheduler.scheduleAtFixedRate(() -> {
-                    try {
-                        if (count > 0) {
-                            // 注意：ARGV[2] 应该传递整数而不是字符串，避免序列化问题
-                            Long result = redisTemplate.execute(renewalScript, 
-                                Collections.singletonList(key), lockValue, timeout);
-                            
-                            if (result != null && result == 1L) {
-                                lastRenewalTime = System.currentTimeMillis();
-                                log.debug("Lock renewed for key: {}", key);
-                            } else {
-                                log.warn("Failed to renew lock for key: {}", key);
-                                renewalActive.set(false);
-                            }
-                        } else {
-                            renewalActive.set(false);
-                        }
-                    } catch (Exception e) {
-                        log.error("Error during lock renewal for key: {}", key, e);
-                        renewalActive.set(false);
-                    }
-                }, renewalInterval, renewalInterval, TimeUnit.MILLISECONDS);
-                
-                log.debug("Auto-renewal started for lock: {}, interval: {}ms", key, renewalInterval);
-            }
+        public void setLease(LockRenewalScheduler.Lease lease) {
+            this.lease = lease;
         }
         
         /**
          * 停止自动续期
          */
         public void stopRenewal() {
-            if (renewalActive.compareAndSet(true, false)) {
-                if (renewalTask != null && !renewalTask.isCancelled()) {
-                    renewalTask.cancel(false);
-                    log.debug("Auto-renewal stopped for lock: {}", key);
-                }
+            if (lease != null) {
+                lease.cancel();
+                log.debug("Auto-renewal stopped for lock: {}", keys);
             }
         }
     }
@@ -0,0 +1,207 @@
+package org.ares.cloud.redis.service;
+
+import org.ares.cloud.common.utils.IdUtils;
+import org.ares.cloud.common.utils.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 雪花ID机器ID租约
+ * 启动时从Redis中抢占一个未被使用的机器ID（0-99）并设置到 {@link IdUtils}，之后定期续期；
+ * 启动时抢占不到机器ID则启动失败。续期失败到租约过期、租约丢失或没有空闲机器ID期间拒绝生成ID，
+ * 不会退回根据IP地址生成的机器ID，租约丢失后按较短间隔重新抢占
+ *
+ * @author hugo  tangxkwork@163.com
+ * @description 雪花ID机器ID租约
+ * @date 2024/01/17/15:03
+ **/
+public class SnowflakeWorkerIdLeaser implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeWorkerIdLeaser.class);
+
+    /**
+     * 机器ID key前缀，使用hash tag保证集群模式下所有key在同一个槽位
+     */
+    private static final String KEY_PREFIX = "{snowflake}:worker:";
+
+    /**
+     * 租约过期时间（秒）
+     */
+    private static final int LEASE_TIMEOUT = 60;
+
+    /**
+     * 续期间隔（秒），为过期时间的1/3
+     */
+    private static final int RENEWAL_INTERVAL = LEASE_TIMEOUT / 3;
+
+    /**
+     * 未持有租约时的重新抢占间隔（秒）
+     */
+    private static final int RETRY_INTERVAL = 1;
+
+    /**
+     * 抢占脚本，从随机位置开始依次尝试SET NX，返回抢到的机器ID，全部被占用时返回-1
+     */
+    private static final String ACQUIRE_SCRIPT =
+        "local start = tonumber(ARGV[3]) " +
+        "for i = 0, #KEYS - 1 do " +
+        "    local index = (start + i) % #KEYS + 1 " +
+        "    if redis.call('set', KEYS[index], ARGV[1], 'NX', 'EX', ARGV[2]) then " +
+        "        return index - 1 " +
+        "    end " +
+        "end " +
+        "return -1";
+
+    /**
+     * 续期脚本，只续期自己持有的租约
+     */
+    private static final String RENEWAL_SCRIPT =
+        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+        "    return redis.call('expire', KEYS[1], ARGV[2]) " +
+        "else " +
+        "    return 0 " +
+        "end";
+
+    /**
+     * 释放脚本，只释放自己持有的租约
+     */
+    private static final String RELEASE_SCRIPT =
+        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+        "    return redis.call('del', KEYS[1]) " +
+        "else " +
+        "    return 0 " +
+        "end";
+
+    /**
+     * Redis模板
+     */
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final DefaultRedisScript<Long> acquireScript;
+    private final DefaultRedisScript<Long> renewalScript;
+    private final DefaultRedisScript<Long> releaseScript;
+
+    /**
+     * 全部机器ID的key
+     */
+    private final List<String> workerKeys;
+
+    /**
+     * 租约持有者标识
+     */
+    private final String owner = IdUtils.fastSimpleUUID();
+
+    /**
+     * 续期线程
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 当前持有的机器ID，未持有时为-1
+     */
+    private volatile int workerId = -1;
+
+    /**
+     * 构造函数
+     * @param redisTemplate Redis模板
+     */
+    public SnowflakeWorkerIdLeaser(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.acquireScript = new DefaultRedisScript<>(ACQUIRE_SCRIPT, Long.class);
+        this.renewalScript = new DefaultRedisScript<>(RENEWAL_SCRIPT, Long.class);
+        this.releaseScript = new DefaultRedisScript<>(RELEASE_SCRIPT, Long.class);
+        List<String> keys = new ArrayList<>(SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+        for (int i = 0; i <= SnowflakeIdGenerator.MAX_WORKER_ID; i++) {
+            keys.add(KEY_PREFIX + i);
+        }
+        this.workerKeys = Collections.unmodifiableList(keys);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "snowflake-worker-lease");
+            t.setDaemon(true);
+            return t;
+        });
+        // 启用租约后，未持有租约时拒绝生成ID
+        IdUtils.setSnowflakeLeaseDeadline(0L);
+        lease();
+        if (workerId < 0) {
+            this.scheduler.shutdownNow();
+            throw new IllegalStateException("Unable to lease a snowflake worker id");
+        }
+        this.scheduler.schedule(this::renew, RENEWAL_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 定期续期，未持有租约时按较短间隔重新抢占直到成功
+     */
+    private void renew() {
+        lease();
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::renew, workerId >= 0 ? RENEWAL_INTERVAL : RETRY_INTERVAL, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 续期当前租约，未持有或续期失败时重新抢占
+     */
+    private void lease() {
+        try {
+            // 截止时间从请求发出前开始计算，不会晚于Redis中租约的实际过期时间
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(LEASE_TIMEOUT);
+            int current = workerId;
+            if (current >= 0) {
+                Long renewed = redisTemplate.execute(renewalScript, Collections.singletonList(workerKeys.get(current)),
+                        owner, LEASE_TIMEOUT);
+                if (renewed != null && renewed == 1L) {
+                    IdUtils.setSnowflakeLeaseDeadline(deadline);
+                    return;
+                }
+                IdUtils.setSnowflakeLeaseDeadline(0L);
+                log.warn("Snowflake worker id lease lost, stop generating ids: {}", current);
+                workerId = -1;
+            }
+
+            int start = ThreadLocalRandom.current().nextInt(workerKeys.size());
+            Long acquired = redisTemplate.execute(acquireScript, workerKeys, owner, LEASE_TIMEOUT, start);
+            if (acquired == null || acquired < 0) {
+                log.error("No free snowflake worker id, stop generating ids until one is leased");
+                return;
+            }
+            workerId = acquired.intValue();
+            IdUtils.setSnowflakeWorkerId(workerId);
+            IdUtils.setSnowflakeLeaseDeadline(deadline);
+            log.info("Snowflake worker id leased: {}", workerId);
+        } catch (Exception e) {
+            // Redis暂时不可用时下一个周期重试，租约在过期前仍有2/3的余量，过期后拒绝生成ID
+            log.error("Error during snowflake worker id lease", e);
+        }
+    }
+
+    /**
+     * 停止续期并释放租约
+     */
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        int current = workerId;
+        if (current < 0) {
+            return;
+        }
+        IdUtils.setSnowflakeLeaseDeadline(0L);
+        try {
+            redisTemplate.execute(releaseScript, Collections.singletonList(workerKeys.get(current)), owner);
+        } catch (Exception e) {
+            log.warn("Failed to release snowflake worker id: {}", current, e);
+        }
+    }
+}
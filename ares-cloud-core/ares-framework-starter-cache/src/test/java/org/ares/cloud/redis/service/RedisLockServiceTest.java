@@ -0,0 +1,132 @@
+package org.ares.cloud.redis.service;
+
+import org.ares.cloud.api.LockApi;
+import org.ares.cloud.redis.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RedisLockService 可重入计数测试
+ * 用模拟的 RedisTemplate 记录加锁和解锁脚本的调用，校验重入时不访问 Redis，计数归零时才真正解锁
+ */
+class RedisLockServiceTest {
+
+    private final List<List<String>> lockCalls = new ArrayList<>();
+
+    private final List<List<String>> unlockCalls = new ArrayList<>();
+
+    private RedisUtil redisUtil;
+
+    private RedisLockService lockService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        doAnswer(invocation -> {
+            RedisScript<Long> script = invocation.getArgument(0);
+            List<String> keys = new ArrayList<>(invocation.getArgument(1));
+            if (script.getScriptAsString().contains("'set'")) {
+                lockCalls.add(keys);
+                return null;
+            }
+            if (script.getScriptAsString().contains("'del'")) {
+                unlockCalls.add(keys);
+                return (long) keys.size();
+            }
+            // 续期脚本
+            return 1L;
+        }).when(redisTemplate).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        lockService = new RedisLockService(redisUtil, redisTemplate);
+    }
+
+    @Test
+    void reentrantLockOnlyReleasesWhenCountReachesZero() {
+        assertThat(lockService.lock("order:1", 10)).isTrue();
+        assertThat(lockService.lock("order:1", 10)).isTrue();
+        assertThat(lockService.lock("order:1", 10)).isTrue();
+        assertThat(lockCalls).containsExactly(List.of("order:1"));
+
+        lockService.unLock("order:1");
+        lockService.unLock("order:1");
+        assertThat(unlockCalls).isEmpty();
+        assertThat(lockService.isLock("order:1")).isTrue();
+
+        lockService.unLock("order:1");
+        assertThat(unlockCalls).containsExactly(List.of("order:1"));
+
+        // 已释放的锁不再由当前线程持有，改为查询 Redis
+        when(redisUtil.hasKey("order:1")).thenReturn(false);
+        assertThat(lockService.isLock("order:1")).isFalse();
+    }
+
+    @Test
+    void extraUnlockAfterReleaseDoesNotTouchRedis() {
+        assertThat(lockService.lock("order:1", 10)).isTrue();
+        lockService.unLock("order:1");
+        lockService.unLock("order:1");
+
+        assertThat(unlockCalls).containsExactly(List.of("order:1"));
+    }
+
+    @Test
+    void nestedLockOnHeldKeyOnlyAcquiresMissingKeys() throws InterruptedException {
+        assertThat(lockService.lock(List.of("b", "a"), 10, 0, 100)).isTrue();
+        assertThat(lockService.lock(List.of("a"), 10, 0, 100)).isTrue();
+        assertThat(lockService.lock(List.of("a", "c"), 10, 0, 100)).isTrue();
+        // 多 key 按字典序一次加锁，已持有的 key 只增加重入次数
+        assertThat(lockCalls).containsExactly(List.of("a", "b"), List.of("c"));
+
+        lockService.unLock(List.of("a", "c"));
+        assertThat(unlockCalls).containsExactly(List.of("c"));
+
+        lockService.unLock(List.of("a"));
+        assertThat(unlockCalls).containsExactly(List.of("c"));
+
+        lockService.unLock(List.of("a", "b"));
+        assertThat(unlockCalls).containsExactly(List.of("c"), List.of("a", "b"));
+    }
+
+    @Test
+    void lockExecuteReleasesAfterNestedExecution() {
+        String result = lockService.lockExecute("order:1", new LockApi.LockExecute<String>() {
+            @Override
+            public String execute() {
+                return lockService.lockExecute("order:1", new LockApi.LockExecute<String>() {
+                    @Override
+                    public String execute() {
+                        assertThat(unlockCalls).isEmpty();
+                        return "done";
+                    }
+
+                    @Override
+                    public String waitTimeOut() {
+                        return "timeout";
+                    }
+                });
+            }
+
+            @Override
+            public String waitTimeOut() {
+                return "timeout";
+            }
+        });
+
+        assertThat(result).isEqualTo("done");
+        assertThat(lockCalls).containsExactly(List.of("order:1"));
+        assertThat(unlockCalls).containsExactly(List.of("order:1"));
+    }
+}
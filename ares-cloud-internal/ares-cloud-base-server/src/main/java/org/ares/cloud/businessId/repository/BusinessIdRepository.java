@@ -16,4 +16,12 @@ import org.ares.cloud.businessId.entity.BusinessIdEntity;
 public interface BusinessIdRepository extends BaseMapper<BusinessIdEntity> {
     @Select("select * from  sys_business_id where module_name = #{moduleName}")
     BusinessIdEntity findByModuleName(@Param("moduleName") String moduleName);
+
+    /**
+     * 查询并锁定模块的流水号记录，号段分配在同一事务内完成读取和回写
+     * @param moduleName 模块名称
+     * @return 流水号记录
+     */
+    @Select("select * from  sys_business_id where module_name = #{moduleName} for update")
+    BusinessIdEntity findByModuleNameForUpdate(@Param("moduleName") String moduleName);
 }
\ No newline at end of file
@@ -0,0 +1,313 @@
+package org.ares.cloud.businessId.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.ares.cloud.businessId.entity.BusinessIdEntity;
+import org.ares.cloud.businessId.repository.BusinessIdRepository;
+import org.ares.cloud.common.utils.DateUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 业务ID号段分配器
+ * 每个节点按模块一次从数据库租用 {@link #STEP} 个流水号，号段内的流水号在内存中原子递增发放；
+ * 当前号段剩余量低于水位线时由后台线程预取下一个号段，发放线程只在号段耗尽且预取未完成时才访问数据库。
+ * 流水号跨周期时丢弃旧号段重新租用，多节点之间流水号唯一但不保证连续
+ *
+ * @author hugo tangxkwork@163.com
+ * @version 1.0.0
+ * @date 2024-10-13
+ */
+@Slf4j
+@Component
+public class BusinessIdSegmentAllocator {
+
+    /**
+     * 号段步长
+     */
+    private static final long STEP = 1000L;
+
+    /**
+     * 预取水位线，号段剩余量低于该值时预取下一个号段
+     */
+    private static final long PREFETCH_WATERMARK = STEP / 10;
+
+    /**
+     * 流水号位数，不足补零
+     */
+    private static final int SERIAL_LENGTH = 8;
+
+    /**
+     * 周期类型为从不重置时的周期标识
+     */
+    private static final String NEVER_RESET = "";
+
+    private static final DateTimeFormatter DAY_CYCLE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    /**
+     * 周标识沿用原有的 SimpleDateFormat 格式，与库中已存的周期标识保持一致
+     */
+    private static final ThreadLocal<SimpleDateFormat> WEEK_CYCLE =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-'W'ww"));
+    private static final DateTimeFormatter MONTH_CYCLE = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter YEAR_CYCLE = DateTimeFormatter.ofPattern("yyyy");
+
+    @Resource
+    private BusinessIdRepository businessIdRepository;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 独立事务模板，号段租用立即提交，不受调用方事务影响
+     */
+    private TransactionTemplate requiresNewTemplate;
+
+    /**
+     * 模块号段缓冲
+     */
+    private final ConcurrentMap<String, SegmentBuffer> buffers = new ConcurrentHashMap<>();
+
+    /**
+     * 日期模版格式化器缓存
+     */
+    private final ConcurrentMap<String, DateTimeFormatter> dateFormatters = new ConcurrentHashMap<>();
+
+    /**
+     * 号段预取线程
+     */
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "business-id-segment-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @PostConstruct
+    public void init() {
+        requiresNewTemplate = new TransactionTemplate(transactionManager);
+        requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    /**
+     * 生成业务ID：前缀 + 日期模版 + 8位流水号
+     *
+     * @param moduleName 模块名称
+     * @return 业务ID
+     */
+    public String nextBusinessId(String moduleName) {
+        LocalDateTime now = LocalDateTime.now();
+        SegmentBuffer buffer = buffers.computeIfAbsent(moduleName, SegmentBuffer::new);
+        while (true) {
+            Segment current = buffer.current;
+            if (current == null || !current.cycleKey.equals(cycleKey(now, current.cycleType))) {
+                switchSegment(buffer, current);
+                continue;
+            }
+            long value = current.value.getAndIncrement();
+            if (value <= current.max) {
+                if (current.max - value < PREFETCH_WATERMARK && buffer.next == null) {
+                    prefetch(buffer);
+                }
+                return format(current, value, now);
+            }
+            switchSegment(buffer, current);
+        }
+    }
+
+    /**
+     * 切换号段，优先使用同周期的预取号段，否则同步租用
+     */
+    private void switchSegment(SegmentBuffer buffer, Segment exhausted) {
+        synchronized (buffer) {
+            if (buffer.current != exhausted) {
+                return;
+            }
+            Segment next = buffer.next;
+            buffer.next = null;
+            if (next != null && next.cycleKey.equals(cycleKey(LocalDateTime.now(), next.cycleType))) {
+                buffer.current = next;
+            } else {
+                buffer.current = lease(buffer.moduleName);
+            }
+        }
+    }
+
+    /**
+     * 后台预取下一个号段，同一模块同时只有一个预取任务
+     */
+    private void prefetch(SegmentBuffer buffer) {
+        if (!buffer.loading.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    Segment segment = lease(buffer.moduleName);
+                    synchronized (buffer) {
+                        if (buffer.next == null) {
+                            buffer.next = segment;
+                        }
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to prefetch business id segment for module: {}", buffer.moduleName, e);
+                } finally {
+                    buffer.loading.set(false);
+                }
+            });
+        } catch (Exception e) {
+            buffer.loading.set(false);
+            log.warn("Failed to submit business id segment prefetch for module: {}", buffer.moduleName, e);
+        }
+    }
+
+    /**
+     * 租用号段，在独立事务内锁定模块记录并一次性推进 {@link #STEP} 个流水号
+     * 周期标识在持有行锁后按当前时间计算，只有比库中记录更新的周期才重置流水号，
+     * 其他节点已切换到新周期时，延迟执行的预取不会把周期改回旧值并重复发放流水号
+     */
+    private Segment lease(String moduleName) {
+        return requiresNewTemplate.execute(status -> {
+            BusinessIdEntity entity = businessIdRepository.findByModuleNameForUpdate(moduleName);
+            LocalDateTime now = LocalDateTime.now();
+            if (entity == null) {
+                entity = initializeSequence(moduleName, now);
+            }
+            String cycleKey = cycleKey(now, entity.getCycleType());
+            long maxSequence = entity.getMaxSequence() != null ? entity.getMaxSequence() : 0L;
+            // 进入新周期时流水号从头开始，周期标识只前进不后退
+            if (!NEVER_RESET.equals(cycleKey) && isNewerCycle(cycleKey, entity.getCurrentDate())) {
+                maxSequence = 0L;
+                entity.setCurrentDate(cycleKey);
+            }
+            entity.setMaxSequence(maxSequence + STEP);
+            if (StringUtils.isNotBlank(entity.getId())) {
+                businessIdRepository.updateById(entity);
+            } else {
+                businessIdRepository.insert(entity);
+            }
+            log.debug("Leased business id segment for module: {}, range: [{}, {}]", moduleName, maxSequence + 1, maxSequence + STEP);
+            return new Segment(entity, cycleKey, maxSequence + 1, maxSequence + STEP);
+        });
+    }
+
+    /**
+     * 初始化该模块当天/周/月/年内的流水号记录
+     */
+    private BusinessIdEntity initializeSequence(String moduleName, LocalDateTime now) {
+        BusinessIdEntity newSequence = new BusinessIdEntity();
+        newSequence.setModuleName(moduleName);
+        newSequence.setCurrentDate(DAY_CYCLE.format(now));
+        newSequence.setMaxSequence(0L);
+        newSequence.setDateTemp(DateUtils.YYYYMMDD);
+        newSequence.setCycleType(1);
+        return newSequence;
+    }
+
+    /**
+     * 拼接业务ID
+     */
+    private String format(Segment segment, long value, LocalDateTime now) {
+        StringBuilder builder = new StringBuilder(32);
+        if (StringUtils.isNotBlank(segment.prefix)) {
+            builder.append(segment.prefix);
+        }
+        if (StringUtils.isNotBlank(segment.dateTemp)) {
+            builder.append(dateFormatters.computeIfAbsent(segment.dateTemp, DateTimeFormatter::ofPattern).format(now));
+        }
+        String serial = Long.toString(value);
+        for (int i = serial.length(); i < SERIAL_LENGTH; i++) {
+            builder.append('0');
+        }
+        return builder.append(serial).toString();
+    }
+
+    /**
+     * 根据周期类型获取当前的周期标识
+     * @param now 当前时间
+     * @param cycleType 周期类型（日/周/月/年）
+     * @return 对应周期的日期字符串，从不重置时为空串
+     */
+    private String cycleKey(LocalDateTime now, Integer cycleType) {
+        if (cycleType == null) {
+            return NEVER_RESET;
+        }
+        switch (cycleType) {
+            case 1:
+                return DAY_CYCLE.format(now);
+            case 2:
+                return WEEK_CYCLE.get().format(Date.from(now.atZone(ZoneId.systemDefault()).toInstant()));
+            case 3:
+                return MONTH_CYCLE.format(now);
+            case 4:
+                return YEAR_CYCLE.format(now);
+            default:
+                return NEVER_RESET;
+        }
+    }
+
+    /**
+     * 计算出的周期是否比库中记录的周期更新，周期标识按字典序递增
+     * @param cycleKey 当前周期标识
+     * @param storedKey 库中记录的周期标识
+     * @return 是否更新
+     */
+    private boolean isNewerCycle(String cycleKey, String storedKey) {
+        return StringUtils.isBlank(storedKey) || cycleKey.compareTo(storedKey) > 0;
+    }
+
+    /**
+     * 模块号段缓冲：当前号段和预取的下一个号段
+     */
+    private static final class SegmentBuffer {
+        private final String moduleName;
+        private final AtomicBoolean loading = new AtomicBoolean(false);
+        private volatile Segment current;
+        private volatile Segment next;
+
+        private SegmentBuffer(String moduleName) {
+            this.moduleName = moduleName;
+        }
+    }
+
+    /**
+     * 号段，value为下一个待发放的流水号
+     */
+    private static final class Segment {
+        private final String prefix;
+        private final String dateTemp;
+        private final Integer cycleType;
+        private final String cycleKey;
+        private final AtomicLong value;
+        private final long max;
+
+        private Segment(BusinessIdEntity entity, String cycleKey, long start, long max) {
+            this.prefix = entity.getPrefix();
+            this.dateTemp = entity.getDateTemp();
+            this.cycleType = entity.getCycleType();
+            this.cycleKey = cycleKey;
+            this.value = new AtomicLong(start);
+            this.max = max;
+        }
+    }
+}
@@ -18,7 +18,7 @@ import org.ares.cloud.common.context.ApplicationContext;
 import org.ares.cloud.common.dto.PageResult;
 import org.ares.cloud.common.exception.BaseException;
 import org.ares.cloud.common.exception.BusinessException;
-import org.ares.cloud.common.utils.DateUtils;
+import org.ares.cloud.common.utils.IdUtils;
 import org.ares.cloud.database.service.impl.BaseServiceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,7 +27,6 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Random;
-import java.net.InetAddress;
 
 /**
 * @author hugo tangxkwork@163.com
@@ -42,36 +41,8 @@ public class BusinessIdServiceImpl extends BaseServiceImpl<BusinessIdRepository,
     @Resource
     private BusinessIdConvert convert;
 
-    // ==================== 短雪花ID生成器相关 ====================
-    
-    /**
-     * 机器ID（0-99），根据IP地址最后两位生成
-     */
-    private static final int MACHINE_ID;
-    
-    /**
-     * 序列号（0-9999）
-     */
-    private static int sequence = 0;
-    
-    /**
-     * 上次生成ID的时间戳（秒级）
-     */
-    private static long lastTimestamp = -1L;
-    
-    static {
-        // 根据IP地址生成机器ID
-        int machineId = 12; // 默认值
-        try {
-            InetAddress ip = InetAddress.getLocalHost();
-            byte[] ipAddress = ip.getAddress();
-            // 使用IP地址最后一位对100取模
-            machineId = Math.abs(ipAddress[ipAddress.length - 1]) % 100;
-        } catch (Exception e) {
-            // 如果获取IP失败，使用默认值
-        }
-        MACHINE_ID = machineId;
-    }
+    @Resource
+    private BusinessIdSegmentAllocator segmentAllocator;
 
     /**
     * 创建
@@ -193,62 +164,14 @@ public class BusinessIdServiceImpl extends BaseServiceImpl<BusinessIdRepository,
         return datePart + randomPart;
     }
 
-    @Override
-    @Transactional
-    public String generateBusinessId(String moduleName) {
-        // 获取当前日期
-        Date now = new Date();
-        SimpleDateFormat dateFormat = new SimpleDateFormat(DateUtils.YYYYMMDD); // 你可以根据周期灵活调整格式
-        String currentDate = dateFormat.format(now);
-
-        // 查询该模块对应的当前最大流水号
-        BusinessIdEntity sequence = baseMapper.findByModuleName(moduleName);
-        if (sequence == null){
-            sequence = initializeSequence(moduleName, currentDate);
-        }
-        // 检查是否需要重置流水号
-        boolean needReset = checkIfNeedReset(sequence, now);
-        // 如果需要重置
-        if (needReset) {
-            sequence.setMaxSequence(0L); // 重置流水号为0
-            sequence.setCurrentDate(getCurrentDateForCycle(now, sequence.getCycleType()));
-        }
-        // 自增流水号
-        Long nextSequence = sequence.getMaxSequence() + 1;
-
-        // 更新最大流水号
-        sequence.setMaxSequence(nextSequence);
-        if (StringUtils.isNotBlank(sequence.getId())){
-            baseMapper.updateById(sequence);
-        }else{
-            baseMapper.insert(sequence);
-        }
-        StringBuilder stringBuilder = new StringBuilder();
-        if(StringUtils.isNotBlank(sequence.getPrefix())){
-           stringBuilder.append(sequence.getPrefix());
-        }
-        if (StringUtils.isNotBlank(sequence.getDateTemp())){
-           stringBuilder.append(DateUtils.dateTimeNow(sequence.getDateTemp()));
-        }
-        // 生成业务ID
-        String serialPart = String.format("%08d", nextSequence); // 8位流水号，不足补零
-        return stringBuilder.append(serialPart).toString();
-    }
     /**
-     * 初始化该模块当天/周/月/年内的流水号记录
+     * 生成业务ID，流水号由号段分配器在内存中发放，号段耗尽前后台预取
      * @param moduleName 模块名称
-     * @param currentDate 当前日期（yyyyMMdd/yyyymm等）
-     * @return 初始化的序列对象
+     * @return 业务ID
      */
-    private BusinessIdEntity initializeSequence(String moduleName, String currentDate) {
-        // 创建新流水号记录
-        BusinessIdEntity newSequence = new BusinessIdEntity();
-        newSequence.setModuleName(moduleName);
-        newSequence.setCurrentDate(currentDate);
-        newSequence.setMaxSequence(0L); // 初始为 0
-        newSequence.setDateTemp(DateUtils.YYYYMMDD);
-        newSequence.setCycleType(1);
-        return newSequence;
+    @Override
+    public String generateBusinessId(String moduleName) {
+        return segmentAllocator.nextBusinessId(moduleName);
     }
     /**
     * 获取条件
@@ -262,49 +185,6 @@ public class BusinessIdServiceImpl extends BaseServiceImpl<BusinessIdRepository,
         }
         return wrapper;
     }
-    /**
-     * 检查是否需要重置流水号
-     * @param sequence 当前模块的序列对象
-     * @param now 当前时间
-     * @return 是否需要重置
-     */
-    private boolean checkIfNeedReset(BusinessIdEntity sequence, Date now) {
-        String currentStoredDate = sequence.getCurrentDate();
-
-        String currentDate = getCurrentDateForCycle(now, sequence.getCycleType());
-        if (StringUtils.isBlank(currentDate)){
-            return false;
-        }
-        // 比较当前日期与存储日期是否跨周期
-        return !currentStoredDate.equals(currentDate);
-    }
-    /**
-     * 根据周期类型获取当前的日期表示
-     * @param now 当前时间
-     * @param cycleType 周期类型（日/周/月/年）
-     * @return 对应周期的日期字符串
-     */
-    private String getCurrentDateForCycle(Date now, Integer cycleType) {
-        SimpleDateFormat dateFormat;
-        switch (cycleType) {
-            case 1:
-                dateFormat = new SimpleDateFormat("yyyyMMdd"); // 每天重置
-                break;
-            case 2:
-                dateFormat = new SimpleDateFormat("yyyy-'W'ww"); // 每周重置，格式为YYYY-WW
-                break;
-            case 3:
-                dateFormat = new SimpleDateFormat("yyyyMM"); // 每月重置
-                break;
-            case 4:
-                dateFormat = new SimpleDateFormat("yyyy"); // 每年重置
-                break;
-            default:
-               return null;
-        }
-        return dateFormat.format(now);
-    }
-
     /**
      * 生成16位短雪花ID
      * 格式：秒级时间戳(10位) + 机器ID(2位) + 序列号(4位)
@@ -319,25 +199,7 @@ public class BusinessIdServiceImpl extends BaseServiceImpl<BusinessIdRepository,
      * @return 16位雪花ID字符串
      */
     @Override
-    public synchronized String generateSnowflakeId() {
-        long now = System.currentTimeMillis() / 1000; // 秒级时间戳
-        
-        if (now == lastTimestamp) {
-            // 同一秒内，序列号递增
-            sequence = (sequence + 1) % 10000;
-            if (sequence == 0) {
-                // 序列号用完，等待下一秒
-                while (now <= lastTimestamp) {
-                    now = System.currentTimeMillis() / 1000;
-                }
-            }
-        } else {
-            // 新的一秒，序列号重置
-            sequence = 0;
-            lastTimestamp = now;
-        }
-        
-        // 格式化：10位时间戳 + 2位机器ID + 4位序列号 = 16位
-        return String.format("%010d%02d%04d", now, MACHINE_ID, sequence);
+    public String generateSnowflakeId() {
+        return IdUtils.generateSnowflakeId();
     }
 }
\ No newline at end of file
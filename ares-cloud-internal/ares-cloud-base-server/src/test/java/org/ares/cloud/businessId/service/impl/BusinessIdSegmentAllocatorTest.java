@@ -0,0 +1,110 @@
+package org.ares.cloud.businessId.service.impl;
+
+import org.ares.cloud.businessId.entity.BusinessIdEntity;
+import org.ares.cloud.businessId.repository.BusinessIdRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * BusinessIdSegmentAllocator 号段切换测试
+ * 模拟的事务管理器用一把锁代替行锁，保证同步租用与后台预取对同一条记录串行推进
+ */
+class BusinessIdSegmentAllocatorTest {
+
+    private static final String MODULE = "order";
+
+    private final ReentrantLock rowLock = new ReentrantLock();
+
+    private BusinessIdEntity row;
+
+    private BusinessIdSegmentAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        row = new BusinessIdEntity();
+        row.setId("1");
+        row.setModuleName(MODULE);
+        row.setPrefix("ORD");
+        row.setMaxSequence(0L);
+
+        BusinessIdRepository repository = mock(BusinessIdRepository.class);
+        when(repository.findByModuleNameForUpdate(MODULE)).thenAnswer(invocation -> row);
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            rowLock.lock();
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> {
+            rowLock.unlock();
+            return null;
+        }).when(transactionManager).commit(any());
+
+        allocator = new BusinessIdSegmentAllocator();
+        ReflectionTestUtils.setField(allocator, "businessIdRepository", repository);
+        ReflectionTestUtils.setField(allocator, "transactionManager", transactionManager);
+        allocator.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        allocator.destroy();
+    }
+
+    @Test
+    void rollsOverToNextSegmentWithoutReusingSerials() {
+        Set<Long> serials = new HashSet<>();
+        for (int i = 0; i < 2500; i++) {
+            String id = allocator.nextBusinessId(MODULE);
+            assertThat(id).startsWith("ORD").hasSize(3 + 8);
+            assertThat(serials.add(Long.parseLong(id.substring(3)))).isTrue();
+        }
+
+        // 第一个号段按顺序发放
+        for (long serial = 1; serial <= 1000; serial++) {
+            assertThat(serials).contains(serial);
+        }
+        // 超出第一个号段后从后续号段继续发放，库中上限随每次租用推进一个步长
+        assertThat(serials).allMatch(serial -> serial <= row.getMaxSequence());
+        assertThat(row.getMaxSequence()).isGreaterThanOrEqualTo(3000L);
+        assertThat(row.getMaxSequence() % 1000).isZero();
+    }
+
+    @Test
+    void resetsSerialWhenStoredCycleIsOlder() {
+        row.setCycleType(1);
+        row.setCurrentDate("20000101");
+        row.setMaxSequence(5000L);
+
+        assertThat(allocator.nextBusinessId(MODULE)).isEqualTo("ORD00000001");
+        assertThat(row.getCurrentDate()).isEqualTo(LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE));
+        assertThat(row.getMaxSequence()).isGreaterThanOrEqualTo(1000L);
+    }
+
+    @Test
+    void keepsSerialWhenStoredCycleIsNewer() {
+        // 其他节点已切换到更新的周期，本节点不能把周期改回旧值
+        row.setCycleType(1);
+        row.setCurrentDate("99991231");
+        row.setMaxSequence(5000L);
+
+        assertThat(allocator.nextBusinessId(MODULE)).isEqualTo("ORD00005001");
+        assertThat(row.getCurrentDate()).isEqualTo("99991231");
+    }
+}
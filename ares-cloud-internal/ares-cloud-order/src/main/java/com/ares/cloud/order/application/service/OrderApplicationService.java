@@ -11,6 +11,7 @@ import com.ares.cloud.order.infrastructure.persistence.mapper.OrderMapper;
 import org.ares.cloud.common.model.Money;
 import com.ares.cloud.order.domain.model.valueobject.PayItem;
 import com.ares.cloud.order.domain.model.valueobject.ReservationInfo;
+import com.ares.cloud.order.domain.service.InventoryService;
 import com.ares.cloud.order.domain.service.OrderDomainService;
 import lombok.RequiredArgsConstructor;
 import org.ares.cloud.api.order.commod.CreateOrderCommand;
@@ -31,6 +32,7 @@ public class OrderApplicationService {
 
     private final OrderDomainService orderDomainService;
     private final OrderMapper orderMapper;
+    private final InventoryService inventoryService;
     /**
      * 创建订单
      *
@@ -310,6 +312,16 @@ public class OrderApplicationService {
         return merchantInfo;
     }
 
+    /**
+     * 清除商品库存计数
+     *
+     * @param merchantId 商户ID
+     * @param productIds 商品ID列表
+     */
+    public void evictInventory(String merchantId, List<String> productIds) {
+        inventoryService.evictStock(merchantId, productIds);
+    }
+
     /**
      * 修改预订信息
      *
@@ -25,11 +25,14 @@ import com.ares.cloud.order.domain.model.valueobject.MerchantInfo;
 import com.ares.cloud.order.infrastructure.persistence.converter.DeliveryInfoConverter;
 import com.ares.cloud.order.infrastructure.persistence.converter.OrderConverter;
 import com.ares.cloud.order.infrastructure.persistence.converter.OrderStatusLogConverter;
+import com.ares.cloud.order.infrastructure.persistence.repository.OrderChildrenLoader;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -47,16 +50,15 @@ import com.ares.cloud.order.infrastructure.persistence.mapper.ReservationInfoMap
 public class OrderQueryService  extends BaseServiceImpl<OrderMapper, OrderEntity>{
 
     private final OrderMapper orderMapper;
-    private final OrderItemMapper orderItemMapper;
     private final OrderConverter orderConverter;
     private final DeliveryInfoMapper deliveryInfoMapper;
     private final DeliveryInfoConverter deliveryInfoConverter;
-    private final ProductSpecificationMapper productSpecificationMapper;
     private final MerchantService merchantService;
     private final OrderStatusLogMapper orderStatusLogMapper;
     private final OrderStatusLogConverter orderStatusLogConverter;
     private final ReservationInfoMapper reservationInfoMapper;
     private final ReservationInfoConverter reservationInfoConverter;
+    private final OrderChildrenLoader orderChildrenLoader;
 
     /**
      * 查询订单列表
@@ -70,25 +72,29 @@ public class OrderQueryService  extends BaseServiceImpl<OrderMapper, OrderEntity
         
         // 查询订单
         IPage<OrderEntity> page = orderMapper.selectPage(getPage(query), buildQueryWrapper(query));
+        List<OrderEntity> records = page.getRecords();
+        List<String> orderIds = records.stream().map(OrderEntity::getId).toList();
+        // 分页查询时，只获取订单项基本信息，不查询规格详情；子表按整页订单批量查询
+        Map<String, List<OrderItemEntity>> itemsByOrder = orderChildrenLoader.loadItems(orderIds, false);
+        Map<String, DeliveryInfoDO> deliveryInfos = orderChildrenLoader.loadDeliveryInfos(orderIds);
+        Map<String, ReservationInfoDO> reservationInfos = orderChildrenLoader.loadReservationInfos(
+                records.stream()
+                        .filter(entity -> OrderType.RESERVATION.equals(entity.getOrderType()))
+                        .map(OrderEntity::getId)
+                        .toList());
+        // 同一页的订单通常属于同一商户，商户信息只查询一次
+        Map<String, MerchantInfo> merchants = new HashMap<>();
         // 查询订单项并组装
-        List<OrderDTO> orderDTOs = page.getRecords().stream()
+        List<OrderDTO> orderDTOs = records.stream()
             .map(entity -> {
-                // 分页查询时，只获取订单项基本信息，不查询规格详情
-                List<OrderItemEntity> items = queryOrderItemsBasic(entity.getId());
                 //根据商户id查询商户信息
-                MerchantInfo merchantInfo = merchantService.findById(entity.getMerchantId());
-                // 查询配送信息
-                DeliveryInfoDO deliveryInfoDO = deliveryInfoMapper.selectByOrderId(entity.getId());
-                var dto = orderConverter.toDTO(entity, items, deliveryInfoDO,merchantInfo);
+                MerchantInfo merchantInfo = merchants.computeIfAbsent(entity.getMerchantId(), merchantService::findById);
+                var dto = orderConverter.toDTO(entity, itemsByOrder.getOrDefault(entity.getId(), new ArrayList<>()),
+                        deliveryInfos.get(entity.getId()), merchantInfo);
                 // 如果是预定订单
-                if (OrderType.RESERVATION.equals(entity.getOrderType())){
-                    ReservationInfoDO reservationInfoDO = reservationInfoMapper.selectOne(
-                        new LambdaQueryWrapper<ReservationInfoDO>()
-                            .eq(ReservationInfoDO::getOrderId, entity.getId())
-                    );
-                    if (reservationInfoDO != null) {
-                        dto.setReservationInfo(reservationInfoConverter.toDTO(reservationInfoDO));
-                    }
+                ReservationInfoDO reservationInfoDO = reservationInfos.get(entity.getId());
+                if (reservationInfoDO != null) {
+                    dto.setReservationInfo(reservationInfoConverter.toDTO(reservationInfoDO));
                 }
                 return dto;
             })
@@ -132,15 +138,15 @@ public class OrderQueryService  extends BaseServiceImpl<OrderMapper, OrderEntity
          }
          // 查询订单
          IPage<OrderEntity> page = orderMapper.selectPage(getPage(query), wrapper);
+         List<String> orderIds = page.getRecords().stream().map(OrderEntity::getId).toList();
+         // 分页查询时，只获取订单项基本信息，不查询规格详情；子表按整页订单批量查询
+         Map<String, List<OrderItemEntity>> itemsByOrder = orderChildrenLoader.loadItems(orderIds, false);
+         Map<String, DeliveryInfoDO> deliveryInfos = orderChildrenLoader.loadDeliveryInfos(orderIds);
          // 查询订单项并组装
          List<OrderDTO> orderDTOs = page.getRecords().stream()
-                 .map(entity -> {
-                     // 分页查询时，只获取订单项基本信息，不查询规格详情
-                     List<OrderItemEntity> items = queryOrderItemsBasic(entity.getId());
-                     // 查询配送信息
-                     DeliveryInfoDO deliveryInfoDO = deliveryInfoMapper.selectByOrderId(entity.getId());
-                     return orderConverter.toDTO(entity, items, deliveryInfoDO,merchantInfo);
-                 })
+                 .map(entity -> orderConverter.toDTO(entity,
+                         itemsByOrder.getOrDefault(entity.getId(), new ArrayList<>()),
+                         deliveryInfos.get(entity.getId()), merchantInfo))
                  .toList();
 
          return new PageResult<>(orderDTOs, page.getTotal());
@@ -158,19 +164,9 @@ public class OrderQueryService  extends BaseServiceImpl<OrderMapper, OrderEntity
             return null;
         }
         
-        // 查询订单项
-        List<OrderItemEntity> items = queryOrderItems(orderId);
-        
-        // 查询每个订单项的规格信息
-        for (OrderItemEntity item : items) {
-            // 使用LambdaQueryWrapper查询订单项的规格信息
-            LambdaQueryWrapper<ProductSpecificationEntity> specWrapper = new LambdaQueryWrapper<>();
-            specWrapper.eq(ProductSpecificationEntity::getOrderItemId, item.getId());
-            List<ProductSpecificationEntity> specifications = productSpecificationMapper.selectList(specWrapper);
-            
-            // 将规格信息设置到订单项中
-            item.setSpecifications(specifications);
-        }
+        // 查询订单项，全部订单项的规格信息一次查询
+        List<OrderItemEntity> items = orderChildrenLoader.loadItems(List.of(orderId), true)
+                .getOrDefault(orderId, new ArrayList<>());
 
         // 查询配送信息
         DeliveryInfoDO deliveryInfoDO = deliveryInfoMapper.selectByOrderId(orderEntity.getId());
@@ -196,29 +192,6 @@ public class OrderQueryService  extends BaseServiceImpl<OrderMapper, OrderEntity
         return orderDTO;
     }
 
-    /**
-     * 查询订单的所有订单项
-     *
-     * @param orderId 订单ID
-     * @return 订单项列表
-     */
-    private List<OrderItemEntity> queryOrderItems(String orderId) {
-        LambdaQueryWrapper<OrderItemEntity> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(OrderItemEntity::getOrderId, orderId);
-        return orderItemMapper.selectList(wrapper);
-    }
-    
-    /**
-     * 查询订单项基本信息，不包含规格详情，用于提高分页查询性能
-     *
-     * @param orderId 订单ID
-     * @return 订单项基本信息列表
-     */
-    private List<OrderItemEntity> queryOrderItemsBasic(String orderId) {
-        LambdaQueryWrapper<OrderItemEntity> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(OrderItemEntity::getOrderId, orderId);
-        return orderItemMapper.selectList(wrapper);
-    }
     /**
      * 统计商户各类型订单数量
      *
@@ -515,11 +488,11 @@ public class OrderQueryService  extends BaseServiceImpl<OrderMapper, OrderEntity
      */
     private PageResult<OrderDTO> executePageQuery(CommonOrdersQuery query, LambdaQueryWrapper<OrderEntity> wrapper) {
         IPage<OrderEntity> page = orderMapper.selectPage(getPage(query), wrapper);
+        Map<String, List<OrderItemEntity>> itemsByOrder = orderChildrenLoader.loadItems(
+                page.getRecords().stream().map(OrderEntity::getId).toList(), false);
         List<OrderDTO> dtos = page.getRecords().stream()
-            .map(entity -> {
-                List<OrderItemEntity> items = queryOrderItemsBasic(entity.getId());
-                return orderConverter.toDTO(entity, items, null,null);
-            })
+            .map(entity -> orderConverter.toDTO(entity,
+                    itemsByOrder.getOrDefault(entity.getId(), new ArrayList<>()), null, null))
             .collect(Collectors.toList());
         return new PageResult<>(dtos, page.getTotal());
     }
@@ -0,0 +1,55 @@
+package com.ares.cloud.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 库存配置
+ * 库存预留在Redis中原子完成，数据库记录在订单事务提交后由对账线程池异步写入
+ *
+ * @author ares-cloud
+ */
+@Configuration
+public class InventoryConfig {
+
+    /**
+     * 库存对账线程池
+     * 队列满时由提交线程自己执行，保证对账任务不会丢弃
+     *
+     * @return 线程池
+     */
+    @Bean(name = "inventoryReconcileExecutor")
+    public ThreadPoolTaskExecutor inventoryReconcileExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(2000);
+        executor.setThreadNamePrefix("inventory-reconcile-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 库存预留过期处理线程池
+     * 任务由时间轮线程提交，队列满时拒绝而不是由时间轮线程执行；被拒绝的登记仍在Redis中，由下一次拉取重新放入时间轮
+     *
+     * @return 线程池
+     */
+    @Bean(name = "reservationExpiryExecutor")
+    public ThreadPoolTaskExecutor reservationExpiryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(2000);
+        executor.setThreadNamePrefix("reservation-expiry-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
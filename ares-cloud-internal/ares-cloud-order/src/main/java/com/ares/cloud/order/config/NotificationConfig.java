@@ -0,0 +1,37 @@
+package com.ares.cloud.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 通知配置
+ * 通知消费者按批消费事件，批量通知请求在独立线程池中并发发送
+ *
+ * @author ares-cloud
+ */
+@Configuration
+public class NotificationConfig {
+
+    /**
+     * 通知发送线程池
+     * 线程数即同时进行中的批量请求上限；队列满时由提交的消费者线程自己发送，形成背压
+     *
+     * @return 线程池
+     */
+    @Bean(name = "notificationSendExecutor")
+    public ThreadPoolTaskExecutor notificationSendExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("notification-send-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
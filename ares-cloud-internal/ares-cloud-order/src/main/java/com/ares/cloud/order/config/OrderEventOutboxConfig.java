@@ -0,0 +1,39 @@
+package com.ares.cloud.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 订单事件发件箱配置
+ * 事件在订单事务内写入发件箱，事务提交后和定时任务都只向中继线程发出触发信号，由中继线程批量发布
+ *
+ * @author ares-cloud
+ */
+@Configuration
+@EnableScheduling
+public class OrderEventOutboxConfig {
+
+    /**
+     * 发件箱中继线程
+     * 单线程顺序发布；最多保留一个待执行的触发，多余的触发直接丢弃，排队的那次中继会一并发布它们的事件
+     *
+     * @return 线程池
+     */
+    @Bean(name = "orderOutboxExecutor")
+    public ThreadPoolTaskExecutor orderOutboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("order-outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ares.cloud.order.domain.model.valueobject;
+
+import java.util.Map;
+
+/**
+ * 库存数据库对账任务
+ * 预留引擎中已生效的预留、释放或扣减在事务提交后写入数据库，写入失败时按此任务登记重试
+ *
+ * @param operation 对账操作
+ * @param orderId 订单ID
+ * @param merchantId 商户ID
+ * @param quantities 商品ID到数量（同一商品已合并）
+ * @param attempts 已失败次数
+ */
+public record InventoryReconcileTask(Operation operation, String orderId, String merchantId,
+                                     Map<String, Integer> quantities, int attempts) {
+
+    /**
+     * 再失败一次后的任务
+     *
+     * @return 失败次数加一的任务
+     */
+    public InventoryReconcileTask nextAttempt() {
+        return new InventoryReconcileTask(operation, orderId, merchantId, quantities, attempts + 1);
+    }
+
+    /**
+     * 对账操作
+     */
+    public enum Operation {
+        /**
+         * 插入预留记录
+         */
+        RESERVE,
+        /**
+         * 释放预留记录
+         */
+        RELEASE,
+        /**
+         * 扣减实际库存
+         */
+        DEDUCT
+    }
+}
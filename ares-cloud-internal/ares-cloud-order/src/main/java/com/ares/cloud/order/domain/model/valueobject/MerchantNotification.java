@@ -0,0 +1,31 @@
+package com.ares.cloud.order.domain.model.valueobject;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 商户通知值对象
+ */
+@Data
+@Builder
+public class MerchantNotification {
+    /**
+     * 商户ID（通知接收者）
+     */
+    private String merchantId;
+
+    /**
+     * 订单ID
+     */
+    private String orderId;
+
+    /**
+     * 通知标题
+     */
+    private String title;
+
+    /**
+     * 通知内容
+     */
+    private String content;
+}
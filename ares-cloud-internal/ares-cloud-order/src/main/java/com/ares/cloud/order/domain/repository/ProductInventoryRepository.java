@@ -38,6 +38,15 @@ public interface ProductInventoryRepository {
      * @return 商品库存信息列表
      */
     List<ProductInventory> findByProductIds(List<String> productIds, String merchantId);
+
+    /**
+     * 批量查询商品的实际库存，预留库存为尚未释放或扣减的预留记录之和
+     * 
+     * @param productIds 商品ID列表
+     * @param merchantId 商户ID
+     * @return 商品库存信息列表（包含当前、预留和可用库存）
+     */
+    List<ProductInventory> findStockByProductIds(List<String> productIds, String merchantId);
     
     /**
      * 保存商品库存信息
@@ -88,30 +97,44 @@ public interface ProductInventoryRepository {
     
     /**
      * 批量预留库存
+     * 全部商品在一个事务内按库存和版本条件批量写入，任一商品库存不足时整体不生效
      * 
+     * @param orderId 订单ID
      * @param productInventories 商品库存信息列表（包含预留数量）
      * @param merchantId 商户ID
      * @return 是否全部预留成功
      */
-    boolean reserveStockBatch(List<ProductInventory> productInventories, String merchantId);
+    boolean reserveStockBatch(String orderId, List<ProductInventory> productInventories, String merchantId);
     
     /**
      * 批量释放预留库存
      * 
+     * @param orderId 订单ID
      * @param productInventories 商品库存信息列表（包含释放数量）
      * @param merchantId 商户ID
      * @return 是否全部释放成功
      */
-    boolean releaseReservedStockBatch(List<ProductInventory> productInventories, String merchantId);
+    boolean releaseReservedStockBatch(String orderId, List<ProductInventory> productInventories, String merchantId);
+    
+    /**
+     * 释放订单在数据库中的全部预留记录，用于预留引擎中没有该订单预留明细的情况
+     * 
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     * @return 是否有预留记录被释放
+     */
+    boolean releaseReservationsByOrderId(String orderId, String merchantId);
     
     /**
      * 批量扣减实际库存
+     * 全部商品在一个事务内按库存和版本条件批量扣减，任一商品库存不足时整体不生效
      * 
+     * @param orderId 订单ID
      * @param productInventories 商品库存信息列表（包含扣减数量）
      * @param merchantId 商户ID
      * @return 是否全部扣减成功
      */
-    boolean deductStockBatch(List<ProductInventory> productInventories, String merchantId);
+    boolean deductStockBatch(String orderId, List<ProductInventory> productInventories, String merchantId);
     
     /**
      * 根据商品ID获取完整的商品信息（充血模型）
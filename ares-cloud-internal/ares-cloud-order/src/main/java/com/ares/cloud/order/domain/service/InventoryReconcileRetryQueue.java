@@ -0,0 +1,18 @@
+package com.ares.cloud.order.domain.service;
+
+import com.ares.cloud.order.domain.model.valueobject.InventoryReconcileTask;
+
+/**
+ * 库存对账重试队列
+ * 事务提交后写入数据库失败的对账任务持久登记，按退避间隔重新执行；
+ * 超过最大重试次数后转入失败登记，等待人工修复
+ */
+public interface InventoryReconcileRetryQueue {
+
+    /**
+     * 登记失败的对账任务，按已失败次数计算下次重试时间
+     *
+     * @param task 对账任务
+     */
+    void retry(InventoryReconcileTask task);
+}
@@ -0,0 +1,70 @@
+package com.ares.cloud.order.domain.service;
+
+import com.ares.cloud.order.domain.model.valueobject.ProductInventory;
+
+import java.util.List;
+
+/**
+ * 库存预留引擎
+ * 维护商品的可用/预留库存热计数，一个订单的全部商品在一次原子操作内完成预留、释放或扣减，
+ * 要么全部成功要么全部不生效；数据库由调用方异步对账
+ */
+public interface InventoryReservationEngine {
+
+    /**
+     * 预留订单库存，同一订单重复预留不会重复占用
+     *
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     * @param items 预留明细（商品ID和数量，同一商品已合并）
+     * @return 预留后的库存状态，订单已预留过时返回空集合
+     */
+    List<ProductInventory> reserve(String orderId, String merchantId, List<ProductInventory> items);
+
+    /**
+     * 释放订单的全部预留库存，未预留或已释放时不做任何操作
+     *
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     * @return 释放后的库存状态，数量字段为本次释放的数量
+     */
+    List<ProductInventory> release(String orderId, String merchantId);
+
+    /**
+     * 扣减订单库存，优先消耗订单的预留，超出预留的部分从可用库存中扣减
+     *
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     * @param items 扣减明细（商品ID和数量，同一商品已合并）
+     * @return 每个商品的库存变更，用于撤销
+     */
+    List<StockChange> deduct(String orderId, String merchantId, List<ProductInventory> items);
+
+    /**
+     * 撤销已生效的释放或扣减，调用方事务回滚时使用：按变更量反向恢复订单预留和库存计数；
+     * 计数已过期的商品只恢复订单预留，计数下次使用时按数据库重新加载
+     *
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     * @param changes 要撤销的库存变更
+     */
+    void restore(String orderId, String merchantId, List<StockChange> changes);
+
+    /**
+     * 清除商品的库存计数，下次使用时从数据库重新加载
+     *
+     * @param merchantId 商户ID
+     * @param productIds 商品ID列表
+     */
+    void evict(String merchantId, List<String> productIds);
+
+    /**
+     * 订单在一个商品上的库存变更
+     *
+     * @param productId 商品ID
+     * @param reserved 订单预留的变化量
+     * @param available 可用库存的变化量
+     */
+    record StockChange(String productId, int reserved, int available) {
+    }
+}
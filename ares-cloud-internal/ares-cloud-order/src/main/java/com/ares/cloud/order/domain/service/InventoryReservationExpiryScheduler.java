@@ -0,0 +1,25 @@
+package com.ares.cloud.order.domain.service;
+
+/**
+ * 库存预留过期调度
+ * 预留时登记过期时间，到期后释放订单的预留库存；登记持久保存，服务重启或多实例部署时每个预留只释放一次
+ */
+public interface InventoryReservationExpiryScheduler {
+
+    /**
+     * 登记订单预留的过期时间，重复登记以最后一次为准
+     *
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     * @param expireAt 过期时间（毫秒时间戳）
+     */
+    void schedule(String orderId, String merchantId, long expireAt);
+
+    /**
+     * 取消订单预留的过期登记，订单已支付或预留已释放时调用
+     *
+     * @param orderId 订单ID
+     * @param merchantId 商户ID
+     */
+    void cancel(String orderId, String merchantId);
+}
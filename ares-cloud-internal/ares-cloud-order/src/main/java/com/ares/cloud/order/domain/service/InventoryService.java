@@ -1,6 +1,7 @@
 package com.ares.cloud.order.domain.service;
 
 import com.ares.cloud.order.domain.model.entity.OrderItem;
+import com.ares.cloud.order.domain.model.valueobject.InventoryReconcileTask;
 import com.ares.cloud.order.domain.model.valueobject.ProductInventory;
 
 import java.util.List;
@@ -97,4 +98,20 @@ public interface InventoryService {
      */
     ProductInventory getProductInventory(String productId, String productSpecId, String merchantId);
 
+    /**
+     * 执行库存数据库对账任务
+     * 
+     * @param task 对账任务
+     * @return 是否全部写入成功
+     */
+    boolean reconcile(InventoryReconcileTask task);
+
+    /**
+     * 清除商品的库存计数，商品服务修改库存后调用，下次使用时从数据库重新加载
+     * 
+     * @param merchantId 商户ID
+     * @param productIds 商品ID列表
+     */
+    void evictStock(String merchantId, List<String> productIds);
+
 }
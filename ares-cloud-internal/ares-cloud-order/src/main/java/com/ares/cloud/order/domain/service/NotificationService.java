@@ -1,5 +1,10 @@
 package com.ares.cloud.order.domain.service;
 
+import com.ares.cloud.order.domain.model.valueobject.MerchantNotification;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 通知服务接口
  */
@@ -8,14 +13,23 @@ public interface NotificationService {
      * 通知商户
      */
     void notifyMerchant(String merchantId,String orderId, String title, String content);
-    
+
+    /**
+     * 批量通知商户
+     * 按商户分组后通过批量接口异步发送，不阻塞调用线程
+     *
+     * @param notifications 商户通知
+     * @return 全部发送结束后完成，结果为发送失败的通知
+     */
+    CompletableFuture<List<MerchantNotification>> notifyMerchants(List<MerchantNotification> notifications);
+
     /**
      * 通知骑手
      */
     void notifyRider(String riderId,String orderId, String title, String content);
-    
+
     /**
      * 通知用户
      */
     void notifyUser(String orderId, String title, String content);
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -2,66 +2,85 @@ package com.ares.cloud.order.domain.service.impl;
 
 import cn.hutool.core.collection.CollectionUtil;
 import com.ares.cloud.order.domain.model.entity.OrderItem;
+import com.ares.cloud.order.domain.model.valueobject.InventoryReconcileTask;
 import com.ares.cloud.order.domain.model.valueobject.ProductInventory;
 import com.ares.cloud.order.domain.repository.ProductInventoryRepository;
+import com.ares.cloud.order.domain.service.InventoryReconcileRetryQueue;
+import com.ares.cloud.order.domain.service.InventoryReservationEngine;
+import com.ares.cloud.order.domain.service.InventoryReservationExpiryScheduler;
 import com.ares.cloud.order.domain.service.InventoryService;
 import com.ares.cloud.order.domain.service.DomainEventPublisher;
+import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.ares.cloud.common.exception.RequestBadException;
 import com.ares.cloud.order.domain.enums.OrderError;
-// 事件相关导入已移除，现在通过DomainEventPublisher发布MQ消息
-import org.springframework.context.ApplicationEventPublisher;
+import org.ares.cloud.common.utils.IdUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * 库存服务实现
+ * 预留、释放和扣减由库存预留引擎对整个订单原子执行，不再逐个商品读改写数据库；
+ * 数据库中的预留记录和实际库存在事务提交后异步对账，事务回滚时撤销已完成的预留、释放和扣减；
+ * 预留时登记过期时间，超时未支付的预留由过期调度释放，释放和扣减的事务提交后才取消过期登记
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class InventoryServiceImpl implements InventoryService {
-    
+
     private final ProductInventoryRepository productInventoryRepository;
     private final DomainEventPublisher domainEventPublisher;
-    
+    private final InventoryReservationEngine inventoryReservationEngine;
+    private final InventoryReservationExpiryScheduler inventoryReservationExpiryScheduler;
+    private final InventoryReconcileRetryQueue inventoryReconcileRetryQueue;
+
+    /**
+     * 预留超时时间，超时未支付的订单预留由过期调度释放
+     */
+    @Value("${ares.order.inventory.reservation-timeout:30m}")
+    private Duration reservationTimeout;
+
+    @Resource(name = "inventoryReconcileExecutor")
+    private Executor inventoryReconcileExecutor;
+
     @Override
     public boolean checkStockAvailability(List<OrderItem> orderItems, String merchantId) {
         if (CollectionUtil.isEmpty(orderItems)) {
             return true;
         }
-        
+
         try {
             for (OrderItem orderItem : orderItems) {
                 // 跳过服务费和配送费项目
-                if ("serviceFee".equals(orderItem.getProductId()) || 
-                    "service_fee".equals(orderItem.getProductId()) || 
-                    "delivery_fee".equals(orderItem.getProductId())) {
+                if (isFeeItem(orderItem)) {
                     continue;
                 }
-                
-                // 获取第一个规格ID（如果有多个规格，这里需要根据业务逻辑处理）
-                String specId = null;
-                if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                    specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                }
-                
+
                 ProductInventory inventory = checkProductStock(
-                    orderItem.getProductId(), 
-                    specId,
-                    orderItem.getQuantity(), 
+                    orderItem.getProductId(),
+                    getSpecId(orderItem),
+                    orderItem.getQuantity(),
                     merchantId
                 );
-                
+
                 if (inventory == null || !inventory.hasEnoughStock(orderItem.getQuantity())) {
-                    log.warn("商品 {} 库存不足，需要 {}，可用 {}", 
-                        orderItem.getProductName(), 
-                        orderItem.getQuantity(), 
+                    log.warn("商品 {} 库存不足，需要 {}，可用 {}",
+                        orderItem.getProductName(),
+                        orderItem.getQuantity(),
                         inventory != null ? inventory.getAvailableStock() : 0);
                     return false;
                 }
@@ -73,185 +92,48 @@ public class InventoryServiceImpl implements InventoryService {
         }
     }
 
-    
     @Override
-    @Transactional
     public boolean reserveStock(List<OrderItem> orderItems, String merchantId) {
-        if (CollectionUtil.isEmpty(orderItems)) {
-            return true;
-        }
-        
-        try {
-            List<ProductInventory> inventoriesToReserve = new ArrayList<>();
-            
-            for (OrderItem orderItem : orderItems) {
-                // 跳过服务费和配送费项目
-                if ("serviceFee".equals(orderItem.getProductId()) || 
-                    "service_fee".equals(orderItem.getProductId()) || 
-                    "delivery_fee".equals(orderItem.getProductId())) {
-                    continue;
-                }
-                
-                // 获取第一个规格ID（如果有多个规格，这里需要根据业务逻辑处理）
-                String specId = null;
-                if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                    specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                }
-                
-                ProductInventory currentInventory = getProductInventory(
-                    orderItem.getProductId(), 
-                    specId,
-                    merchantId
-                );
-                
-                if (currentInventory == null) {
-                    log.error("商品 {} 库存信息不存在", orderItem.getProductId());
-                    return false;
-                }
-                
-                // 预留库存
-                ProductInventory reservedInventory = currentInventory.reserveStock(orderItem.getQuantity());
-                inventoriesToReserve.add(reservedInventory);
-            }
-            
-            // 批量保存预留后的库存
-            productInventoryRepository.saveAll(inventoriesToReserve);
-            log.info("成功预留库存，订单项数量: {}", orderItems.size());
-            return true;
-            
-        } catch (Exception e) {
-            log.error("预留库存失败", e);
-            throw new RequestBadException(OrderError.INVENTORY_RESERVE_FAILED);
-        }
+        // 未关联订单的预留使用独立的预留编号
+        return reserveStock(IdUtils.generateSnowflakeId(), orderItems, merchantId);
     }
-    
+
     @Override
-    @Transactional
     public boolean releaseStock(List<OrderItem> orderItems, String merchantId) {
-        if (CollectionUtil.isEmpty(orderItems)) {
-            return true;
-        }
-        
-        try {
-            List<ProductInventory> inventoriesToRelease = new ArrayList<>();
-            
-            for (OrderItem orderItem : orderItems) {
-                // 跳过服务费和配送费项目
-                if ("serviceFee".equals(orderItem.getProductId()) || 
-                    "service_fee".equals(orderItem.getProductId()) || 
-                    "delivery_fee".equals(orderItem.getProductId())) {
-                    continue;
-                }
-                
-                // 获取第一个规格ID（如果有多个规格，这里需要根据业务逻辑处理）
-                String specId = null;
-                if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                    specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                }
-                
-                ProductInventory currentInventory = getProductInventory(
-                    orderItem.getProductId(), 
-                    specId,
-                    merchantId
-                );
-                
-                if (currentInventory == null) {
-                    log.warn("商品 {} 库存信息不存在，跳过释放", orderItem.getProductId());
-                    continue;
-                }
-                
-                // 释放预留库存
-                ProductInventory releasedInventory = currentInventory.releaseReservedStock(orderItem.getQuantity());
-                inventoriesToRelease.add(releasedInventory);
-            }
-            
-            // 批量保存释放后的库存
-            if (!inventoriesToRelease.isEmpty()) {
-                productInventoryRepository.saveAll(inventoriesToRelease);
-                log.info("成功释放库存，订单项数量: {}", orderItems.size());
-            }
-            return true;
-            
-        } catch (Exception e) {
-            log.error("释放库存失败", e);
-            throw new RequestBadException(OrderError.INVENTORY_RELEASE_FAILED);
-        }
+        // 预留以订单为单位登记，未指定订单ID时无法定位预留，不能当作释放成功
+        log.error("未指定订单ID，无法定位预留记录，商户ID: {}", merchantId);
+        throw new RequestBadException(OrderError.INVENTORY_RELEASE_FAILED);
     }
-    
+
     @Override
-    @Transactional
     public boolean deductStock(List<OrderItem> orderItems, String merchantId) {
-        if (CollectionUtil.isEmpty(orderItems)) {
-            return true;
-        }
-        
-        try {
-            List<ProductInventory> inventoriesToDeduct = new ArrayList<>();
-            
-            for (OrderItem orderItem : orderItems) {
-                // 跳过服务费和配送费项目
-                if ("serviceFee".equals(orderItem.getProductId()) || 
-                    "service_fee".equals(orderItem.getProductId()) || 
-                    "delivery_fee".equals(orderItem.getProductId())) {
-                    continue;
-                }
-                
-                // 获取第一个规格ID（如果有多个规格，这里需要根据业务逻辑处理）
-                String specId = null;
-                if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                    specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                }
-                
-                ProductInventory currentInventory = getProductInventory(
-                    orderItem.getProductId(), 
-                    specId,
-                    merchantId
-                );
-                
-                if (currentInventory == null) {
-                    log.error("商品 {} 库存信息不存在", orderItem.getProductId());
-                    return false;
-                }
-                
-                // 扣减实际库存
-                ProductInventory deductedInventory = currentInventory.deductStock(orderItem.getQuantity());
-                inventoriesToDeduct.add(deductedInventory);
-            }
-            
-            // 批量保存扣减后的库存
-            productInventoryRepository.saveAll(inventoriesToDeduct);
-            log.info("成功扣减库存，订单项数量: {}", orderItems.size());
-            return true;
-            
-        } catch (Exception e) {
-            log.error("扣减库存失败", e);
-            throw new RequestBadException(OrderError.INVENTORY_DEDUCT_FAILED);
-        }
+        // 未关联订单时没有可消耗的预留，直接从可用库存扣减
+        return deductStock(IdUtils.generateSnowflakeId(), orderItems, merchantId);
     }
-    
+
     @Override
     public ProductInventory checkProductStock(String productId, String productSpecId, Integer quantity, String merchantId) {
         try {
             ProductInventory inventory = getProductInventory(productId, productSpecId, merchantId);
-            
+
             if (inventory == null) {
                 throw new RequestBadException(OrderError.PRODUCT_NOT_FOUND);
             }
-            
+
             // 验证商品存在且可用
             inventory.validateProductExists();
-            
+
             // 验证库存充足
             inventory.validateStockSufficient(quantity);
-            
+
             return inventory;
-            
+
         } catch (Exception e) {
             log.error("检查商品库存失败，商品ID: {}, 规格ID: {}, 数量: {}", productId, productSpecId, quantity, e);
             throw e;
         }
     }
-    
+
     @Override
     public ProductInventory getProductInventory(String productId, String productSpecId, String merchantId) {
         try {
@@ -270,102 +152,298 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     public boolean reserveStock(String orderId, List<OrderItem> orderItems, String merchantId) {
-        boolean result = reserveStock(orderItems, merchantId);
-        if (result && orderId != null) {
-            // 发布库存预留事件
-            List<ProductInventory> reservedInventories = new ArrayList<>();
-            for (OrderItem orderItem : orderItems) {
-                if (!"serviceFee".equals(orderItem.getProductId()) && 
-                    !"service_fee".equals(orderItem.getProductId()) && 
-                    !"delivery_fee".equals(orderItem.getProductId())) {
-                    String specId = null;
-                    if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                        specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                    }
-                    ProductInventory inventory = getProductInventory(orderItem.getProductId(), specId, merchantId);
-                    if (inventory != null) {
-                        reservedInventories.add(inventory);
-                    }
-                }
+        List<ProductInventory> lines = toInventoryLines(orderItems, merchantId);
+        if (lines.isEmpty()) {
+            return true;
+        }
+
+        List<ProductInventory> reserved;
+        try {
+            reserved = inventoryReservationEngine.reserve(orderId, merchantId, lines);
+        } catch (RequestBadException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("预留库存失败，订单ID: {}", orderId, e);
+            throw new RequestBadException(OrderError.INVENTORY_RESERVE_FAILED);
+        }
+        if (reserved.isEmpty()) {
+            // 订单已预留过
+            return true;
+        }
+        log.info("成功预留库存，订单ID: {}, 商品数量: {}", orderId, reserved.size());
+
+        long reserveAt = System.currentTimeMillis();
+        long expireAt = reserveAt + reservationTimeout.toMillis();
+        try {
+            inventoryReservationExpiryScheduler.schedule(orderId, merchantId, expireAt);
+        } catch (Exception e) {
+            // 没有过期登记的预留不会自动释放，直接撤销本次预留
+            log.error("登记库存预留过期时间失败，订单ID: {}", orderId, e);
+            inventoryReservationEngine.release(orderId, merchantId);
+            throw new RequestBadException(OrderError.INVENTORY_RESERVE_FAILED);
+        }
+
+        reconcileAfterCommit(
+            reconcileTask(InventoryReconcileTask.Operation.RESERVE, orderId, merchantId, lines),
+            () -> {
+                inventoryReservationEngine.release(orderId, merchantId);
+                inventoryReservationExpiryScheduler.cancel(orderId, merchantId);
             }
-            if (!reservedInventories.isEmpty()) {
-                // 发布库存预留事件
-                try {
-                    List<DomainEventPublisher.InventoryReservedItem> reservedItems = reservedInventories.stream()
-                            .map(inv -> new DomainEventPublisher.InventoryReservedItem(
-                                    inv.getProductId(),
-                                    inv.getProductSpecId(),
-                                    inv.getReservedStock()
-                            ))
-                            .collect(Collectors.toList());
-                    
-                    domainEventPublisher.publishInventoryReserved(
-                            orderId,
-                            merchantId,
-                            null, // userId 在库存服务中不可用
-                            reservedItems,
-                            java.time.LocalDateTime.now(),
-                            java.time.LocalDateTime.now().plusMinutes(30) // 30分钟后过期
-                    );
-                } catch (Exception e) {
-                    log.error("发布库存预留事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+        );
+
+        // 发布库存预留事件
+        try {
+            List<DomainEventPublisher.InventoryReservedItem> reservedItems = new ArrayList<>();
+            for (OrderItem orderItem : orderItems) {
+                if (!isFeeItem(orderItem)) {
+                    reservedItems.add(new DomainEventPublisher.InventoryReservedItem(
+                            orderItem.getProductId(),
+                            getSpecId(orderItem),
+                            orderItem.getQuantity()
+                    ));
                 }
             }
+
+            domainEventPublisher.publishInventoryReserved(
+                    orderId,
+                    merchantId,
+                    null, // userId 在库存服务中不可用
+                    reservedItems,
+                    toLocalDateTime(reserveAt),
+                    toLocalDateTime(expireAt)
+            );
+        } catch (Exception e) {
+            log.error("发布库存预留事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
         }
-        return result;
+        return true;
     }
-    
+
     @Override
     public boolean releaseStock(String orderId, List<OrderItem> orderItems, String merchantId) {
-        boolean result = releaseStock(orderItems, merchantId);
-        if (result && orderId != null) {
-            // 发布库存释放事件
-            List<ProductInventory> releasedInventories = new ArrayList<>();
-            for (OrderItem orderItem : orderItems) {
-                if (!"serviceFee".equals(orderItem.getProductId()) && 
-                    !"service_fee".equals(orderItem.getProductId()) && 
-                    !"delivery_fee".equals(orderItem.getProductId())) {
-                    String specId = null;
-                    if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                        specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                    }
-                    ProductInventory inventory = getProductInventory(orderItem.getProductId(), specId, merchantId);
-                    if (inventory != null) {
-                        releasedInventories.add(inventory);
-                    }
-                }
-            }
-            if (!releasedInventories.isEmpty()) {
-                // 库存释放事件将通过DomainEventPublisher发布MQ消息
-            }
+        List<ProductInventory> released;
+        try {
+            released = inventoryReservationEngine.release(orderId, merchantId);
+        } catch (Exception e) {
+            log.error("释放库存失败，订单ID: {}", orderId, e);
+            throw new RequestBadException(OrderError.INVENTORY_RELEASE_FAILED);
         }
-        return result;
+        // 事务提交后才取消过期登记，事务回滚时预留仍按原登记过期
+        runAfterCommit(() -> inventoryReservationExpiryScheduler.cancel(orderId, merchantId));
+        if (released.isEmpty()) {
+            releaseUntrackedReservations(orderId, orderItems, merchantId);
+            return true;
+        }
+        log.info("成功释放库存，订单ID: {}, 商品数量: {}", orderId, released.size());
+
+        // 事务回滚时把释放的数量放回订单预留
+        List<InventoryReservationEngine.StockChange> changes = released.stream()
+            .map(inventory -> new InventoryReservationEngine.StockChange(
+                inventory.getProductId(), -inventory.getQuantity(), inventory.getQuantity()))
+            .toList();
+        reconcileAfterCommit(
+            reconcileTask(InventoryReconcileTask.Operation.RELEASE, orderId, merchantId, released),
+            () -> inventoryReservationEngine.restore(orderId, merchantId, changes)
+        );
+        return true;
     }
-    
+
     @Override
     public boolean deductStock(String orderId, List<OrderItem> orderItems, String merchantId) {
-        boolean result = deductStock(orderItems, merchantId);
-        if (result && orderId != null) {
-            // 发布库存扣减事件
-            List<ProductInventory> deductedInventories = new ArrayList<>();
-            for (OrderItem orderItem : orderItems) {
-                if (!"serviceFee".equals(orderItem.getProductId()) && 
-                    !"service_fee".equals(orderItem.getProductId()) && 
-                    !"delivery_fee".equals(orderItem.getProductId())) {
-                    String specId = null;
-                    if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
-                        specId = orderItem.getSpecifications().get(0).getProductSpecId();
-                    }
-                    ProductInventory inventory = getProductInventory(orderItem.getProductId(), specId, merchantId);
-                    if (inventory != null) {
-                        deductedInventories.add(inventory);
+        List<ProductInventory> lines = toInventoryLines(orderItems, merchantId);
+        if (lines.isEmpty()) {
+            return true;
+        }
+
+        List<InventoryReservationEngine.StockChange> deducted;
+        try {
+            deducted = inventoryReservationEngine.deduct(orderId, merchantId, lines);
+        } catch (RequestBadException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("扣减库存失败，订单ID: {}", orderId, e);
+            throw new RequestBadException(OrderError.INVENTORY_DEDUCT_FAILED);
+        }
+        log.info("成功扣减库存，订单ID: {}, 商品数量: {}", orderId, deducted.size());
+        // 支付事务提交后已支付订单的预留不再过期释放
+        runAfterCommit(() -> inventoryReservationExpiryScheduler.cancel(orderId, merchantId));
+
+        // 事务回滚时恢复订单预留和可用库存，重试支付不会重复扣减
+        reconcileAfterCommit(
+            reconcileTask(InventoryReconcileTask.Operation.DEDUCT, orderId, merchantId, lines),
+            () -> inventoryReservationEngine.restore(orderId, merchantId, deducted)
+        );
+        return true;
+    }
+
+    /**
+     * 释放预留引擎中没有明细的订单预留，如引擎启用前预留的订单，直接释放数据库中的预留记录；
+     * 这些预留已计入按数据库加载的库存计数，释放后清除计数，下次使用时重新加载
+     */
+    private void releaseUntrackedReservations(String orderId, List<OrderItem> orderItems, String merchantId) {
+        boolean released;
+        try {
+            released = productInventoryRepository.releaseReservationsByOrderId(orderId, merchantId);
+        } catch (Exception e) {
+            log.error("释放数据库预留库存失败，订单ID: {}", orderId, e);
+            throw new RequestBadException(OrderError.INVENTORY_RELEASE_FAILED);
+        }
+        if (!released) {
+            log.info("订单没有待释放的预留库存，订单ID: {}", orderId);
+            return;
+        }
+        log.info("成功释放数据库预留库存，订单ID: {}", orderId);
+        try {
+            inventoryReservationEngine.evict(merchantId,
+                    toInventoryLines(orderItems, merchantId).stream().map(ProductInventory::getProductId).toList());
+        } catch (Exception e) {
+            log.error("清除库存计数失败，订单ID: {}", orderId, e);
+        }
+    }
+
+    @Override
+    public boolean reconcile(InventoryReconcileTask task) {
+        List<ProductInventory> lines = new ArrayList<>(task.quantities().size());
+        task.quantities().forEach((productId, quantity) -> lines.add(ProductInventory.builder()
+                .productId(productId)
+                .merchantId(task.merchantId())
+                .quantity(quantity)
+                .build()));
+        try {
+            boolean reconciled = switch (task.operation()) {
+                case RESERVE -> productInventoryRepository.reserveStockBatch(task.orderId(), lines, task.merchantId());
+                case RELEASE -> productInventoryRepository.releaseReservedStockBatch(task.orderId(), lines, task.merchantId());
+                case DEDUCT -> productInventoryRepository.deductStockBatch(task.orderId(), lines, task.merchantId());
+            };
+            if (!reconciled) {
+                // 批量语句在第一个库存不足的商品处整体回滚
+                log.error("库存数据库对账未生效，订单ID: {}, 操作: {}", task.orderId(), task.operation());
+            }
+            return reconciled;
+        } catch (Exception e) {
+            log.error("库存数据库对账失败，订单ID: {}, 操作: {}", task.orderId(), task.operation(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public void evictStock(String merchantId, List<String> productIds) {
+        if (CollectionUtil.isEmpty(productIds)) {
+            return;
+        }
+        inventoryReservationEngine.evict(merchantId, productIds);
+        log.info("已清除商品库存计数，商户ID: {}, 商品数量: {}", merchantId, productIds.size());
+    }
+
+    /**
+     * 事务提交后异步写入数据库；没有事务时立即异步写入。写入失败时登记到重试队列
+     *
+     * @param task 数据库对账任务
+     * @param rollbackCompensation 事务回滚时的补偿操作，可为null
+     */
+    private void reconcileAfterCommit(InventoryReconcileTask task, Runnable rollbackCompensation) {
+        Runnable reconcile = () -> {
+            if (reconcile(task)) {
+                return;
+            }
+            try {
+                inventoryReconcileRetryQueue.retry(task.nextAttempt());
+            } catch (Exception e) {
+                log.error("登记库存对账重试失败，需要人工修复，任务: {}", task, e);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inventoryReconcileExecutor.execute(reconcile);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inventoryReconcileExecutor.execute(reconcile);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && rollbackCompensation != null) {
+                    try {
+                        rollbackCompensation.run();
+                    } catch (Exception e) {
+                        log.error("事务回滚后撤销库存操作失败", e);
                     }
                 }
             }
-            if (!deductedInventories.isEmpty()) {
-                // 库存扣减事件将通过DomainEventPublisher发布MQ消息
+        });
+    }
+
+    private InventoryReconcileTask reconcileTask(InventoryReconcileTask.Operation operation, String orderId,
+                                                 String merchantId, List<ProductInventory> lines) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (ProductInventory line : lines) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return new InventoryReconcileTask(operation, orderId, merchantId, quantities, 0);
+    }
+
+    /**
+     * 事务提交后执行；没有事务时立即执行
+     */
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.error("事务提交后执行库存操作失败", e);
+                }
             }
+        });
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 订单项转换为库存操作明细，排除费用项并按商品合并数量
+     */
+    private List<ProductInventory> toInventoryLines(List<OrderItem> orderItems, String merchantId) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        if (CollectionUtil.isNotEmpty(orderItems)) {
+            for (OrderItem orderItem : orderItems) {
+                if (!isFeeItem(orderItem)) {
+                    quantities.merge(orderItem.getProductId(), orderItem.getQuantity(), Integer::sum);
+                }
+            }
+        }
+        List<ProductInventory> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> lines.add(ProductInventory.builder()
+                .productId(productId)
+                .merchantId(merchantId)
+                .quantity(quantity)
+                .build()));
+        return lines;
+    }
+
+    /**
+     * 是否为服务费或配送费项目
+     */
+    private boolean isFeeItem(OrderItem orderItem) {
+        return "serviceFee".equals(orderItem.getProductId()) ||
+            "service_fee".equals(orderItem.getProductId()) ||
+            "delivery_fee".equals(orderItem.getProductId());
+    }
+
+    /**
+     * 获取第一个规格ID（如果有多个规格，这里需要根据业务逻辑处理）
+     */
+    private String getSpecId(OrderItem orderItem) {
+        if (CollectionUtil.isNotEmpty(orderItem.getSpecifications())) {
+            return orderItem.getSpecifications().get(0).getProductSpecId();
         }
-        return result;
+        return null;
     }
 }
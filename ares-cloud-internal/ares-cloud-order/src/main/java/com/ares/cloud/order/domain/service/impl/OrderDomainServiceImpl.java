@@ -46,6 +46,7 @@ public class OrderDomainServiceImpl implements OrderDomainService {
     private final KnightServiceImpl knightService;
     private final OrderOperationLogService orderOperationLogService;
     private final ProductInventoryRepository productInventoryRepository;
+    private final InventoryService inventoryService;
     private final ProductService productService;
     private final DomainEventPublisher domainEventPublisher;
     
@@ -293,7 +294,7 @@ public class OrderDomainServiceImpl implements OrderDomainService {
         // 预留库存（只对商品项进行库存操作）
         if (!productItems.isEmpty()) {
             try {
-                reserveStock(productItems, merchantInfo.getId(), orderType);
+                reserveStock(order.getId(), productItems, merchantInfo.getId(), orderType);
             } catch (Exception e) {
                 log.error("预留库存失败，订单ID: {}", order.getId(), e);
                 // 如果预留库存失败，可以考虑删除已创建的订单或进行其他补偿操作
@@ -514,7 +515,7 @@ public class OrderDomainServiceImpl implements OrderDomainService {
         
         // 释放预留库存
         try {
-            releaseStock(order.getItems(), order.getMerchantId(), order.getOrderType());
+            releaseStock(order.getId(), order.getItems(), order.getMerchantId(), order.getOrderType());
         } catch (Exception e) {
             log.error("释放库存失败，订单ID: {}", orderId, e);
             // 即使释放库存失败，订单取消操作也应该继续
@@ -559,7 +560,7 @@ public class OrderDomainServiceImpl implements OrderDomainService {
         
         // 扣减库存（支付完成后，同步操作避免超卖）
         try {
-            deductStock(order.getItems(), order.getMerchantId(), order.getOrderType());
+            deductStock(order.getId(), order.getItems(), order.getMerchantId(), order.getOrderType());
         } catch (Exception e) {
             log.error("扣减库存失败，订单ID: {}", order.getId(), e);
             throw new RequestBadException(OrderError.INVENTORY_DEDUCT_FAILED);
@@ -659,7 +660,7 @@ public class OrderDomainServiceImpl implements OrderDomainService {
             statusTransitionService.transit(order,action);
         }
         try {
-            deductStock(order.getItems(), order.getMerchantId(), order.getOrderType());
+            deductStock(order.getId(), order.getItems(), order.getMerchantId(), order.getOrderType());
         } catch (Exception e) {
             log.error("扣减库存失败，订单ID: {}", order.getId(), e);
             throw new RequestBadException(OrderError.INVENTORY_DEDUCT_FAILED);
@@ -985,116 +986,63 @@ public class OrderDomainServiceImpl implements OrderDomainService {
     /**
      * 预留库存
      * 
+     * @param orderId 订单ID
      * @param orderItems 订单项列表
      * @param merchantId 商户ID
      * @param orderType 订单类型
      */
-    private void reserveStock(List<OrderItem> orderItems, String merchantId, OrderType orderType) {
+    private void reserveStock(String orderId, List<OrderItem> orderItems, String merchantId, OrderType orderType) {
         // 订阅订单类型，非正常商品，无需走商品的校验和库存的管理
         if (orderType == OrderType.SUBSCRIPTION) {
             log.info("订阅订单无需预留库存，商户ID: {}", merchantId);
             return;
         }
         
-        for (OrderItem item : orderItems) {
-            // 获取商品规格ID（如果有）
-            String productSpecId = null;
-            if (CollectionUtil.isNotEmpty(item.getSpecifications())) {
-                // 取第一个规格的ID作为商品规格ID
-                productSpecId = item.getSpecifications().get(0).getProductSpecId();
-            }
-            
-            // 预留库存
-            boolean success = productInventoryRepository.reserveStock(
-                    item.getProductId(), productSpecId, item.getQuantity(), merchantId);
-            
-            if (!success) {
-                log.error("预留库存失败，商品ID: {}, 规格ID: {}, 数量: {}", 
-                        item.getProductId(), productSpecId, item.getQuantity());
-                throw new RequestBadException(OrderError.INVENTORY_RESERVE_FAILED);
-            }
-        }
+        // 整个订单的商品在库存引擎中一次原子预留，任一商品不足则全部不预留
+        inventoryService.reserveStock(orderId, orderItems, merchantId);
     }
 
     /**
      * 释放库存
      * 
+     * @param orderId 订单ID
      * @param orderItems 订单项列表
      * @param merchantId 商户ID
      * @param orderType 订单类型
      */
-    private void releaseStock(List<OrderItem> orderItems, String merchantId, OrderType orderType) {
+    private void releaseStock(String orderId, List<OrderItem> orderItems, String merchantId, OrderType orderType) {
         // 订阅订单类型，非正常商品，无需走商品的校验和库存的管理
         if (orderType == OrderType.SUBSCRIPTION) {
             log.info("订阅订单无需释放库存，商户ID: {}", merchantId);
             return;
         }
         
-        // 过滤出商品项（排除服务费和配送费）
-        List<OrderItem> productItems = orderItems.stream()
-                .filter(item -> !"service_fee".equals(item.getProductId()) && !"delivery_fee".equals(item.getProductId()))
-                .collect(Collectors.toList());
-        
-        for (OrderItem item : productItems) {
-            // 获取商品规格ID（如果有）
-            String productSpecId = null;
-            if (CollectionUtil.isNotEmpty(item.getSpecifications())) {
-                // 取第一个规格的ID作为商品规格ID
-                productSpecId = item.getSpecifications().get(0).getProductSpecId();
-            }
-            
-            // 释放预留库存
-            boolean success = productInventoryRepository.releaseReservedStock(
-                    item.getProductId(), productSpecId, item.getQuantity(), merchantId);
-            
-            if (!success) {
-                log.error("释放预留库存失败，商品ID: {}, 规格ID: {}, 数量: {}", 
-                        item.getProductId(), productSpecId, item.getQuantity());
-                // 释放库存失败不抛异常，只记录日志
-            }
-        }
+        // 按订单释放预留，重复释放不会重复归还库存
+        inventoryService.releaseStock(orderId, orderItems, merchantId);
     }
 
     /**
      * 扣减库存
      * 
+     * @param orderId 订单ID
      * @param orderItems 订单项列表
      * @param merchantId 商户ID
      * @param orderType 订单类型
      */
-    private void deductStock(List<OrderItem> orderItems, String merchantId, OrderType orderType) {
+    private void deductStock(String orderId, List<OrderItem> orderItems, String merchantId, OrderType orderType) {
         // 订阅订单类型，非正常商品，无需走商品的校验和库存的管理
         if (orderType == OrderType.SUBSCRIPTION) {
             log.info("订阅订单无需扣减库存，商户ID: {}", merchantId);
             return;
         }
         
-        // 过滤出商品项（排除服务费和配送费）
-        List<OrderItem> productItems = orderItems.stream()
-                .filter(item -> !"service_fee".equals(item.getProductId()) && !"delivery_fee".equals(item.getProductId()))
+        // 只扣减已支付的商品项
+        List<OrderItem> paidItems = orderItems.stream()
+                .filter(item -> item.getPaymentStatus() == PaymentStatus.PAID)
                 .toList();
         
-        for (OrderItem item : productItems) {
-            if  (item.getPaymentStatus() !=  PaymentStatus.PAID) {
-                continue;
-            }
-            // 获取商品规格ID（如果有）
-            String productSpecId = null;
-            if (CollectionUtil.isNotEmpty(item.getSpecifications())) {
-                // 取第一个规格的ID作为商品规格ID
-                productSpecId = item.getSpecifications().get(0).getProductSpecId();
-            }
-            
-            // 扣减实际库存
-            boolean success = productInventoryRepository.deductStock(
-                    item.getProductId(), productSpecId, item.getQuantity(), merchantId);
-            
-            if (!success) {
-                log.error("扣减库存失败，商品ID: {}, 规格ID: {}, 数量: {}", 
-                        item.getProductId(), productSpecId, item.getQuantity());
-                throw new RequestBadException(OrderError.INVENTORY_DEDUCT_FAILED);
-            }
-        }
+        // 优先消耗订单的预留库存，整个订单一次原子扣减
+        inventoryService.deductStock(orderId, paidItems, merchantId);
     }
 
 }
\ No newline at end of file
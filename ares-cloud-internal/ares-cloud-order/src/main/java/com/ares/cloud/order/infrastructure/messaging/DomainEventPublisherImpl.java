@@ -11,9 +11,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.ares.cloud.common.exception.BusinessException;
 import org.ares.cloud.common.model.Money;
-import org.springframework.cloud.stream.function.StreamBridge;
-import org.springframework.messaging.Message;
-import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -26,7 +23,8 @@ import java.util.stream.Collectors;
  * 基础设施层实现，负责将领域事件转换为MQ消息并发送
  * 实现领域层定义的DomainEventPublisher接口
  * 
- * 使用 StreamBridge 动态发送消息到 RabbitMQ
+ * 消息先写入订单事件发件箱，与订单数据在同一事务内提交；事务提交后由 OrderEventOutboxRelay
+ * 通过 StreamBridge 批量发布到 RabbitMQ 并等待发布确认，失败时退避重试
  * 
  * 配置文件对应关系（application.yml）：
  * 【订单领域】order-events-exchange (direct)
@@ -51,7 +49,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class DomainEventPublisherImpl implements DomainEventPublisher {
     
-    private final StreamBridge streamBridge;
+    private final OrderEventOutbox orderEventOutbox;
     
     // 生产者 Binding 名称常量
     private static final String ORDER_EVENTS_BINDING = "orderEvents-out-0";
@@ -77,21 +75,13 @@ public class DomainEventPublisherImpl implements DomainEventPublisher {
                     .createTime(createTime)
                     .build();
 
-            // 构建消息，添加 routingKey 头用于路由
-            Message<OrderCreatedEventMessage> message = MessageBuilder
-                    .withPayload(payload)
-                    .setHeader("routingKey", "order.created")
-                    .build();
-            
-            boolean sent = streamBridge.send(ORDER_EVENTS_BINDING, message);
-            if (sent) {
-                log.info("订单创建事件消息发布成功，订单ID: {}, routingKey: order.created", orderId);
-            } else {
-                log.warn("订单创建事件消息发布返回false，订单ID: {}", orderId);
-            }
+            // 写入发件箱，随订单事务提交后由中继发布
+            orderEventOutbox.append(ORDER_EVENTS_BINDING, "order.created", orderId, payload);
+            log.info("订单创建事件已写入发件箱，订单ID: {}", orderId);
         } catch (Exception e) {
-            // 消息发布失败不应该影响主业务流程，只记录日志
-            log.error("发布订单创建事件消息失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            log.error("发布订单创建事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            // 发件箱与订单数据同事务写入，写入失败时让订单事务一起回滚，避免事件丢失
+            throw new BusinessException(e);
         }
     }
 
@@ -108,22 +98,12 @@ public class DomainEventPublisherImpl implements DomainEventPublisher {
         try {
             OrderPaidEventMessage payload = command.toEventMessage(order.getUserId());
 
-            // 构建消息，添加 routingKey 头用于路由到订单支付消费者
-            Message<OrderPaidEventMessage> message = MessageBuilder
-                    .withPayload(payload)
-                    .setHeader("routingKey", "order.paid")
-                    .build();
-            
-            boolean sent = streamBridge.send(ORDER_EVENTS_BINDING, message);
-            if (sent) {
-                log.info("订单支付成功事件消息发布成功，订单ID: {}, routingKey: order.paid", command.getOrderId());
-            } else {
-                log.warn("订单支付成功事件消息发布返回false，订单ID: {}", command.getOrderId());
-            }
+            // 写入发件箱，随订单事务提交后由中继发布
+            orderEventOutbox.append(ORDER_EVENTS_BINDING, "order.paid", command.getOrderId(), payload);
+            log.info("订单支付成功事件已写入发件箱，订单ID: {}", command.getOrderId());
             
         } catch (Exception e) {
-            // 消息发布失败记录日志，但不影响支付流程
-            log.error("发布订单支付成功事件消息失败，订单ID: {}, 错误信息: {}", command.getOrderId(), e.getMessage(), e);
+            log.error("发布订单支付成功事件失败，订单ID: {}, 错误信息: {}", command.getOrderId(), e.getMessage(), e);
             throw new BusinessException(e);
         }
     }
@@ -152,22 +132,13 @@ public class DomainEventPublisherImpl implements DomainEventPublisher {
                     .changeTime(changeTime)
                     .build();
 
-            // 构建消息，路由到订单状态变更消费者
-            Message<OrderStatusChangedEventMessage> message = MessageBuilder
-                    .withPayload(payload)
-                    .setHeader("routingKey", "order.status")
-                    .build();
-            
-            boolean sent = streamBridge.send(ORDER_EVENTS_BINDING, message);
-            if (sent) {
-                log.info("订单状态变更事件消息发布成功，订单ID: {}, 状态: {} -> {}, routingKey: order.status", 
-                        orderId, fromStatus, toStatus);
-            } else {
-                log.warn("订单状态变更事件消息发布返回false，订单ID: {}, 状态: {} -> {}", 
-                        orderId, fromStatus, toStatus);
-            }
+            // 写入发件箱，随订单事务提交后由中继发布
+            orderEventOutbox.append(ORDER_EVENTS_BINDING, "order.status", orderId, payload);
+            log.info("订单状态变更事件已写入发件箱，订单ID: {}, 状态: {} -> {}", orderId, fromStatus, toStatus);
         } catch (Exception e) {
-            log.error("发布订单状态变更事件消息失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            log.error("发布订单状态变更事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            // 发件箱与订单数据同事务写入，写入失败时让订单事务一起回滚，避免事件丢失
+            throw new BusinessException(e);
         }
     }
 
@@ -196,21 +167,13 @@ public class DomainEventPublisherImpl implements DomainEventPublisher {
                     .refundTime(refundTime)
                     .build();
 
-            // 构建消息，路由到订单退款消费者
-            Message<OrderRefundedEventMessage> message = MessageBuilder
-                    .withPayload(payload)
-                    .setHeader("routingKey", "order.refunded")
-                    .build();
-            
-            boolean sent = streamBridge.send(ORDER_EVENTS_BINDING, message);
-            if (sent) {
-                log.info("订单退款事件消息发布成功，订单ID: {}, 退款金额: {}, routingKey: order.refunded", 
-                        orderId, refundAmount);
-            } else {
-                log.warn("订单退款事件消息发布返回false，订单ID: {}, 退款金额: {}", orderId, refundAmount);
-            }
+            // 写入发件箱，随订单事务提交后由中继发布
+            orderEventOutbox.append(ORDER_EVENTS_BINDING, "order.refunded", orderId, payload);
+            log.info("订单退款事件已写入发件箱，订单ID: {}, 退款金额: {}", orderId, refundAmount);
         } catch (Exception e) {
-            log.error("发布订单退款事件消息失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            log.error("发布订单退款事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            // 发件箱与订单数据同事务写入，写入失败时让订单事务一起回滚，避免事件丢失
+            throw new BusinessException(e);
         }
     }
 
@@ -240,21 +203,13 @@ public class DomainEventPublisherImpl implements DomainEventPublisher {
                     .startTime(startTime)
                     .build();
 
-            // 构建消息，路由到配送开始消费者
-            Message<DeliveryStartedEventMessage> message = MessageBuilder
-                    .withPayload(payload)
-                    .setHeader("routingKey", "delivery.started")
-                    .build();
-            
-            boolean sent = streamBridge.send(DELIVERY_EVENTS_BINDING, message);
-            if (sent) {
-                log.info("配送开始事件消息发布成功，订单ID: {}, 配送员ID: {}, routingKey: delivery.started", 
-                        orderId, riderId);
-            } else {
-                log.warn("配送开始事件消息发布返回false，订单ID: {}", orderId);
-            }
+            // 写入发件箱，随订单事务提交后由中继发布
+            orderEventOutbox.append(DELIVERY_EVENTS_BINDING, "delivery.started", orderId, payload);
+            log.info("配送开始事件已写入发件箱，订单ID: {}, 配送员ID: {}", orderId, riderId);
         } catch (Exception e) {
-            log.error("发布配送开始事件消息失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            log.error("发布配送开始事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            // 发件箱与订单数据同事务写入，写入失败时让订单事务一起回滚，避免事件丢失
+            throw new BusinessException(e);
         }
     }
 
@@ -283,21 +238,13 @@ public class DomainEventPublisherImpl implements DomainEventPublisher {
                     .deliveryRating(deliveryRating)
                     .build();
 
-            // 构建消息，路由到配送完成消费者
-            Message<DeliveryCompletedEventMessage> message = MessageBuilder
-                    .withPayload(payload)
-                    .setHeader("routingKey", "delivery.completed")
-                    .build();
-            
-            boolean sent = streamBridge.send(DELIVERY_EVENTS_BINDING, message);
-            if (sent) {
-                log.info("配送完成事件消息发布成功，订单ID: {}, 配送员ID: {}, routingKey: delivery.completed", 
-                        orderId, riderId);
-            } else {
-                log.warn("配送完成事件消息发布返回false，订单ID: {}", orderId);
-            }
+            // 写入发件箱，随订单事务提交后由中继发布
+            orderEventOutbox.append(DELIVERY_EVENTS_BINDING, "delivery.completed", orderId, payload);
+            log.info("配送完成事件已写入发件箱，订单ID: {}, 配送员ID: {}", orderId, riderId);
         } catch (Exception e) {
-            log.error("发布配送完成事件消息失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            log.error("发布配送完成事件失败，订单ID: {}, 错误信息: {}", orderId, e.getMessage(), e);
+            // 发件箱与订单数据同事务写入，写入失败时让订单事务一起回滚，避免事件丢失
+            throw new BusinessException(e);
         }
     }
 
@@ -1,6 +1,7 @@
 package com.ares.cloud.order.infrastructure.messaging;
 
 import com.ares.cloud.order.domain.event.*;
+import com.ares.cloud.order.domain.model.valueobject.MerchantNotification;
 import com.ares.cloud.order.domain.service.NotificationService;
 import com.rabbitmq.client.Channel;
 import jakarta.annotation.PostConstruct;
@@ -10,9 +11,19 @@ import org.ares.cloud.common.model.Money;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.amqp.inbound.AmqpInboundChannelAdapter;
 import org.springframework.messaging.Message;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * 订单事件通知消费者（独立消费者组）
@@ -27,6 +38,7 @@ import java.util.function.Consumer;
  * - 每个消费者都有独立的队列和消费者组
  * - 使用 MANUAL ACK 模式
  * - 配置死信队列处理失败消息
+ * - 批量消费：每批事件生成的通知交给批量通知接口发送，整批发送结束后统一确认
  * 
  * 消费者列表：
  * 1. orderCreatedNotificationConsumer - 订单创建通知
@@ -43,6 +55,11 @@ import java.util.function.Consumer;
 @RequiredArgsConstructor
 public class OrderEventNotificationHandler {
 
+    /**
+     * 等待一批通知发送结束的最长时间（秒）
+     */
+    private static final long BATCH_SEND_TIMEOUT_SECONDS = 30;
+
     private final NotificationService notificationService;
 
     @PostConstruct
@@ -74,36 +91,13 @@ public class OrderEventNotificationHandler {
      * 职责：通知商户有新订单
      */
     @Bean
-    public Consumer<Message<OrderCreatedEventMessage>> orderCreatedNotificationConsumer() {
-        return message -> {
-            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
-            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
-            
-            try {
-                OrderCreatedEventMessage event = message.getPayload();
-                log.debug("【通知消费者】处理订单创建通知: 订单ID={}, 商户ID={}", 
-                        event.getOrderId(), event.getMerchantId());
-                
-                // 通知商户有新订单
-                String title = "新订单提醒";
-                String content = String.format("您有一笔新订单，订单号：%s，订单类型：%s，金额：%s", 
-                        event.getOrderId(), event.getOrderType(), event.getTotalAmount());
-                
-                notificationService.notifyMerchant(
-                        event.getMerchantId(), 
-                        event.getOrderId(), 
-                        title, 
-                        content
-                );
-                
-                // 成功确认
-                manualAck(channel, deliveryTag, true, "订单创建通知发送成功", event.getOrderId());
-                
-            } catch (Exception e) {
-                log.error("【通知消费者】订单创建通知发送失败: {}", e.getMessage(), e);
-                manualAck(channel, deliveryTag, false, "订单创建通知发送失败", null);
-            }
-        };
+    public Consumer<Message<List<OrderCreatedEventMessage>>> orderCreatedNotificationConsumer() {
+        return message -> handleBatch(message, "订单创建通知", event -> {
+            // 通知商户有新订单
+            String content = String.format("您有一笔新订单，订单号：%s，订单类型：%s，金额：%s",
+                    event.getOrderId(), event.getOrderType(), event.getTotalAmount());
+            return toNotification(event.getMerchantId(), event.getOrderId(), "新订单提醒", content);
+        });
     }
 
     // ==================== 订单支付事件通知消费者 ====================
@@ -122,46 +116,20 @@ public class OrderEventNotificationHandler {
      * 职责：通知商户收到款项
      */
     @Bean
-    public Consumer<Message<OrderPaidEventMessage>> orderPaidNotificationConsumer() {
-        return message -> {
-            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
-            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
-            
-            try {
-                OrderPaidEventMessage event = message.getPayload();
-                
-                // 通过支付项计算总金额
-                java.math.BigDecimal totalAmount = event.getPayItems().stream()
-                        .map(OrderPaidEventMessage.PayItemInfo::getAmount)
-                        .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
-                
-                log.debug("【通知消费者】处理订单支付成功通知: 订单ID={}, 商户ID={}, 支付项数量={}, 支付总金额={}", 
-                        event.getOrderId(), event.getMerchantId(),
-                        event.getPayItems().size(),
-                        totalAmount);
-                
-                // 通知商户收到款项
-                String title = "订单已支付";
-                String content = String.format("订单 %s 已完成支付，支付总金额：%s元（共 %d 笔支付）", 
-                        event.getOrderId(), 
-                        totalAmount.doubleValue(),
-                        event.getPayItems() != null ? event.getPayItems().size() : 0);
-                
-                notificationService.notifyMerchant(
-                        event.getMerchantId(), 
-                        event.getOrderId(), 
-                        title, 
-                        content
-                );
-                
-                // 成功确认
-                manualAck(channel, deliveryTag, true, "订单支付成功通知发送完成", event.getOrderId());
-                
-            } catch (Exception e) {
-                log.error("【通知消费者】订单支付成功通知发送失败: {}", e.getMessage(), e);
-                manualAck(channel, deliveryTag, false, "订单支付成功通知发送失败", null);
-            }
-        };
+    public Consumer<Message<List<OrderPaidEventMessage>>> orderPaidNotificationConsumer() {
+        return message -> handleBatch(message, "订单支付成功通知", event -> {
+            // 通过支付项计算总金额
+            java.math.BigDecimal totalAmount = event.getPayItems().stream()
+                    .map(OrderPaidEventMessage.PayItemInfo::getAmount)
+                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add);
+
+            // 通知商户收到款项
+            String content = String.format("订单 %s 已完成支付，支付总金额：%s元（共 %d 笔支付）",
+                    event.getOrderId(),
+                    totalAmount.doubleValue(),
+                    event.getPayItems().size());
+            return toNotification(event.getMerchantId(), event.getOrderId(), "订单已支付", content);
+        });
     }
 
     // ==================== 订单退款事件通知消费者 ====================
@@ -180,36 +148,13 @@ public class OrderEventNotificationHandler {
      * 职责：通知商户退款信息
      */
     @Bean
-    public Consumer<Message<OrderRefundedEventMessage>> orderRefundedNotificationConsumer() {
-        return message -> {
-            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
-            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
-            
-            try {
-                OrderRefundedEventMessage event = message.getPayload();
-                log.debug("【通知消费者】处理订单退款通知: 订单ID={}, 商户ID={}, 退款金额={}", 
-                        event.getOrderId(), event.getMerchantId(), event.getRefundAmount());
-                
-                // 通知商户退款信息
-                String title = "订单退款";
-                String content = String.format("订单 %s 发起退款，金额：%s元，原因：%s", 
-                        event.getOrderId(), event.getRefundAmount(), event.getRefundReason());
-                
-                notificationService.notifyMerchant(
-                        event.getMerchantId(), 
-                        event.getOrderId(), 
-                        title, 
-                        content
-                );
-                
-                // 成功确认
-                manualAck(channel, deliveryTag, true, "订单退款通知发送完成", event.getOrderId());
-                
-            } catch (Exception e) {
-                log.error("【通知消费者】订单退款通知发送失败: {}", e.getMessage(), e);
-                manualAck(channel, deliveryTag, false, "订单退款通知发送失败", null);
-            }
-        };
+    public Consumer<Message<List<OrderRefundedEventMessage>>> orderRefundedNotificationConsumer() {
+        return message -> handleBatch(message, "订单退款通知", event -> {
+            // 通知商户退款信息
+            String content = String.format("订单 %s 发起退款，金额：%s元，原因：%s",
+                    event.getOrderId(), event.getRefundAmount(), event.getRefundReason());
+            return toNotification(event.getMerchantId(), event.getOrderId(), "订单退款", content);
+        });
     }
 
     // ==================== 订单状态变更事件通知消费者 ====================
@@ -228,40 +173,13 @@ public class OrderEventNotificationHandler {
      * 职责：根据 OrderStatus 枚举自动生成通知内容，通知商户
      */
     @Bean
-    public Consumer<Message<OrderStatusChangedEventMessage>> orderStatusNotificationConsumer() {
-        return message -> {
-            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
-            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
-            
-            try {
-                OrderStatusChangedEventMessage event = message.getPayload();
-                log.debug("【通知消费者】处理订单状态变更通知: 订单ID={}, 状态: {} -> {}, 原因={}", 
-                        event.getOrderId(), event.getFromStatus(), event.getToStatus(), event.getReason());
-                
-                // 根据订单状态生成通知内容并发送给商户
-                String notificationContent = generateStatusNotification(
-                        event.getOrderId(), 
-                        event.getToStatus(), 
-                        event.getReason()
-                );
-                
-                if (notificationContent != null) {
-                    notificationService.notifyMerchant(
-                            event.getMerchantId(), 
-                            event.getOrderId(), 
-                            "订单状态更新", 
-                            notificationContent
-                    );
-                }
-                
-                // 成功确认
-                manualAck(channel, deliveryTag, true, "订单状态变更通知发送完成", event.getOrderId());
-                
-            } catch (Exception e) {
-                log.error("【通知消费者】订单状态变更通知发送失败: {}", e.getMessage(), e);
-                manualAck(channel, deliveryTag, false, "订单状态变更通知发送失败", null);
-            }
-        };
+    public Consumer<Message<List<OrderStatusChangedEventMessage>>> orderStatusNotificationConsumer() {
+        return message -> handleBatch(message, "订单状态变更通知", event -> {
+            // 根据订单状态生成通知内容并发送给商户
+            String content = generateStatusNotification(event.getOrderId(), event.getToStatus(), event.getReason());
+            return content == null ? null
+                    : toNotification(event.getMerchantId(), event.getOrderId(), "订单状态更新", content);
+        });
     }
     
     /**
@@ -323,36 +241,13 @@ public class OrderEventNotificationHandler {
      * 职责：通知商户配送已开始
      */
     @Bean
-    public Consumer<Message<DeliveryStartedEventMessage>> deliveryStartedNotificationConsumer() {
-        return message -> {
-            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
-            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
-            
-            try {
-                DeliveryStartedEventMessage event = message.getPayload();
-                log.debug("【通知消费者】处理配送开始通知: 订单ID={}, 商户ID={}", 
-                        event.getOrderId(), event.getMerchantId());
-                
-                // 通知商户配送已开始
-                String title = "订单配送中";
-                String content = String.format("订单 %s 已开始配送，配送地址：%s", 
-                        event.getOrderId(), event.getDeliveryAddress());
-                
-                notificationService.notifyMerchant(
-                        event.getMerchantId(), 
-                        event.getOrderId(), 
-                        title, 
-                        content
-                );
-                
-                // 成功确认
-                manualAck(channel, deliveryTag, true, "配送开始通知发送完成", event.getOrderId());
-                
-            } catch (Exception e) {
-                log.error("【通知消费者】配送开始通知发送失败: {}", e.getMessage(), e);
-                manualAck(channel, deliveryTag, false, "配送开始通知发送失败", null);
-            }
-        };
+    public Consumer<Message<List<DeliveryStartedEventMessage>>> deliveryStartedNotificationConsumer() {
+        return message -> handleBatch(message, "配送开始通知", event -> {
+            // 通知商户配送已开始
+            String content = String.format("订单 %s 已开始配送，配送地址：%s",
+                    event.getOrderId(), event.getDeliveryAddress());
+            return toNotification(event.getMerchantId(), event.getOrderId(), "订单配送中", content);
+        });
     }
 
     // ==================== 配送完成事件通知消费者 ====================
@@ -371,38 +266,109 @@ public class OrderEventNotificationHandler {
      * 职责：通知商户订单配送已完成
      */
     @Bean
-    public Consumer<Message<DeliveryCompletedEventMessage>> deliveryCompletedNotificationConsumer() {
-        return message -> {
-            Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
-            Long deliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
-            
+    public Consumer<Message<List<DeliveryCompletedEventMessage>>> deliveryCompletedNotificationConsumer() {
+        return message -> handleBatch(message, "配送完成通知", event -> {
+            // 通知商户订单已完成
+            String content = String.format("订单 %s 配送已完成，订单状态已更新", event.getOrderId());
+            return toNotification(event.getMerchantId(), event.getOrderId(), "订单已完成", content);
+        });
+    }
+    
+    // ==================== 批量处理与手动确认辅助方法 ====================
+
+    /**
+     * 处理一批事件：生成通知、批量发送，整批发送结束后再确认
+     * 全部成功时一次确认到本批最后一条；部分失败时逐条确认，通知发送失败的消息拒绝进入死信队列
+     *
+     * @param message 批量消息，载荷为本批事件
+     * @param eventName 事件名称（日志用）
+     * @param toNotification 事件到通知的转换，返回null表示该事件无需通知
+     */
+    private <T> void handleBatch(Message<List<T>> message, String eventName,
+                                 Function<T, MerchantNotification> toNotification) {
+        Channel channel = message.getHeaders().get(AmqpHeaders.CHANNEL, Channel.class);
+        Long lastDeliveryTag = message.getHeaders().get(AmqpHeaders.DELIVERY_TAG, Long.class);
+        List<Long> deliveryTags = deliveryTags(message);
+        List<T> events = message.getPayload();
+
+        // 事件下标 -> 通知，转换失败的事件直接判为失败
+        List<MerchantNotification> notifications = new ArrayList<>(events.size());
+        boolean[] failed = new boolean[events.size()];
+        for (int i = 0; i < events.size(); i++) {
             try {
-                DeliveryCompletedEventMessage event = message.getPayload();
-                log.debug("【通知消费者】处理配送完成通知: 订单ID={}, 商户ID={}", 
-                        event.getOrderId(), event.getMerchantId());
-                
-                // 通知商户订单已完成
-                String title = "订单已完成";
-                String content = String.format("订单 %s 配送已完成，订单状态已更新", event.getOrderId());
-                
-                notificationService.notifyMerchant(
-                        event.getMerchantId(), 
-                        event.getOrderId(), 
-                        title, 
-                        content
-                );
-                
-                // 成功确认
-                manualAck(channel, deliveryTag, true, "配送完成通知发送完成", event.getOrderId());
-                
+                notifications.add(toNotification.apply(events.get(i)));
             } catch (Exception e) {
-                log.error("【通知消费者】配送完成通知发送失败: {}", e.getMessage(), e);
-                manualAck(channel, deliveryTag, false, "配送完成通知发送失败", null);
+                log.error("【通知消费者】{}生成失败: {}", eventName, e.getMessage(), e);
+                notifications.add(null);
+                failed[i] = true;
+            }
+        }
+
+        try {
+            List<MerchantNotification> toSend = notifications.stream().filter(n -> n != null).toList();
+            Set<MerchantNotification> failedNotifications = Collections.newSetFromMap(new IdentityHashMap<>());
+            if (!toSend.isEmpty()) {
+                failedNotifications.addAll(notificationService.notifyMerchants(toSend)
+                        .get(BATCH_SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+            for (int i = 0; i < events.size(); i++) {
+                failed[i] |= notifications.get(i) != null && failedNotifications.contains(notifications.get(i));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("【通知消费者】{}发送被中断", eventName);
+            Arrays.fill(failed, true);
+        } catch (Exception e) {
+            log.error("【通知消费者】{}批量发送失败: {}", eventName, e.getMessage(), e);
+            Arrays.fill(failed, true);
+        }
+
+        int failedCount = 0;
+        for (boolean f : failed) {
+            failedCount += f ? 1 : 0;
+        }
+        if (failedCount == 0 || deliveryTags.size() != events.size()) {
+            // 全部成功（或无法逐条确认）时按本批最后一条一次确认
+            manualAck(channel, lastDeliveryTag, failedCount == 0, true,
+                    eventName + "批量处理完成（" + events.size() + " 条）", null);
+            return;
+        }
+        for (int i = 0; i < events.size(); i++) {
+            manualAck(channel, deliveryTags.get(i), !failed[i], false,
+                    eventName + (failed[i] ? "发送失败" : "发送完成"),
+                    notifications.get(i) != null ? notifications.get(i).getOrderId() : null);
+        }
+    }
+
+    /**
+     * 取出批量消息中每条消息的投递标签
+     */
+    @SuppressWarnings("unchecked")
+    private List<Long> deliveryTags(Message<?> message) {
+        List<Map<String, Object>> batchedHeaders =
+                message.getHeaders().get(AmqpInboundChannelAdapter.CONSOLIDATED_HEADERS, List.class);
+        if (batchedHeaders == null) {
+            return Collections.emptyList();
+        }
+        List<Long> tags = new ArrayList<>(batchedHeaders.size());
+        for (Map<String, Object> headers : batchedHeaders) {
+            Object tag = headers.get(AmqpHeaders.DELIVERY_TAG);
+            if (!(tag instanceof Long)) {
+                return Collections.emptyList();
             }
-        };
+            tags.add((Long) tag);
+        }
+        return tags;
+    }
+
+    private MerchantNotification toNotification(String merchantId, String orderId, String title, String content) {
+        return MerchantNotification.builder()
+                .merchantId(merchantId)
+                .orderId(orderId)
+                .title(title)
+                .content(content)
+                .build();
     }
-    
-    // ==================== RabbitMQ 手动确认辅助方法 ====================
 
     /**
      * 手动确认消息（使用 RabbitMQ 原生 Channel）
@@ -410,10 +376,11 @@ public class OrderEventNotificationHandler {
      * @param channel RabbitMQ Channel
      * @param deliveryTag 消息投递标签
      * @param ack true=确认(ACK), false=拒绝(NACK)
+     * @param multiple 是否同时确认该标签之前的所有未确认消息
      * @param logMessage 日志消息
      * @param orderId 订单ID（可选）
      */
-    private void manualAck(Channel channel, Long deliveryTag, boolean ack, String logMessage, String orderId) {
+    private void manualAck(Channel channel, Long deliveryTag, boolean ack, boolean multiple, String logMessage, String orderId) {
         if (channel == null || deliveryTag == null) {
             log.warn("⚠️ Channel 或 deliveryTag 为 null，无法手动确认消息");
             return;
@@ -422,11 +389,11 @@ public class OrderEventNotificationHandler {
         try {
             if (ack) {
                 // 确认消息（从队列中删除）
-                channel.basicAck(deliveryTag, false);
+                channel.basicAck(deliveryTag, multiple);
                 log.info("✅ [ACK] {}{}", logMessage, orderId != null ? ": " + orderId : "");
             } else {
                 // 拒绝消息（requeue=false 发送到死信队列）
-                channel.basicNack(deliveryTag, false, false);
+                channel.basicNack(deliveryTag, multiple, false);
                 log.warn("❌ [NACK] {}{}", logMessage, orderId != null ? ": " + orderId : "");
             }
         } catch (Exception e) {
@@ -0,0 +1,62 @@
+package com.ares.cloud.order.infrastructure.messaging;
+
+import com.ares.cloud.order.infrastructure.persistence.entity.OrderEventOutboxEntity;
+import com.ares.cloud.order.infrastructure.persistence.mapper.OrderEventOutboxMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.ares.cloud.common.exception.BusinessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 订单事件发件箱
+ * 事件消息写入发件箱表，与订单数据在同一事务内提交或回滚；事务提交后通知中继发布，
+ * 请求线程不再同步等待消息队列
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventOutbox {
+
+    private static final String STATUS_PENDING = "PENDING";
+
+    private final OrderEventOutboxMapper orderEventOutboxMapper;
+    private final OrderEventOutboxRelay orderEventOutboxRelay;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 写入一条待发布的事件消息
+     *
+     * @param bindingName 消息通道名称
+     * @param routingKey 路由键
+     * @param aggregateId 关联订单ID
+     * @param payload 消息内容
+     */
+    public void append(String bindingName, String routingKey, String aggregateId, Object payload) {
+        OrderEventOutboxEntity entity = new OrderEventOutboxEntity();
+        entity.setBindingName(bindingName);
+        entity.setRoutingKey(routingKey);
+        entity.setAggregateId(aggregateId);
+        try {
+            entity.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(e);
+        }
+        entity.setStatus(STATUS_PENDING);
+        entity.setRetryCount(0);
+        entity.setNextRetryTime(System.currentTimeMillis());
+        orderEventOutboxMapper.insert(entity);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orderEventOutboxRelay.trigger();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderEventOutboxRelay.trigger();
+            }
+        });
+    }
+}
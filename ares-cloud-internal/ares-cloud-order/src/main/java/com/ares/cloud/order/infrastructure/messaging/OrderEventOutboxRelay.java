@@ -0,0 +1,221 @@
+package com.ares.cloud.order.infrastructure.messaging;
+
+import com.ares.cloud.order.infrastructure.persistence.entity.OrderEventOutboxEntity;
+import com.ares.cloud.order.infrastructure.persistence.mapper.OrderEventOutboxMapper;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单事件发件箱中继
+ * 每批在短事务内锁定一组到期的待发布事件（多实例之间跳过已锁定的行），并把下次重试时间推迟一个租约后提交；
+ * 在事务外全部发送后统一等待发布确认，确认成功的一条语句标记为已发布，未确认或被退回的按指数退避重试。
+ * 中继在租约内中断时事件在租约到期后被重新发布，保证事件至少发布一次。已发布的事件保留一段时间后定期删除
+ */
+@Slf4j
+@Component
+public class OrderEventOutboxRelay {
+
+    /**
+     * 每批发布的最大条数
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 等待一批发布确认的最长时间（毫秒）
+     */
+    private static final long CONFIRM_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * 认领租约（毫秒），须大于发送和等待确认的时间
+     */
+    private static final long CLAIM_LEASE_MILLIS = 30 * 1000;
+
+    /**
+     * 已发布事件的保留时间（毫秒）
+     */
+    private static final long SENT_RETENTION_MILLIS = 7L * 24 * 60 * 60 * 1000;
+
+    /**
+     * 每次删除已发布事件的最大条数和每轮清理的最大次数
+     */
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+    private static final int CLEANUP_MAX_BATCHES = 100;
+
+    /**
+     * 重试退避的初始间隔和上限（毫秒）
+     */
+    private static final long RETRY_BASE_MILLIS = 1000;
+    private static final long RETRY_MAX_MILLIS = 5 * 60 * 1000;
+
+    @Resource
+    private OrderEventOutboxMapper orderEventOutboxMapper;
+
+    @Resource
+    private StreamBridge streamBridge;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource(name = "orderOutboxExecutor")
+    private Executor orderOutboxExecutor;
+
+    /**
+     * 通知中继发布，中继线程忙时与已排队的触发合并
+     */
+    public void trigger() {
+        orderOutboxExecutor.execute(this::relay);
+    }
+
+    /**
+     * 定时触发，发布提交回调遗漏的事件和到期重试的事件
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void tick() {
+        trigger();
+    }
+
+    /**
+     * 定时删除超过保留时间的已发布事件，分批删除避免长事务
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000, initialDelay = 60 * 1000)
+    public void cleanup() {
+        long before = System.currentTimeMillis() - SENT_RETENTION_MILLIS;
+        int total = 0;
+        try {
+            for (int i = 0; i < CLEANUP_MAX_BATCHES; i++) {
+                int deleted = orderEventOutboxMapper.deleteSent(before, CLEANUP_BATCH_SIZE);
+                total += deleted;
+                if (deleted < CLEANUP_BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("清理已发布的订单事件失败", e);
+        }
+        if (total > 0) {
+            log.info("清理已发布的订单事件 {} 条", total);
+        }
+    }
+
+    private void relay() {
+        try {
+            int published;
+            do {
+                published = relayBatch();
+            } while (published == BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("订单事件发件箱中继失败", e);
+        }
+    }
+
+    /**
+     * 发布一批事件，认领在短事务内完成，发送和等待确认不持有行锁
+     *
+     * @return 本批处理的事件数
+     */
+    private int relayBatch() {
+        List<OrderEventOutboxEntity> events = claimBatch();
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CorrelationData> confirms = new ArrayList<>(events.size());
+        for (OrderEventOutboxEntity event : events) {
+            confirms.add(send(event));
+        }
+
+        long deadline = System.currentTimeMillis() + CONFIRM_TIMEOUT_MILLIS;
+        long now = System.currentTimeMillis();
+        List<String> sentIds = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            OrderEventOutboxEntity event = events.get(i);
+            if (isConfirmed(confirms.get(i), deadline)) {
+                sentIds.add(event.getId());
+            } else {
+                int retryCount = event.getRetryCount() == null ? 1 : event.getRetryCount() + 1;
+                long backoff = Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(retryCount, 20));
+                orderEventOutboxMapper.markRetry(event.getId(), retryCount, now + backoff, now);
+                log.warn("订单事件发布未确认，订单ID: {}, routingKey: {}, 第{}次重试",
+                        event.getAggregateId(), event.getRoutingKey(), retryCount);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            orderEventOutboxMapper.markSent(sentIds, System.currentTimeMillis());
+        }
+        log.debug("订单事件发件箱发布 {} 条，确认 {} 条", events.size(), sentIds.size());
+        return events.size();
+    }
+
+    /**
+     * 锁定一批到期的待发布事件并认领一个租约，事务提交后释放行锁
+     *
+     * @return 认领的事件
+     */
+    private List<OrderEventOutboxEntity> claimBatch() {
+        List<OrderEventOutboxEntity> events = transactionTemplate.execute(status -> {
+            long now = System.currentTimeMillis();
+            List<OrderEventOutboxEntity> locked = orderEventOutboxMapper.lockPending(now, new RowBounds(0, BATCH_SIZE));
+            if (!locked.isEmpty()) {
+                orderEventOutboxMapper.claim(locked.stream().map(OrderEventOutboxEntity::getId).toList(),
+                        now + CLAIM_LEASE_MILLIS, now);
+            }
+            return locked;
+        });
+        return events == null ? List.of() : events;
+    }
+
+    /**
+     * 发送一条事件，返回发布确认的关联数据；发送失败时返回null
+     */
+    private CorrelationData send(OrderEventOutboxEntity event) {
+        CorrelationData correlation = new CorrelationData(event.getId());
+        Message<byte[]> message = MessageBuilder
+                .withPayload(event.getPayload().getBytes(StandardCharsets.UTF_8))
+                .setHeader("routingKey", event.getRoutingKey())
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+                .setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlation)
+                .build();
+        try {
+            return streamBridge.send(event.getBindingName(), message) ? correlation : null;
+        } catch (Exception e) {
+            log.error("发送订单事件失败，订单ID: {}, routingKey: {}", event.getAggregateId(), event.getRoutingKey(), e);
+            return null;
+        }
+    }
+
+    /**
+     * 在截止时间前等待发布确认，消息被退回（无法路由）也视为未确认
+     */
+    private boolean isConfirmed(CorrelationData correlation, long deadline) {
+        if (correlation == null) {
+            return false;
+        }
+        try {
+            long wait = Math.max(0, deadline - System.currentTimeMillis());
+            CorrelationData.Confirm confirm = correlation.getFuture().get(wait, TimeUnit.MILLISECONDS);
+            return confirm.isAck() && correlation.getReturned() == null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ares.cloud.order.infrastructure.persistence.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.ares.cloud.database.entity.BaseEntity;
+
+/**
+ * 订单事件发件箱实体
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("order_event_outbox")
+public class OrderEventOutboxEntity extends BaseEntity {
+
+    /**
+     * 消息通道名称
+     */
+    private String bindingName;
+
+    /**
+     * 路由键
+     */
+    private String routingKey;
+
+    /**
+     * 关联订单ID
+     */
+    private String aggregateId;
+
+    /**
+     * 消息内容（JSON）
+     */
+    private String payload;
+
+    /**
+     * 发布状态（PENDING:待发布, SENT:已发布）
+     */
+    private String status;
+
+    /**
+     * 重试次数
+     */
+    private Integer retryCount;
+
+    /**
+     * 下次重试时间
+     */
+    private Long nextRetryTime;
+}
@@ -0,0 +1,75 @@
+package com.ares.cloud.order.infrastructure.persistence.mapper;
+
+import com.ares.cloud.order.infrastructure.persistence.entity.OrderEventOutboxEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.RowBounds;
+
+import java.util.List;
+
+/**
+ * 订单事件发件箱Mapper接口
+ */
+@Mapper
+public interface OrderEventOutboxMapper extends BaseMapper<OrderEventOutboxEntity> {
+
+    /**
+     * 查询并锁定到期待发布的事件，已被其他实例锁定的行直接跳过
+     *
+     * @param now 当前时间
+     * @param rowBounds 最大条数
+     * @return 事件列表
+     */
+    @Select("SELECT * FROM order_event_outbox WHERE status = 'PENDING' AND next_retry_time <= #{now} " +
+            "AND deleted = 0 ORDER BY create_time FOR UPDATE SKIP LOCKED")
+    List<OrderEventOutboxEntity> lockPending(@Param("now") Long now, RowBounds rowBounds);
+
+    /**
+     * 认领锁定的事件，把下次重试时间推迟到租约到期，认领提交后其他实例在租约内不会再取到这些事件
+     *
+     * @param ids 事件ID
+     * @param leaseUntil 租约到期时间
+     * @param updateTime 更新时间
+     */
+    @Update("<script>UPDATE order_event_outbox SET next_retry_time = #{leaseUntil}, update_time = #{updateTime} " +
+            "WHERE status = 'PENDING' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    void claim(@Param("ids") List<String> ids, @Param("leaseUntil") Long leaseUntil, @Param("updateTime") Long updateTime);
+
+    /**
+     * 批量标记为已发布
+     *
+     * @param ids 事件ID
+     * @param updateTime 更新时间
+     */
+    @Update("<script>UPDATE order_event_outbox SET status = 'SENT', update_time = #{updateTime} WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    void markSent(@Param("ids") List<String> ids, @Param("updateTime") Long updateTime);
+
+    /**
+     * 记录重试
+     *
+     * @param id 事件ID
+     * @param retryCount 重试次数
+     * @param nextRetryTime 下次重试时间
+     * @param updateTime 更新时间
+     */
+    @Update("UPDATE order_event_outbox SET retry_count = #{retryCount}, next_retry_time = #{nextRetryTime}, " +
+            "update_time = #{updateTime} WHERE id = #{id} AND status = 'PENDING'")
+    void markRetry(@Param("id") String id, @Param("retryCount") Integer retryCount,
+                   @Param("nextRetryTime") Long nextRetryTime, @Param("updateTime") Long updateTime);
+
+    /**
+     * 删除一批发布时间早于指定时间的已发布事件
+     *
+     * @param before 截止时间
+     * @param limit 最大条数
+     * @return 删除的条数
+     */
+    @Delete("DELETE FROM order_event_outbox WHERE status = 'SENT' AND update_time < #{before} AND ROWNUM <= #{limit}")
+    int deleteSent(@Param("before") Long before, @Param("limit") Integer limit);
+}
@@ -32,6 +32,17 @@ public interface ProductInventoryMapper {
      */
     List<ProductInventory> selectByProductIds(@Param("productIds") List<String> productIds, @Param("tenantId") String tenantId);
     
+    /**
+     * 批量查询商品实际库存，预留库存为状态为RESERVED的预留记录之和
+     * 
+     * @param productIds 商品ID列表
+     * @param tenantId 租户ID
+     * @param excludeOrderId 不计入预留库存的订单ID，扣减订单自己的预留时传入，可为null
+     * @return 商品库存信息列表
+     */
+    List<ProductInventory> selectStockByProductIds(@Param("productIds") List<String> productIds, @Param("tenantId") String tenantId,
+                                                   @Param("excludeOrderId") String excludeOrderId);
+    
     /**
      * 检查商品是否存在
      * 
@@ -101,46 +112,40 @@ public interface ProductInventoryMapper {
                        @Param("updateTime") Long updateTime);
     
     /**
-     * 批量预留库存
+     * 按可用库存和版本条件锁定商品行并递增版本号，可用库存不足或商品版本已变化时不更新
+     * 版本号递增后，其他按旧版本预留或扣减的事务都会冲突并重新读取库存
      * 
-     * @param productInventories 商品库存列表
-     * @param tenantId 租户ID
-     * @param orderId 订单ID
-     * @param createTime 创建时间（毫秒时间戳）
-     * @return 是否成功
-     */
-    boolean reserveStockBatch(@Param("productInventories") List<ProductInventory> productInventories, 
-                             @Param("tenantId") String tenantId,
-                             @Param("orderId") String orderId,
-                             @Param("createTime") Long createTime);
-    
-    /**
-     * 批量释放预留库存
-     * 
-     * @param productInventories 商品库存列表
+     * @param productId 商品ID
+     * @param quantity 预留数量
+     * @param version 读取库存时的商品版本号
      * @param tenantId 租户ID
-     * @param orderId 订单ID
      * @param updateTime 更新时间（毫秒时间戳）
-     * @return 是否成功
+     * @return 影响行数
      */
-    boolean releaseReservedStockBatch(@Param("productInventories") List<ProductInventory> productInventories, 
-                                     @Param("tenantId") String tenantId,
-                                     @Param("orderId") String orderId,
-                                     @Param("updateTime") Long updateTime);
+    int lockStockForReserve(@Param("productId") String productId,
+                            @Param("quantity") Integer quantity,
+                            @Param("version") Integer version,
+                            @Param("tenantId") String tenantId,
+                            @Param("updateTime") Long updateTime);
     
     /**
-     * 批量扣减实际库存
+     * 按可用库存和版本条件扣减实际库存，可用库存为实际库存减去其他订单未结束的预留，
+     * 可用库存不足或商品版本已变化时不更新
      * 
-     * @param productInventories 商品库存列表
+     * @param orderId 订单ID，该订单自己的预留不占用可用库存
+     * @param productId 商品ID
+     * @param quantity 扣减数量
+     * @param version 读取库存时的商品版本号
      * @param tenantId 租户ID
-     * @param orderId 订单ID
      * @param updateTime 更新时间（毫秒时间戳）
-     * @return 是否成功
+     * @return 影响行数
      */
-    boolean deductStockBatch(@Param("productInventories") List<ProductInventory> productInventories, 
-                            @Param("tenantId") String tenantId,
-                            @Param("orderId") String orderId,
-                            @Param("updateTime") Long updateTime);
+    int deductStockGuarded(@Param("orderId") String orderId,
+                           @Param("productId") String productId,
+                           @Param("quantity") Integer quantity,
+                           @Param("version") Integer version,
+                           @Param("tenantId") String tenantId,
+                           @Param("updateTime") Long updateTime);
     
     /**
      * 根据商品ID和规格ID查询商品库存信息
@@ -177,4 +182,30 @@ public interface ProductInventoryMapper {
     boolean isSpecEnabledByProductIdAndSpecId(@Param("productId") String productId, 
                                              @Param("productSpecId") String productSpecId, 
                                              @Param("tenantId") String tenantId);
+    
+    /**
+     * 释放订单的全部预留记录
+     * 
+     * @param orderId 订单ID
+     * @param tenantId 租户ID
+     * @param updateTime 更新时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int releaseReservationsByOrderId(@Param("orderId") String orderId,
+                                     @Param("tenantId") String tenantId,
+                                     @Param("updateTime") Long updateTime);
+    
+    /**
+     * 将订单指定商品的预留记录标记为已扣减
+     * 
+     * @param orderId 订单ID
+     * @param productIds 商品ID列表
+     * @param tenantId 租户ID
+     * @param updateTime 更新时间（毫秒时间戳）
+     * @return 影响行数
+     */
+    int markReservationsDeducted(@Param("orderId") String orderId,
+                                 @Param("productIds") List<String> productIds,
+                                 @Param("tenantId") String tenantId,
+                                 @Param("updateTime") Long updateTime);
 }
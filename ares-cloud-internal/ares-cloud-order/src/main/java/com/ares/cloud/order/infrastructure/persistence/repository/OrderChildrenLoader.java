@@ -0,0 +1,119 @@
+package com.ares.cloud.order.infrastructure.persistence.repository;
+
+import cn.hutool.core.collection.CollUtil;
+import com.ares.cloud.order.infrastructure.persistence.entity.DeliveryInfoDO;
+import com.ares.cloud.order.infrastructure.persistence.entity.OrderItemEntity;
+import com.ares.cloud.order.infrastructure.persistence.entity.ProductSpecificationEntity;
+import com.ares.cloud.order.infrastructure.persistence.entity.ReservationInfoDO;
+import com.ares.cloud.order.infrastructure.persistence.mapper.DeliveryInfoMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.OrderItemMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.ProductSpecificationMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.ReservationInfoMapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 订单子表批量加载器
+ * 按一组订单ID用IN条件一次查询订单项、规格、配送信息和预订信息，再在内存中按订单分组，
+ * 列表查询的数据库往返次数与订单数量无关；IN列表按Oracle的1000个元素上限分批
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderChildrenLoader {
+
+    /**
+     * Oracle IN列表的元素上限
+     */
+    private static final int IN_LIST_LIMIT = 1000;
+
+    private final OrderItemMapper orderItemMapper;
+    private final ProductSpecificationMapper productSpecificationMapper;
+    private final DeliveryInfoMapper deliveryInfoMapper;
+    private final ReservationInfoMapper reservationInfoMapper;
+
+    /**
+     * 批量加载订单项（已删除的订单项由逻辑删除过滤）
+     *
+     * @param orderIds 订单ID
+     * @param withSpecifications 是否同时加载订单项的规格
+     * @return 订单ID到订单项列表的映射，没有订单项的订单不在映射中
+     */
+    public Map<String, List<OrderItemEntity>> loadItems(Collection<String> orderIds, boolean withSpecifications) {
+        List<OrderItemEntity> items = selectInChunks(orderIds, chunk -> orderItemMapper.selectList(
+                new LambdaQueryWrapper<OrderItemEntity>().in(OrderItemEntity::getOrderId, chunk)));
+        if (withSpecifications && !items.isEmpty()) {
+            Map<String, List<ProductSpecificationEntity>> specifications = groupBy(
+                    selectInChunks(items.stream().map(OrderItemEntity::getId).toList(),
+                            chunk -> productSpecificationMapper.selectList(
+                                    new LambdaQueryWrapper<ProductSpecificationEntity>()
+                                            .in(ProductSpecificationEntity::getOrderItemId, chunk))),
+                    ProductSpecificationEntity::getOrderItemId);
+            for (OrderItemEntity item : items) {
+                item.setSpecifications(specifications.getOrDefault(item.getId(), new ArrayList<>()));
+            }
+        }
+        return groupBy(items, OrderItemEntity::getOrderId);
+    }
+
+    /**
+     * 批量加载配送信息
+     *
+     * @param orderIds 订单ID
+     * @return 订单ID到配送信息的映射
+     */
+    public Map<String, DeliveryInfoDO> loadDeliveryInfos(Collection<String> orderIds) {
+        return firstBy(selectInChunks(orderIds, chunk -> deliveryInfoMapper.selectList(
+                new LambdaQueryWrapper<DeliveryInfoDO>().in(DeliveryInfoDO::getOrderId, chunk))),
+                DeliveryInfoDO::getOrderId);
+    }
+
+    /**
+     * 批量加载预订信息
+     *
+     * @param orderIds 订单ID
+     * @return 订单ID到预订信息的映射
+     */
+    public Map<String, ReservationInfoDO> loadReservationInfos(Collection<String> orderIds) {
+        return firstBy(selectInChunks(orderIds, chunk -> reservationInfoMapper.selectList(
+                new LambdaQueryWrapper<ReservationInfoDO>().in(ReservationInfoDO::getOrderId, chunk))),
+                ReservationInfoDO::getOrderId);
+    }
+
+    private <T> List<T> selectInChunks(Collection<String> ids, Function<List<String>, List<T>> query) {
+        if (CollUtil.isEmpty(ids)) {
+            return Collections.emptyList();
+        }
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<T> result = new ArrayList<>();
+        for (List<String> chunk : CollUtil.split(distinctIds, IN_LIST_LIMIT)) {
+            result.addAll(query.apply(chunk));
+        }
+        return result;
+    }
+
+    private <T> Map<String, List<T>> groupBy(List<T> rows, Function<T, String> key) {
+        Map<String, List<T>> grouped = new HashMap<>();
+        for (T row : rows) {
+            grouped.computeIfAbsent(key.apply(row), k -> new ArrayList<>()).add(row);
+        }
+        return grouped;
+    }
+
+    private <T> Map<String, T> firstBy(List<T> rows, Function<T, String> key) {
+        Map<String, T> result = new HashMap<>();
+        for (T row : rows) {
+            result.putIfAbsent(key.apply(row), row);
+        }
+        return result;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.RequiredArgsConstructor;
 import com.ares.cloud.order.domain.model.aggregate.Order;
 import com.ares.cloud.order.domain.enums.OrderStatus;
 import com.ares.cloud.order.domain.enums.OrderType;
+import com.ares.cloud.order.domain.model.entity.OrderItem;
+import com.ares.cloud.order.domain.model.valueobject.ProductSpecification;
 import com.ares.cloud.order.domain.repository.OrderRepository;
 import com.ares.cloud.order.infrastructure.persistence.converter.*;
 import com.ares.cloud.order.infrastructure.persistence.entity.*;
@@ -12,7 +14,11 @@ import com.ares.cloud.order.infrastructure.persistence.mapper.*;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -34,49 +40,22 @@ public class OrderRepositoryImpl implements OrderRepository {
     private final DeliveryInfoConverter deliveryInfoConverter;
     private final ReservationInfoMapper reservationInfoMapper;
     private final ReservationInfoConverter reservationInfoConverter;
+    private final OrderChildrenLoader orderChildrenLoader;
 
     @Override
     @Transactional
     public void save(Order order) {
         // 转换并保存订单
         OrderEntity orderEntity = orderConverter.toEntity(order);
-        if (orderEntity.getId() == null) {
+        boolean isNew = orderEntity.getId() == null;
+        if (isNew) {
             orderMapper.insert(orderEntity);
         } else {
             orderMapper.updateById(orderEntity);
         }
 
-        // 保存订单项，过滤掉已删除的订单项
-        order.getItems().stream()
-            .filter(item -> item.getDeleted() == null || !item.getDeleted())
-            .forEach(item -> {
-                OrderItemEntity itemEntity = orderItemConverter.toEntity(item);
-                itemEntity.setOrderId(orderEntity.getId());
-
-                if (itemEntity.getId() == null) {
-                    orderItemMapper.insert(itemEntity);
-                } else {
-                    orderItemMapper.updateById(itemEntity);
-                }
-
-                // 保存商品规格
-                item.getSpecifications().forEach(spec -> {
-                    ProductSpecificationEntity specEntity = productSpecificationConverter.toEntity(spec, itemEntity.getId());
-                    if (specEntity.getId() == null) {
-                        productSpecificationMapper.insert(specEntity);
-                    } else {
-                        productSpecificationMapper.updateById(specEntity);
-                    }
-                });
-            });
-            
-        // 处理已删除的订单项
-        order.getItems().stream()
-            .filter(item -> item.getDeleted() != null && item.getDeleted() && item.getId() != null)
-            .forEach(item -> {
-                OrderItemEntity itemEntity = orderItemConverter.toEntity(item);
-                orderItemMapper.deleteById(itemEntity);
-            });
+        // 保存订单项和规格
+        saveItems(order, orderEntity.getId(), isNew);
 
         // 保存配送信息
         if (order.getDeliveryInfo() != null) {
@@ -102,46 +81,129 @@ public class OrderRepositoryImpl implements OrderRepository {
         order.setId(orderEntity.getId());
     }
 
-    @Override
-    public Optional<Order> findById(String id) {
-        // 查询订单
-        OrderEntity orderEntity = orderMapper.selectById(id);
-        if (orderEntity == null) {
-            return Optional.empty();
+    /**
+     * 对比聚合中的订单项、规格与数据库中已保存的状态，只写入有变化的行，
+     * 新增、修改和删除分别以JDBC批量方式执行，整个订单只需要固定几次数据库往返
+     *
+     * @param order 订单聚合
+     * @param orderId 订单ID
+     * @param isNew 是否为新建订单，新建订单没有已保存的子表数据
+     */
+    private void saveItems(Order order, String orderId, boolean isNew) {
+        Map<String, OrderItemEntity> storedItems = new HashMap<>();
+        Map<String, List<ProductSpecificationEntity>> storedSpecs = new HashMap<>();
+        if (!isNew) {
+            for (OrderItemEntity stored : orderChildrenLoader.loadItems(List.of(orderId), true)
+                    .getOrDefault(orderId, List.of())) {
+                storedSpecs.put(stored.getId(), stored.getSpecifications());
+                stored.setSpecifications(null);
+                storedItems.put(stored.getId(), stored);
+            }
         }
 
-        // 查询订单项，只查询未删除的订单项
-        LambdaQueryWrapper<OrderItemEntity> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(OrderItemEntity::getOrderId, id)
-              .eq(OrderItemEntity::getDeleted, 0);
-        List<OrderItemEntity> itemEntities = orderItemMapper.selectList(wrapper);
-
-        // 转换为领域模型
-        Order order = orderConverter.toDomain(orderEntity);
-        order.setItems(itemEntities.stream()
-                .map(orderItemConverter::toDomain)
-                .collect(Collectors.toList()));
+        // 订单项：已删除的逻辑删除，新增的插入，有变化的更新
+        List<OrderItemEntity> itemsToInsert = new ArrayList<>();
+        List<OrderItemEntity> itemsToUpdate = new ArrayList<>();
+        List<String> itemIdsToDelete = new ArrayList<>();
+        List<OrderItem> savedItems = new ArrayList<>();
+        List<OrderItemEntity> savedItemEntities = new ArrayList<>();
+        for (OrderItem item : order.getItems()) {
+            if (item.getDeleted() != null && item.getDeleted()) {
+                if (item.getId() != null && storedItems.containsKey(item.getId())) {
+                    itemIdsToDelete.add(item.getId());
+                }
+                continue;
+            }
+            OrderItemEntity itemEntity = orderItemConverter.toEntity(item);
+            itemEntity.setOrderId(orderId);
+            if (itemEntity.getId() == null) {
+                itemsToInsert.add(itemEntity);
+            } else if (!itemEntity.equals(storedItems.get(itemEntity.getId()))) {
+                itemsToUpdate.add(itemEntity);
+            }
+            savedItems.add(item);
+            savedItemEntities.add(itemEntity);
+        }
+        if (!itemsToInsert.isEmpty()) {
+            orderItemMapper.insert(itemsToInsert);
+        }
+        if (!itemsToUpdate.isEmpty()) {
+            orderItemMapper.updateById(itemsToUpdate);
+        }
+        if (!itemIdsToDelete.isEmpty()) {
+            orderItemMapper.deleteByIds(itemIdsToDelete);
+        }
 
-        // 加载配送信息
-        if (OrderType.DELIVERY.equals(orderEntity.getOrderType())) {
-            DeliveryInfoDO deliveryInfoDO = deliveryInfoMapper.selectByOrderId(orderEntity.getId());
-            if (deliveryInfoDO != null) {
-                order.setDeliveryInfo(deliveryInfoConverter.toDeliveryInfo(deliveryInfoDO));
+        // 规格：按ID匹配已保存的规格，没有ID的按规格内容匹配，避免同一聚合重复保存时重复插入；
+        // 未匹配上的已保存规格和已删除订单项的规格一并删除
+        List<ProductSpecificationEntity> specsToInsert = new ArrayList<>();
+        List<ProductSpecificationEntity> specsToUpdate = new ArrayList<>();
+        List<String> specIdsToDelete = new ArrayList<>();
+        for (String itemId : itemIdsToDelete) {
+            for (ProductSpecificationEntity stored : storedSpecs.getOrDefault(itemId, List.of())) {
+                specIdsToDelete.add(stored.getId());
+            }
+        }
+        for (int i = 0; i < savedItems.size(); i++) {
+            OrderItem item = savedItems.get(i);
+            OrderItemEntity itemEntity = savedItemEntities.get(i);
+            // 回写新插入订单项的ID
+            item.setId(itemEntity.getId());
+            if (item.getSpecifications() == null) {
+                continue;
+            }
+            List<ProductSpecificationEntity> unmatched = new ArrayList<>(
+                    storedSpecs.getOrDefault(itemEntity.getId(), List.of()));
+            for (ProductSpecification spec : item.getSpecifications()) {
+                ProductSpecificationEntity specEntity = productSpecificationConverter.toEntity(spec, itemEntity.getId());
+                ProductSpecificationEntity stored = findStoredSpec(unmatched, specEntity);
+                if (stored == null) {
+                    specsToInsert.add(specEntity);
+                    continue;
+                }
+                unmatched.remove(stored);
+                specEntity.setId(stored.getId());
+                if (!stored.equals(specEntity)) {
+                    specsToUpdate.add(specEntity);
+                }
+            }
+            for (ProductSpecificationEntity stored : unmatched) {
+                specIdsToDelete.add(stored.getId());
             }
         }
+        if (!specsToInsert.isEmpty()) {
+            productSpecificationMapper.insert(specsToInsert);
+        }
+        if (!specsToUpdate.isEmpty()) {
+            productSpecificationMapper.updateById(specsToUpdate);
+        }
+        if (!specIdsToDelete.isEmpty()) {
+            productSpecificationMapper.deleteByIds(specIdsToDelete);
+        }
+    }
 
-        // 加载预订信息
-        if (OrderType.RESERVATION.equals(orderEntity.getOrderType())) {
-            ReservationInfoDO reservationInfoDO = reservationInfoMapper.selectOne(
-                new LambdaQueryWrapper<ReservationInfoDO>()
-                    .eq(ReservationInfoDO::getOrderId, orderEntity.getId())
-            );
-            if (reservationInfoDO != null) {
-                order.setReservationInfo(reservationInfoConverter.toReservationInfo(reservationInfoDO));
+    private ProductSpecificationEntity findStoredSpec(List<ProductSpecificationEntity> storedSpecs,
+                                                      ProductSpecificationEntity specEntity) {
+        for (ProductSpecificationEntity stored : storedSpecs) {
+            if (specEntity.getId() != null
+                    ? specEntity.getId().equals(stored.getId())
+                    : Objects.equals(specEntity.getProductSpecId(), stored.getProductSpecId())
+                        && Objects.equals(specEntity.getName(), stored.getName())
+                        && Objects.equals(specEntity.getValue(), stored.getValue())) {
+                return stored;
             }
         }
+        return null;
+    }
 
-        return Optional.of(order);
+    @Override
+    public Optional<Order> findById(String id) {
+        // 查询订单
+        OrderEntity orderEntity = orderMapper.selectById(id);
+        if (orderEntity == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toDomain(List.of(orderEntity)).get(0));
     }
 
     @Override
@@ -149,42 +211,51 @@ public class OrderRepositoryImpl implements OrderRepository {
         // 查询指定状态的订单
         LambdaQueryWrapper<OrderEntity> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(OrderEntity::getStatus, orderConverter.convertFromOrderStatus(status));
+        return toDomain(orderMapper.selectList(wrapper));
+    }
+
+    /**
+     * 批量加载订单的子表并转换为领域模型，子表查询次数与订单数量无关
+     *
+     * @param orderEntities 订单实体
+     * @return 订单领域模型，顺序与入参一致
+     */
+    private List<Order> toDomain(List<OrderEntity> orderEntities) {
+        if (orderEntities.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> orderIds = orderEntities.stream().map(OrderEntity::getId).toList();
+        Map<String, List<OrderItemEntity>> itemsByOrder = orderChildrenLoader.loadItems(orderIds, false);
+        // 只为配送订单和预订订单加载对应的子表
+        List<String> deliveryOrderIds = orderEntities.stream()
+                .filter(entity -> OrderType.DELIVERY.equals(entity.getOrderType()))
+                .map(OrderEntity::getId)
+                .toList();
+        List<String> reservationOrderIds = orderEntities.stream()
+                .filter(entity -> OrderType.RESERVATION.equals(entity.getOrderType()))
+                .map(OrderEntity::getId)
+                .toList();
+        Map<String, DeliveryInfoDO> deliveryInfos = orderChildrenLoader.loadDeliveryInfos(deliveryOrderIds);
+        Map<String, ReservationInfoDO> reservationInfos = orderChildrenLoader.loadReservationInfos(reservationOrderIds);
+
+        List<Order> orders = new ArrayList<>(orderEntities.size());
+        for (OrderEntity entity : orderEntities) {
+            // 转换为领域模型
+            Order order = orderConverter.toDomain(entity);
+            order.setItems(itemsByOrder.getOrDefault(entity.getId(), List.of()).stream()
+                    .map(orderItemConverter::toDomain)
+                    .collect(Collectors.toList()));
 
-        return orderMapper.selectList(wrapper).stream()
-                .map(entity -> {
-                    // 查询订单项，只查询未删除的订单项
-                    LambdaQueryWrapper<OrderItemEntity> itemWrapper = new LambdaQueryWrapper<>();
-                    itemWrapper.eq(OrderItemEntity::getOrderId, entity.getId())
-                              .eq(OrderItemEntity::getDeleted, 0);
-                    List<OrderItemEntity> itemEntities = orderItemMapper.selectList(itemWrapper);
-
-                    // 转换为领域模型
-                    Order order = orderConverter.toDomain(entity);
-                    order.setItems(itemEntities.stream()
-                            .map(orderItemConverter::toDomain)
-                            .collect(Collectors.toList()));
-                    
-                    // 加载配送信息
-                    if (OrderType.DELIVERY.equals(entity.getOrderType())) {
-                        DeliveryInfoDO deliveryInfoDO = deliveryInfoMapper.selectByOrderId(entity.getId());
-                        if (deliveryInfoDO != null) {
-                            order.setDeliveryInfo(deliveryInfoConverter.toDeliveryInfo(deliveryInfoDO));
-                        }
-                    }
-
-                    // 加载预订信息
-                    if (OrderType.RESERVATION.equals(entity.getOrderType())) {
-                        ReservationInfoDO reservationInfoDO = reservationInfoMapper.selectOne(
-                            new LambdaQueryWrapper<ReservationInfoDO>()
-                                .eq(ReservationInfoDO::getOrderId, entity.getId())
-                        );
-                        if (reservationInfoDO != null) {
-                            order.setReservationInfo(reservationInfoConverter.toReservationInfo(reservationInfoDO));
-                        }
-                    }
-
-                    return order;
-                })
-                .collect(Collectors.toList());
+            DeliveryInfoDO deliveryInfoDO = deliveryInfos.get(entity.getId());
+            if (deliveryInfoDO != null) {
+                order.setDeliveryInfo(deliveryInfoConverter.toDeliveryInfo(deliveryInfoDO));
+            }
+            ReservationInfoDO reservationInfoDO = reservationInfos.get(entity.getId());
+            if (reservationInfoDO != null) {
+                order.setReservationInfo(reservationInfoConverter.toReservationInfo(reservationInfoDO));
+            }
+            orders.add(order);
+        }
+        return orders;
     }
-}
\ No newline at end of file
+}
@@ -7,14 +7,21 @@ import com.ares.cloud.order.domain.repository.ProductInventoryRepository;
 import com.ares.cloud.order.infrastructure.persistence.mapper.ProductInventoryMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.ares.cloud.api.product.ProductClient;
 import org.ares.cloud.api.product.dto.ProductBaseInfoVo;
 import org.ares.cloud.common.exception.BusinessException;
 import org.ares.cloud.common.utils.IdUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,7 +34,14 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProductInventoryRepositoryImpl implements ProductInventoryRepository {
     
+    /**
+     * 批量语句因版本冲突未生效时的最大重试次数
+     */
+    private static final int MAX_VERSION_CONFLICT_RETRIES = 3;
+    
     private final ProductInventoryMapper productInventoryMapper;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final TransactionTemplate transactionTemplate;
     // 商品服务客户端
     private final ProductClient productClient;
     
@@ -77,6 +91,14 @@ public class ProductInventoryRepositoryImpl implements ProductInventoryRepositor
         }
     }
     
+    @Override
+    public List<ProductInventory> findStockByProductIds(List<String> productIds, String merchantId) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return productInventoryMapper.selectStockByProductIds(productIds, merchantId, null);
+    }
+    
     @Override
     public void save(ProductInventory productInventory) {
         // 商品库存信息通常由商品服务管理，这里只记录日志
@@ -140,48 +162,40 @@ public class ProductInventoryRepositoryImpl implements ProductInventoryRepositor
     }
     
     @Override
-    public boolean reserveStockBatch(List<ProductInventory> productInventories, String merchantId) {
-        try {
-            if (productInventories == null || productInventories.isEmpty()) {
-                return true;
-            }
-            String orderId = generateOrderId();
-            Long currentTime = System.currentTimeMillis();
-            
-            // 为每个商品生成独立的雪花ID并单独插入
-            // 这样可以支持同一订单的同一商品有多个item
-            for (ProductInventory inventory : productInventories) {
-                String reservationId = IdUtils.generateSnowflakeId();
-                boolean success = productInventoryMapper.reserveStock(
-                    reservationId,
-                    inventory.getProductId(), 
-                    inventory.getQuantity(), 
-                    merchantId, 
-                    orderId, 
-                    currentTime
-                );
-                if (!success) {
-                    log.error("预留库存失败，商品ID: {}, 数量: {}", inventory.getProductId(), inventory.getQuantity());
-                    return false;
-                }
-            }
+    public boolean reserveStockBatch(String orderId, List<ProductInventory> productInventories, String merchantId) {
+        if (productInventories == null || productInventories.isEmpty()) {
             return true;
+        }
+        Long currentTime = System.currentTimeMillis();
+        try {
+            // 先按版本锁定商品行并递增版本号，并发预留或扣减同一商品时只有一方生效，另一方重新读取库存；
+            // 全部商品锁定后再插入预留记录，锁持有到事务提交
+            return executeGuardedBatch("预留", productInventories, merchantId, null,
+                    (mapper, inventory, version) -> mapper.lockStockForReserve(
+                            inventory.getProductId(),
+                            inventory.getQuantity(),
+                            version,
+                            merchantId,
+                            currentTime
+                    ),
+                    () -> insertReservations(orderId, productInventories, merchantId, currentTime));
         } catch (Exception e) {
-            log.error("批量预留库存失败，库存数量: {}, 商户ID: {}", 
-                    productInventories != null ? productInventories.size() : 0, merchantId, e);
+            log.error("批量预留库存失败，订单ID: {}, 库存数量: {}, 商户ID: {}",
+                    orderId, productInventories.size(), merchantId, e);
             return false;
         }
     }
     
     @Override
-    public boolean releaseReservedStockBatch(List<ProductInventory> productInventories, String merchantId) {
+    public boolean releaseReservedStockBatch(String orderId, List<ProductInventory> productInventories, String merchantId) {
         try {
             if (productInventories == null || productInventories.isEmpty()) {
                 return true;
             }
-            String orderId = generateOrderId();
             Long currentTime = System.currentTimeMillis();
-            return productInventoryMapper.releaseReservedStockBatch(productInventories, merchantId, orderId, currentTime);
+            // 释放以订单为单位，一条语句释放订单的全部预留记录
+            productInventoryMapper.releaseReservationsByOrderId(orderId, merchantId, currentTime);
+            return true;
         } catch (Exception e) {
             log.error("批量释放预留库存失败，库存数量: {}, 商户ID: {}", productInventories.size(), merchantId, e);
             return false;
@@ -189,35 +203,157 @@ public class ProductInventoryRepositoryImpl implements ProductInventoryRepositor
     }
     
     @Override
-    public boolean deductStockBatch(List<ProductInventory> productInventories, String merchantId) {
+    public boolean releaseReservationsByOrderId(String orderId, String merchantId) {
+        return productInventoryMapper.releaseReservationsByOrderId(orderId, merchantId, System.currentTimeMillis()) > 0;
+    }
+    
+    @Override
+    public boolean deductStockBatch(String orderId, List<ProductInventory> productInventories, String merchantId) {
+        if (productInventories == null || productInventories.isEmpty()) {
+            return true;
+        }
+        Long currentTime = System.currentTimeMillis();
+        boolean success;
         try {
-            if (productInventories == null || productInventories.isEmpty()) {
-                return true;
+            // 订单自己的预留不占用可用库存，其他订单的预留不能被扣走
+            success = executeGuardedBatch("扣减", productInventories, merchantId, orderId,
+                    (mapper, inventory, version) -> mapper.deductStockGuarded(
+                            orderId,
+                            inventory.getProductId(),
+                            inventory.getQuantity(),
+                            version,
+                            merchantId,
+                            currentTime
+                    ),
+                    // 已扣减商品的预留记录不再计入预留库存，与扣减在同一事务内生效
+                    () -> productInventoryMapper.markReservationsDeducted(orderId,
+                            productInventories.stream().map(ProductInventory::getProductId).toList(),
+                            merchantId, currentTime));
+        } catch (Exception e) {
+            log.error("批量扣减库存失败，订单ID: {}, 库存数量: {}, 商户ID: {}",
+                    orderId, productInventories.size(), merchantId, e);
+            return false;
+        }
+        
+        // 批量扣减成功后，检查每个商品的库存状态
+        if (success) {
+            for (ProductInventory inventory : productInventories) {
+                try {
+                    checkAndNotifyProductStatus(inventory.getProductId(), merchantId);
+                } catch (Exception e) {
+                    log.error("检查商品状态失败，商品ID: {}", inventory.getProductId(), e);
+                    // 不影响整体流程，只记录日志
+                }
             }
-            String orderId = generateOrderId();
-            Long currentTime = System.currentTimeMillis();
-            boolean success = productInventoryMapper.deductStockBatch(productInventories, merchantId, orderId, currentTime);
-            
-            // 批量扣减成功后，检查每个商品的库存状态
-            if (success && productInventories != null) {
-                for (ProductInventory inventory : productInventories) {
-                    try {
-                        checkAndNotifyProductStatus(inventory.getProductId(), merchantId);
-                    } catch (Exception e) {
-                        log.error("检查商品状态失败，商品ID: {}", inventory.getProductId(), e);
-                        // 不影响整体流程，只记录日志
+        }
+        return success;
+    }
+    
+    /**
+     * 在一个事务内以JDBC批量方式执行带库存和版本条件的语句
+     * 先一次查询全部商品的可用库存和版本，任一商品可用库存不足立即失败；
+     * 批量执行后按每行影响行数判断结果，未生效的行说明期间库存被并发修改，重新读取版本后只重试这些行；
+     * 任一商品最终库存不足时整个事务回滚，不会只生效一部分商品
+     *
+     * @param operation 操作名称，用于日志
+     * @param items 操作明细（商品ID和数量，同一商品已合并）
+     * @param merchantId 商户ID
+     * @param excludeOrderId 不计入预留库存的订单ID，可为null
+     * @param statement 单行带条件语句
+     * @param afterBatch 全部行生效后在同一事务内执行的操作，可为null
+     * @return 是否全部成功
+     */
+    private boolean executeGuardedBatch(String operation, List<ProductInventory> items, String merchantId,
+                                        String excludeOrderId, GuardedStatement statement,
+                                        Runnable afterBatch) {
+        Boolean result = transactionTemplate.execute(status -> {
+            List<ProductInventory> pending = items;
+            for (int attempt = 0; attempt <= MAX_VERSION_CONFLICT_RETRIES && !pending.isEmpty(); attempt++) {
+                Map<String, ProductInventory> stocks = new HashMap<>();
+                for (ProductInventory stock : productInventoryMapper.selectStockByProductIds(
+                        pending.stream().map(ProductInventory::getProductId).toList(), merchantId, excludeOrderId)) {
+                    stocks.put(stock.getProductId(), stock);
+                }
+                for (ProductInventory item : pending) {
+                    ProductInventory stock = stocks.get(item.getProductId());
+                    if (stock == null || stock.getAvailableStock() < item.getQuantity()) {
+                        log.error("{}库存不足，商品ID: {}, 需要: {}, 可用库存: {}", operation, item.getProductId(),
+                                item.getQuantity(), stock != null ? stock.getAvailableStock() : 0);
+                        status.setRollbackOnly();
+                        return false;
                     }
                 }
+                
+                int[] updateCounts = executeBatch(pending, stocks, statement);
+                List<ProductInventory> conflicts = new ArrayList<>();
+                for (int i = 0; i < pending.size(); i++) {
+                    // 驱动不返回具体行数时为SUCCESS_NO_INFO，视为成功
+                    if (updateCounts[i] == 0) {
+                        conflicts.add(pending.get(i));
+                    }
+                }
+                if (!conflicts.isEmpty()) {
+                    log.warn("{}库存版本冲突，重试商品数量: {}, 第{}次", operation, conflicts.size(), attempt + 1);
+                }
+                pending = conflicts;
             }
-            
-            return success;
-        } catch (Exception e) {
-            log.error("批量扣减库存失败，库存数量: {}, 商户ID: {}", 
-                    productInventories != null ? productInventories.size() : 0, merchantId, e);
-            return false;
+            if (!pending.isEmpty()) {
+                log.error("{}库存版本冲突重试次数用尽，商品数量: {}, 商户ID: {}", operation, pending.size(), merchantId);
+                status.setRollbackOnly();
+                return false;
+            }
+            if (afterBatch != null) {
+                afterBatch.run();
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(result);
+    }
+    
+    /**
+     * 以JDBC批量方式执行语句，一次往返提交全部行，返回每行的影响行数
+     * 批量会话与当前事务共用同一个数据库连接
+     */
+    private int[] executeBatch(List<ProductInventory> items, Map<String, ProductInventory> stocks,
+                               GuardedStatement statement) {
+        try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            ProductInventoryMapper batchMapper = batchSession.getMapper(ProductInventoryMapper.class);
+            for (ProductInventory item : items) {
+                statement.execute(batchMapper, item, stocks.get(item.getProductId()).getVersion());
+            }
+            int[] updateCounts = new int[items.size()];
+            int index = 0;
+            for (BatchResult batchResult : batchSession.flushStatements()) {
+                for (int updateCount : batchResult.getUpdateCounts()) {
+                    updateCounts[index++] = updateCount;
+                }
+            }
+            return updateCounts;
         }
     }
     
+    /**
+     * 以JDBC批量方式插入订单的预留记录，与锁定商品行在同一事务内
+     * 每条预留记录使用独立的雪花ID，支持同一订单的同一商品有多个item
+     */
+    private void insertReservations(String orderId, List<ProductInventory> items, String merchantId, Long createTime) {
+        try (SqlSession batchSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            ProductInventoryMapper batchMapper = batchSession.getMapper(ProductInventoryMapper.class);
+            for (ProductInventory item : items) {
+                batchMapper.reserveStock(IdUtils.generateSnowflakeId(), item.getProductId(), item.getQuantity(),
+                        merchantId, orderId, createTime);
+            }
+            batchSession.flushStatements();
+        }
+    }
+    
+    /**
+     * 带库存和版本条件的单行语句
+     */
+    @FunctionalInterface
+    private interface GuardedStatement {
+        void execute(ProductInventoryMapper mapper, ProductInventory item, Integer version);
+    }
     
     /**
      * 将ProductBaseInfoVo转换为ProductInventory
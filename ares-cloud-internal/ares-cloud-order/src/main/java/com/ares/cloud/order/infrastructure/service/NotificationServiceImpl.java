@@ -1,6 +1,7 @@
 package com.ares.cloud.order.infrastructure.service;
 
 import com.alibaba.fastjson.JSON;
+import com.ares.cloud.order.domain.model.valueobject.MerchantNotification;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import com.ares.cloud.order.domain.service.NotificationService;
@@ -9,8 +10,14 @@ import org.ares.cloud.api.msg_center.command.SendNotificationCommand;
 import org.ares.cloud.api.msg_center.enums.NotificationType;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 通知服务实现类
@@ -18,9 +25,18 @@ import java.util.Map;
 @Slf4j
 @Service
 public class NotificationServiceImpl implements NotificationService {
+
+    /**
+     * 每个批量请求的最大通知条数
+     */
+    private static final int BULK_SIZE = 100;
+
     @Resource
     private NotificationServerClient notificationServerClient;
 
+    @Resource(name = "notificationSendExecutor")
+    private Executor notificationSendExecutor;
+
     @Override
     public void notifyMerchant(String merchantId,String orderId, String title, String content) {
         try  {
@@ -32,15 +48,7 @@ public class NotificationServiceImpl implements NotificationService {
             
             log.info("📤 准备发送商户通知: merchantId={}, orderId={}, title={}", merchantId, orderId, title);
             
-            Map<String,String> data = new HashMap<>();
-            data.put("orderId", orderId);
-            data.put("message", content);
-            
-            SendNotificationCommand command = new SendNotificationCommand();
-            command.setType(NotificationType.USER_ORDER);
-            command.setReceiver(merchantId);
-            command.setTitle(title);
-            command.setContent(JSON.toJSONString(data));
+            SendNotificationCommand command = toCommand(merchantId, orderId, title, content);
             
             log.debug("📤 发送通知命令: receiver={}, type={}, title={}, content={}", 
                     command.getReceiver(), command.getType(), command.getTitle(), command.getContent());
@@ -54,6 +62,79 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
 
+    @Override
+    public CompletableFuture<List<MerchantNotification>> notifyMerchants(List<MerchantNotification> notifications) {
+        // 按商户分组，同一商户的通知落在同一个批量请求中
+        Map<String, List<MerchantNotification>> byMerchant = new LinkedHashMap<>();
+        for (MerchantNotification notification : notifications) {
+            if (notification.getMerchantId() == null || notification.getMerchantId().isEmpty()) {
+                log.warn("⚠️ merchantId 为空，无法发送通知: orderId={}, title={}",
+                        notification.getOrderId(), notification.getTitle());
+                continue;
+            }
+            byMerchant.computeIfAbsent(notification.getMerchantId(), k -> new ArrayList<>()).add(notification);
+        }
+
+        List<CompletableFuture<List<MerchantNotification>>> requests = new ArrayList<>();
+        List<MerchantNotification> chunk = new ArrayList<>();
+        for (List<MerchantNotification> group : byMerchant.values()) {
+            chunk.addAll(group);
+            if (chunk.size() >= BULK_SIZE) {
+                requests.add(sendAsync(chunk));
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            requests.add(sendAsync(chunk));
+        }
+
+        return CompletableFuture.allOf(requests.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<MerchantNotification> failed = new ArrayList<>();
+                    for (CompletableFuture<List<MerchantNotification>> request : requests) {
+                        failed.addAll(request.join());
+                    }
+                    return failed;
+                });
+    }
+
+    /**
+     * 在通知线程池中发送一个批量请求
+     *
+     * @param chunk 本次请求的通知
+     * @return 请求结束后完成，失败时结果为本次请求的全部通知
+     */
+    private CompletableFuture<List<MerchantNotification>> sendAsync(List<MerchantNotification> chunk) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<SendNotificationCommand> commands = new ArrayList<>(chunk.size());
+            for (MerchantNotification notification : chunk) {
+                commands.add(toCommand(notification.getMerchantId(), notification.getOrderId(),
+                        notification.getTitle(), notification.getContent()));
+            }
+            try {
+                notificationServerClient.sendNotifications(commands);
+                log.info("✅ 批量商户通知发送成功: {} 条", commands.size());
+                return Collections.<MerchantNotification>emptyList();
+            } catch (Exception e) {
+                log.error("❌ 批量发送商户通知失败: {} 条, error={}", commands.size(), e.getMessage(), e);
+                return chunk;
+            }
+        }, notificationSendExecutor);
+    }
+
+    private SendNotificationCommand toCommand(String merchantId, String orderId, String title, String content) {
+        Map<String,String> data = new HashMap<>();
+        data.put("orderId", orderId);
+        data.put("message", content);
+
+        SendNotificationCommand command = new SendNotificationCommand();
+        command.setType(NotificationType.USER_ORDER);
+        command.setReceiver(merchantId);
+        command.setTitle(title);
+        command.setContent(JSON.toJSONString(data));
+        return command;
+    }
+
     @Override
     public void notifyRider(String riderId, String orderId,String title, String content) {
         log.debug("Notify rider: riderId={}, title={}, content={}", 
@@ -0,0 +1,125 @@
+package com.ares.cloud.order.infrastructure.service;
+
+import com.ares.cloud.order.domain.model.valueobject.InventoryReconcileTask;
+import com.ares.cloud.order.domain.service.InventoryReconcileRetryQueue;
+import com.ares.cloud.order.domain.service.InventoryService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.ares.cloud.common.utils.JsonUtils;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 基于Redis有序集合的库存对账重试队列
+ * 待重试任务保存在有序集合中（成员为任务JSON，分数为下次重试时间），服务重启不丢失；
+ * 各实例定时取出到期任务，认领时把分数推迟一个租约时长，执行完成后删除，实例在执行过程中宕机时租约到期后由其他实例重新认领。
+ * 重试次数用尽的任务转入失败集合（分数为失败时间），等待人工修复
+ */
+@Slf4j
+@Component
+public class RedisInventoryReconcileRetryQueue implements InventoryReconcileRetryQueue {
+
+    private static final String RETRY_KEY = "{inventory}:reconcile:retry";
+
+    private static final String FAILED_KEY = "{inventory}:reconcile:failed";
+
+    /**
+     * 最大重试次数
+     */
+    private static final int MAX_ATTEMPTS = 10;
+
+    /**
+     * 重试退避的初始间隔和上限（毫秒）
+     */
+    private static final long RETRY_BASE_MILLIS = 5000;
+    private static final long RETRY_MAX_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * 每次拉取的最大任务数
+     */
+    private static final int POLL_BATCH_SIZE = 100;
+
+    /**
+     * 认领租约时长（毫秒）
+     */
+    private static final long CLAIM_LEASE_MILLIS = 60 * 1000;
+
+    /**
+     * 认领脚本
+     * KEYS[1]为重试有序集合；ARGV[1]为成员，ARGV[2]为当前时间，ARGV[3]为租约到期时间。
+     * 任务存在且已到期时推迟到租约到期时间并返回1，否则返回0
+     */
+    private static final String CLAIM_SCRIPT =
+        "local score = redis.call('zscore', KEYS[1], ARGV[1]) " +
+        "if not score or tonumber(score) > tonumber(ARGV[2]) then return 0 end " +
+        "redis.call('zadd', KEYS[1], ARGV[3], ARGV[1]) " +
+        "return 1";
+
+    private static final DefaultRedisScript<Long> CLAIM = new DefaultRedisScript<>(CLAIM_SCRIPT, Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    @Lazy
+    private InventoryService inventoryService;
+
+    @Override
+    public void retry(InventoryReconcileTask task) {
+        String member = JsonUtils.toJsonString(task);
+        long now = System.currentTimeMillis();
+        if (task.attempts() >= MAX_ATTEMPTS) {
+            stringRedisTemplate.opsForZSet().add(FAILED_KEY, member, now);
+            log.error("库存对账重试次数用尽，需要人工修复，任务: {}", member);
+            return;
+        }
+        long backoff = Math.min(RETRY_MAX_MILLIS, RETRY_BASE_MILLIS << Math.min(task.attempts(), 20));
+        stringRedisTemplate.opsForZSet().add(RETRY_KEY, member, now + backoff);
+        log.warn("库存对账失败，{}毫秒后第{}次重试，订单ID: {}", backoff, task.attempts(), task.orderId());
+    }
+
+    /**
+     * 定时执行到期的重试任务
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void poll() {
+        try {
+            Set<String> due = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(RETRY_KEY, Double.NEGATIVE_INFINITY, System.currentTimeMillis(), 0, POLL_BATCH_SIZE);
+            if (due == null) {
+                return;
+            }
+            for (String member : due) {
+                execute(member);
+            }
+        } catch (Exception e) {
+            log.error("拉取库存对账重试任务失败", e);
+        }
+    }
+
+    /**
+     * 认领并执行一个重试任务，失败时以新的失败次数重新登记
+     */
+    private void execute(String member) {
+        long now = System.currentTimeMillis();
+        Long claimed = stringRedisTemplate.execute(CLAIM, Collections.singletonList(RETRY_KEY),
+                member, String.valueOf(now), String.valueOf(now + CLAIM_LEASE_MILLIS));
+        if (claimed == null || claimed != 1L) {
+            return;
+        }
+        InventoryReconcileTask task = JsonUtils.parseObject(member, InventoryReconcileTask.class);
+        boolean reconciled = inventoryService.reconcile(task);
+        stringRedisTemplate.opsForZSet().remove(RETRY_KEY, member);
+        if (reconciled) {
+            log.info("库存对账重试成功，订单ID: {}, 操作: {}", task.orderId(), task.operation());
+        } else {
+            retry(task.nextAttempt());
+        }
+    }
+}
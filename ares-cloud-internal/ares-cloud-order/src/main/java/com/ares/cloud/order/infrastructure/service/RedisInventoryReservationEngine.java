@@ -0,0 +1,393 @@
+package com.ares.cloud.order.infrastructure.service;
+
+import com.ares.cloud.order.domain.enums.OrderError;
+import com.ares.cloud.order.domain.model.valueobject.ProductInventory;
+import com.ares.cloud.order.domain.repository.ProductInventoryRepository;
+import com.ares.cloud.order.domain.service.InventoryReservationEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.ares.cloud.common.exception.RequestBadException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于Redis Lua脚本的库存预留引擎
+ * 每个商品的库存计数保存在一个hash中（available可用、reserved预留），订单的预留明细保存在订单预留hash中；
+ * 一个订单的全部商品在一次Lua调用内校验并更新，计数不存在时从数据库加载后重试。
+ * 所有key使用商户hash tag，保证集群模式下同一商户的key在同一个槽位
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisInventoryReservationEngine implements InventoryReservationEngine {
+
+    /**
+     * 没有未结束预留的库存计数过期时间（秒），商品服务修改库存时通过 evict 主动清除，过期只作为兜底
+     */
+    private static final long STOCK_TTL_SECONDS = 10 * 60;
+
+    /**
+     * 订单预留明细过期时间（秒），远大于预留超时时间；有未结束预留的库存计数同样按此时间过期
+     */
+    private static final long RESERVATION_TTL_SECONDS = 24 * 60 * 60;
+
+    /**
+     * 计数未加载时的最大重试次数
+     */
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private static final long CODE_SUCCESS = 1L;
+    private static final long CODE_INSUFFICIENT = 0L;
+    private static final long CODE_NOT_LOADED = -1L;
+    private static final long CODE_DUPLICATE = -2L;
+
+    /**
+     * 每次写入库存计数后刷新过期时间：有未结束的预留时按订单预留明细的过期时间保留，
+     * 避免计数在预留超时释放前过期、按数据库重新加载时丢失尚未对账的预留
+     */
+    private static final String TOUCH_FUNCTION =
+        "local function touch(key) " +
+        "    if tonumber(redis.call('hget', key, 'reserved') or '0') > 0 then " +
+        "        redis.call('expire', key, " + RESERVATION_TTL_SECONDS + ") " +
+        "    else " +
+        "        redis.call('expire', key, " + STOCK_TTL_SECONDS + ") " +
+        "    end " +
+        "end ";
+
+    /**
+     * 预留脚本
+     * KEYS[1]为订单预留key，KEYS[2..n]为商品库存key；ARGV[1]为订单预留过期秒数，ARGV[i]为KEYS[i]的预留数量。
+     * 返回 {1, 可用, 预留, ...}；{0, 序号, 可用} 表示库存不足；{-1, 序号} 表示计数未加载；{-2} 表示订单已预留
+     */
+    private static final String RESERVE_SCRIPT = TOUCH_FUNCTION +
+        "if redis.call('exists', KEYS[1]) == 1 then return {-2} end " +
+        "for i = 2, #KEYS do " +
+        "    local available = redis.call('hget', KEYS[i], 'available') " +
+        "    if not available then return {-1, i - 1} end " +
+        "    if tonumber(available) < tonumber(ARGV[i]) then return {0, i - 1, tonumber(available)} end " +
+        "end " +
+        "local result = {1} " +
+        "for i = 2, #KEYS do " +
+        "    local quantity = tonumber(ARGV[i]) " +
+        "    result[#result + 1] = redis.call('hincrby', KEYS[i], 'available', -quantity) " +
+        "    result[#result + 1] = redis.call('hincrby', KEYS[i], 'reserved', quantity) " +
+        "    redis.call('hset', KEYS[1], KEYS[i], quantity) " +
+        "    touch(KEYS[i]) " +
+        "end " +
+        "redis.call('expire', KEYS[1], ARGV[1]) " +
+        "return result";
+
+    /**
+     * 释放脚本
+     * KEYS[1]为订单预留key。返回 {1, 库存key, 释放数量, 可用, 预留, ...}，计数已过期的商品可用和预留返回-1；
+     * 订单没有预留时返回 {0}
+     */
+    private static final String RELEASE_SCRIPT = TOUCH_FUNCTION +
+        "local entries = redis.call('hgetall', KEYS[1]) " +
+        "if #entries == 0 then return {0} end " +
+        "local result = {1} " +
+        "for i = 1, #entries, 2 do " +
+        "    local key = entries[i] " +
+        "    local quantity = tonumber(entries[i + 1]) " +
+        "    result[#result + 1] = key " +
+        "    result[#result + 1] = quantity " +
+        "    if redis.call('exists', key) == 1 then " +
+        "        result[#result + 1] = redis.call('hincrby', key, 'available', quantity) " +
+        "        result[#result + 1] = redis.call('hincrby', key, 'reserved', -quantity) " +
+        "        touch(key) " +
+        "    else " +
+        "        result[#result + 1] = -1 " +
+        "        result[#result + 1] = -1 " +
+        "    end " +
+        "end " +
+        "redis.call('del', KEYS[1]) " +
+        "return result";
+
+    /**
+     * 扣减脚本
+     * KEYS[1]为订单预留key，KEYS[2..n]为商品库存key；ARGV[i]为KEYS[i]的扣减数量。
+     * 先消耗订单在该商品上的预留，超出部分从可用库存扣减。
+     * 返回 {1, 消耗的预留数量, ...}；失败码同预留脚本
+     */
+    private static final String DEDUCT_SCRIPT = TOUCH_FUNCTION +
+        "for i = 2, #KEYS do " +
+        "    local quantity = tonumber(ARGV[i]) " +
+        "    local reserved = tonumber(redis.call('hget', KEYS[1], KEYS[i]) or '0') " +
+        "    local extra = quantity - math.min(quantity, reserved) " +
+        "    if extra > 0 then " +
+        "        local available = redis.call('hget', KEYS[i], 'available') " +
+        "        if not available then return {-1, i - 1} end " +
+        "        if tonumber(available) < extra then return {0, i - 1, tonumber(available)} end " +
+        "    end " +
+        "end " +
+        "local result = {1} " +
+        "for i = 2, #KEYS do " +
+        "    local quantity = tonumber(ARGV[i]) " +
+        "    local reserved = tonumber(redis.call('hget', KEYS[1], KEYS[i]) or '0') " +
+        "    local consumed = math.min(quantity, reserved) " +
+        "    if consumed > 0 then " +
+        "        if consumed == reserved then " +
+        "            redis.call('hdel', KEYS[1], KEYS[i]) " +
+        "        else " +
+        "            redis.call('hincrby', KEYS[1], KEYS[i], -consumed) " +
+        "        end " +
+        "    end " +
+        "    if redis.call('exists', KEYS[i]) == 1 then " +
+        "        if consumed > 0 then redis.call('hincrby', KEYS[i], 'reserved', -consumed) end " +
+        "        if quantity > consumed then redis.call('hincrby', KEYS[i], 'available', consumed - quantity) end " +
+        "        touch(KEYS[i]) " +
+        "    end " +
+        "    result[#result + 1] = consumed " +
+        "end " +
+        "return result";
+
+    /**
+     * 撤销脚本，反向应用释放或扣减的变更量
+     * KEYS[1]为订单预留key，KEYS[2..n]为商品库存key；ARGV[1]为订单预留过期秒数，
+     * ARGV[2i-2]、ARGV[2i-1]为KEYS[i]的预留和可用变化量。计数不存在的商品只恢复订单预留
+     */
+    private static final String RESTORE_SCRIPT = TOUCH_FUNCTION +
+        "for i = 2, #KEYS do " +
+        "    local reserved = -tonumber(ARGV[i * 2 - 2]) " +
+        "    local available = -tonumber(ARGV[i * 2 - 1]) " +
+        "    if reserved ~= 0 then redis.call('hincrby', KEYS[1], KEYS[i], reserved) end " +
+        "    if redis.call('exists', KEYS[i]) == 1 then " +
+        "        redis.call('hincrby', KEYS[i], 'reserved', reserved) " +
+        "        redis.call('hincrby', KEYS[i], 'available', available) " +
+        "        touch(KEYS[i]) " +
+        "    end " +
+        "end " +
+        "if redis.call('exists', KEYS[1]) == 1 then redis.call('expire', KEYS[1], ARGV[1]) end " +
+        "return 1";
+
+    /**
+     * 加载脚本，只初始化不存在的计数，避免覆盖加载期间其他请求的更新
+     * KEYS为商品库存key；ARGV依次为每个key的可用和预留数量
+     */
+    private static final String LOAD_SCRIPT = TOUCH_FUNCTION +
+        "for i = 1, #KEYS do " +
+        "    if redis.call('exists', KEYS[i]) == 0 then " +
+        "        redis.call('hset', KEYS[i], 'available', ARGV[i * 2 - 1], 'reserved', ARGV[i * 2]) " +
+        "        touch(KEYS[i]) " +
+        "    end " +
+        "end " +
+        "return 1";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ProductInventoryRepository productInventoryRepository;
+
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> reserveScript = new DefaultRedisScript<>(RESERVE_SCRIPT, List.class);
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> releaseScript = new DefaultRedisScript<>(RELEASE_SCRIPT, List.class);
+    @SuppressWarnings("rawtypes")
+    private final DefaultRedisScript<List> deductScript = new DefaultRedisScript<>(DEDUCT_SCRIPT, List.class);
+    private final DefaultRedisScript<Long> restoreScript = new DefaultRedisScript<>(RESTORE_SCRIPT, Long.class);
+    private final DefaultRedisScript<Long> loadScript = new DefaultRedisScript<>(LOAD_SCRIPT, Long.class);
+
+    @Override
+    public List<ProductInventory> reserve(String orderId, String merchantId, List<ProductInventory> items) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = buildKeys(orderId, merchantId, items);
+        Object[] args = new Object[items.size() + 1];
+        args[0] = String.valueOf(RESERVATION_TTL_SECONDS);
+        for (int i = 0; i < items.size(); i++) {
+            args[i + 1] = String.valueOf(items.get(i).getQuantity());
+        }
+
+        List<?> result = executeLoading(reserveScript, keys, args, merchantId, items);
+        if (code(result) == CODE_DUPLICATE) {
+            log.warn("订单库存已预留，忽略重复预留，订单ID: {}", orderId);
+            return Collections.emptyList();
+        }
+        return toInventories(merchantId, items, result);
+    }
+
+    @Override
+    public List<ProductInventory> release(String orderId, String merchantId) {
+        List<?> result = stringRedisTemplate.execute(releaseScript,
+                Collections.singletonList(reservationKey(merchantId, orderId)));
+        if (code(result) != CODE_SUCCESS) {
+            return Collections.emptyList();
+        }
+        String stockKeyPrefix = stockKeyPrefix(merchantId);
+        List<ProductInventory> inventories = new ArrayList<>();
+        for (int i = 1; i + 3 < result.size(); i += 4) {
+            String key = String.valueOf(result.get(i));
+            inventories.add(toInventory(
+                    key.substring(stockKeyPrefix.length()),
+                    merchantId,
+                    toInt(result.get(i + 1)),
+                    toInt(result.get(i + 2)),
+                    toInt(result.get(i + 3))));
+        }
+        return inventories;
+    }
+
+    @Override
+    public List<StockChange> deduct(String orderId, String merchantId, List<ProductInventory> items) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> keys = buildKeys(orderId, merchantId, items);
+        Object[] args = new Object[items.size() + 1];
+        args[0] = "0";
+        for (int i = 0; i < items.size(); i++) {
+            args[i + 1] = String.valueOf(items.get(i).getQuantity());
+        }
+        List<?> result = executeLoading(deductScript, keys, args, merchantId, items);
+        List<StockChange> changes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            int quantity = items.get(i).getQuantity();
+            int consumed = toInt(result.get(i + 1));
+            changes.add(new StockChange(items.get(i).getProductId(), -consumed, consumed - quantity));
+        }
+        return changes;
+    }
+
+    @Override
+    public void restore(String orderId, String merchantId, List<StockChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(changes.size() + 1);
+        keys.add(reservationKey(merchantId, orderId));
+        Object[] args = new Object[changes.size() * 2 + 1];
+        args[0] = String.valueOf(RESERVATION_TTL_SECONDS);
+        for (int i = 0; i < changes.size(); i++) {
+            StockChange change = changes.get(i);
+            keys.add(stockKey(merchantId, change.productId()));
+            args[i * 2 + 1] = String.valueOf(change.reserved());
+            args[i * 2 + 2] = String.valueOf(change.available());
+        }
+        stringRedisTemplate.execute(restoreScript, keys, args);
+    }
+
+    /**
+     * 执行脚本，计数未加载时从数据库加载后重试，库存不足时抛出异常
+     */
+    @SuppressWarnings("rawtypes")
+    private List<?> executeLoading(DefaultRedisScript<List> script, List<String> keys, Object[] args,
+                                   String merchantId, List<ProductInventory> items) {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            List<?> result = stringRedisTemplate.execute(script, keys, args);
+            long code = code(result);
+            if (code == CODE_NOT_LOADED) {
+                loadStock(merchantId, items);
+                continue;
+            }
+            if (code == CODE_INSUFFICIENT) {
+                ProductInventory item = items.get(toInt(result.get(1)) - 1);
+                log.warn("商品库存不足，商品ID: {}, 需要数量: {}, 可用库存: {}",
+                        item.getProductId(), item.getQuantity(), result.get(2));
+                throw new RequestBadException(OrderError.INSUFFICIENT_STOCK);
+            }
+            return result;
+        }
+        throw new RequestBadException(OrderError.INVENTORY_RESERVE_FAILED);
+    }
+
+    /**
+     * 从数据库加载库存计数，已存在的计数不会被覆盖
+     */
+    private void loadStock(String merchantId, List<ProductInventory> items) {
+        List<String> productIds = new ArrayList<>(items.size());
+        for (ProductInventory item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<String, ProductInventory> stocks = new HashMap<>();
+        for (ProductInventory stock : productInventoryRepository.findStockByProductIds(productIds, merchantId)) {
+            stocks.put(stock.getProductId(), stock);
+        }
+        List<String> keys = new ArrayList<>(productIds.size());
+        Object[] args = new Object[productIds.size() * 2];
+        for (int i = 0; i < productIds.size(); i++) {
+            ProductInventory stock = stocks.get(productIds.get(i));
+            if (stock == null) {
+                log.warn("商品库存信息不存在，商品ID: {}, 商户ID: {}", productIds.get(i), merchantId);
+                throw new RequestBadException(OrderError.PRODUCT_NOT_FOUND);
+            }
+            keys.add(stockKey(merchantId, productIds.get(i)));
+            args[i * 2] = String.valueOf(stock.getAvailableStock());
+            args[i * 2 + 1] = String.valueOf(stock.getReservedStock());
+        }
+        stringRedisTemplate.execute(loadScript, keys, args);
+    }
+
+    @Override
+    public void evict(String merchantId, List<String> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            keys.add(stockKey(merchantId, productId));
+        }
+        stringRedisTemplate.delete(keys);
+    }
+
+    private List<String> buildKeys(String orderId, String merchantId, List<ProductInventory> items) {
+        List<String> keys = new ArrayList<>(items.size() + 1);
+        keys.add(reservationKey(merchantId, orderId));
+        for (ProductInventory item : items) {
+            keys.add(stockKey(merchantId, item.getProductId()));
+        }
+        return keys;
+    }
+
+    private List<ProductInventory> toInventories(String merchantId, List<ProductInventory> items, List<?> result) {
+        List<ProductInventory> inventories = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            inventories.add(toInventory(
+                    items.get(i).getProductId(),
+                    merchantId,
+                    items.get(i).getQuantity(),
+                    toInt(result.get(1 + i * 2)),
+                    toInt(result.get(2 + i * 2))));
+        }
+        return inventories;
+    }
+
+    private ProductInventory toInventory(String productId, String merchantId, int quantity, int available, int reserved) {
+        return ProductInventory.builder()
+                .productId(productId)
+                .merchantId(merchantId)
+                .currentStock(available >= 0 ? available + reserved : null)
+                .reservedStock(reserved >= 0 ? reserved : null)
+                .availableStock(available >= 0 ? available : null)
+                .quantity(quantity)
+                .build();
+    }
+
+    private long code(List<?> result) {
+        if (result == null || result.isEmpty()) {
+            throw new RequestBadException(OrderError.INVENTORY_RESERVE_FAILED);
+        }
+        return ((Number) result.get(0)).longValue();
+    }
+
+    private int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(String.valueOf(value));
+    }
+
+    private String stockKeyPrefix(String merchantId) {
+        return "{inventory:" + merchantId + "}:stock:";
+    }
+
+    private String stockKey(String merchantId, String productId) {
+        return stockKeyPrefix(merchantId) + productId;
+    }
+
+    private String reservationKey(String merchantId, String orderId) {
+        return "{inventory:" + merchantId + "}:reservation:" + orderId;
+    }
+}
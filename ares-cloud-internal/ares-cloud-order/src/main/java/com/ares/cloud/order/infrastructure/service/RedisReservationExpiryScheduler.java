@@ -0,0 +1,207 @@
+package com.ares.cloud.order.infrastructure.service;
+
+import com.ares.cloud.order.domain.service.InventoryReservationExpiryScheduler;
+import com.ares.cloud.order.domain.service.InventoryService;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis有序集合和时间轮的库存预留过期调度
+ * 过期登记保存在有序集合中（成员为商户ID:订单ID，分数为过期时间），保证重启不丢失；
+ * 各实例定时取出即将到期的登记放入本地时间轮，到期时通过Lua脚本认领，只有认领成功的实例执行释放。
+ * 认领时把分数推迟一个租约时长而不是直接删除，释放完成后才删除，实例在释放过程中宕机时租约到期后由其他实例重新认领；
+ * 预留释放本身是幂等的，重复认领不会重复归还库存。
+ * 到期任务在独立的线程池中执行，线程池繁忙时丢弃任务，登记仍在Redis中，由下一次拉取重新放入时间轮
+ */
+@Slf4j
+@Component
+public class RedisReservationExpiryScheduler implements InventoryReservationExpiryScheduler {
+
+    private static final String EXPIRY_KEY = "{inventory}:reservation:expiry";
+
+    /**
+     * 拉取即将到期登记的间隔（毫秒）
+     */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 每次拉取的时间窗口（毫秒），大于拉取间隔，避免登记在两次拉取之间漏掉
+     */
+    private static final long LOOKAHEAD_MILLIS = 5000;
+
+    /**
+     * 每次拉取的最大登记数
+     */
+    private static final int POLL_BATCH_SIZE = 1000;
+
+    /**
+     * 认领租约时长（毫秒），认领的实例在此时间内未完成释放时登记重新到期
+     */
+    private static final long CLAIM_LEASE_MILLIS = 60 * 1000;
+
+    /**
+     * 认领脚本
+     * KEYS[1]为过期有序集合；ARGV[1]为成员，ARGV[2]为当前时间，ARGV[3]为租约到期时间。
+     * 登记存在且已到期时推迟到租约到期时间并返回1，否则返回0
+     */
+    private static final String CLAIM_SCRIPT =
+        "local score = redis.call('zscore', KEYS[1], ARGV[1]) " +
+        "if not score or tonumber(score) > tonumber(ARGV[2]) then return 0 end " +
+        "redis.call('zadd', KEYS[1], ARGV[3], ARGV[1]) " +
+        "return 1";
+
+    private static final DefaultRedisScript<Long> CLAIM = new DefaultRedisScript<>(CLAIM_SCRIPT, Long.class);
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    @Lazy
+    private InventoryService inventoryService;
+
+    @Resource(name = "reservationExpiryExecutor")
+    private Executor reservationExpiryExecutor;
+
+    /**
+     * 本地时间轮中等待到期的登记
+     */
+    private final ConcurrentMap<String, Timeout> pending = new ConcurrentHashMap<>();
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(
+            new DefaultThreadFactory("reservation-expiry", true), 100, TimeUnit.MILLISECONDS, 512);
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        schedulePoll();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        timer.stop();
+        pending.clear();
+    }
+
+    @Override
+    public void schedule(String orderId, String merchantId, long expireAt) {
+        String member = toMember(orderId, merchantId);
+        stringRedisTemplate.opsForZSet().add(EXPIRY_KEY, member, expireAt);
+        if (expireAt - System.currentTimeMillis() <= LOOKAHEAD_MILLIS) {
+            scheduleLocal(member, expireAt);
+        }
+    }
+
+    @Override
+    public void cancel(String orderId, String merchantId) {
+        String member = toMember(orderId, merchantId);
+        stringRedisTemplate.opsForZSet().remove(EXPIRY_KEY, member);
+        Timeout timeout = pending.remove(member);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 拉取即将到期的登记放入时间轮，任务在线程池中执行，不阻塞时间轮线程
+     */
+    private void schedulePoll() {
+        if (!running) {
+            return;
+        }
+        timer.newTimeout(timeout -> {
+            try {
+                reservationExpiryExecutor.execute(() -> {
+                    try {
+                        poll();
+                    } catch (Exception e) {
+                        log.error("拉取库存预留过期登记失败", e);
+                    } finally {
+                        schedulePoll();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.warn("库存预留过期线程池繁忙，跳过本次拉取");
+                schedulePoll();
+            }
+        }, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void poll() {
+        long horizon = System.currentTimeMillis() + LOOKAHEAD_MILLIS;
+        Set<ZSetOperations.TypedTuple<String>> due = stringRedisTemplate.opsForZSet()
+                .rangeByScoreWithScores(EXPIRY_KEY, Double.NEGATIVE_INFINITY, horizon, 0, POLL_BATCH_SIZE);
+        if (due == null) {
+            return;
+        }
+        for (ZSetOperations.TypedTuple<String> entry : due) {
+            if (entry.getValue() != null && entry.getScore() != null) {
+                scheduleLocal(entry.getValue(), entry.getScore().longValue());
+            }
+        }
+    }
+
+    private void scheduleLocal(String member, long expireAt) {
+        if (!running) {
+            return;
+        }
+        long delay = Math.max(0, expireAt - System.currentTimeMillis());
+        pending.computeIfAbsent(member, key -> timer.newTimeout(timeout -> {
+            try {
+                reservationExpiryExecutor.execute(() -> expire(key, timeout));
+            } catch (RejectedExecutionException e) {
+                // 登记未被认领，下一次拉取时重新放入时间轮
+                pending.remove(key, timeout);
+                log.warn("库存预留过期线程池繁忙，稍后重试，登记: {}", key);
+            }
+        }, delay, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 到期处理：认领成功后释放订单预留，释放完成后删除登记
+     */
+    private void expire(String member, Timeout timeout) {
+        pending.remove(member, timeout);
+        long now = System.currentTimeMillis();
+        Long claimed = stringRedisTemplate.execute(CLAIM, Collections.singletonList(EXPIRY_KEY),
+                member, String.valueOf(now), String.valueOf(now + CLAIM_LEASE_MILLIS));
+        if (claimed == null || claimed != 1L) {
+            // 已被其他实例认领、已取消或过期时间已推迟
+            return;
+        }
+        int separator = member.lastIndexOf(':');
+        String merchantId = member.substring(0, separator);
+        String orderId = member.substring(separator + 1);
+        try {
+            // 释放成功后由库存服务取消登记
+            inventoryService.releaseStock(orderId, null, merchantId);
+            log.info("库存预留已过期释放，订单ID: {}, 商户ID: {}", orderId, merchantId);
+        } catch (Exception e) {
+            log.error("释放过期库存预留失败，租约到期后重试，订单ID: {}, 商户ID: {}", orderId, merchantId, e);
+        }
+    }
+
+    private String toMember(String orderId, String merchantId) {
+        return merchantId + ":" + orderId;
+    }
+}
@@ -10,8 +10,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
  * @author hugo
  * @version 1.0
@@ -56,4 +59,21 @@ public class OrderInternalController {
             throw new RpcCallException(e);
         }
     }
+
+    /**
+     * 清除商品库存计数，商品库存修改后调用
+     * @param merchantId 商户ID
+     * @param productIds 商品ID列表
+     * @return 结果
+     */
+    @Hidden
+    @PostMapping("inventory/evict")
+    public String evictInventory(@RequestParam("merchantId") String merchantId, @RequestBody List<String> productIds) {
+        try {
+            orderApplicationService.evictInventory(merchantId, productIds);
+            return "success";
+        } catch (Exception e) {
+            throw new RpcCallException(e);
+        }
+    }
 }
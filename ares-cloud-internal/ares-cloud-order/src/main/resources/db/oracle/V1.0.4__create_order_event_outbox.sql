@@ -0,0 +1,37 @@
+-- 创建订单事件发件箱表
+-- 订单和配送领域事件与订单数据在同一事务内写入，事务提交后由中继批量发布到消息队列并等待发布确认，失败时退避重试
+CREATE TABLE order_event_outbox (
+    id VARCHAR2(64) PRIMARY KEY,
+    binding_name VARCHAR2(100) NOT NULL,
+    routing_key VARCHAR2(100) NOT NULL,
+    aggregate_id VARCHAR2(64),
+    payload CLOB NOT NULL,
+    status VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+    retry_count NUMBER(10) DEFAULT 0 NOT NULL,
+    next_retry_time NUMBER(20) NOT NULL,
+    create_time NUMBER(20) NOT NULL,
+    update_time NUMBER(20),
+    creator VARCHAR2(64),
+    updater VARCHAR2(64),
+    version NUMBER(10) DEFAULT 1 NOT NULL,
+    deleted NUMBER(1) DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_order_outbox_status_retry ON order_event_outbox (status, next_retry_time);
+
+-- 添加注释
+COMMENT ON TABLE order_event_outbox IS '订单事件发件箱表';
+COMMENT ON COLUMN order_event_outbox.id IS '主键ID';
+COMMENT ON COLUMN order_event_outbox.binding_name IS '消息通道名称';
+COMMENT ON COLUMN order_event_outbox.routing_key IS '路由键';
+COMMENT ON COLUMN order_event_outbox.aggregate_id IS '关联订单ID';
+COMMENT ON COLUMN order_event_outbox.payload IS '消息内容(JSON)';
+COMMENT ON COLUMN order_event_outbox.status IS '发布状态(PENDING:待发布,SENT:已发布)';
+COMMENT ON COLUMN order_event_outbox.retry_count IS '重试次数';
+COMMENT ON COLUMN order_event_outbox.next_retry_time IS '下次重试时间';
+COMMENT ON COLUMN order_event_outbox.create_time IS '创建时间';
+COMMENT ON COLUMN order_event_outbox.update_time IS '更新时间';
+COMMENT ON COLUMN order_event_outbox.creator IS '创建者';
+COMMENT ON COLUMN order_event_outbox.updater IS '更新者';
+COMMENT ON COLUMN order_event_outbox.version IS '版本号';
+COMMENT ON COLUMN order_event_outbox.deleted IS '删除标记(0:未删除,1:已删除)';
@@ -0,0 +1,2 @@
+-- 已发布事件按更新时间定期清理
+CREATE INDEX idx_order_outbox_status_update ON order_event_outbox (status, update_time);
@@ -0,0 +1,216 @@
+package com.ares.cloud.order.infrastructure.persistence.repository;
+
+import com.ares.cloud.order.domain.model.aggregate.Order;
+import com.ares.cloud.order.domain.model.entity.OrderItem;
+import com.ares.cloud.order.domain.model.valueobject.ProductSpecification;
+import com.ares.cloud.order.infrastructure.persistence.converter.DeliveryInfoConverter;
+import com.ares.cloud.order.infrastructure.persistence.converter.OrderConverter;
+import com.ares.cloud.order.infrastructure.persistence.converter.OrderItemConverter;
+import com.ares.cloud.order.infrastructure.persistence.converter.ReservationInfoConverter;
+import com.ares.cloud.order.infrastructure.persistence.entity.OrderEntity;
+import com.ares.cloud.order.infrastructure.persistence.entity.OrderItemEntity;
+import com.ares.cloud.order.infrastructure.persistence.entity.ProductSpecificationEntity;
+import com.ares.cloud.order.infrastructure.persistence.mapper.DeliveryInfoMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.OrderItemMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.OrderMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.ProductSpecificationMapper;
+import com.ares.cloud.order.infrastructure.persistence.mapper.ReservationInfoMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.ares.cloud.order.infrastructure.persistence.converter.OrderItemConverter.productSpecificationConverter;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * OrderRepositoryImpl 保存订单项时的差量写入测试
+ * 已保存的子表数据由模拟的 OrderChildrenLoader 提供，校验新增、修改、删除各自只写入有变化的行
+ */
+class OrderRepositoryImplTest {
+
+    private static final String ORDER_ID = "O1";
+
+    private final OrderItemConverter orderItemConverter = Mappers.getMapper(OrderItemConverter.class);
+
+    private OrderConverter orderConverter;
+
+    private OrderItemMapper orderItemMapper;
+
+    private ProductSpecificationMapper productSpecificationMapper;
+
+    private OrderChildrenLoader orderChildrenLoader;
+
+    private OrderRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        orderConverter = mock(OrderConverter.class);
+        orderItemMapper = mock(OrderItemMapper.class);
+        productSpecificationMapper = mock(ProductSpecificationMapper.class);
+        orderChildrenLoader = mock(OrderChildrenLoader.class);
+        repository = new OrderRepositoryImpl(productSpecificationMapper, mock(OrderMapper.class), orderItemMapper,
+                orderConverter, orderItemConverter, mock(DeliveryInfoMapper.class), mock(DeliveryInfoConverter.class),
+                mock(ReservationInfoMapper.class), mock(ReservationInfoConverter.class), orderChildrenLoader);
+    }
+
+    @Test
+    void writesOnlyChangedItemsAndSpecifications() {
+        // 未变化的订单项，其中一个规格已被移除
+        OrderItem unchanged = item("I1", "P1", 1, spec(null, "SP1", "size", "L"));
+        // 数量和规格值有变化的订单项
+        OrderItem changed = item("I2", "P2", 3, spec("S3", "SP3", "sugar", "less"));
+        // 已删除的订单项
+        OrderItem removed = item("I3", "P3", 1);
+        removed.setDeleted(true);
+        // 新增的订单项
+        OrderItem added = item(null, "P4", 2, spec(null, "SP9", "ice", "none"));
+
+        OrderItemEntity storedUnchanged = stored(unchanged,
+                storedSpec("S1", "I1", "SP1", "size", "L"), storedSpec("S2", "I1", "SP2", "color", "red"));
+        OrderItemEntity storedChanged = stored(item("I2", "P2", 1),
+                storedSpec("S3", "I2", "SP3", "sugar", "normal"));
+        OrderItemEntity storedRemoved = stored(item("I3", "P3", 1),
+                storedSpec("S4", "I3", "SP4", "size", "M"));
+        givenStored(storedUnchanged, storedChanged, storedRemoved);
+
+        repository.save(order(unchanged, changed, removed, added));
+
+        assertThat(captureItemInserts()).extracting(OrderItemEntity::getProductId).containsExactly("P4");
+        assertThat(captureItemUpdates()).extracting(OrderItemEntity::getId).containsExactly("I2");
+        assertThat(captureItemDeletes()).containsExactly("I3");
+
+        assertThat(captureSpecInserts()).extracting(ProductSpecificationEntity::getProductSpecId).containsExactly("SP9");
+        assertThat(captureSpecUpdates()).singleElement().satisfies(spec -> {
+            assertThat(spec.getId()).isEqualTo("S3");
+            assertThat(spec.getValue()).isEqualTo("less");
+        });
+        // 已删除订单项的规格和未变化订单项上被移除的规格都作为孤儿删除
+        assertThat(captureSpecDeletes()).containsExactlyInAnyOrder("S4", "S2");
+    }
+
+    @Test
+    void unchangedOrderWritesNoChildRows() {
+        OrderItem item = item("I1", "P1", 1, spec("S1", "SP1", "size", "L"));
+        givenStored(stored(item, storedSpec("S1", "I1", "SP1", "size", "L")));
+
+        repository.save(order(item));
+
+        verify(orderItemMapper, never()).insert(anyList());
+        verify(orderItemMapper, never()).updateById(anyList());
+        verify(orderItemMapper, never()).deleteByIds(anyCollection());
+        verify(productSpecificationMapper, never()).insert(anyList());
+        verify(productSpecificationMapper, never()).updateById(anyList());
+        verify(productSpecificationMapper, never()).deleteByIds(anyCollection());
+    }
+
+    @Test
+    void itemWithoutSpecificationsKeepsStoredSpecifications() {
+        // 订单项未携带规格时不改动已保存的规格
+        OrderItem item = item("I1", "P1", 1);
+        item.setSpecifications(null);
+        givenStored(stored(item("I1", "P1", 1), storedSpec("S1", "I1", "SP1", "size", "L")));
+
+        repository.save(order(item));
+
+        verify(productSpecificationMapper, never()).deleteByIds(anyCollection());
+    }
+
+    private void givenStored(OrderItemEntity... items) {
+        when(orderChildrenLoader.loadItems(eq(List.of(ORDER_ID)), eq(true)))
+                .thenReturn(Map.of(ORDER_ID, new ArrayList<>(List.of(items))));
+    }
+
+    private Order order(OrderItem... items) {
+        Order order = Order.builder().id(ORDER_ID).items(new ArrayList<>(List.of(items))).build();
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setId(ORDER_ID);
+        when(orderConverter.toEntity(order)).thenReturn(orderEntity);
+        return order;
+    }
+
+    private static OrderItem item(String id, String productId, int quantity, ProductSpecification... specs) {
+        return OrderItem.builder()
+                .id(id)
+                .orderId(ORDER_ID)
+                .productId(productId)
+                .productName(productId)
+                .quantity(quantity)
+                .deleted(false)
+                .specifications(new ArrayList<>(List.of(specs)))
+                .build();
+    }
+
+    private static ProductSpecification spec(String id, String productSpecId, String name, String value) {
+        return ProductSpecification.builder().id(id).productSpecId(productSpecId).name(name).value(value).build();
+    }
+
+    private OrderItemEntity stored(OrderItem item, ProductSpecificationEntity... specs) {
+        OrderItemEntity entity = orderItemConverter.toEntity(item);
+        entity.setOrderId(ORDER_ID);
+        entity.setSpecifications(new ArrayList<>(List.of(specs)));
+        return entity;
+    }
+
+    private static ProductSpecificationEntity storedSpec(String id, String itemId, String productSpecId,
+                                                         String name, String value) {
+        ProductSpecificationEntity entity = productSpecificationConverter.toEntity(
+                spec(id, productSpecId, name, value), itemId);
+        entity.setId(id);
+        return entity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OrderItemEntity> captureItemInserts() {
+        ArgumentCaptor<List<OrderItemEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderItemMapper).insert(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OrderItemEntity> captureItemUpdates() {
+        ArgumentCaptor<List<OrderItemEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderItemMapper).updateById(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> captureItemDeletes() {
+        ArgumentCaptor<Collection<Object>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(orderItemMapper).deleteByIds(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProductSpecificationEntity> captureSpecInserts() {
+        ArgumentCaptor<List<ProductSpecificationEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productSpecificationMapper).insert(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ProductSpecificationEntity> captureSpecUpdates() {
+        ArgumentCaptor<List<ProductSpecificationEntity>> captor = ArgumentCaptor.forClass(List.class);
+        verify(productSpecificationMapper).updateById(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> captureSpecDeletes() {
+        ArgumentCaptor<Collection<Object>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(productSpecificationMapper).deleteByIds(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -9,15 +9,16 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.ares.cloud.api.base.BusinessIdServerClient;
 import org.ares.cloud.api.merchant.MerchantClient;
 import org.ares.cloud.api.merchant.dto.MerchantInfo;
 import org.ares.cloud.api.merchant.dto.PlatformApprovalRecordDto;
+import org.ares.cloud.api.order.OrderClient;
 import org.ares.cloud.common.context.ApplicationContext;
 import org.ares.cloud.common.dto.PageResult;
 import org.ares.cloud.common.exception.BaseException;
 import org.ares.cloud.common.exception.BusinessException;
 import org.ares.cloud.common.exception.RequestBadException;
+import org.ares.cloud.common.utils.IdUtils;
 import org.ares.cloud.database.service.impl.BaseServiceImpl;
 import org.ares.cloud.product.convert.*;
 import org.ares.cloud.product.dto.*;
@@ -38,12 +39,15 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author hugo tangxkwork@163.com
@@ -154,6 +158,9 @@ public class ProductBaseInfoServiceImpl extends BaseServiceImpl<ProductBaseInfoR
     @Resource
     private MerchantClient merchantClient;
 
+    @Resource
+    private OrderClient orderClient;
+
     @Resource
     private ProductListRepository productListRepository;
 
@@ -163,9 +170,6 @@ public class ProductBaseInfoServiceImpl extends BaseServiceImpl<ProductBaseInfoR
     @Resource
     private RedisCache redisCache;
 
-    @Resource
-    private BusinessIdServerClient idServerClient;
-
     /**
      * 创建
      *
@@ -211,7 +215,7 @@ public class ProductBaseInfoServiceImpl extends BaseServiceImpl<ProductBaseInfoR
             default:
                 break;
         }
-        dto.setId(idServerClient.generateSnowflakeId());
+        dto.setId(IdUtils.generateSnowflakeId());
         ProductBaseInfoEntity entity = convert.toEntity(dto);
         int insert = this.baseMapper.insert(entity);
         if (insert > 0) {
@@ -423,7 +427,7 @@ public class ProductBaseInfoServiceImpl extends BaseServiceImpl<ProductBaseInfoR
             }
         }
         this.productService.update(entity);
-
+        evictInventory(productBaseInfoEntity.getTenantId(), List.of(entity.getId()));
     }
 
     /**
@@ -436,6 +440,11 @@ public class ProductBaseInfoServiceImpl extends BaseServiceImpl<ProductBaseInfoR
     public void update(List<ProductBaseInfoDto> dos) {
         List<ProductBaseInfoEntity> entities = convert.listToEntities(dos);
         this.saveOrUpdateBatch(entities);
+        entities.stream()
+                .filter(entity -> StringUtils.isNotBlank(entity.getTenantId()))
+                .collect(Collectors.groupingBy(ProductBaseInfoEntity::getTenantId,
+                        Collectors.mapping(ProductBaseInfoEntity::getId, Collectors.toList())))
+                .forEach(this::evictInventory);
     }
 
     /**
@@ -945,6 +954,31 @@ public class ProductBaseInfoServiceImpl extends BaseServiceImpl<ProductBaseInfoR
         }
     }
 
+    /**
+     * 商品修改提交后通知订单服务清除库存计数，下次下单时按数据库库存重新加载
+     *
+     * @param tenantId   商户ID
+     * @param productIds 商品ID列表
+     */
+    private void evictInventory(String tenantId, List<String> productIds) {
+        Runnable evict = () -> {
+            try {
+                orderClient.evictInventory(tenantId, productIds);
+            } catch (Exception e) {
+                log.error("通知订单服务清除库存计数失败，商户ID: {}, 商品: {}", tenantId, productIds, e);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
 
     private void getMerchantInfo(ProductBaseInfoQuery query, String domainName) {
         if (query.getTenantId() == null || StringUtils.isBlank(query.getTenantId())) {
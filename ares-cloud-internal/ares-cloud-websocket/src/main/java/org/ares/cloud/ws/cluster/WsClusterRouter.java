@@ -0,0 +1,190 @@
+package org.ares.cloud.ws.cluster;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.ares.cloud.common.utils.IdUtils;
+import org.ares.cloud.ws.handler.AresWebSocketHandler;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: WebSocket集群路由
+ * 每个节点把自己持有会话的用户登记到Redis集合 ws:route:{userId}，并订阅以节点ID命名的频道；
+ * 推送时查出持有该用户会话的节点，本节点直接写会话，其他节点只向其频道发布一次，不再向所有节点广播。
+ * 节点定期续期存活标记并重新登记本地用户；向已失联节点发布无人接收时清理其登记
+ * @date 2024/11/11 00:20
+ */
+@Slf4j
+@Component
+public class WsClusterRouter implements MessageListener {
+
+    private static final String ROUTE_KEY_PREFIX = "ws:route:";
+    private static final String NODE_CHANNEL_PREFIX = "ws:node:";
+    private static final String NODE_ALIVE_KEY_PREFIX = "ws:node:alive:";
+
+    /**
+     * 节点存活标记过期时间（秒），为登记刷新间隔的3倍
+     */
+    private static final long NODE_ALIVE_TIMEOUT = 90;
+
+    /**
+     * 转发消息中用户ID与消息内容的分隔符
+     */
+    private static final char SEPARATOR = '\n';
+
+    /**
+     * 本节点ID
+     */
+    private final String nodeId = IdUtils.fastSimpleUUID();
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    @Lazy
+    private AresWebSocketHandler aresWebSocketHandler;
+
+    /**
+     * 本节点订阅的频道
+     * @return 频道名称
+     */
+    public String nodeChannel() {
+        return NODE_CHANNEL_PREFIX + nodeId;
+    }
+
+    /**
+     * 用户在本节点建立第一个会话时登记路由
+     * @param userId 用户ID
+     */
+    public void register(String userId) {
+        try {
+            stringRedisTemplate.opsForSet().add(ROUTE_KEY_PREFIX + userId, nodeId);
+        } catch (Exception e) {
+            log.error("登记WebSocket路由失败，用户ID: {}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 用户在本节点的最后一个会话关闭时注销路由
+     * @param userId 用户ID
+     */
+    public void unregister(String userId) {
+        try {
+            stringRedisTemplate.opsForSet().remove(ROUTE_KEY_PREFIX + userId, nodeId);
+        } catch (Exception e) {
+            log.error("注销WebSocket路由失败，用户ID: {}, 错误: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 把已序列化的消息路由到持有该用户会话的节点
+     * @param userId 用户ID
+     * @param message 消息内容
+     * @return 用户是否在某个节点在线
+     */
+    public boolean route(String userId, String message) {
+        Set<String> nodes = stringRedisTemplate.opsForSet().members(ROUTE_KEY_PREFIX + userId);
+        if (nodes == null || nodes.isEmpty()) {
+            // Redis中没有登记时仍尝试本节点，兼容登记失败的情况
+            return aresWebSocketHandler.sendMessageToLocalUser(userId, message);
+        }
+        boolean delivered = false;
+        for (String node : nodes) {
+            if (nodeId.equals(node)) {
+                delivered |= aresWebSocketHandler.sendMessageToLocalUser(userId, message);
+                continue;
+            }
+            Long receivers = stringRedisTemplate.convertAndSend(NODE_CHANNEL_PREFIX + node, userId + SEPARATOR + message);
+            if (receivers != null && receivers > 0) {
+                delivered = true;
+            } else if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(NODE_ALIVE_KEY_PREFIX + node))) {
+                // 节点已失联，清理其登记
+                stringRedisTemplate.opsForSet().remove(ROUTE_KEY_PREFIX + userId, node);
+                log.info("清理失联节点的WebSocket路由，用户ID: {}, 节点: {}", userId, node);
+            } else {
+                // 集群模式下发布的返回值只统计当前分片上的订阅者，节点存活时视为已投递
+                delivered = true;
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * 接收其他节点转发给本节点的消息
+     * @param message 消息体为 用户ID + 换行 + 消息内容
+     * @param pattern 订阅模式
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        if (separator <= 0) {
+            log.warn("收到格式错误的WebSocket转发消息");
+            return;
+        }
+        String userId = body.substring(0, separator);
+        if (!aresWebSocketHandler.sendMessageToLocalUser(userId, body.substring(separator + 1))) {
+            // 会话已经关闭，注销遗留的登记
+            log.debug("转发的WebSocket消息接收用户已离线，用户ID: {}", userId);
+            unregister(userId);
+        }
+    }
+
+    /**
+     * 定时续期节点存活标记，并重新登记本节点的在线用户
+     * 修复Redis重启或连接/断开并发时丢失的登记
+     */
+    @Scheduled(fixedDelayString = "${websocket.cluster.refresh.interval:30000}")
+    public void refresh() {
+        try {
+            stringRedisTemplate.opsForValue().set(NODE_ALIVE_KEY_PREFIX + nodeId, "1", NODE_ALIVE_TIMEOUT, TimeUnit.SECONDS);
+            Collection<String> userIds = aresWebSocketHandler.getLocalUserIds();
+            if (userIds.isEmpty()) {
+                return;
+            }
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String userId : userIds) {
+                    stringConnection.sAdd(ROUTE_KEY_PREFIX + userId, nodeId);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("刷新WebSocket路由登记失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 节点下线时注销本节点的全部登记
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            Collection<String> userIds = aresWebSocketHandler.getLocalUserIds();
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String userId : userIds) {
+                    stringConnection.sRem(ROUTE_KEY_PREFIX + userId, nodeId);
+                }
+                stringConnection.del(NODE_ALIVE_KEY_PREFIX + nodeId);
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("注销WebSocket路由登记失败: {}", e.getMessage());
+        }
+    }
+}
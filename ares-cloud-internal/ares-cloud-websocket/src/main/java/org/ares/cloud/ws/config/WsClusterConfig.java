@@ -0,0 +1,33 @@
+package org.ares.cloud.ws.config;
+
+import org.ares.cloud.ws.cluster.WsClusterRouter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: WebSocket集群配置，订阅本节点的转发频道
+ * @date 2024/11/11 00:19
+ */
+@Configuration
+public class WsClusterConfig {
+
+    /**
+     * 订阅本节点频道，接收其他节点转发的消息
+     * @param factory 连接工厂
+     * @param wsClusterRouter 集群路由
+     * @return 监听容器
+     */
+    @Bean
+    public RedisMessageListenerContainer wsClusterListenerContainer(RedisConnectionFactory factory,
+                                                                    WsClusterRouter wsClusterRouter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(wsClusterRouter, new ChannelTopic(wsClusterRouter.nodeChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,37 @@
+package org.ares.cloud.ws.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: WebSocket会话发送配置
+ * @date 2024/11/11 00:19
+ */
+@Configuration
+public class WsSessionConfig {
+
+    /**
+     * 会话写出线程池，每个会话同一时刻最多占用一个线程。
+     * 每个会话最多排队一个写出任务和一个断开任务，队列容量按在线会话数设置；队列已满时拒绝提交，
+     * 消息留在会话队列中等待下次发送时重新提交
+     * @param writerThreads 写出线程数
+     * @param writerQueueCapacity 写出任务队列容量
+     * @return 线程池
+     */
+    @Bean(name = "wsSendExecutor")
+    public ThreadPoolTaskExecutor wsSendExecutor(@Value("${websocket.session.writer-threads:8}") int writerThreads,
+                                                 @Value("${websocket.session.writer-queue-capacity:10000}") int writerQueueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(writerThreads);
+        executor.setMaxPoolSize(writerThreads);
+        executor.setQueueCapacity(writerQueueCapacity);
+        executor.setThreadNamePrefix("ws-send-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
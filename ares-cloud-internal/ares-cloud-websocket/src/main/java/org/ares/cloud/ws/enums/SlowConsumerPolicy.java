@@ -0,0 +1,19 @@
+package org.ares.cloud.ws.enums;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 慢消费者策略，会话发送队列已满时的处理方式；单次写出超时时总是断开会话
+ * @date 2024/11/11 16:31
+ */
+public enum SlowConsumerPolicy {
+    /**
+     * 丢弃队列中最早的消息，保留最新消息
+     */
+    DROP_OLDEST,
+
+    /**
+     * 断开会话，客户端重连后重新拉取未读消息
+     */
+    DISCONNECT
+}
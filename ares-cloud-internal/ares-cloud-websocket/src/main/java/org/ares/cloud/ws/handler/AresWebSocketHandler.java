@@ -1,6 +1,10 @@
 package org.ares.cloud.ws.handler;
 
-import cn.hutool.core.collection.CollectionUtil;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.ares.cloud.common.exception.BusinessException;
 import org.ares.cloud.common.utils.ExceptionUtils;
@@ -8,13 +12,14 @@ import org.ares.cloud.common.utils.JsonUtils;
 import org.ares.cloud.common.utils.StringUtils;
 import org.ares.cloud.i18n.utils.MessageUtils;
 
+import org.ares.cloud.ws.cluster.WsClusterRouter;
 import org.ares.cloud.ws.dto.WsMessage;
 import org.ares.cloud.ws.enums.MessageType;
+import org.ares.cloud.ws.enums.SlowConsumerPolicy;
 import org.ares.cloud.ws.enums.WebSocketError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.PongMessage;
@@ -26,10 +31,14 @@ import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author hugo
@@ -47,6 +56,22 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
     
     // 存储会话最后活动时间
     private static final Map<String, Instant> sessionLastActiveTime = new ConcurrentHashMap<>();
+
+    // 存储每个会话的发送队列，所有写出都经过发送队列
+    private static final Map<String, WsSessionSender> sessionSenders = new ConcurrentHashMap<>();
+
+    // 存储每个会话在心跳时间轮中的下一次心跳
+    private static final Map<String, Timeout> sessionHeartbeats = new ConcurrentHashMap<>();
+
+    // 心跳消息只序列化一次，所有会话共用
+    private static final TextMessage HEARTBEAT_MESSAGE =
+            new TextMessage(JsonUtils.toJsonString(new WsMessage<>(MessageType.HEARTBEAT, "heartbeat")));
+
+    // 心跳时间轮，刻度1秒
+    private final HashedWheelTimer heartbeatTimer = new HashedWheelTimer(
+            new DefaultThreadFactory("ws-heartbeat", true), 1, TimeUnit.SECONDS, 512);
+
+    private volatile boolean running = true;
     
     // 心跳超时时间（分钟）
     @Value("${websocket.heartbeat.timeout:10}")
@@ -56,6 +81,24 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
     @Value("${websocket.heartbeat.interval:30}")
     private int heartbeatInterval;
 
+    // 会话发送队列容量（条）
+    @Value("${websocket.session.queue-capacity:256}")
+    private int sendQueueCapacity;
+
+    // 单次写出时间上限（毫秒）
+    @Value("${websocket.session.send-time-limit:10000}")
+    private long sendTimeLimit;
+
+    // 慢消费者策略
+    @Value("${websocket.session.slow-consumer-policy:DROP_OLDEST}")
+    private SlowConsumerPolicy slowConsumerPolicy;
+
+    @Resource
+    private WsClusterRouter wsClusterRouter;
+
+    @Resource(name = "wsSendExecutor")
+    private Executor wsSendExecutor;
+
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         try {
@@ -64,14 +107,29 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
             if(StringUtils.isEmpty(userId)){
                 throw new RuntimeException(MessageUtils.get("validation.user.user","用户ID不能为空"));
             }
+            // 创建会话发送队列
+            sessionSenders.put(session.getId(), new WsSessionSender(
+                    session, wsSendExecutor, sendQueueCapacity, sendTimeLimit, slowConsumerPolicy));
             // 获取该用户的 WebSocket 会话列表，如果没有则新建
-            userSessionsMap.computeIfAbsent(userId, k -> new ArrayList<>()).add(session);
+            boolean[] firstSession = new boolean[1];
+            userSessionsMap.compute(userId, (k, sessions) -> {
+                List<WebSocketSession> target = sessions == null ? new CopyOnWriteArrayList<>() : sessions;
+                firstSession[0] = target.isEmpty();
+                target.add(session);
+                return target;
+            });
+            // 用户在本节点的第一个会话，登记集群路由
+            if (firstSession[0]) {
+                wsClusterRouter.register(userId);
+            }
             // 记录会话最后活动时间
             sessionLastActiveTime.put(session.getId(), Instant.now());
             log.info("WebSocket连接已建立，用户ID: {}, 会话ID: {}", userId, session.getId());
             
             // 发送连接成功消息
             sendConnectSuccessMessage(session);
+            // 登记心跳
+            scheduleHeartbeat(session);
         } catch (Exception e) {
             log.error("WebSocket连接建立失败: {}", ExceptionUtils.getExceptionMessage(e));
             session.close(CloseStatus.SERVER_ERROR);
@@ -102,7 +160,7 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
             }
             
             // 默认响应
-            session.sendMessage(new TextMessage("服务器已收到: " + payload));
+            send(session, new TextMessage("服务器已收到: " + payload));
         } catch (Exception e) {
             log.error("处理消息时发生错误: {}", ExceptionUtils.getExceptionMessage(e));
         }
@@ -123,18 +181,29 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
             
             // 从用户会话映射中移除会话
             if (StringUtils.isNotEmpty(userId)) {
-                List<WebSocketSession> sessions = userSessionsMap.get(userId);
-                if (sessions != null) {
+                boolean[] lastSession = new boolean[1];
+                userSessionsMap.computeIfPresent(userId, (k, sessions) -> {
                     sessions.remove(session);
                     // 如果用户没有会话了，移除用户
-                    if (sessions.isEmpty()) {
-                        userSessionsMap.remove(userId);
-                    }
+                    lastSession[0] = sessions.isEmpty();
+                    return lastSession[0] ? null : sessions;
+                });
+                // 用户在本节点已没有会话，注销集群路由
+                if (lastSession[0]) {
+                    wsClusterRouter.unregister(userId);
                 }
             }
             
-            // 移除会话活动时间记录
+            // 移除会话活动时间记录和发送队列
             sessionLastActiveTime.remove(session.getId());
+            WsSessionSender sender = sessionSenders.remove(session.getId());
+            if (sender != null) {
+                sender.close();
+            }
+            Timeout heartbeat = sessionHeartbeats.remove(session.getId());
+            if (heartbeat != null) {
+                heartbeat.cancel();
+            }
             
             log.info("WebSocket连接已关闭，用户ID: {}, 会话ID: {}, 状态: {}", userId, session.getId(), status);
         } catch (Exception e) {
@@ -153,51 +222,57 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
     }
     
     /**
-     * 定时检查心跳，关闭超时的连接
+     * 把会话的下一次心跳放入时间轮，每个会话按自己的连接时间错开，每个刻度只处理到期的会话
+     * @param session WebSocket会话
      */
-    @Scheduled(fixedDelayString = "${websocket.heartbeat.check.interval:60000}")
-    public void checkHeartbeats() {
-        Instant now = Instant.now();
-        sessionLastActiveTime.forEach((sessionId, lastActive) -> {
-            Duration inactiveDuration = Duration.between(lastActive, now);
-            if (inactiveDuration.toMinutes() >= heartbeatTimeout) {
-                // 查找并关闭超时会话
-                userSessionsMap.forEach((userId, sessions) -> {
-                    sessions.stream()
-                            .filter(session -> session.getId().equals(sessionId))
-                            .findFirst()
-                            .ifPresent(session -> {
-                                try {
-                                    log.info("关闭超时会话，用户ID: {}, 会话ID: {}, 不活跃时间: {}分钟", 
-                                            userId, sessionId, inactiveDuration.toMinutes());
-                                    session.close(CloseStatus.NORMAL.withReason("心跳超时"));
-                                } catch (IOException e) {
-                                    log.error("关闭超时会话失败: {}", e.getMessage());
-                                }
-                            });
-                });
-            }
-        });
+    private void scheduleHeartbeat(WebSocketSession session) {
+        if (!running) {
+            return;
+        }
+        Timeout timeout = heartbeatTimer.newTimeout(t -> heartbeat(session), heartbeatInterval, TimeUnit.SECONDS);
+        sessionHeartbeats.put(session.getId(), timeout);
+        if (!session.isOpen()) {
+            // 会话在登记期间已关闭
+            sessionHeartbeats.remove(session.getId(), timeout);
+            timeout.cancel();
+        }
     }
-    
+
     /**
-     * 定时发送心跳消息
+     * 心跳到期：不活跃超过超时时间的会话关闭，其余发送心跳并登记下一次
+     * @param session WebSocket会话
      */
-    @Scheduled(fixedDelayString = "${websocket.heartbeat.send.interval:30000}")
-    public void sendHeartbeats() {
-        userSessionsMap.forEach((userId, sessions) -> {
-            sessions.forEach(session -> {
-                if (session.isOpen()) {
-                    try {
-                        WsMessage<String> heartbeat = new WsMessage<>(MessageType.HEARTBEAT, "heartbeat");
-                        session.sendMessage(new TextMessage(JsonUtils.toJsonString(heartbeat)));
-                        log.debug("发送心跳消息，用户ID: {}, 会话ID: {}", userId, session.getId());
-                    } catch (IOException e) {
-                        log.error("发送心跳消息失败: {}", e.getMessage());
-                    }
+    private void heartbeat(WebSocketSession session) {
+        if (!session.isOpen()) {
+            sessionHeartbeats.remove(session.getId());
+            return;
+        }
+        Instant lastActive = sessionLastActiveTime.get(session.getId());
+        Duration inactiveDuration = lastActive == null ? Duration.ZERO : Duration.between(lastActive, Instant.now());
+        if (inactiveDuration.toMinutes() >= heartbeatTimeout) {
+            sessionHeartbeats.remove(session.getId());
+            // 关闭可能阻塞，不占用时间轮线程
+            wsSendExecutor.execute(() -> {
+                try {
+                    log.info("关闭超时会话，会话ID: {}, 不活跃时间: {}分钟", session.getId(), inactiveDuration.toMinutes());
+                    session.close(CloseStatus.NORMAL.withReason("心跳超时"));
+                } catch (IOException e) {
+                    log.error("关闭超时会话失败: {}", e.getMessage());
                 }
             });
-        });
+            return;
+        }
+        if (send(session, HEARTBEAT_MESSAGE)) {
+            log.debug("发送心跳消息，会话ID: {}", session.getId());
+        }
+        scheduleHeartbeat(session);
+    }
+
+    @PreDestroy
+    public void stopHeartbeats() {
+        running = false;
+        heartbeatTimer.stop();
+        sessionHeartbeats.clear();
     }
 
     /**
@@ -210,16 +285,15 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
         List<WebSocketSession> sessions = userSessionsMap.get(userId);
         // 如果该用户有连接，则发送消息到每一个连接
         if (sessions != null) {
+            TextMessage textMessage = new TextMessage(message);
             for (WebSocketSession session : sessions) {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
-                }
+                send(session, textMessage);
             }
         }
     }
 
     /**
-     * 发送消息
+     * 发送消息，用户的会话可能在集群中的任一节点上
      * @param userId 用户ID
      * @param message 消息对象
      * @param <T> 消息泛型
@@ -228,23 +302,33 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
         if (message == null) {
             throw new BusinessException(WebSocketError.MESSAGE_IS_EMPTY);
         }
-        List<WebSocketSession> sessions = userSessionsMap.get(userId);
-        if (CollectionUtil.isEmpty(sessions)) {
+        String string = JsonUtils.toJsonString(message);
+        if (!wsClusterRouter.route(userId, string)) {
             throw new BusinessException(WebSocketError.USER_NOT_ONLINE);
         }
-        String string = JsonUtils.toJsonString(message);
+    }
+
+    /**
+     * 向本节点上该用户的所有连接发送已序列化的消息
+     * @param userId 用户ID
+     * @param message 消息内容
+     * @return 用户在本节点是否有打开的连接
+     */
+    public boolean sendMessageToLocalUser(String userId, String message) {
+        List<WebSocketSession> sessions = userSessionsMap.get(userId);
+        if (sessions == null) {
+            return false;
+        }
+        boolean online = false;
+        TextMessage textMessage = new TextMessage(message);
         for (WebSocketSession session : sessions) {
-            if (session.isOpen()) {
-                try {
-                    session.sendMessage(new TextMessage(string));
-                    // 更新会话最后活动时间
-                    sessionLastActiveTime.put(session.getId(), Instant.now());
-                } catch (Exception e) {
-                    log.error("发送消息错误: {}", ExceptionUtils.getExceptionMessage(e));
-                    throw new BusinessException(WebSocketError.SEND_MESSAGE_ERROR);
-                }
+            if (send(session, textMessage)) {
+                online = true;
+                // 更新会话最后活动时间
+                sessionLastActiveTime.put(session.getId(), Instant.now());
             }
         }
+        return online;
     }
     
     /**
@@ -256,22 +340,26 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
         if (message == null) {
             throw new BusinessException(WebSocketError.MESSAGE_IS_EMPTY);
         }
-        String messageStr = JsonUtils.toJsonString(message);
+        TextMessage textMessage = new TextMessage(JsonUtils.toJsonString(message));
         userSessionsMap.forEach((userId, sessions) -> {
             sessions.forEach(session -> {
-                if (session.isOpen()) {
-                    try {
-                        session.sendMessage(new TextMessage(messageStr));
-                        // 更新会话最后活动时间
-                        sessionLastActiveTime.put(session.getId(), Instant.now());
-                    } catch (IOException e) {
-                        log.error("广播消息到用户 {} 失败: {}", userId, e.getMessage());
-                    }
+                // 只放入会话发送队列，慢客户端不会拖慢广播
+                if (send(session, textMessage)) {
+                    // 更新会话最后活动时间
+                    sessionLastActiveTime.put(session.getId(), Instant.now());
                 }
             });
         });
     }
     
+    /**
+     * 获取本节点在线的用户ID
+     * @return 用户ID
+     */
+    public Collection<String> getLocalUserIds() {
+        return new ArrayList<>(userSessionsMap.keySet());
+    }
+
     /**
      * 获取在线用户数量
      * @return 在线用户数量
@@ -317,13 +405,22 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
      * @param session WebSocket会话
      */
     private void sendConnectSuccessMessage(WebSocketSession session) {
-        try {
-            WsMessage<String> connectMessage = new WsMessage<>(MessageType.PONG, "连接成功");
-            session.sendMessage(new TextMessage(JsonUtils.toJsonString(connectMessage)));
-        } catch (IOException e) {
-            log.error("发送连接成功消息失败: {}", e.getMessage());
+        WsMessage<String> connectMessage = new WsMessage<>(MessageType.PONG, "连接成功");
+        if (!send(session, new TextMessage(JsonUtils.toJsonString(connectMessage)))) {
+            log.error("发送连接成功消息失败，会话ID: {}", session.getId());
         }
     }
+
+    /**
+     * 放入会话的发送队列，由发送线程池异步写出
+     * @param session WebSocket会话
+     * @param message 消息
+     * @return 是否已放入队列
+     */
+    private boolean send(WebSocketSession session, TextMessage message) {
+        WsSessionSender sender = sessionSenders.get(session.getId());
+        return sender != null && sender.send(message);
+    }
     
     /**
      * 根据消息类型处理消息
@@ -331,25 +428,21 @@ public class AresWebSocketHandler extends TextWebSocketHandler {
      * @param message 消息对象
      */
     private void handleMessageByType(WebSocketSession session, WsMessage<?> message) {
-        try {
-            switch (message.getType()) {
-                case PING:
-                    // 处理心跳PING消息，回复PONG
-                    WsMessage<String> pongMessage = new WsMessage<>(MessageType.PONG, "pong");
-                    session.sendMessage(new TextMessage(JsonUtils.toJsonString(pongMessage)));
-                    log.debug("回复PONG消息，会话ID: {}", session.getId());
-                    break;
-                case HEARTBEAT:
-                    // 处理心跳消息，只更新活动时间，不需要回复
-                    log.debug("收到心跳消息，会话ID: {}", session.getId());
-                    break;
-                default:
-                    // 其他类型的消息，记录日志
-                    log.debug("收到类型为 {} 的消息，会话ID: {}", message.getType(), session.getId());
-                    break;
-            }
-        } catch (IOException e) {
-            log.error("处理消息类型时发生错误: {}", e.getMessage());
+        switch (message.getType()) {
+            case PING:
+                // 处理心跳PING消息，回复PONG
+                WsMessage<String> pongMessage = new WsMessage<>(MessageType.PONG, "pong");
+                send(session, new TextMessage(JsonUtils.toJsonString(pongMessage)));
+                log.debug("回复PONG消息，会话ID: {}", session.getId());
+                break;
+            case HEARTBEAT:
+                // 处理心跳消息，只更新活动时间，不需要回复
+                log.debug("收到心跳消息，会话ID: {}", session.getId());
+                break;
+            default:
+                // 其他类型的消息，记录日志
+                log.debug("收到类型为 {} 的消息，会话ID: {}", message.getType(), session.getId());
+                break;
         }
     }
 }
@@ -0,0 +1,180 @@
+package org.ares.cloud.ws.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.ares.cloud.ws.enums.SlowConsumerPolicy;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author hugo
+ * @version 1.0
+ * @description: 会话发送队列
+ * 消息先放入会话自己的有界队列，再由发送线程池中的一个任务按顺序写出，调用方不等待网络写入；
+ * 同一时刻每个会话最多只有一个写出任务，保证消息顺序且不会并发写同一会话。
+ * 单次写出超过时间上限时总是断开会话，写出线程被卡住的会话不再占用发送线程；
+ * 队列已满时按慢消费者策略丢弃最早的消息或断开会话。断开会话同样提交到发送线程池执行，
+ * 不会阻塞广播、心跳等调用方线程
+ * @date 2024/11/11 00:20
+ */
+@Slf4j
+public class WsSessionSender {
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final int queueCapacity;
+    private final long sendTimeLimit;
+    private final SlowConsumerPolicy policy;
+
+    /**
+     * 待发送消息，访问时以自身加锁
+     */
+    private final Deque<TextMessage> queue = new ArrayDeque<>();
+
+    /**
+     * 是否已有写出任务在执行或排队
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 是否已提交断开任务，之后不再接收消息
+     */
+    private final AtomicBoolean closing = new AtomicBoolean();
+
+    /**
+     * 当前写出开始时间，未在写出时为0
+     */
+    private volatile long sendStartedAt;
+
+    /**
+     * 构造函数
+     * @param session WebSocket会话
+     * @param executor 发送线程池
+     * @param queueCapacity 队列容量（条）
+     * @param sendTimeLimit 单次写出时间上限（毫秒）
+     * @param policy 慢消费者策略，决定队列已满时的处理方式
+     */
+    public WsSessionSender(WebSocketSession session, Executor executor, int queueCapacity,
+                           long sendTimeLimit, SlowConsumerPolicy policy) {
+        this.session = session;
+        this.executor = executor;
+        this.queueCapacity = queueCapacity;
+        this.sendTimeLimit = sendTimeLimit;
+        this.policy = policy;
+    }
+
+    /**
+     * 放入发送队列
+     * @param message 消息
+     * @return 是否已放入队列，会话已关闭或因慢消费被断开时返回false
+     */
+    public boolean send(TextMessage message) {
+        if (!session.isOpen() || closing.get()) {
+            return false;
+        }
+        long startedAt = sendStartedAt;
+        if (startedAt > 0 && System.currentTimeMillis() - startedAt > sendTimeLimit) {
+            disconnect("写出超时");
+            return false;
+        }
+        synchronized (queue) {
+            if (queue.size() >= queueCapacity) {
+                if (policy == SlowConsumerPolicy.DISCONNECT) {
+                    queue.clear();
+                    disconnect("发送队列已满");
+                    return false;
+                }
+                queue.pollFirst();
+                log.debug("会话发送队列已满，丢弃最早的消息，会话ID: {}", session.getId());
+            }
+            queue.offerLast(message);
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * 会话关闭后清空队列
+     */
+    public void close() {
+        synchronized (queue) {
+            queue.clear();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (Exception e) {
+                draining.set(false);
+                log.error("提交会话写出任务失败，会话ID: {}, 错误: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            TextMessage message;
+            while ((message = poll()) != null) {
+                if (!session.isOpen()) {
+                    close();
+                    return;
+                }
+                sendStartedAt = System.currentTimeMillis();
+                try {
+                    session.sendMessage(message);
+                } catch (Exception e) {
+                    log.error("发送消息错误，会话ID: {}, 错误: {}", session.getId(), e.getMessage());
+                } finally {
+                    long elapsed = System.currentTimeMillis() - sendStartedAt;
+                    sendStartedAt = 0;
+                    if (elapsed > sendTimeLimit) {
+                        disconnect("写出超时");
+                    }
+                }
+            }
+        } finally {
+            draining.set(false);
+        }
+        // 释放标记后可能有新消息入队但未能提交写出任务
+        synchronized (queue) {
+            if (queue.isEmpty()) {
+                return;
+            }
+        }
+        scheduleDrain();
+    }
+
+    private TextMessage poll() {
+        synchronized (queue) {
+            return queue.pollFirst();
+        }
+    }
+
+    private void disconnect(String reason) {
+        if (!session.isOpen() || !closing.compareAndSet(false, true)) {
+            return;
+        }
+        log.warn("慢消费者会话被断开，会话ID: {}, 原因: {}", session.getId(), reason);
+        close();
+        try {
+            executor.execute(() -> {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE.withReason(reason));
+                } catch (Exception e) {
+                    log.error("关闭慢消费者会话失败，会话ID: {}, 错误: {}", session.getId(), e.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            // 线程池已满时不在调用方线程上关闭，下次发送时重新提交
+            closing.set(false);
+            log.error("提交会话关闭任务失败，会话ID: {}, 错误: {}", session.getId(), e.getMessage());
+        }
+    }
+}
@@ -12,6 +12,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
  * @author hugo
  * @version 1.0
@@ -43,4 +45,20 @@ public class NotificationInternalController {
             throw new RpcCallException(e);
         }
     }
+
+    /**
+     * 批量通知接口 - 一次请求处理多条通知
+     * @param notifications 通知列表
+     * @return 处理结果
+     */
+    @Hidden
+    @PostMapping("/send-batch")
+    public String sendNotifications(@RequestBody List<SendNotificationCommand> notifications) {
+        try {
+            notificationService.sendNotifications(notifications);
+            return "success";
+        } catch (Exception e) {
+            throw new RpcCallException(e);
+        }
+    }
 }
@@ -31,6 +31,12 @@ public interface NotificationService extends IService<NotificationMessage> {
      */
     void sendNotification(SendNotificationCommand notification);
 
+    /**
+     * 批量发送统一通知，消息一次批量保存后逐条推送
+     * @param notifications 通知DTO列表
+     */
+    void sendNotifications(List<SendNotificationCommand> notifications);
+
 
     /**
      * 查询消息
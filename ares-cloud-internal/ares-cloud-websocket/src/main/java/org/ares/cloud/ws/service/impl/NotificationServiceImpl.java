@@ -124,6 +124,49 @@ public class NotificationServiceImpl extends ServiceImpl<NotificationMessageMapp
     }
 
 
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void sendNotifications(List<SendNotificationCommand> notifications) {
+        if (notifications == null || notifications.isEmpty()) {
+            return;
+        }
+        List<NotificationMessage> messages = new ArrayList<>(notifications.size());
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (SendNotificationCommand notification : notifications) {
+                NotificationMessage notificationMessage = new NotificationMessage();
+                notificationMessage.setType(MessageType.NOTIFICATION);
+                notificationMessage.setNotificationType(notification.getType());
+                notificationMessage.setContent(notification.getContent());
+                notificationMessage.setTimestamp(notification.getTimestamp() != null ?
+                        notification.getTimestamp() : System.currentTimeMillis());
+                if (notification.getData() != null) {
+                    notificationMessage.setExtraData(JsonUtils.toJsonString(notification.getData()));
+                }
+                notificationMessage.setReceiverId(notification.getReceiver());
+                notificationMessage.setSenderId(sysUser);
+                notificationMessage.setIsRead(0); // 0-未读
+                notificationMessage.setCreateTime(now);
+                notificationMessage.setUpdateTime(now);
+                messages.add(notificationMessage);
+            }
+            // 整批一次保存
+            saveBatch(messages);
+        } catch (Exception e) {
+            log.error("批量保存通知消息失败: {}", e.getMessage(), e);
+            throw new BusinessException(WebSocketError.SEND_MESSAGE_ERROR);
+        }
+
+        // 再逐条推送WebSocket消息，单条推送失败不影响其他通知
+        for (NotificationMessage message : messages) {
+            try {
+                wsService.sendNotification(convertToNotificationDto(message));
+            } catch (Exception e) {
+                log.error("WebSocket通知消息发送失败，但数据库已保存: receiver={}, {}", message.getReceiverId(), e.getMessage());
+            }
+        }
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean readMessage(Long messageId) {
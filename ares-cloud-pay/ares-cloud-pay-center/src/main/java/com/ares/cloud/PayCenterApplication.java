@@ -6,12 +6,14 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableAresServer
 @EnableDiscoveryClient
 @EnableFeignClients(basePackages = {"org.ares.cloud.api.user", "org.ares.cloud.api.merchant"})
 @ComponentScan(basePackages = {"org.ares.cloud", "com.ares.cloud"})
 @MapperScan("com.ares.cloud.pay.infrastructure.persistence.mapper")
+@EnableScheduling
 public class PayCenterApplication {
     public static void main(String[] args) {
         SpringApplication.run(PayCenterApplication.class, args);
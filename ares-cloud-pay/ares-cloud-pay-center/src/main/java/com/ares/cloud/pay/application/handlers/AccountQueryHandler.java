@@ -13,6 +13,7 @@ import com.ares.cloud.pay.domain.model.Account;
 import com.ares.cloud.pay.domain.model.Wallet;
 import com.ares.cloud.pay.domain.repository.AccountRepository;
 import com.ares.cloud.pay.domain.repository.WalletRepository;
+import com.ares.cloud.pay.domain.service.PlatformLedgerDomainService;
 import com.ares.cloud.pay.domain.enums.PaymentError;
 import com.ares.cloud.pay.infrastructure.persistence.entity.AccountEntity;
 import com.ares.cloud.pay.infrastructure.persistence.entity.AccountStatisticsResult;
@@ -52,6 +53,9 @@ public class AccountQueryHandler {
     @Resource
     private WalletRepository walletRepository;
     
+    @Resource
+    private PlatformLedgerDomainService platformLedgerDomainService;
+    
     @Resource
     private AccountMapper accountMapper;
     
@@ -250,6 +254,8 @@ public class AccountQueryHandler {
         
         // 查询账户的钱包信息
         List<Wallet> wallets = walletRepository.findByOwnerId(account.getId());
+        // 平台钱包的余额以分片子账本为准
+        wallets.forEach(platformLedgerDomainService::applyLedgerBalance);
         List<WalletDTO> walletDTOs = wallets.stream()
                 .map(WalletDTO::from)
                 .collect(Collectors.toList());
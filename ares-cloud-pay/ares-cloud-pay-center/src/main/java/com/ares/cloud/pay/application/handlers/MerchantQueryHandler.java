@@ -13,6 +13,7 @@ import com.ares.cloud.pay.domain.model.Merchant;
 import com.ares.cloud.pay.domain.model.Wallet;
 import com.ares.cloud.pay.domain.repository.MerchantRepository;
 import com.ares.cloud.pay.domain.repository.WalletRepository;
+import com.ares.cloud.pay.domain.service.PlatformLedgerDomainService;
 import com.ares.cloud.pay.domain.enums.PaymentError;
 import com.ares.cloud.pay.infrastructure.persistence.entity.MerchantEntity;
 import com.ares.cloud.pay.infrastructure.persistence.entity.MerchantStatisticsResult;
@@ -53,6 +54,9 @@ public class MerchantQueryHandler {
     
     @Resource
     private MerchantMapper merchantMapper;
+    
+    @Resource
+    private PlatformLedgerDomainService platformLedgerDomainService;
 
     /**
      * 根据商户ID查询商户
@@ -223,6 +227,8 @@ public class MerchantQueryHandler {
         
         // 查询商户的钱包信息
         List<Wallet> wallets = walletRepository.findByOwnerId(merchant.getId());
+        // 平台钱包的余额以分片子账本为准
+        wallets.forEach(platformLedgerDomainService::applyLedgerBalance);
         List<WalletDTO> walletDTOs = wallets.stream()
                 .map(WalletDTO::from)
                 .collect(Collectors.toList());
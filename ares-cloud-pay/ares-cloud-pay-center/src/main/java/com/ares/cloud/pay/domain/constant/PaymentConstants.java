@@ -42,4 +42,9 @@ public class PaymentConstants {
     }
 
     public static final String PLATFORM_MERCHANT_ID = "PLATFORM_MERCHANT_001";
+
+    /**
+     * 平台钱包每个区域的分片数量
+     */
+    public static final int PLATFORM_WALLET_SHARDS = 8;
 } 
\ No newline at end of file
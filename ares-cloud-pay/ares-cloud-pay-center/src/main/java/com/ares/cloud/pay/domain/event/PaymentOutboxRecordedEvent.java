@@ -0,0 +1,21 @@
+package com.ares.cloud.pay.domain.event;
+
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * 发件箱写入事件
+ * 事件写入发件箱后发布，由事务提交后的监听器异步派发
+ */
+@Getter
+public class PaymentOutboxRecordedEvent extends ApplicationEvent {
+    private final List<OutboxEvent> outboxEvents;
+
+    public PaymentOutboxRecordedEvent(Object source, List<OutboxEvent> outboxEvents) {
+        super(source);
+        this.outboxEvents = outboxEvents;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ares.cloud.pay.domain.model;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * 发件箱事件领域模型
+ */
+@Data
+@Accessors(chain = true)
+public class OutboxEvent {
+    
+    /**
+     * 待派发
+     */
+    public static final String STATUS_PENDING = "PENDING";
+    
+    /**
+     * 派发中，next_retry_time 为租约到期时间，到期未完成时可被重新认领
+     */
+    public static final String STATUS_DISPATCHING = "DISPATCHING";
+    
+    /**
+     * 已派发
+     */
+    public static final String STATUS_SENT = "SENT";
+    
+    /**
+     * 事件ID
+     */
+    private String id;
+    
+    /**
+     * 事件类型
+     */
+    private String eventType;
+    
+    /**
+     * 关联交易ID
+     */
+    private String aggregateId;
+    
+    /**
+     * 事件内容（JSON）
+     */
+    private String payload;
+    
+    /**
+     * 派发状态（PENDING:待派发, DISPATCHING:派发中, SENT:已派发）
+     */
+    private String status;
+    
+    /**
+     * 重试次数
+     */
+    private Integer retryCount;
+    
+    /**
+     * 下次重试时间
+     */
+    private Long nextRetryTime;
+    
+    /**
+     * 创建时间
+     */
+    private Long createTime;
+    
+    /**
+     * 更新时间
+     */
+    private Long updateTime;
+}
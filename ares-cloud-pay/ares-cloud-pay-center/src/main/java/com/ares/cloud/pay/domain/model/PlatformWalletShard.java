@@ -0,0 +1,89 @@
+package com.ares.cloud.pay.domain.model;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+import org.ares.cloud.common.model.Money;
+
+/**
+ * 平台钱包分片领域模型
+ * 平台钱包按区域拆分为多个分片子账本，各分片余额之和即平台钱包的真实余额
+ */
+@Data
+@Accessors(chain = true)
+public class PlatformWalletShard {
+    
+    /**
+     * 分片ID
+     */
+    private String id;
+    
+    /**
+     * 平台钱包ID
+     */
+    private String walletId;
+    
+    /**
+     * 支付区域（EUR/USD/CNY/CHF/GBP）
+     */
+    private String paymentRegion;
+    
+    /**
+     * 分片编号
+     */
+    private Integer shardNo;
+    
+    /**
+     * 分片余额
+     */
+    private Money balance;
+    
+    /**
+     * 创建时间
+     */
+    private Long createTime;
+    
+    /**
+     * 更新时间
+     */
+    private Long updateTime;
+    
+    /**
+     * 检查分片余额是否足够
+     */
+    public boolean hasEnoughBalance(Money amount) {
+        return balance != null && balance.isGreaterThanOrEqual(amount);
+    }
+    
+    /**
+     * 检查扣减后分片余额是否不低于保留金额
+     */
+    public boolean hasEnoughBalance(Money amount, Money retained) {
+        return balance != null && balance.subtract(retained).isGreaterThanOrEqual(amount);
+    }
+    
+    /**
+     * 分片需要保留的余额，平台钱包的冻结金额保留在0号分片上
+     */
+    public Money retainedBalance(Wallet platformWallet) {
+        if (shardNo != null && shardNo == 0 && platformWallet.getFrozenAmount() != null) {
+            return platformWallet.getFrozenAmount();
+        }
+        return Money.zeroMoney(paymentRegion);
+    }
+    
+    /**
+     * 以分片余额构造平台钱包视图，用于流水和余额变更事件
+     */
+    public Wallet asWallet(Wallet platformWallet) {
+        return new Wallet()
+                .setId(platformWallet.getId())
+                .setOwnerId(platformWallet.getOwnerId())
+                .setOwnerType(platformWallet.getOwnerType())
+                .setPaymentRegion(paymentRegion)
+                .setBalance(balance)
+                .setFrozenAmount(platformWallet.getFrozenAmount())
+                .setStatus(platformWallet.getStatus())
+                .setCreateTime(platformWallet.getCreateTime())
+                .setUpdateTime(updateTime);
+    }
+}
@@ -0,0 +1,61 @@
+package com.ares.cloud.pay.domain.repository;
+
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * 发件箱事件仓储接口
+ */
+public interface OutboxEventRepository {
+    
+    /**
+     * 批量保存事件
+     *
+     * @param events 事件列表
+     */
+    void saveBatch(List<OutboxEvent> events);
+    
+    /**
+     * 查询到期待派发的事件，包括租约已过期的派发中事件
+     *
+     * @param createdBefore 只查询该时间之前创建的事件，避开正在由提交回调派发的事件
+     * @param limit 最大条数
+     * @return 事件列表
+     */
+    List<OutboxEvent> findPending(Long createdBefore, int limit);
+    
+    /**
+     * 认领事件，待派发或租约已过期的事件改为派发中并设置租约到期时间
+     *
+     * @param id 事件ID
+     * @param leaseUntil 租约到期时间
+     * @return 是否认领成功，已被其他节点认领或已派发时返回false
+     */
+    boolean claim(String id, Long leaseUntil);
+    
+    /**
+     * 标记为已派发，只更新本节点认领的事件
+     *
+     * @param id 事件ID
+     */
+    void markSent(String id);
+    
+    /**
+     * 派发失败，改回待派发并记录重试次数和下次重试时间
+     *
+     * @param id 事件ID
+     * @param retryCount 重试次数
+     * @param nextRetryTime 下次重试时间
+     */
+    void markRetry(String id, Integer retryCount, Long nextRetryTime);
+    
+    /**
+     * 删除一批派发时间早于指定时间的已派发事件
+     *
+     * @param sentBefore 派发时间上限
+     * @param limit 最大条数
+     * @return 删除的条数
+     */
+    int deleteSent(Long sentBefore, int limit);
+}
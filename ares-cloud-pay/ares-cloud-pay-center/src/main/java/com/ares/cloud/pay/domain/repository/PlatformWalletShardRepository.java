@@ -0,0 +1,70 @@
+package com.ares.cloud.pay.domain.repository;
+
+import com.ares.cloud.pay.domain.model.PlatformWalletShard;
+import org.ares.cloud.common.model.Money;
+
+import java.util.List;
+
+/**
+ * 平台钱包分片仓储接口
+ */
+public interface PlatformWalletShardRepository {
+    
+    /**
+     * 批量保存分片
+     *
+     * @param shards 分片列表
+     */
+    void saveBatch(List<PlatformWalletShard> shards);
+    
+    /**
+     * 根据支付区域和分片编号查询分片
+     *
+     * @param paymentRegion 支付区域
+     * @param shardNo 分片编号
+     * @return 分片
+     */
+    PlatformWalletShard findByRegionAndShardNo(String paymentRegion, int shardNo);
+    
+    /**
+     * 根据支付区域查询全部分片，按分片编号排序
+     *
+     * @param paymentRegion 支付区域
+     * @return 分片列表
+     */
+    List<PlatformWalletShard> findByRegion(String paymentRegion);
+    
+    /**
+     * 根据支付区域查询并锁定全部分片（数据库行锁），用于归集
+     *
+     * @param paymentRegion 支付区域
+     * @return 分片列表
+     */
+    List<PlatformWalletShard> findByRegionForUpdate(String paymentRegion);
+    
+    /**
+     * 按增量更新分片余额，更新后余额低于最低余额时不更新
+     *
+     * @param id 分片ID
+     * @param delta 余额增量（可为负数）
+     * @param minBalance 更新后的最低余额，为null时为0
+     * @return 是否更新成功
+     */
+    boolean addBalance(String id, Money delta, Money minBalance);
+    
+    /**
+     * 设置分片余额
+     *
+     * @param id 分片ID
+     * @param balance 余额
+     */
+    void updateBalance(String id, Money balance);
+    
+    /**
+     * 统计区域内所有分片的余额之和
+     *
+     * @param paymentRegion 支付区域
+     * @return 余额之和
+     */
+    Money sumBalance(String paymentRegion);
+}
@@ -25,6 +25,11 @@ public interface WalletRepository {
      */
     Wallet findByOwnerIdAndRegion(String ownerId, String paymentRegion);
     
+    /**
+     * 根据两个所有者ID和支付区域查询钱包，一次取得转账双方的钱包
+     */
+    List<Wallet> findByOwnerIdsAndRegion(String firstOwnerId, String secondOwnerId, String paymentRegion);
+    
     /**
      * 根据所有者ID查询钱包列表
      */
@@ -50,6 +55,28 @@ public interface WalletRepository {
      */
     void updateBalance(String id, Money balance);
     
+    /**
+     * 按增量更新钱包余额，扣减后可用余额不足时不更新
+     * 需在事务内调用，返回值为本次更新语句返回的余额
+     *
+     * @param id 钱包ID
+     * @param delta 余额增量（扣减为负数）
+     * @return 更新后的余额，余额不足时返回null
+     */
+    Money addBalance(String id, Money delta);
+    
+    /**
+     * 按所有者给正常状态的钱包入账，不预先查询钱包
+     * 需在事务内调用，返回值为本次更新语句返回的钱包
+     *
+     * @param ownerId 所有者ID
+     * @param paymentRegion 支付区域
+     * @param amount 入账金额
+     * @return 入账后的钱包，钱包不存在或不是正常状态时返回null
+     */
+    Wallet credit(String ownerId, String paymentRegion, Money amount);
+
+    
     /**
      * 更新钱包冻结金额
      */
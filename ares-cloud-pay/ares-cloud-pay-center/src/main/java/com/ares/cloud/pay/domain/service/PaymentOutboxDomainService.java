@@ -0,0 +1,215 @@
+package com.ares.cloud.pay.domain.service;
+
+import com.ares.cloud.pay.domain.event.PaymentEvent;
+import com.ares.cloud.pay.domain.event.PaymentOutboxRecordedEvent;
+import com.ares.cloud.pay.domain.event.TransferSuccessEvent;
+import com.ares.cloud.pay.domain.event.WalletBalanceChangedEvent;
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+import com.ares.cloud.pay.domain.model.Wallet;
+import com.ares.cloud.pay.domain.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import jakarta.annotation.Resource;
+import org.ares.cloud.common.model.Money;
+import org.ares.cloud.common.utils.IdUtils;
+import org.ares.cloud.common.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 支付事件发件箱领域服务
+ * 领域事件在业务事务内写入发件箱，事务提交后异步派发给进程内监听器；
+ * 派发前先认领事件，监听器在派发线程上同步处理完成后才标记为已派发；
+ * 派发失败或进程在派发中崩溃时，由补偿任务按退避间隔或在租约到期后重发，保证事件至少派发一次
+ */
+@Service
+public class PaymentOutboxDomainService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentOutboxDomainService.class);
+
+    /**
+     * 首次重试间隔（毫秒），之后按重试次数翻倍
+     */
+    private static final long RETRY_BASE_MILLIS = 5_000L;
+
+    /**
+     * 最大重试间隔（毫秒）
+     */
+    private static final long RETRY_MAX_MILLIS = 10 * 60_000L;
+
+    /**
+     * 派发租约时长（毫秒），超过该时长未完成的派发视为节点崩溃，可被重新认领
+     */
+    private static final long DISPATCH_LEASE_MILLIS = 60_000L;
+
+    @Resource
+    private OutboxEventRepository outboxEventRepository;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 在当前事务内写入发件箱，事务提交后派发
+     *
+     * @param events 领域事件
+     */
+    public void record(List<PaymentEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        long currentTime = System.currentTimeMillis();
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (PaymentEvent event : events) {
+            outboxEvents.add(new OutboxEvent()
+                    .setId(IdUtils.fastSimpleUUID())
+                    .setEventType(event.getClass().getSimpleName())
+                    .setAggregateId(event.getTransactionId())
+                    .setPayload(JsonUtils.toJsonString(encode(event)))
+                    .setStatus(OutboxEvent.STATUS_PENDING)
+                    .setRetryCount(0)
+                    .setNextRetryTime(currentTime)
+                    .setCreateTime(currentTime)
+                    .setUpdateTime(currentTime));
+        }
+        outboxEventRepository.saveBatch(outboxEvents);
+        eventPublisher.publishEvent(new PaymentOutboxRecordedEvent(this, outboxEvents));
+    }
+
+    /**
+     * 认领并派发发件箱事件，监听器处理完成后标记为已派发，失败时安排重试
+     * 事件已被其他节点认领或已派发时直接跳过
+     *
+     * @param outboxEvent 发件箱事件
+     */
+    public void dispatch(OutboxEvent outboxEvent) {
+        if (!outboxEventRepository.claim(outboxEvent.getId(), System.currentTimeMillis() + DISPATCH_LEASE_MILLIS)) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(decode(outboxEvent));
+            outboxEventRepository.markSent(outboxEvent.getId());
+        } catch (Exception e) {
+            int retryCount = (outboxEvent.getRetryCount() != null ? outboxEvent.getRetryCount() : 0) + 1;
+            long delay = Math.min(RETRY_BASE_MILLIS << Math.min(retryCount - 1, 16), RETRY_MAX_MILLIS);
+            outboxEventRepository.markRetry(outboxEvent.getId(), retryCount, System.currentTimeMillis() + delay);
+            log.error("Failed to dispatch outbox event: {}, retryCount: {}", outboxEvent.getId(), retryCount, e);
+        }
+    }
+
+    /**
+     * 查询需要补偿派发的事件
+     *
+     * @param createdBefore 创建时间上限
+     * @param limit 最大条数
+     * @return 发件箱事件
+     */
+    public List<OutboxEvent> findPending(long createdBefore, int limit) {
+        return outboxEventRepository.findPending(createdBefore, limit);
+    }
+
+    /**
+     * 删除一批派发时间早于指定时间的已派发事件
+     *
+     * @param sentBefore 派发时间上限
+     * @param limit 最大条数
+     * @return 删除的条数
+     */
+    public int purgeSent(long sentBefore, int limit) {
+        return outboxEventRepository.deleteSent(sentBefore, limit);
+    }
+
+    /**
+     * 事件编码
+     */
+    private Map<String, Object> encode(PaymentEvent event) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("transactionId", event.getTransactionId());
+        if (event instanceof TransferSuccessEvent) {
+            TransferSuccessEvent transfer = (TransferSuccessEvent) event;
+            payload.put("fromAccountId", transfer.getFromAccountId());
+            payload.put("toAccountId", transfer.getToAccountId());
+            payload.put("amount", encodeMoney(transfer.getAmount()));
+            payload.put("paymentRegion", transfer.getPaymentRegion());
+            payload.put("transferType", transfer.getTransferType());
+            payload.put("description", transfer.getDescription());
+        } else if (event instanceof WalletBalanceChangedEvent) {
+            WalletBalanceChangedEvent balanceChanged = (WalletBalanceChangedEvent) event;
+            Wallet wallet = balanceChanged.getWallet();
+            payload.put("walletId", wallet.getId());
+            payload.put("ownerId", wallet.getOwnerId());
+            payload.put("ownerType", wallet.getOwnerType());
+            payload.put("paymentRegion", wallet.getPaymentRegion());
+            payload.put("status", wallet.getStatus());
+            payload.put("oldBalance", encodeMoney(balanceChanged.getOldBalance()));
+            payload.put("newBalance", encodeMoney(balanceChanged.getNewBalance()));
+            payload.put("changeAmount", encodeMoney(balanceChanged.getChangeAmount()));
+            payload.put("changeType", balanceChanged.getChangeType());
+        } else {
+            throw new IllegalArgumentException("Unsupported outbox event type: " + event.getClass().getName());
+        }
+        return payload;
+    }
+
+    /**
+     * 事件解码
+     */
+    private PaymentEvent decode(OutboxEvent outboxEvent) {
+        Map<String, Object> payload = JsonUtils.parseObject(outboxEvent.getPayload(), new TypeReference<Map<String, Object>>() {});
+        String transactionId = (String) payload.get("transactionId");
+        if (TransferSuccessEvent.class.getSimpleName().equals(outboxEvent.getEventType())) {
+            return new TransferSuccessEvent(
+                transactionId,
+                (String) payload.get("fromAccountId"),
+                (String) payload.get("toAccountId"),
+                decodeMoney(payload.get("amount")),
+                (String) payload.get("paymentRegion"),
+                (String) payload.get("transferType"),
+                (String) payload.get("description")
+            );
+        }
+        if (WalletBalanceChangedEvent.class.getSimpleName().equals(outboxEvent.getEventType())) {
+            Wallet wallet = new Wallet()
+                    .setId((String) payload.get("walletId"))
+                    .setOwnerId((String) payload.get("ownerId"))
+                    .setOwnerType((String) payload.get("ownerType"))
+                    .setPaymentRegion((String) payload.get("paymentRegion"))
+                    .setStatus((String) payload.get("status"))
+                    .setBalance(decodeMoney(payload.get("newBalance")));
+            return new WalletBalanceChangedEvent(
+                wallet,
+                decodeMoney(payload.get("oldBalance")),
+                decodeMoney(payload.get("changeAmount")),
+                (String) payload.get("changeType"),
+                transactionId
+            );
+        }
+        throw new IllegalArgumentException("Unsupported outbox event type: " + outboxEvent.getEventType());
+    }
+
+    private Map<String, Object> encodeMoney(Money money) {
+        if (money == null) {
+            return null;
+        }
+        Map<String, Object> value = new HashMap<>();
+        value.put("amount", money.getAmount());
+        value.put("currency", money.getCurrency());
+        value.put("scale", money.getScale());
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Money decodeMoney(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, Object> map = (Map<String, Object>) value;
+        return Money.create(((Number) map.get("amount")).longValue(), (String) map.get("currency"),
+                ((Number) map.get("scale")).intValue());
+    }
+}
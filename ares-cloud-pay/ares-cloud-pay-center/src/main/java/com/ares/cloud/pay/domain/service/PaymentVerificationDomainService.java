@@ -0,0 +1,119 @@
+package com.ares.cloud.pay.domain.service;
+
+import com.ares.cloud.pay.domain.enums.PaymentError;
+import com.ares.cloud.pay.domain.model.Account;
+import com.ares.cloud.pay.domain.repository.AccountRepository;
+import jakarta.annotation.Resource;
+import org.ares.cloud.common.exception.BusinessException;
+import org.ares.cloud.common.model.Money;
+import org.ares.cloud.common.utils.IdUtils;
+import org.ares.cloud.common.utils.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支付验证领域服务
+ * 支付密码使用bcrypt校验，耗时较长，必须在加锁之前完成；校验通过后签发绑定账户和金额的一次性短时效验证令牌，
+ * 令牌保存在Redis中并设置过期时间，锁内只核销令牌，不再做密码哈希计算
+ */
+@Service
+public class PaymentVerificationDomainService {
+
+    /**
+     * 验证令牌有效期（秒）
+     */
+    private static final long TOKEN_TTL_SECONDS = 30L;
+
+    /**
+     * 验证令牌key前缀
+     */
+    private static final String TOKEN_KEY_PREFIX = "payment:verification:";
+
+    /**
+     * 核销脚本，读取并删除令牌，保证令牌只能使用一次
+     */
+    private static final DefaultRedisScript<String> CONSUME_SCRIPT = new DefaultRedisScript<>(
+            "local value = redis.call('get', KEYS[1]) " +
+            "if value then redis.call('del', KEYS[1]) end " +
+            "return value", String.class);
+
+    @Resource
+    private AccountRepository accountRepository;
+
+    @Resource
+    private PasswordEncoder passwordEncoder;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 校验支付密码并签发验证令牌，在加锁之前调用
+     *
+     * @param accountId 付款账户ID
+     * @param paymentPassword 支付密码
+     * @param amount 付款金额
+     * @return 验证令牌
+     */
+    public String verify(String accountId, String paymentPassword, Money amount) {
+        Account account = accountRepository.findById(accountId);
+        if (account == null) {
+            throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
+        }
+        validatePaymentPassword(account, paymentPassword);
+
+        String token = IdUtils.fastSimpleUUID();
+        stringRedisTemplate.opsForValue().set(TOKEN_KEY_PREFIX + token, binding(accountId, amount),
+                TOKEN_TTL_SECONDS, TimeUnit.SECONDS);
+        return token;
+    }
+
+    /**
+     * 核销验证令牌，令牌只能使用一次，且必须与账户和金额一致
+     *
+     * @param token 验证令牌
+     * @param accountId 付款账户ID
+     * @param amount 付款金额
+     */
+    public void consume(String token, String accountId, Money amount) {
+        String bound = token != null
+                ? stringRedisTemplate.execute(CONSUME_SCRIPT, Collections.singletonList(TOKEN_KEY_PREFIX + token))
+                : null;
+        if (bound == null || !bound.equals(binding(accountId, amount))) {
+            throw new BusinessException(PaymentError.INVALID_PAYMENT_PASSWORD);
+        }
+    }
+
+    /**
+     * 令牌绑定的账户和金额
+     */
+    private String binding(String accountId, Money amount) {
+        return accountId + ":" + amount.getAmount() + ":" + amount.getCurrency() + ":" + amount.getScale();
+    }
+
+    /**
+     * 校验支付密码
+     *
+     * @param account 账户
+     * @param paymentPassword 支付密码
+     */
+    public void validatePaymentPassword(Account account, String paymentPassword) {
+        if (!StringUtils.hasText(paymentPassword)) {
+            throw new BusinessException(PaymentError.PAYMENT_PASSWORD_REQUIRED);
+        }
+
+        // 验证密码 - 如果没有设置支付密码，则使用登录密码
+        String storedPassword = account.getPayPassword() != null ? account.getPayPassword() : account.getPassword();
+        if (storedPassword == null) {
+            throw new BusinessException(PaymentError.INVALID_PAYMENT_PASSWORD);
+        }
+
+        if (!passwordEncoder.matches(paymentPassword, storedPassword)) {
+            throw new BusinessException(PaymentError.INVALID_PAYMENT_PASSWORD);
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.ares.cloud.pay.domain.service;
+
+import com.ares.cloud.pay.domain.constant.PaymentConstants;
+import com.ares.cloud.pay.domain.enums.PaymentError;
+import com.ares.cloud.pay.domain.model.PlatformWalletShard;
+import com.ares.cloud.pay.domain.model.Wallet;
+import com.ares.cloud.pay.domain.repository.PlatformWalletShardRepository;
+import com.ares.cloud.pay.domain.repository.WalletRepository;
+import jakarta.annotation.Resource;
+import org.ares.cloud.api.LockApi;
+import org.ares.cloud.common.exception.BusinessException;
+import org.ares.cloud.common.model.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 平台账本领域服务
+ * 平台商户钱包是充值和回收的热点账户，按区域拆分为 {@link PaymentConstants#PLATFORM_WALLET_SHARDS} 个分片子账本，
+ * 每笔充值/回收只锁定并更新其中一个分片；各分片余额之和即平台钱包的真实余额，平台钱包记录中的余额不再更新，
+ * 平台钱包参与的其他转账也通过 {@link #addBalance} 记入分片。
+ * 平台钱包的冻结金额保留在0号分片上，0号分片扣减后的余额不能低于冻结金额。
+ * 初始化和归集在调用方的事务内执行，分片行锁持有到调用方事务结束
+ */
+@Service
+public class PlatformLedgerDomainService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlatformLedgerDomainService.class);
+
+    @Resource
+    private PlatformWalletShardRepository platformWalletShardRepository;
+
+    @Resource
+    private WalletRepository walletRepository;
+
+    @Resource
+    private LockApi lockApi;
+
+    /**
+     * 分片锁key，充值和回收共用同一个分片锁
+     *
+     * @param paymentRegion 支付区域
+     * @param shardNo 分片编号
+     * @return 锁key
+     */
+    public String shardLockKey(String paymentRegion, int shardNo) {
+        return "platform:shard:" + paymentRegion + ":" + shardNo;
+    }
+
+    /**
+     * 随机选择一个分片，用于回收等只增加平台余额的操作
+     *
+     * @return 分片编号
+     */
+    public int randomShardNo() {
+        return ThreadLocalRandom.current().nextInt(PaymentConstants.PLATFORM_WALLET_SHARDS);
+    }
+
+    /**
+     * 查询余额足够的候选分片，从随机分片开始排列以分散并发
+     * 查询不加锁，调用方在分片锁内需要再次校验余额
+     *
+     * @param paymentRegion 支付区域
+     * @param amount 需要的金额
+     * @return 候选分片编号
+     */
+    public List<Integer> candidateShardNos(String paymentRegion, Money amount) {
+        ensureShards(paymentRegion);
+        List<PlatformWalletShard> shards = platformWalletShardRepository.findByRegion(paymentRegion);
+        List<Integer> candidates = new ArrayList<>();
+        if (shards.isEmpty()) {
+            return candidates;
+        }
+        int start = ThreadLocalRandom.current().nextInt(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            PlatformWalletShard shard = shards.get((start + i) % shards.size());
+            if (shard.hasEnoughBalance(amount)) {
+                candidates.add(shard.getShardNo());
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 是否为平台钱包
+     *
+     * @param wallet 钱包
+     * @return 是否为平台钱包
+     */
+    public boolean isPlatformWallet(Wallet wallet) {
+        return wallet != null && isPlatformOwner(wallet.getOwnerId());
+    }
+
+    /**
+     * 是否为平台钱包的所有者
+     *
+     * @param ownerId 所有者ID
+     * @return 是否为平台商户
+     */
+    public boolean isPlatformOwner(String ownerId) {
+        return PaymentConstants.PLATFORM_MERCHANT_ID.equals(ownerId);
+    }
+
+    /**
+     * 以各分片余额之和作为平台钱包余额，分片未初始化时保留钱包记录中的余额；非平台钱包不做处理
+     *
+     * @param wallet 钱包
+     * @return 钱包
+     */
+    public Wallet applyLedgerBalance(Wallet wallet) {
+        if (!isPlatformWallet(wallet)) {
+            return wallet;
+        }
+        String paymentRegion = wallet.getPaymentRegion();
+        if (platformWalletShardRepository.findByRegionAndShardNo(paymentRegion, 0) != null) {
+            wallet.setBalance(platformWalletShardRepository.sumBalance(paymentRegion));
+        }
+        return wallet;
+    }
+
+    /**
+     * 变更平台钱包余额，平台钱包的余额变更一律记入分片账本，不更新平台钱包记录
+     * 增加记入随机分片；扣减依次尝试余额足够的分片，都不够时归集到0号分片后再扣减。
+     * 分片使用带最低余额条件的增量更新，与持有分片锁的充值/回收并发执行也不会透支
+     *
+     * @param platformWallet 平台钱包
+     * @param delta 余额增量（可为负数）
+     * @return 变更后的平台钱包余额（各分片余额之和），余额不足时返回null
+     */
+    @Transactional
+    public Money addBalance(Wallet platformWallet, Money delta) {
+        String paymentRegion = platformWallet.getPaymentRegion();
+        ensureShards(paymentRegion);
+        if (!delta.isNegative()) {
+            PlatformWalletShard shard = platformWalletShardRepository.findByRegionAndShardNo(paymentRegion, randomShardNo());
+            if (shard == null) {
+                throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
+            }
+            platformWalletShardRepository.addBalance(shard.getId(), delta, null);
+            return platformWalletShardRepository.sumBalance(paymentRegion);
+        }
+
+        Money amount = delta.negate();
+        for (Integer shardNo : candidateShardNos(paymentRegion, amount)) {
+            if (deductShard(platformWallet, shardNo, delta)) {
+                return platformWalletShardRepository.sumBalance(paymentRegion);
+            }
+        }
+        // 余额分散在多个分片上，归集后预留到0号分片
+        if (consolidate(paymentRegion, amount).isGreaterThanOrEqual(amount) && deductShard(platformWallet, 0, delta)) {
+            return platformWalletShardRepository.sumBalance(paymentRegion);
+        }
+        return null;
+    }
+
+    /**
+     * 确保区域分片已初始化，首次使用时把平台钱包余额拆分到各分片；区域没有平台钱包时跳过
+     *
+     * @param paymentRegion 支付区域
+     */
+    @Transactional
+    public void ensureShards(String paymentRegion) {
+        if (platformWalletShardRepository.findByRegionAndShardNo(paymentRegion, 0) != null) {
+            return;
+        }
+        lockApi.lockExecute(allShardLockKeys(paymentRegion), new LockApi.LockExecute<Void>() {
+            @Override
+            public Void execute() {
+                initShards(paymentRegion);
+                return null;
+            }
+
+            @Override
+            public Void waitTimeOut() {
+                throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
+            }
+        });
+    }
+
+    /**
+     * 归集平台账本
+     * 锁定全部分片，把余额重新均摊到各分片；
+     * reserve大于0时先给0号分片预留该金额，用于单笔金额超过均摊余额的充值
+     *
+     * @param paymentRegion 支付区域
+     * @param reserve 0号分片预留金额，可为null
+     * @return 平台可用余额（各分片余额之和减去冻结金额）
+     */
+    @Transactional
+    public Money consolidate(String paymentRegion, Money reserve) {
+        ensureShards(paymentRegion);
+        return lockApi.lockExecute(allShardLockKeys(paymentRegion), new LockApi.LockExecute<Money>() {
+            @Override
+            public Money execute() {
+                return doConsolidate(paymentRegion, reserve);
+            }
+
+            @Override
+            public Money waitTimeOut() {
+                throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
+            }
+        });
+    }
+
+    /**
+     * 初始化分片，在全部分片锁内执行
+     * 其他实例并发初始化时，插入在对方事务提交后因唯一约束失败，视为已初始化
+     */
+    private void initShards(String paymentRegion) {
+        if (platformWalletShardRepository.findByRegionAndShardNo(paymentRegion, 0) != null) {
+            return;
+        }
+        Wallet platformWallet = walletRepository.findByOwnerIdAndRegion(PaymentConstants.PLATFORM_MERCHANT_ID, paymentRegion);
+        if (platformWallet == null) {
+            log.debug("平台钱包{}区域不存在，跳过分片初始化", paymentRegion);
+            return;
+        }
+
+        long total = platformWallet.getBalance() != null ? platformWallet.getBalance().getAmount() : 0L;
+        long[] targets = splitBalance(total, Math.min(frozenAmount(platformWallet), total));
+        long currentTime = System.currentTimeMillis();
+        List<PlatformWalletShard> shards = new ArrayList<>(targets.length);
+        for (int shardNo = 0; shardNo < targets.length; shardNo++) {
+            shards.add(new PlatformWalletShard()
+                    .setWalletId(platformWallet.getId())
+                    .setPaymentRegion(paymentRegion)
+                    .setShardNo(shardNo)
+                    .setBalance(Money.create(targets[shardNo], paymentRegion, Money.DEFAULT_SCALE))
+                    .setCreateTime(currentTime)
+                    .setUpdateTime(currentTime));
+        }
+        try {
+            platformWalletShardRepository.saveBatch(shards);
+        } catch (DuplicateKeyException e) {
+            log.info("平台钱包{}区域分片已由其他实例初始化", paymentRegion);
+            return;
+        }
+        log.info("平台钱包{}区域分片初始化完成，分片数: {}，总余额: {}", paymentRegion, targets.length, total);
+    }
+
+    /**
+     * 执行归集，在全部分片锁内执行
+     * 分片行使用数据库行锁读取，等待其他未提交的充值/回收事务结束，保证余额之和精确；
+     * 0号分片先保留冻结金额，剩余余额足够时再预留本次需要的金额
+     */
+    private Money doConsolidate(String paymentRegion, Money reserve) {
+        List<PlatformWalletShard> shards = platformWalletShardRepository.findByRegionForUpdate(paymentRegion);
+        if (shards.isEmpty()) {
+            return Money.zeroMoney(paymentRegion);
+        }
+        long total = 0L;
+        for (PlatformWalletShard shard : shards) {
+            total += shard.getBalance() != null ? shard.getBalance().getAmount() : 0L;
+        }
+
+        Wallet platformWallet = walletRepository.findByOwnerIdAndRegion(PaymentConstants.PLATFORM_MERCHANT_ID, paymentRegion);
+        long frozen = Math.min(platformWallet != null ? frozenAmount(platformWallet) : 0L, total);
+        long reserveAmount = reserve != null ? reserve.getAmount() : 0L;
+        long[] targets = splitBalance(total, frozen + (reserveAmount <= total - frozen ? reserveAmount : 0L));
+        for (PlatformWalletShard shard : shards) {
+            long target = shard.getShardNo() < targets.length ? targets[shard.getShardNo()] : 0L;
+            if (shard.getBalance() == null || shard.getBalance().getAmount() != target) {
+                platformWalletShardRepository.updateBalance(shard.getId(), Money.create(target, paymentRegion, Money.DEFAULT_SCALE));
+            }
+        }
+
+        log.debug("平台钱包{}区域归集完成，总余额: {}，冻结金额: {}", paymentRegion, total, frozen);
+        return Money.create(total - frozen, paymentRegion, Money.DEFAULT_SCALE);
+    }
+
+    /**
+     * 从指定分片扣减，扣减后低于分片保留余额时不更新
+     */
+    private boolean deductShard(Wallet platformWallet, int shardNo, Money delta) {
+        PlatformWalletShard shard = platformWalletShardRepository.findByRegionAndShardNo(platformWallet.getPaymentRegion(), shardNo);
+        return shard != null && platformWalletShardRepository.addBalance(shard.getId(), delta, shard.retainedBalance(platformWallet));
+    }
+
+    /**
+     * 平台钱包的冻结金额（以分为单位）
+     */
+    private long frozenAmount(Wallet platformWallet) {
+        return platformWallet.getFrozenAmount() != null ? platformWallet.getFrozenAmount().getAmount() : 0L;
+    }
+
+    /**
+     * 均摊余额，余数和预留金额都放在0号分片
+     */
+    private long[] splitBalance(long total, long reserve) {
+        int shardCount = PaymentConstants.PLATFORM_WALLET_SHARDS;
+        long rest = total - reserve;
+        long[] targets = new long[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            targets[i] = rest / shardCount;
+        }
+        targets[0] += rest % shardCount + reserve;
+        return targets;
+    }
+
+    /**
+     * 区域内全部分片的锁key
+     */
+    private List<String> allShardLockKeys(String paymentRegion) {
+        List<String> keys = new ArrayList<>(PaymentConstants.PLATFORM_WALLET_SHARDS);
+        for (int shardNo = 0; shardNo < PaymentConstants.PLATFORM_WALLET_SHARDS; shardNo++) {
+            keys.add(shardLockKey(paymentRegion, shardNo));
+        }
+        return keys;
+    }
+}
@@ -11,32 +11,34 @@ import com.ares.cloud.pay.domain.enums.PaymentError;
 import com.ares.cloud.pay.domain.model.Account;
 import com.ares.cloud.pay.domain.model.Merchant;
 import com.ares.cloud.pay.domain.model.Wallet;
+import com.ares.cloud.pay.domain.model.PlatformWalletShard;
 import com.ares.cloud.pay.domain.model.Transaction;
 import com.ares.cloud.pay.domain.repository.AccountRepository;
 import com.ares.cloud.pay.domain.repository.MerchantRepository;
 import com.ares.cloud.pay.domain.repository.WalletRepository;
 import com.ares.cloud.pay.domain.repository.TransactionRepository;
 import com.ares.cloud.pay.domain.repository.AccountFlowRepository;
+import com.ares.cloud.pay.domain.repository.PlatformWalletShardRepository;
 import com.ares.cloud.pay.domain.model.AccountFlow;
 import com.ares.cloud.pay.domain.valueobject.TransferResult;
+import com.ares.cloud.pay.domain.valueobject.TransferSideEffects;
 import jakarta.annotation.Resource;
 import org.ares.cloud.api.LockApi;
 import org.ares.cloud.common.exception.BusinessException;
 import org.ares.cloud.common.model.Money;
 import org.ares.cloud.common.utils.IdUtils;
 import org.ares.cloud.common.utils.StringUtils;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.ares.cloud.pay.domain.event.TransferSuccessEvent;
 import com.ares.cloud.pay.domain.event.WalletBalanceChangedEvent;
-import org.springframework.context.ApplicationEventPublisher;
 import com.ares.cloud.pay.domain.enums.TransactionType;
 import com.ares.cloud.pay.domain.enums.FlowType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 
 /**
@@ -63,14 +65,20 @@ public class TransferDomainService {
     @Resource
     private AccountFlowRepository accountFlowRepository;
     
+    @Resource
+    private PlatformWalletShardRepository platformWalletShardRepository;
+    
+    @Resource
+    private PlatformLedgerDomainService platformLedgerDomainService;
+    
     @Resource
     private LockApi lockApi;
     
     @Resource
-    private PasswordEncoder passwordEncoder;
+    private PaymentVerificationDomainService paymentVerificationDomainService;
     
     @Resource
-    private ApplicationEventPublisher eventPublisher;
+    private PaymentOutboxDomainService paymentOutboxDomainService;
     
     // ==================== 公有方法 ====================
     
@@ -84,38 +92,21 @@ public class TransferDomainService {
      */
     @Transactional
     public TransferResult transferBetweenUsers(TransferDomainCommand command, String paymentPassword) {
+        // 加锁前完成支付密码校验，锁内只核销验证令牌
+        String verificationToken = paymentVerificationDomainService.verify(
+            command.getFromUserId(), paymentPassword, command.getAmount());
         
         // 生成锁key，按paymentRegion加锁，提高并发性能
         String fromLockKey = "transfer:user:" + command.getFromUserId() + ":" + command.getPaymentRegion();
         String toLockKey = "transfer:user:" + command.getToUserId() + ":" + command.getPaymentRegion();
         
-        // 按照用户ID排序，避免死锁
-        String firstLockKey, secondLockKey;
-        
-        if (command.getFromUserId().compareTo(command.getToUserId()) < 0) {
-            firstLockKey = fromLockKey;
-            secondLockKey = toLockKey;
-        } else {
-            firstLockKey = toLockKey;
-            secondLockKey = fromLockKey;
-        }
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(fromLockKey, toLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                // 获取第一个锁后，尝试获取第二个锁
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        // 两个锁都获取成功，执行转账业务逻辑
-                        return doTransferBetweenUsers(command, paymentPassword);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doTransferBetweenUsers(command, verificationToken, sideEffects);
             }
             
             @Override
@@ -123,6 +114,7 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
     
     /**
@@ -135,36 +127,21 @@ public class TransferDomainService {
      */
     @Transactional
     public TransferResult payToMerchant(MerchantPaymentDomainCommand command, String paymentPassword) {
+        // 加锁前完成支付密码校验，锁内只核销验证令牌
+        String verificationToken = paymentVerificationDomainService.verify(
+            command.getFromUserId(), paymentPassword, command.getAmount());
         
         // 生成锁key，按paymentRegion加锁，提高并发性能
         String fromLockKey = "payment:user:" + command.getFromUserId() + ":" + command.getPaymentRegion();
         String merchantLockKey = "payment:merchant:" + command.getMerchantId() + ":" + command.getPaymentRegion();
         
-        // 按照ID排序，避免死锁
-        String firstLockKey, secondLockKey;
-        
-        if (command.getFromUserId().compareTo(command.getMerchantId()) < 0) {
-            firstLockKey = fromLockKey;
-            secondLockKey = merchantLockKey;
-        } else {
-            firstLockKey = merchantLockKey;
-            secondLockKey = fromLockKey;
-        }
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(fromLockKey, merchantLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doPayToMerchant(command,paymentPassword);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doPayToMerchant(command, verificationToken, sideEffects);
             }
             
             @Override
@@ -172,6 +149,7 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
 
     /**
@@ -187,31 +165,13 @@ public class TransferDomainService {
         String merchantLockKey = "payment:merchant:" + command.getMerchantId() + ":" + command.getPaymentRegion();
         String userLockKey = "payment:user:" + command.getUserId() + ":" + command.getPaymentRegion();
         
-        // 按照ID排序，避免死锁
-        String firstLockKey, secondLockKey;
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        if (command.getMerchantId().compareTo(command.getUserId()) < 0) {
-            firstLockKey = merchantLockKey;
-            secondLockKey = userLockKey;
-        } else {
-            firstLockKey = userLockKey;
-            secondLockKey = merchantLockKey;
-        }
-        
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(merchantLockKey, userLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doMerchantToUserPayment(command);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doMerchantToUserPayment(command, sideEffects);
             }
             
             @Override
@@ -219,46 +179,54 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
     
     /**
      * 商户充值（从平台商户划拨到普通商户）
-     * 使用分布式锁确保资金安全，锁粒度细化到paymentRegion
+     * 平台侧只锁定一个余额足够的分片子账本，不同分片上的充值可以并行；
+     * 没有单个分片余额足够时归集一次，由0号分片承接后再试
      * 
      * @param command 商户充值命令
      * @return 充值结果
      */
     @Transactional
     public TransferResult merchantRecharge(MerchantRechargeDomainCommand command) {
-        // 生成锁key，按paymentRegion加锁，提高并发性能
-        String platformLockKey = "recharge:platform:" + command.getPaymentRegion();
-        String userLockKey = "recharge:user:" + command.getUserId() + ":" + command.getPaymentRegion();
-        
-        // 按照ID排序，避免死锁
-        String firstLockKey, secondLockKey;
+        String paymentRegion = command.getPaymentRegion();
+        TransferSideEffects sideEffects = new TransferSideEffects();
+        
+        // 从随机分片开始依次尝试，分片余额在锁内被并发扣减不足时换下一个分片
+        for (Integer shardNo : platformLedgerDomainService.candidateShardNos(paymentRegion, command.getAmount())) {
+            TransferResult result = lockMerchantRecharge(command, shardNo, sideEffects);
+            if (result != null) {
+                return completeTransfer(result, sideEffects);
+            }
+        }
         
-        if (PaymentConstants.PLATFORM_MERCHANT_ID.compareTo(command.getUserId()) < 0) {
-            firstLockKey = platformLockKey;
-            secondLockKey = userLockKey;
-        } else {
-            firstLockKey = userLockKey;
-            secondLockKey = platformLockKey;
+        // 余额分散在多个分片上，归集后预留到0号分片
+        Money platformBalance = platformLedgerDomainService.consolidate(paymentRegion, command.getAmount());
+        if (platformBalance.isGreaterThanOrEqual(command.getAmount())) {
+            TransferResult result = lockMerchantRecharge(command, 0, sideEffects);
+            if (result != null) {
+                return completeTransfer(result, sideEffects);
+            }
         }
+        throw new BusinessException(PaymentError.MERCHANT_BALANCE_INSUFFICIENT);
+    }
+    
+    /**
+     * 锁定平台分片和普通商户后执行充值，分片余额不足时返回null
+     */
+    private TransferResult lockMerchantRecharge(MerchantRechargeDomainCommand command, int shardNo,
+                                                TransferSideEffects sideEffects) {
+        String shardLockKey = platformLedgerDomainService.shardLockKey(command.getPaymentRegion(), shardNo);
+        String userLockKey = "recharge:user:" + command.getUserId() + ":" + command.getPaymentRegion();
         
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        return lockApi.lockExecute(Arrays.asList(shardLockKey, userLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doMerchantRecharge(command);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doMerchantRecharge(command, shardNo, sideEffects);
             }
             
             @Override
@@ -270,42 +238,25 @@ public class TransferDomainService {
     
     /**
      * 商户回收（从普通商户划拨到平台商户）
-     * 使用分布式锁确保资金安全，锁粒度细化到paymentRegion
+     * 平台侧只锁定随机选择的一个分片子账本，不同分片上的回收可以并行
      * 
      * @param command 商户回收命令
      * @return 回收结果
      */
     @Transactional
     public TransferResult merchantDeduction(MerchantDeductionDomainCommand command) {
-        // 生成锁key，按paymentRegion加锁，提高并发性能
-        String platformLockKey = "deduction:platform:" + command.getPaymentRegion();
+        platformLedgerDomainService.ensureShards(command.getPaymentRegion());
+        int shardNo = platformLedgerDomainService.randomShardNo();
+        String shardLockKey = platformLedgerDomainService.shardLockKey(command.getPaymentRegion(), shardNo);
         String userLockKey = "deduction:user:" + command.getUserId() + ":" + command.getPaymentRegion();
         
-        // 按照ID排序，避免死锁
-        String firstLockKey, secondLockKey;
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        if (PaymentConstants.PLATFORM_MERCHANT_ID.compareTo(command.getUserId()) < 0) {
-            firstLockKey = platformLockKey;
-            secondLockKey = userLockKey;
-        } else {
-            firstLockKey = userLockKey;
-            secondLockKey = platformLockKey;
-        }
-        
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(shardLockKey, userLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doMerchantDeduction(command);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doMerchantDeduction(command, shardNo, sideEffects);
             }
             
             @Override
@@ -313,6 +264,7 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
     
     /**
@@ -332,31 +284,13 @@ public class TransferDomainService {
         String merchantLockKey = "payment:merchant:" + command.getMerchantId() + ":" + command.getPaymentRegion();
         String userLockKey = "payment:user:" + command.getUserId() + ":" + command.getPaymentRegion();
         
-        // 按照ID排序，避免死锁
-        String firstLockKey, secondLockKey;
-        
-        if (command.getMerchantId().compareTo(command.getUserId()) < 0) {
-            firstLockKey = merchantLockKey;
-            secondLockKey = userLockKey;
-        } else {
-            firstLockKey = userLockKey;
-            secondLockKey = merchantLockKey;
-        }
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(merchantLockKey, userLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doMerchantDiscountOrReductionToUser(command, transactionType, true);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doMerchantDiscountOrReductionToUser(command, transactionType, true, sideEffects);
             }
             
             @Override
@@ -364,6 +298,7 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
     
     /**
@@ -383,31 +318,13 @@ public class TransferDomainService {
         String merchantLockKey = "payment:merchant:" + command.getMerchantId() + ":" + command.getPaymentRegion();
         String userLockKey = "payment:user:" + command.getUserId() + ":" + command.getPaymentRegion();
         
-        // 按照ID排序，避免死锁
-        String firstLockKey, secondLockKey;
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        if (command.getMerchantId().compareTo(command.getUserId()) < 0) {
-            firstLockKey = merchantLockKey;
-            secondLockKey = userLockKey;
-        } else {
-            firstLockKey = userLockKey;
-            secondLockKey = merchantLockKey;
-        }
-        
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(merchantLockKey, userLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doMerchantDiscountOrReductionToUser(command, transactionType, false);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doMerchantDiscountOrReductionToUser(command, transactionType, false, sideEffects);
             }
             
             @Override
@@ -415,6 +332,7 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
     
     /**
@@ -437,35 +355,22 @@ public class TransferDomainService {
     @Deprecated
     @Transactional
     public TransferResult genericTransfer(GenericTransferDomainCommand command, String paymentPassword) {
+        // 如果需要验证支付密码，则在加锁前完成校验，锁内只核销验证令牌
+        String verificationToken = command.getRequirePaymentPassword()
+            ? paymentVerificationDomainService.verify(command.getFromAccountId(), paymentPassword, command.getAmount())
+            : null;
+        
         // 生成锁key，按paymentRegion加锁，提高并发性能
         String fromLockKey = "transfer:generic:" + command.getFromAccountId() + ":" + command.getPaymentRegion();
         String toLockKey = "transfer:generic:" + command.getToAccountId() + ":" + command.getPaymentRegion();
         
-        // 按照账户ID排序，避免死锁
-        String firstLockKey, secondLockKey;
+        TransferSideEffects sideEffects = new TransferSideEffects();
         
-        if (command.getFromAccountId().compareTo(command.getToAccountId()) < 0) {
-            firstLockKey = fromLockKey;
-            secondLockKey = toLockKey;
-        } else {
-            firstLockKey = toLockKey;
-            secondLockKey = fromLockKey;
-        }
-        
-        return lockApi.lockExecute(firstLockKey, new LockApi.LockExecute<TransferResult>() {
+        // 两个key在一次原子操作中按固定顺序全部加锁，避免死锁和部分加锁
+        TransferResult result = lockApi.lockExecute(Arrays.asList(fromLockKey, toLockKey), new LockApi.LockExecute<TransferResult>() {
             @Override
             public TransferResult execute() {
-                return lockApi.lockExecute(secondLockKey, new LockApi.LockExecute<TransferResult>() {
-                    @Override
-                    public TransferResult execute() {
-                        return doGenericTransfer(command, paymentPassword);
-                    }
-                    
-                    @Override
-                    public TransferResult waitTimeOut() {
-                        throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
-                    }
-                });
+                return doGenericTransfer(command, verificationToken, sideEffects);
             }
             
             @Override
@@ -473,29 +378,11 @@ public class TransferDomainService {
                 throw new BusinessException(PaymentError.TRANSACTION_TIMEOUT);
             }
         });
+        return completeTransfer(result, sideEffects);
     }
     
     // ==================== 私有方法 ====================
     
-    /**
-     * 验证支付密码
-     */
-    private void validatePaymentPassword(Account account, String paymentPassword) {
-        if (!StringUtils.hasText(paymentPassword)) {
-            throw new BusinessException(PaymentError.PAYMENT_PASSWORD_REQUIRED);
-        }
-
-        // 验证密码 - 如果没有设置支付密码，则使用登录密码
-        String storedPassword = account.getPayPassword() != null ? account.getPayPassword() : account.getPassword();
-        if (storedPassword == null) {
-            throw new BusinessException(PaymentError.INVALID_PAYMENT_PASSWORD);
-        }
-        
-        if (!passwordEncoder.matches(paymentPassword, storedPassword)) {
-            throw new BusinessException(PaymentError.INVALID_PAYMENT_PASSWORD);
-        }
-    }
-    
     /**
      * 计算手续费
      * 直接使用 TransactionType 枚举中定义的手续费率
@@ -556,16 +443,16 @@ public class TransferDomainService {
     /**
      * 执行通用转账业务逻辑
      */
-    private TransferResult doGenericTransfer(GenericTransferDomainCommand command, String paymentPassword) {
+    private TransferResult doGenericTransfer(GenericTransferDomainCommand command, String verificationToken, TransferSideEffects sideEffects) {
         // 查询转出账户
         Account fromAccount = accountRepository.findById(command.getFromAccountId());
         if (fromAccount == null) {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
         
-        // 如果需要验证支付密码，则验证
+        // 如果需要验证支付密码，则核销加锁前签发的验证令牌
         if (command.getRequirePaymentPassword()) {
-            validatePaymentPassword(fromAccount, paymentPassword);
+            paymentVerificationDomainService.consume(verificationToken, fromAccount.getId(), command.getAmount());
         }
         
         // 查询转入账户
@@ -574,17 +461,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
         
-        // 查询转出钱包
-        Wallet fromWallet = walletRepository.findByOwnerIdAndRegion(fromAccount.getId(), command.getPaymentRegion());
-        if (fromWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询转入钱包
-        Wallet toWallet = walletRepository.findByOwnerIdAndRegion(toAccount.getId(), command.getPaymentRegion());
-        if (toWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet fromWallet = findWallet(fromAccount.getId(), command.getPaymentRegion());
         
         // 校验账户状态
         validateAccountStatus(fromAccount, "转出账户");
@@ -592,7 +470,6 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(fromWallet, "转出钱包");
-        validateWalletStatus(toWallet, "转入钱包");
         
         // 校验余额
         Money transferAmount = command.getAmount();
@@ -627,15 +504,11 @@ public class TransferDomainService {
         
         // 保存旧余额用于事件发布
         Money oldFromBalance = fromWallet.getBalance();
-        Money oldToBalance = toWallet.getBalance();
         
         // 执行转账
-        fromWallet.decreaseBalance(fromActualAmount);
-        toWallet.increaseBalance(toActualAmount);
-        
-        // 保存钱包
-        walletRepository.updateBalance(fromWallet.getId(), fromWallet.getBalance());
-        walletRepository.updateBalance(toWallet.getId(), toWallet.getBalance());
+        applyBalanceDelta(fromWallet, fromActualAmount.negate());
+        Wallet toWallet = creditWallet(toAccount.getId(), command.getPaymentRegion(), toActualAmount, "转入钱包");
+        Money oldToBalance = toWallet.getBalance().subtract(toActualAmount);
         
         // 创建交易记录
         Integer feeRate = getFeeRate(command.getTransactionType());
@@ -651,7 +524,7 @@ public class TransferDomainService {
             actualAmount
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         AccountFlow outFlow = AccountFlow.create(
@@ -678,10 +551,10 @@ public class TransferDomainService {
             "TO".equals(command.getFeeBearer()) ? feeRate : 0,
             toActualAmount
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             fromAccount.getId(),
             toAccount.getId(),
@@ -692,9 +565,9 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             fromWallet, oldFromBalance, fromActualAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             toWallet, oldToBalance, toActualAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), "转账成功");
@@ -703,13 +576,13 @@ public class TransferDomainService {
     /**
      * 执行用户间转账业务逻辑
      */
-    private TransferResult doTransferBetweenUsers(TransferDomainCommand command, String paymentPassword) {
+    private TransferResult doTransferBetweenUsers(TransferDomainCommand command, String verificationToken, TransferSideEffects sideEffects) {
         // 查询转出账户
         Account fromAccount = accountRepository.findById(command.getFromUserId());
         if (fromAccount == null) {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
-        validatePaymentPassword(fromAccount,paymentPassword);
+        paymentVerificationDomainService.consume(verificationToken, fromAccount.getId(), command.getAmount());
         
         // 查询转入账户
         Account toAccount = accountRepository.findById(command.getToUserId());
@@ -717,17 +590,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
         
-        // 查询转出钱包
-        Wallet fromWallet = walletRepository.findByOwnerIdAndRegion(fromAccount.getId(), command.getPaymentRegion());
-        if (fromWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询转入钱包
-        Wallet toWallet = walletRepository.findByOwnerIdAndRegion(toAccount.getId(), command.getPaymentRegion());
-        if (toWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet fromWallet = findWallet(fromAccount.getId(), command.getPaymentRegion());
         
         // 校验账户状态
         validateAccountStatus(fromAccount, "转出账户");
@@ -735,7 +599,6 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(fromWallet, "转出钱包");
-        validateWalletStatus(toWallet, "转入钱包");
         
         // 校验余额
         Money transferAmount = command.getAmount();
@@ -754,15 +617,11 @@ public class TransferDomainService {
         
         // 保存旧余额用于事件发布
         Money oldFromBalance = fromWallet.getBalance();
-        Money oldToBalance = toWallet.getBalance();
         
         // 执行转账（转出方扣除转账金额+手续费，接收方全额到账）
-        fromWallet.decreaseBalance(actualDeductAmount);
-        toWallet.increaseBalance(transferAmount); // 接收方全额到账
-        
-        // 保存钱包
-        walletRepository.updateBalance(fromWallet.getId(), fromWallet.getBalance());
-        walletRepository.updateBalance(toWallet.getId(), toWallet.getBalance());
+        applyBalanceDelta(fromWallet, actualDeductAmount.negate());
+        Wallet toWallet = creditWallet(toAccount.getId(), command.getPaymentRegion(), transferAmount, "转入钱包"); // 接收方全额到账
+        Money oldToBalance = toWallet.getBalance().subtract(transferAmount);
         
         // 创建交易记录
         Integer feeRate = getFeeRate(TransactionType.USER_TRANSFER.getCode());
@@ -778,7 +637,7 @@ public class TransferDomainService {
             transferAmount // 接收方实际到账金额（全额）
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         AccountFlow outFlow = AccountFlow.createOutFlow(
@@ -803,10 +662,10 @@ public class TransferDomainService {
             0,
             transferAmount // 接收方实际到账（全额）
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             fromAccount.getId(),
             toAccount.getId(),
@@ -817,9 +676,9 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             fromWallet, oldFromBalance, actualDeductAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             toWallet, oldToBalance, transferAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), "转账成功");
@@ -828,13 +687,13 @@ public class TransferDomainService {
     /**
      * 执行向商户付款业务逻辑
      */
-    private TransferResult doPayToMerchant(MerchantPaymentDomainCommand command, String paymentPassword) {
+    private TransferResult doPayToMerchant(MerchantPaymentDomainCommand command, String verificationToken, TransferSideEffects sideEffects) {
         // 查询付款方账户
         Account fromAccount = accountRepository.findById(command.getFromUserId());
         if (fromAccount == null) {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
-        validatePaymentPassword(fromAccount, paymentPassword);
+        paymentVerificationDomainService.consume(verificationToken, fromAccount.getId(), command.getAmount());
         
         // 查询商户
         Merchant merchant = merchantRepository.findById(command.getMerchantId());
@@ -842,17 +701,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.MERCHANT_NOT_FOUND);
         }
         
-        // 查询付款方钱包
-        Wallet fromWallet = walletRepository.findByOwnerIdAndRegion(fromAccount.getId(), command.getPaymentRegion());
-        if (fromWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询商户钱包
-        Wallet merchantWallet = walletRepository.findByOwnerIdAndRegion(merchant.getId(), command.getPaymentRegion());
-        if (merchantWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet fromWallet = findWallet(fromAccount.getId(), command.getPaymentRegion());
         
         // 校验账户状态
         validateAccountStatus(fromAccount, "付款账户");
@@ -860,7 +710,6 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(fromWallet, "付款钱包");
-        validateWalletStatus(merchantWallet, "商户钱包");
         
         // 校验余额
         Money paymentAmount = command.getAmount();
@@ -874,15 +723,11 @@ public class TransferDomainService {
         
         // 保存旧余额用于事件发布
         Money oldFromBalance = fromWallet.getBalance();
-        Money oldToBalance = merchantWallet.getBalance();
         
         // 执行付款
-        fromWallet.decreaseBalance(paymentAmount);
-        merchantWallet.increaseBalance(actualAmount); // 收入方实际到账金额（扣除手续费）
-        
-        // 保存钱包
-        walletRepository.updateBalance(fromWallet.getId(), fromWallet.getBalance());
-        walletRepository.updateBalance(merchantWallet.getId(), merchantWallet.getBalance());
+        applyBalanceDelta(fromWallet, paymentAmount.negate());
+        Wallet merchantWallet = creditWallet(merchant.getId(), command.getPaymentRegion(), actualAmount, "商户钱包"); // 收入方实际到账金额（扣除手续费）
+        Money oldToBalance = merchantWallet.getBalance().subtract(actualAmount);
         
         // 创建交易记录
         Integer feeRate = getFeeRate(TransactionType.MERCHANT_COLLECTION.getCode());
@@ -898,7 +743,7 @@ public class TransferDomainService {
             actualAmount
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         AccountFlow outFlow = AccountFlow.createOutFlow(
@@ -923,10 +768,10 @@ public class TransferDomainService {
             feeRate,
             actualAmount
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             fromAccount.getId(),
             merchant.getId(),
@@ -937,9 +782,9 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             fromWallet, oldFromBalance, paymentAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             merchantWallet, oldToBalance, paymentAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), "付款成功");
@@ -955,12 +800,14 @@ public class TransferDomainService {
      */
     @Transactional
     public TransferResult shoppingPayment(MerchantPaymentDomainCommand command, String paymentPassword) {
+        TransferSideEffects sideEffects = new TransferSideEffects();
+        
         // 查询付款方账户
         Account fromAccount = accountRepository.findById(command.getFromUserId());
         if (fromAccount == null) {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
-        validatePaymentPassword(fromAccount, paymentPassword);
+        paymentVerificationDomainService.validatePaymentPassword(fromAccount, paymentPassword);
         
         // 查询商户
         Merchant merchant = merchantRepository.findById(command.getMerchantId());
@@ -968,17 +815,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.MERCHANT_NOT_FOUND);
         }
         
-        // 查询付款方钱包
-        Wallet fromWallet = walletRepository.findByOwnerIdAndRegion(fromAccount.getId(), command.getPaymentRegion());
-        if (fromWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询商户钱包
-        Wallet merchantWallet = walletRepository.findByOwnerIdAndRegion(merchant.getId(), command.getPaymentRegion());
-        if (merchantWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet fromWallet = findWallet(fromAccount.getId(), command.getPaymentRegion());
         
         // 校验账户状态
         validateAccountStatus(fromAccount, "付款账户");
@@ -986,7 +824,6 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(fromWallet, "付款钱包");
-        validateWalletStatus(merchantWallet, "商户钱包");
         
         // 校验余额
         Money paymentAmount = command.getAmount();
@@ -998,17 +835,13 @@ public class TransferDomainService {
         Money feeAmount = Money.zeroMoney(command.getPaymentRegion());
         Money actualAmount = paymentAmount;
         
-        // 保存旧余额用于事件发布
-        Money oldFromBalance = fromWallet.getBalance();
-        Money oldToBalance = merchantWallet.getBalance();
-        
-        // 执行付款
-        fromWallet.decreaseBalance(paymentAmount);
-        merchantWallet.increaseBalance(actualAmount); // 商户全额到账
+        // 执行付款（购物支付不加锁，由条件更新保证余额不透支）
+        applyBalanceDelta(fromWallet, paymentAmount.negate());
+        Wallet merchantWallet = creditWallet(merchant.getId(), command.getPaymentRegion(), actualAmount, "商户钱包"); // 商户全额到账
         
-        // 保存钱包
-        walletRepository.updateBalance(fromWallet.getId(), fromWallet.getBalance());
-        walletRepository.updateBalance(merchantWallet.getId(), merchantWallet.getBalance());
+        // 由更新后的余额推算旧余额用于事件发布
+        Money oldFromBalance = fromWallet.getBalance().add(paymentAmount);
+        Money oldToBalance = merchantWallet.getBalance().subtract(actualAmount);
         
         // 创建交易记录
         Transaction transaction = createTransaction(
@@ -1023,7 +856,7 @@ public class TransferDomainService {
             actualAmount
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         AccountFlow outFlow = AccountFlow.createOutFlow(
@@ -1048,10 +881,10 @@ public class TransferDomainService {
             0,
             actualAmount
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             fromAccount.getId(),
             merchant.getId(),
@@ -1062,12 +895,12 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             fromWallet, oldFromBalance, paymentAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             merchantWallet, oldToBalance, paymentAmount, "INCREASE", transaction.getId()));
         
-        return TransferResult.success(transaction.getId(), "购物支付成功");
+        return completeTransfer(TransferResult.success(transaction.getId(), "购物支付成功"), sideEffects);
     }
     
     /**
@@ -1084,7 +917,7 @@ public class TransferDomainService {
      */
     private TransferResult doMerchantDiscountOrReductionToUser(MerchantToUserPaymentDomainCommand command, 
                                                                TransactionType transactionType, 
-                                                               boolean isDiscount) {
+                                                               boolean isDiscount, TransferSideEffects sideEffects) {
         // 查询商户
         Merchant merchant = merchantRepository.findById(command.getMerchantId());
         if (merchant == null) {
@@ -1097,17 +930,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
         
-        // 查询商户钱包
-        Wallet merchantWallet = walletRepository.findByOwnerIdAndRegion(merchant.getId(), command.getPaymentRegion());
-        if (merchantWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询用户钱包
-        Wallet userWallet = walletRepository.findByOwnerIdAndRegion(userAccount.getId(), command.getPaymentRegion());
-        if (userWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet merchantWallet = findWallet(merchant.getId(), command.getPaymentRegion());
         
         // 校验商户状态
         validateMerchantStatus(merchant);
@@ -1117,7 +941,6 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(merchantWallet, "商户钱包");
-        validateWalletStatus(userWallet, "用户钱包");
         
         // 校验商户余额
         Money transferAmount = command.getAmount();
@@ -1131,15 +954,11 @@ public class TransferDomainService {
         
         // 保存旧余额用于事件发布
         Money oldMerchantBalance = merchantWallet.getBalance();
-        Money oldUserBalance = userWallet.getBalance();
         
         // 执行转账（商户扣除全额，用户收到扣除手续费后的金额）
-        merchantWallet.decreaseBalance(transferAmount);
-        userWallet.increaseBalance(actualUserAmount); // 用户实际到账（扣除手续费）
-        
-        // 保存钱包
-        walletRepository.updateBalance(merchantWallet.getId(), merchantWallet.getBalance());
-        walletRepository.updateBalance(userWallet.getId(), userWallet.getBalance());
+        applyBalanceDelta(merchantWallet, transferAmount.negate());
+        Wallet userWallet = creditWallet(userAccount.getId(), command.getPaymentRegion(), actualUserAmount, "用户钱包"); // 用户实际到账（扣除手续费）
+        Money oldUserBalance = userWallet.getBalance().subtract(actualUserAmount);
         
         // 创建交易记录
         Integer feeRate = getFeeRate(transactionType.getCode());
@@ -1156,7 +975,7 @@ public class TransferDomainService {
             actualUserAmount
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         AccountFlow outFlow = AccountFlow.createOutFlow(
@@ -1181,10 +1000,10 @@ public class TransferDomainService {
             feeRate,
             actualUserAmount
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             merchant.getId(),
             userAccount.getId(),
@@ -1195,9 +1014,9 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             merchantWallet, oldMerchantBalance, transferAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             userWallet, oldUserBalance, actualUserAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), description + "成功，实际到账: " + actualUserAmount);
@@ -1206,7 +1025,7 @@ public class TransferDomainService {
     /**
      * 执行商户向用户发放业务逻辑（商户赠送，无手续费）
      */
-    private TransferResult doMerchantToUserPayment(MerchantToUserPaymentDomainCommand command) {
+    private TransferResult doMerchantToUserPayment(MerchantToUserPaymentDomainCommand command, TransferSideEffects sideEffects) {
         // 查询商户
         Merchant merchant = merchantRepository.findById(command.getMerchantId());
         if (merchant == null) {
@@ -1219,17 +1038,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.ACCOUNT_NOT_FOUND);
         }
         
-        // 查询商户钱包
-        Wallet merchantWallet = walletRepository.findByOwnerIdAndRegion(merchant.getId(), command.getPaymentRegion());
-        if (merchantWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询用户钱包
-        Wallet userWallet = walletRepository.findByOwnerIdAndRegion(userAccount.getId(), command.getPaymentRegion());
-        if (userWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet merchantWallet = findWallet(merchant.getId(), command.getPaymentRegion());
         
         // 校验商户状态
         validateMerchantStatus(merchant);
@@ -1239,7 +1049,6 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(merchantWallet, "商户钱包");
-        validateWalletStatus(userWallet, "用户钱包");
         
         // 校验商户余额
         Money paymentAmount = command.getAmount();
@@ -1253,15 +1062,11 @@ public class TransferDomainService {
         
         // 保存旧余额用于事件发布
         Money oldMerchantBalance = merchantWallet.getBalance();
-        Money oldUserBalance = userWallet.getBalance();
         
         // 执行发放（从商户钱包扣款，向用户钱包充值）
-        merchantWallet.decreaseBalance(paymentAmount);
-        userWallet.increaseBalance(actualAmount); // 用户全额到账
-        
-        // 保存钱包
-        walletRepository.updateBalance(merchantWallet.getId(), merchantWallet.getBalance());
-        walletRepository.updateBalance(userWallet.getId(), userWallet.getBalance());
+        applyBalanceDelta(merchantWallet, paymentAmount.negate());
+        Wallet userWallet = creditWallet(userAccount.getId(), command.getPaymentRegion(), actualAmount, "用户钱包"); // 用户全额到账
+        Money oldUserBalance = userWallet.getBalance().subtract(actualAmount);
         
         // 创建交易记录（使用 MERCHANT_ACTIVITY_GIFT 交易类型）
         Transaction transaction = createTransaction(
@@ -1276,7 +1081,7 @@ public class TransferDomainService {
             actualAmount
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         AccountFlow outFlow = AccountFlow.createOutFlow(
@@ -1301,10 +1106,10 @@ public class TransferDomainService {
             0,
             actualAmount
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             merchant.getId(),
             userAccount.getId(),
@@ -1315,9 +1120,9 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             merchantWallet, oldMerchantBalance, paymentAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             userWallet, oldUserBalance, paymentAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), "赠送成功");
@@ -1325,8 +1130,9 @@ public class TransferDomainService {
     
     /**
      * 执行商户充值业务逻辑（从平台商户划拨到普通商户）
+     * 从指定的平台分片扣减，平台侧流水和事件中的余额为该分片的余额；分片余额不足时不做任何修改并返回null
      */
-    private TransferResult doMerchantRecharge(MerchantRechargeDomainCommand command) {
+    private TransferResult doMerchantRecharge(MerchantRechargeDomainCommand command, int shardNo, TransferSideEffects sideEffects) {
         // 查询平台商户
         Merchant platformMerchant = merchantRepository.findById(PaymentConstants.PLATFORM_MERCHANT_ID);
         if (platformMerchant == null) {
@@ -1339,17 +1145,8 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.MERCHANT_NOT_FOUND);
         }
         
-        // 查询平台商户钱包
-        Wallet platformWallet = walletRepository.findByOwnerIdAndRegion(platformMerchant.getId(), command.getPaymentRegion());
-        if (platformWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询普通商户钱包
-        Wallet userWallet = walletRepository.findByOwnerIdAndRegion(userMerchant.getId(), command.getPaymentRegion());
-        if (userWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 查询付款方钱包，收款方钱包不预先查询，入账时由条件更新校验状态
+        Wallet platformWallet = findWallet(platformMerchant.getId(), command.getPaymentRegion());
         
         // 校验商户状态
         validateMerchantStatus(platformMerchant);
@@ -1357,12 +1154,16 @@ public class TransferDomainService {
         
         // 校验钱包状态
         validateWalletStatus(platformWallet, "平台商户钱包");
-        validateWalletStatus(userWallet, "普通商户钱包");
         
-        // 校验平台商户余额
+        // 校验平台分片余额
         Money rechargeAmount = command.getAmount();
-        if (!platformWallet.hasEnoughBalance(rechargeAmount)) {
-            throw new BusinessException(PaymentError.MERCHANT_BALANCE_INSUFFICIENT);
+        PlatformWalletShard platformShard = platformWalletShardRepository.findByRegionAndShardNo(command.getPaymentRegion(), shardNo);
+        if (platformShard == null) {
+            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
+        }
+        Money retainedBalance = platformShard.retainedBalance(platformWallet);
+        if (!platformShard.hasEnoughBalance(rechargeAmount, retainedBalance)) {
+            return null;
         }
         
         // 商户购买礼物点无手续费（0.00%）
@@ -1370,16 +1171,18 @@ public class TransferDomainService {
         Money actualAmount = rechargeAmount;
         
         // 保存旧余额用于事件发布
-        Money oldPlatformBalance = platformWallet.getBalance();
-        Money oldUserBalance = userWallet.getBalance();
+        Money oldPlatformBalance = platformShard.getBalance();
         
-        // 执行充值（从平台商户划拨到普通商户）
-        platformWallet.decreaseBalance(rechargeAmount);
-        userWallet.increaseBalance(actualAmount); // 商户全额到账
+        // 从平台分片扣减，扣减后低于冻结金额时数据库不更新
+        if (!platformWalletShardRepository.addBalance(platformShard.getId(), rechargeAmount.negate(), retainedBalance)) {
+            return null;
+        }
+        platformShard.setBalance(oldPlatformBalance.subtract(rechargeAmount));
+        platformWallet = platformShard.asWallet(platformWallet);
         
-        // 保存钱包
-        walletRepository.updateBalance(platformWallet.getId(), platformWallet.getBalance());
-        walletRepository.updateBalance(userWallet.getId(), userWallet.getBalance());
+        // 执行充值（商户全额到账）
+        Wallet userWallet = creditWallet(userMerchant.getId(), command.getPaymentRegion(), actualAmount, "普通商户钱包");
+        Money oldUserBalance = userWallet.getBalance().subtract(actualAmount);
         
         // 创建交易记录（商户购买礼物点）
         Transaction transaction = createTransaction(
@@ -1394,7 +1197,7 @@ public class TransferDomainService {
             actualAmount
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         // 系统侧：SYSTEM_SALE（系统出售）
@@ -1421,10 +1224,10 @@ public class TransferDomainService {
             0,
             actualAmount
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             platformMerchant.getId(),
             userMerchant.getId(),
@@ -1435,9 +1238,9 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             platformWallet, oldPlatformBalance, rechargeAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             userWallet, oldUserBalance, rechargeAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), "充值成功");
@@ -1446,8 +1249,9 @@ public class TransferDomainService {
     /**
      * 执行商户售卖给系统业务逻辑
      * 商户将礼物点出售给平台，手续费1.50%提前扣除（商户承担）
+     * 平台侧记入指定的分片，流水和事件中的平台余额为该分片的余额
      */
-    private TransferResult doMerchantDeduction(MerchantDeductionDomainCommand command) {
+    private TransferResult doMerchantDeduction(MerchantDeductionDomainCommand command, int shardNo, TransferSideEffects sideEffects) {
         // 查询平台商户
         Merchant platformMerchant = merchantRepository.findById(PaymentConstants.PLATFORM_MERCHANT_ID);
         if (platformMerchant == null) {
@@ -1460,17 +1264,10 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.MERCHANT_NOT_FOUND);
         }
         
-        // 查询平台商户钱包
-        Wallet platformWallet = walletRepository.findByOwnerIdAndRegion(platformMerchant.getId(), command.getPaymentRegion());
-        if (platformWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
-        
-        // 查询普通商户钱包
-        Wallet userWallet = walletRepository.findByOwnerIdAndRegion(userMerchant.getId(), command.getPaymentRegion());
-        if (userWallet == null) {
-            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
-        }
+        // 一次查询平台商户钱包和普通商户钱包
+        WalletPair wallets = findWalletPair(platformMerchant.getId(), userMerchant.getId(), command.getPaymentRegion());
+        Wallet platformWallet = wallets.first();
+        Wallet userWallet = wallets.second();
         
         // 校验商户状态
         validateMerchantStatus(platformMerchant);
@@ -1495,17 +1292,21 @@ public class TransferDomainService {
             throw new BusinessException(PaymentError.MERCHANT_BALANCE_INSUFFICIENT);
         }
         
+        // 查询平台分片
+        PlatformWalletShard platformShard = platformWalletShardRepository.findByRegionAndShardNo(command.getPaymentRegion(), shardNo);
+        if (platformShard == null) {
+            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
+        }
+        
         // 保存旧余额用于事件发布
-        Money oldPlatformBalance = platformWallet.getBalance();
+        Money oldPlatformBalance = platformShard.getBalance();
         Money oldUserBalance = userWallet.getBalance();
         
-        // 执行售卖（商户扣除礼物点，平台接收礼物点，商户实际收到现金=deductionAmount-手续费）
-        userWallet.decreaseBalance(deductionAmount); // 商户扣除礼物点
-        platformWallet.increaseBalance(deductionAmount); // 平台全额接收礼物点
-        
-        // 保存钱包
-        walletRepository.updateBalance(userWallet.getId(), userWallet.getBalance());
-        walletRepository.updateBalance(platformWallet.getId(), platformWallet.getBalance());
+        // 执行售卖（商户扣除礼物点，平台分片接收礼物点，商户实际收到现金=deductionAmount-手续费）
+        applyBalanceDelta(userWallet, deductionAmount.negate()); // 商户扣除礼物点
+        platformWalletShardRepository.addBalance(platformShard.getId(), deductionAmount, null); // 平台全额接收礼物点
+        platformShard.setBalance(oldPlatformBalance.add(deductionAmount));
+        platformWallet = platformShard.asWallet(platformWallet);
         
         // 创建交易记录（商户出售礼物点）
         Integer feeRate = getFeeRate(TransactionType.MERCHANT_SELL.getCode());
@@ -1521,7 +1322,7 @@ public class TransferDomainService {
             actualSellAmount // 商户实际收到的金额（扣除手续费后）
         );
         
-        transactionRepository.save(transaction);
+        sideEffects.transaction(transaction);
         
         // 保存账户流水（转出、转入）
         // 商户侧：MERCHANT_SELL（商户出售，提前扣除手续费）
@@ -1548,10 +1349,10 @@ public class TransferDomainService {
             0,
             deductionAmount // 平台全额接收礼物点
         );
-        accountFlowRepository.saveBatch(java.util.Arrays.asList(outFlow, inFlow));
+        sideEffects.accountFlows(outFlow, inFlow);
         
         // 发布转账成功事件
-        eventPublisher.publishEvent(new TransferSuccessEvent(
+        sideEffects.event(new TransferSuccessEvent(
             transaction.getId(),
             userMerchant.getId(),
             platformMerchant.getId(),
@@ -1562,14 +1363,100 @@ public class TransferDomainService {
         ));
         
         // 发布钱包余额变更事件
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             userWallet, oldUserBalance, deductionAmount, "DECREASE", transaction.getId()));
-        eventPublisher.publishEvent(new WalletBalanceChangedEvent(
+        sideEffects.event(new WalletBalanceChangedEvent(
             platformWallet, oldPlatformBalance, deductionAmount, "INCREASE", transaction.getId()));
         
         return TransferResult.success(transaction.getId(), "出售成功，实际到账: " + actualSellAmount);
     }
     
+    /**
+     * 持久化锁内登记的副作用
+     * 交易记录和账户流水与余额变更在同一事务内写入，领域事件写入发件箱，事务提交后异步派发
+     */
+    private TransferResult completeTransfer(TransferResult result, TransferSideEffects sideEffects) {
+        if (sideEffects.getTransaction() != null) {
+            transactionRepository.save(sideEffects.getTransaction());
+            accountFlowRepository.saveBatch(sideEffects.getAccountFlows());
+            paymentOutboxDomainService.record(sideEffects.getEvents());
+        }
+        return result;
+    }
+    
+    /**
+     * 查询钱包，钱包不存在时抛出异常；平台钱包的余额以分片账本为准
+     */
+    private Wallet findWallet(String ownerId, String paymentRegion) {
+        Wallet wallet = walletRepository.findByOwnerIdAndRegion(ownerId, paymentRegion);
+        if (wallet == null) {
+            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
+        }
+        return platformLedgerDomainService.applyLedgerBalance(wallet);
+    }
+    
+    /**
+     * 给收款方钱包入账，不预先查询钱包，条件更新只对正常状态的钱包生效并返回更新后的钱包；
+     * 平台钱包的入账记入分片账本。入账未生效时查询钱包给出对应的错误，抛出异常回滚事务
+     */
+    private Wallet creditWallet(String ownerId, String paymentRegion, Money amount, String walletType) {
+        if (platformLedgerDomainService.isPlatformOwner(ownerId)) {
+            Wallet wallet = findWallet(ownerId, paymentRegion);
+            validateWalletStatus(wallet, walletType);
+            applyBalanceDelta(wallet, amount);
+            return wallet;
+        }
+        Wallet wallet = walletRepository.credit(ownerId, paymentRegion, amount);
+        if (wallet == null) {
+            validateWalletStatus(walletRepository.findByOwnerIdAndRegion(ownerId, paymentRegion), walletType);
+            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
+        }
+        return wallet;
+    }
+    
+    /**
+     * 一次查询转账双方的钱包，任一方钱包不存在时抛出异常
+     */
+    private WalletPair findWalletPair(String firstOwnerId, String secondOwnerId, String paymentRegion) {
+        Wallet first = null;
+        Wallet second = null;
+        for (Wallet wallet : walletRepository.findByOwnerIdsAndRegion(firstOwnerId, secondOwnerId, paymentRegion)) {
+            if (firstOwnerId.equals(wallet.getOwnerId())) {
+                first = wallet;
+            }
+            if (secondOwnerId.equals(wallet.getOwnerId())) {
+                second = wallet;
+            }
+        }
+        if (first == null || second == null) {
+            throw new BusinessException(PaymentError.WALLET_NOT_FOUND);
+        }
+        // 平台钱包的余额以分片账本为准
+        platformLedgerDomainService.applyLedgerBalance(first);
+        platformLedgerDomainService.applyLedgerBalance(second);
+        return new WalletPair(first, second);
+    }
+    
+    /**
+     * 转账双方的钱包
+     */
+    private record WalletPair(Wallet first, Wallet second) {
+    }
+    
+    /**
+     * 按增量更新钱包余额，并把钱包模型的余额刷新为更新后的余额
+     * 平台钱包的变更记入分片账本；余额不足时数据库不更新，抛出异常回滚事务
+     */
+    private void applyBalanceDelta(Wallet wallet, Money delta) {
+        Money newBalance = platformLedgerDomainService.isPlatformWallet(wallet)
+                ? platformLedgerDomainService.addBalance(wallet, delta)
+                : walletRepository.addBalance(wallet.getId(), delta);
+        if (newBalance == null) {
+            throw new BusinessException(PaymentError.WALLET_BALANCE_INSUFFICIENT);
+        }
+        wallet.setBalance(newBalance);
+    }
+    
     /**
      * 校验账户状态
      */
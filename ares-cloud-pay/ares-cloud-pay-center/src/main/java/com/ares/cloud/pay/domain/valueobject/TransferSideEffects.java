@@ -0,0 +1,45 @@
+package com.ares.cloud.pay.domain.valueobject;
+
+import com.ares.cloud.pay.domain.event.PaymentEvent;
+import com.ares.cloud.pay.domain.model.AccountFlow;
+import com.ares.cloud.pay.domain.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 转账副作用
+ * 锁内只登记交易记录、账户流水和领域事件，释放锁后在同一事务内持久化
+ */
+public class TransferSideEffects {
+    private Transaction transaction;
+    private final List<AccountFlow> accountFlows = new ArrayList<>();
+    private final List<PaymentEvent> events = new ArrayList<>();
+
+    /**
+     * 登记交易记录
+     */
+    public void transaction(Transaction transaction) {
+        this.transaction = transaction;
+    }
+
+    /**
+     * 登记账户流水
+     */
+    public void accountFlows(AccountFlow... flows) {
+        this.accountFlows.addAll(Arrays.asList(flows));
+    }
+
+    /**
+     * 登记领域事件
+     */
+    public void event(PaymentEvent event) {
+        this.events.add(event);
+    }
+
+    // Getters
+    public Transaction getTransaction() { return transaction; }
+    public List<AccountFlow> getAccountFlows() { return accountFlows; }
+    public List<PaymentEvent> getEvents() { return events; }
+}
@@ -0,0 +1,32 @@
+package com.ares.cloud.pay.infrastructure.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 支付事件发件箱配置
+ */
+@Configuration
+public class PaymentOutboxConfig {
+
+    /**
+     * 发件箱派发线程池
+     * 有界队列，队列满时拒绝提交，事件留在发件箱中由补偿任务派发，不会阻塞业务线程
+     */
+    @Bean(name = "paymentOutboxExecutor")
+    public ThreadPoolTaskExecutor paymentOutboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("payment-outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ares.cloud.pay.infrastructure.listener;
+
+import com.ares.cloud.pay.domain.event.PaymentOutboxRecordedEvent;
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+import com.ares.cloud.pay.domain.service.PaymentOutboxDomainService;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 发件箱派发监听器
+ * 业务事务提交后把发件箱事件提交到有界线程池派发，事务回滚时事件随发件箱记录一起丢弃
+ */
+@Slf4j
+@Component
+public class PaymentOutboxDispatcher {
+
+    @Resource
+    private PaymentOutboxDomainService paymentOutboxDomainService;
+
+    @Resource(name = "paymentOutboxExecutor")
+    private ThreadPoolTaskExecutor paymentOutboxExecutor;
+
+    /**
+     * 事务提交后派发
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOutboxRecorded(PaymentOutboxRecordedEvent event) {
+        try {
+            paymentOutboxExecutor.execute(() -> {
+                for (OutboxEvent outboxEvent : event.getOutboxEvents()) {
+                    paymentOutboxDomainService.dispatch(outboxEvent);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已满，事件仍在发件箱中，由补偿任务派发
+            log.warn("Outbox executor saturated, {} events deferred to relay task", event.getOutboxEvents().size());
+        }
+    }
+}
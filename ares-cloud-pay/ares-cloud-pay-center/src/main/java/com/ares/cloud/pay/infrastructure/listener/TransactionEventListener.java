@@ -48,8 +48,8 @@ public class TransactionEventListener {
 
     /**
      * 转账成功事件
+     * 由发件箱在派发线程上同步投递，处理完成后事件才标记为已派发
      */
-    @Async
     @EventListener
     public void onTransferSuccess(TransferSuccessEvent event) {
         log.info("转账成功事件: transactionId={}, fromAccountId={}, toAccountId={}, amount={}, paymentRegion={}, transferType={}, description={}",
@@ -3,7 +3,6 @@ package com.ares.cloud.pay.infrastructure.listener;
 import com.ares.cloud.pay.domain.event.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 /**
@@ -15,8 +14,8 @@ import org.springframework.stereotype.Component;
 public class WalletEventListener {
     /**
      * 钱包余额变更事件
+     * 由发件箱在派发线程上同步投递，处理完成后事件才标记为已派发
      */
-    @Async
     @EventListener
     public void onWalletBalanceChanged(WalletBalanceChangedEvent event) {
         log.info("钱包余额变更事件: walletId={}, ownerId={}, ownerType={}, paymentRegion={}, oldBalance={}, newBalance={}, changeAmount={}, changeType={}, transactionId={}",
@@ -0,0 +1,72 @@
+package com.ares.cloud.pay.infrastructure.persistence.converter;
+
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+import com.ares.cloud.pay.infrastructure.persistence.entity.OutboxEventEntity;
+import org.ares.cloud.common.convert.BaseConvert;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 发件箱事件转换器
+ */
+@Component
+public class OutboxEventConverter implements BaseConvert<OutboxEventEntity, OutboxEvent> {
+    
+    @Override
+    public OutboxEvent toDto(OutboxEventEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setId(entity.getId());
+        event.setEventType(entity.getEventType());
+        event.setAggregateId(entity.getAggregateId());
+        event.setPayload(entity.getPayload());
+        event.setStatus(entity.getStatus());
+        event.setRetryCount(entity.getRetryCount());
+        event.setNextRetryTime(entity.getNextRetryTime());
+        event.setCreateTime(entity.getCreateTime());
+        event.setUpdateTime(entity.getUpdateTime());
+        return event;
+    }
+    
+    @Override
+    public List<OutboxEvent> listToDto(List<OutboxEventEntity> list) {
+        if (list == null) {
+            return null;
+        }
+        return list.stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public OutboxEventEntity toEntity(OutboxEvent dto) {
+        if (dto == null) {
+            return null;
+        }
+        OutboxEventEntity entity = new OutboxEventEntity();
+        entity.setId(dto.getId());
+        entity.setEventType(dto.getEventType());
+        entity.setAggregateId(dto.getAggregateId());
+        entity.setPayload(dto.getPayload());
+        entity.setStatus(dto.getStatus());
+        entity.setRetryCount(dto.getRetryCount());
+        entity.setNextRetryTime(dto.getNextRetryTime());
+        entity.setCreateTime(dto.getCreateTime());
+        entity.setUpdateTime(dto.getUpdateTime());
+        return entity;
+    }
+    
+    @Override
+    public List<OutboxEventEntity> listToEntities(List<OutboxEvent> list) {
+        if (list == null) {
+            return null;
+        }
+        return list.stream()
+                .map(this::toEntity)
+                .collect(Collectors.toList());
+    }
+}
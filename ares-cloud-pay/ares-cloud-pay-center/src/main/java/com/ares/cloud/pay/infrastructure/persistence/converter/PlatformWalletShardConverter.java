@@ -0,0 +1,72 @@
+package com.ares.cloud.pay.infrastructure.persistence.converter;
+
+import com.ares.cloud.pay.domain.model.PlatformWalletShard;
+import com.ares.cloud.pay.infrastructure.persistence.entity.PlatformWalletShardEntity;
+import org.ares.cloud.common.convert.BaseConvert;
+import org.ares.cloud.common.model.Money;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 平台钱包分片转换器
+ */
+@Component
+public class PlatformWalletShardConverter implements BaseConvert<PlatformWalletShardEntity, PlatformWalletShard> {
+    
+    @Override
+    public PlatformWalletShard toDto(PlatformWalletShardEntity entity) {
+        if (entity == null) {
+            return null;
+        }
+        PlatformWalletShard shard = new PlatformWalletShard();
+        shard.setId(entity.getId());
+        shard.setWalletId(entity.getWalletId());
+        shard.setPaymentRegion(entity.getPaymentRegion());
+        shard.setShardNo(entity.getShardNo());
+        // 将Long转换为Money，使用默认精度
+        shard.setBalance(entity.getBalance() != null ?
+                Money.create(entity.getBalance(), entity.getPaymentRegion(), Money.DEFAULT_SCALE) : null);
+        shard.setCreateTime(entity.getCreateTime());
+        shard.setUpdateTime(entity.getUpdateTime());
+        return shard;
+    }
+    
+    @Override
+    public List<PlatformWalletShard> listToDto(List<PlatformWalletShardEntity> list) {
+        if (list == null) {
+            return null;
+        }
+        return list.stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public PlatformWalletShardEntity toEntity(PlatformWalletShard dto) {
+        if (dto == null) {
+            return null;
+        }
+        PlatformWalletShardEntity entity = new PlatformWalletShardEntity();
+        entity.setId(dto.getId());
+        entity.setWalletId(dto.getWalletId());
+        entity.setPaymentRegion(dto.getPaymentRegion());
+        entity.setShardNo(dto.getShardNo());
+        // 将Money转换为Long
+        entity.setBalance(dto.getBalance() != null ? dto.getBalance().getAmount() : null);
+        entity.setCreateTime(dto.getCreateTime());
+        entity.setUpdateTime(dto.getUpdateTime());
+        return entity;
+    }
+    
+    @Override
+    public List<PlatformWalletShardEntity> listToEntities(List<PlatformWalletShard> list) {
+        if (list == null) {
+            return null;
+        }
+        return list.stream()
+                .map(this::toEntity)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,45 @@
+package com.ares.cloud.pay.infrastructure.persistence.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.ares.cloud.database.entity.BaseEntity;
+
+/**
+ * 发件箱事件实体类
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("payment_event_outbox")
+public class OutboxEventEntity extends BaseEntity {
+    
+    /**
+     * 事件类型
+     */
+    private String eventType;
+    
+    /**
+     * 关联交易ID
+     */
+    private String aggregateId;
+    
+    /**
+     * 事件内容（JSON）
+     */
+    private String payload;
+    
+    /**
+     * 派发状态（PENDING:待派发, SENT:已派发）
+     */
+    private String status;
+    
+    /**
+     * 重试次数
+     */
+    private Integer retryCount;
+    
+    /**
+     * 下次重试时间
+     */
+    private Long nextRetryTime;
+}
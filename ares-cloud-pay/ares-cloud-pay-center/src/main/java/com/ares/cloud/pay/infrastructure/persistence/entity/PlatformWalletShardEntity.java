@@ -0,0 +1,35 @@
+package com.ares.cloud.pay.infrastructure.persistence.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.ares.cloud.database.entity.BaseEntity;
+
+/**
+ * 平台钱包分片实体类
+ */
+@EqualsAndHashCode(callSuper = true)
+@Data
+@TableName("platform_wallet_shards")
+public class PlatformWalletShardEntity extends BaseEntity {
+    
+    /**
+     * 平台钱包ID
+     */
+    private String walletId;
+    
+    /**
+     * 支付区域（EUR/USD/CNY/CHF/GBP）
+     */
+    private String paymentRegion;
+    
+    /**
+     * 分片编号
+     */
+    private Integer shardNo;
+    
+    /**
+     * 分片余额（以分为单位）
+     */
+    private Long balance;
+}
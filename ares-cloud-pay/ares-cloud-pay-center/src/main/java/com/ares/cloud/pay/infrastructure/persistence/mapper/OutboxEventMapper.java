@@ -0,0 +1,74 @@
+package com.ares.cloud.pay.infrastructure.persistence.mapper;
+
+import com.ares.cloud.pay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 发件箱事件Mapper接口
+ */
+@Mapper
+public interface OutboxEventMapper extends BaseMapper<OutboxEventEntity> {
+    
+    /**
+     * 查询到期待派发的事件，包括租约已过期的派发中事件
+     *
+     * @param now 当前时间
+     * @param createdBefore 创建时间上限
+     * @param limit 最大条数
+     * @return 事件列表
+     */
+    @Select("SELECT * FROM (SELECT * FROM payment_event_outbox WHERE status IN ('PENDING', 'DISPATCHING') AND next_retry_time <= #{now} " +
+            "AND create_time <= #{createdBefore} AND deleted = 0 ORDER BY create_time) WHERE ROWNUM <= #{limit}")
+    List<OutboxEventEntity> findPending(@Param("now") Long now, @Param("createdBefore") Long createdBefore, @Param("limit") Integer limit);
+    
+    /**
+     * 认领事件，条件更新保证同一事件同时只有一个节点派发
+     *
+     * @param id 事件ID
+     * @param now 当前时间
+     * @param leaseUntil 租约到期时间
+     * @return 影响行数
+     */
+    @Update("UPDATE payment_event_outbox SET status = 'DISPATCHING', next_retry_time = #{leaseUntil}, update_time = #{now} " +
+            "WHERE id = #{id} AND status IN ('PENDING', 'DISPATCHING') AND next_retry_time <= #{now}")
+    int claim(@Param("id") String id, @Param("now") Long now, @Param("leaseUntil") Long leaseUntil);
+    
+    /**
+     * 标记为已派发
+     *
+     * @param id 事件ID
+     * @param updateTime 更新时间
+     */
+    @Update("UPDATE payment_event_outbox SET status = 'SENT', update_time = #{updateTime} WHERE id = #{id} AND status = 'DISPATCHING'")
+    void markSent(@Param("id") String id, @Param("updateTime") Long updateTime);
+    
+    /**
+     * 记录重试
+     *
+     * @param id 事件ID
+     * @param retryCount 重试次数
+     * @param nextRetryTime 下次重试时间
+     * @param updateTime 更新时间
+     */
+    @Update("UPDATE payment_event_outbox SET status = 'PENDING', retry_count = #{retryCount}, next_retry_time = #{nextRetryTime}, " +
+            "update_time = #{updateTime} WHERE id = #{id} AND status = 'DISPATCHING'")
+    void markRetry(@Param("id") String id, @Param("retryCount") Integer retryCount,
+                   @Param("nextRetryTime") Long nextRetryTime, @Param("updateTime") Long updateTime);
+    
+    /**
+     * 删除一批派发时间早于指定时间的已派发事件
+     *
+     * @param before 截止时间
+     * @param limit 最大条数
+     * @return 删除的条数
+     */
+    @Delete("DELETE FROM payment_event_outbox WHERE status = 'SENT' AND update_time < #{before} AND ROWNUM <= #{limit}")
+    int deleteSent(@Param("before") Long before, @Param("limit") Integer limit);
+}
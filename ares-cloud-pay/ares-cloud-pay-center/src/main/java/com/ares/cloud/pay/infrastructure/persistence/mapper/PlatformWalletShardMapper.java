@@ -0,0 +1,80 @@
+package com.ares.cloud.pay.infrastructure.persistence.mapper;
+
+import com.ares.cloud.pay.infrastructure.persistence.entity.PlatformWalletShardEntity;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 平台钱包分片Mapper接口
+ */
+@Mapper
+public interface PlatformWalletShardMapper extends BaseMapper<PlatformWalletShardEntity> {
+    
+    /**
+     * 根据支付区域和分片编号查询分片
+     *
+     * @param paymentRegion 支付区域
+     * @param shardNo 分片编号
+     * @return 分片
+     */
+    @Select("SELECT * FROM platform_wallet_shards WHERE payment_region = #{paymentRegion} AND shard_no = #{shardNo} AND deleted = 0")
+    PlatformWalletShardEntity findByRegionAndShardNo(@Param("paymentRegion") String paymentRegion, @Param("shardNo") Integer shardNo);
+    
+    /**
+     * 根据支付区域查询全部分片
+     *
+     * @param paymentRegion 支付区域
+     * @return 分片列表
+     */
+    @Select("SELECT * FROM platform_wallet_shards WHERE payment_region = #{paymentRegion} AND deleted = 0 ORDER BY shard_no")
+    List<PlatformWalletShardEntity> findByRegion(@Param("paymentRegion") String paymentRegion);
+    
+    /**
+     * 根据支付区域查询并锁定全部分片
+     *
+     * @param paymentRegion 支付区域
+     * @return 分片列表
+     */
+    @Select("SELECT * FROM platform_wallet_shards WHERE payment_region = #{paymentRegion} AND deleted = 0 ORDER BY shard_no FOR UPDATE")
+    List<PlatformWalletShardEntity> findByRegionForUpdate(@Param("paymentRegion") String paymentRegion);
+    
+    /**
+     * 按增量更新分片余额，更新后余额低于最低余额时不更新
+     *
+     * @param id 分片ID
+     * @param delta 余额增量
+     * @param minBalance 更新后的最低余额
+     * @param updateTime 更新时间
+     * @return 影响行数
+     */
+    @Update("UPDATE platform_wallet_shards SET balance = balance + #{delta}, version = version + 1, update_time = #{updateTime} " +
+            "WHERE id = #{id} AND deleted = 0 AND balance + #{delta} >= #{minBalance}")
+    int addBalance(@Param("id") String id, @Param("delta") Long delta, @Param("minBalance") Long minBalance,
+                   @Param("updateTime") Long updateTime);
+    
+    /**
+     * 设置分片余额
+     *
+     * @param id 分片ID
+     * @param balance 余额
+     * @param updateTime 更新时间
+     * @return 影响行数
+     */
+    @Update("UPDATE platform_wallet_shards SET balance = #{balance}, version = version + 1, update_time = #{updateTime} " +
+            "WHERE id = #{id} AND deleted = 0")
+    int updateBalance(@Param("id") String id, @Param("balance") Long balance, @Param("updateTime") Long updateTime);
+    
+    /**
+     * 统计区域内所有分片的余额之和
+     *
+     * @param paymentRegion 支付区域
+     * @return 余额之和
+     */
+    @Select("SELECT NVL(SUM(balance), 0) FROM platform_wallet_shards WHERE payment_region = #{paymentRegion} AND deleted = 0")
+    Long sumBalance(@Param("paymentRegion") String paymentRegion);
+}
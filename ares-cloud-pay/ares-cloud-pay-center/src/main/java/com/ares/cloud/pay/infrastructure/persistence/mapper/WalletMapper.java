@@ -3,10 +3,14 @@ package com.ares.cloud.pay.infrastructure.persistence.mapper;
 import com.ares.cloud.pay.infrastructure.persistence.entity.WalletEntity;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.StatementType;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 钱包Mapper接口
@@ -50,4 +54,45 @@ public interface WalletMapper extends BaseMapper<WalletEntity> {
      */
     @Select("SELECT * FROM wallets WHERE payment_region = #{paymentRegion} AND deleted = 0")
     List<WalletEntity> findByPaymentRegion(@Param("paymentRegion") String paymentRegion);
+    
+    /**
+     * 根据两个所有者ID和支付区域查询钱包，用于一次取得转账双方的钱包
+     *
+     * @param firstOwnerId 所有者ID
+     * @param secondOwnerId 所有者ID
+     * @param paymentRegion 支付区域
+     * @return 钱包列表
+     */
+    @Select("SELECT * FROM wallets WHERE owner_id IN (#{firstOwnerId}, #{secondOwnerId}) " +
+            "AND payment_region = #{paymentRegion} AND deleted = 0")
+    List<WalletEntity> findByOwnerIdsAndRegion(@Param("firstOwnerId") String firstOwnerId,
+                                               @Param("secondOwnerId") String secondOwnerId,
+                                               @Param("paymentRegion") String paymentRegion);
+    
+    /**
+     * 按增量更新余额并在同一语句中返回更新后的余额，扣减后余额低于冻结金额时不更新
+     * 参数中id、delta、updateTime为输入；balance为输出，未更新时为null
+     *
+     * @param params 参数
+     */
+    @Update("BEGIN UPDATE wallets SET balance = balance + #{delta}, version = version + 1, update_time = #{updateTime} " +
+            "WHERE id = #{id} AND deleted = 0 AND (#{delta} >= 0 OR balance + #{delta} >= frozen_amount) " +
+            "RETURNING balance INTO #{balance, mode=OUT, jdbcType=BIGINT}; END;")
+    @Options(statementType = StatementType.CALLABLE)
+    void addBalance(Map<String, Object> params);
+    
+    /**
+     * 按所有者和支付区域给正常状态的钱包入账，并在同一语句中返回钱包
+     * 参数中ownerId、paymentRegion、delta、updateTime为输入；id、ownerType、balance、frozenAmount、createTime为输出，未更新时为null
+     *
+     * @param params 参数
+     */
+    @Update("BEGIN UPDATE wallets SET balance = balance + #{delta}, version = version + 1, update_time = #{updateTime} " +
+            "WHERE owner_id = #{ownerId} AND payment_region = #{paymentRegion} AND status = 'ACTIVE' AND deleted = 0 " +
+            "RETURNING id, owner_type, balance, frozen_amount, create_time " +
+            "INTO #{id, mode=OUT, jdbcType=VARCHAR}, #{ownerType, mode=OUT, jdbcType=VARCHAR}, " +
+            "#{balance, mode=OUT, jdbcType=BIGINT}, #{frozenAmount, mode=OUT, jdbcType=BIGINT}, " +
+            "#{createTime, mode=OUT, jdbcType=BIGINT}; END;")
+    @Options(statementType = StatementType.CALLABLE)
+    void credit(Map<String, Object> params);
 } 
\ No newline at end of file
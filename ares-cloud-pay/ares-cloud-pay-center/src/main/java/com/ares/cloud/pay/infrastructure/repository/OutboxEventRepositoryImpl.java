@@ -0,0 +1,60 @@
+package com.ares.cloud.pay.infrastructure.repository;
+
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+import com.ares.cloud.pay.domain.repository.OutboxEventRepository;
+import com.ares.cloud.pay.infrastructure.persistence.converter.OutboxEventConverter;
+import com.ares.cloud.pay.infrastructure.persistence.entity.OutboxEventEntity;
+import com.ares.cloud.pay.infrastructure.persistence.mapper.OutboxEventMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 发件箱事件仓储实现类
+ */
+@Repository
+public class OutboxEventRepositoryImpl implements OutboxEventRepository {
+    
+    @Autowired
+    private OutboxEventMapper outboxEventMapper;
+    
+    @Autowired
+    private OutboxEventConverter outboxEventConverter;
+    
+    @Override
+    public void saveBatch(List<OutboxEvent> events) {
+        if (events != null && !events.isEmpty()) {
+            List<OutboxEventEntity> entities = outboxEventConverter.listToEntities(events);
+            for (OutboxEventEntity entity : entities) {
+                outboxEventMapper.insert(entity);
+            }
+        }
+    }
+    
+    @Override
+    public List<OutboxEvent> findPending(Long createdBefore, int limit) {
+        List<OutboxEventEntity> entities = outboxEventMapper.findPending(System.currentTimeMillis(), createdBefore, limit);
+        return outboxEventConverter.listToDto(entities);
+    }
+    
+    @Override
+    public boolean claim(String id, Long leaseUntil) {
+        return outboxEventMapper.claim(id, System.currentTimeMillis(), leaseUntil) > 0;
+    }
+    
+    @Override
+    public void markSent(String id) {
+        outboxEventMapper.markSent(id, System.currentTimeMillis());
+    }
+    
+    @Override
+    public void markRetry(String id, Integer retryCount, Long nextRetryTime) {
+        outboxEventMapper.markRetry(id, retryCount, nextRetryTime, System.currentTimeMillis());
+    }
+    
+    @Override
+    public int deleteSent(Long sentBefore, int limit) {
+        return outboxEventMapper.deleteSent(sentBefore, limit);
+    }
+}
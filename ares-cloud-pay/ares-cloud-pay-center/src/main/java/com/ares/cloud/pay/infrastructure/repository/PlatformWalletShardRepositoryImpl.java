@@ -0,0 +1,70 @@
+package com.ares.cloud.pay.infrastructure.repository;
+
+import com.ares.cloud.pay.domain.model.PlatformWalletShard;
+import com.ares.cloud.pay.domain.repository.PlatformWalletShardRepository;
+import com.ares.cloud.pay.infrastructure.persistence.converter.PlatformWalletShardConverter;
+import com.ares.cloud.pay.infrastructure.persistence.entity.PlatformWalletShardEntity;
+import com.ares.cloud.pay.infrastructure.persistence.mapper.PlatformWalletShardMapper;
+import org.ares.cloud.common.model.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 平台钱包分片仓储实现类
+ */
+@Repository
+public class PlatformWalletShardRepositoryImpl implements PlatformWalletShardRepository {
+    
+    @Autowired
+    private PlatformWalletShardMapper platformWalletShardMapper;
+    
+    @Autowired
+    private PlatformWalletShardConverter platformWalletShardConverter;
+    
+    @Override
+    public void saveBatch(List<PlatformWalletShard> shards) {
+        if (shards != null && !shards.isEmpty()) {
+            List<PlatformWalletShardEntity> entities = platformWalletShardConverter.listToEntities(shards);
+            for (PlatformWalletShardEntity entity : entities) {
+                platformWalletShardMapper.insert(entity);
+            }
+        }
+    }
+    
+    @Override
+    public PlatformWalletShard findByRegionAndShardNo(String paymentRegion, int shardNo) {
+        PlatformWalletShardEntity entity = platformWalletShardMapper.findByRegionAndShardNo(paymentRegion, shardNo);
+        return platformWalletShardConverter.toDto(entity);
+    }
+    
+    @Override
+    public List<PlatformWalletShard> findByRegion(String paymentRegion) {
+        List<PlatformWalletShardEntity> entities = platformWalletShardMapper.findByRegion(paymentRegion);
+        return platformWalletShardConverter.listToDto(entities);
+    }
+    
+    @Override
+    public List<PlatformWalletShard> findByRegionForUpdate(String paymentRegion) {
+        List<PlatformWalletShardEntity> entities = platformWalletShardMapper.findByRegionForUpdate(paymentRegion);
+        return platformWalletShardConverter.listToDto(entities);
+    }
+    
+    @Override
+    public boolean addBalance(String id, Money delta, Money minBalance) {
+        long min = minBalance != null ? minBalance.getAmount() : 0L;
+        return platformWalletShardMapper.addBalance(id, delta.getAmount(), min, System.currentTimeMillis()) > 0;
+    }
+    
+    @Override
+    public void updateBalance(String id, Money balance) {
+        platformWalletShardMapper.updateBalance(id, balance.getAmount(), System.currentTimeMillis());
+    }
+    
+    @Override
+    public Money sumBalance(String paymentRegion) {
+        Long sum = platformWalletShardMapper.sumBalance(paymentRegion);
+        return Money.create(sum != null ? sum : 0L, paymentRegion, Money.DEFAULT_SCALE);
+    }
+}
@@ -9,7 +9,9 @@ import org.ares.cloud.common.model.Money;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 钱包仓储实现类
@@ -41,6 +43,12 @@ public class WalletRepositoryImpl implements WalletRepository {
         return walletConverter.toDto(entity);
     }
     
+    @Override
+    public List<Wallet> findByOwnerIdsAndRegion(String firstOwnerId, String secondOwnerId, String paymentRegion) {
+        List<WalletEntity> entities = walletMapper.findByOwnerIdsAndRegion(firstOwnerId, secondOwnerId, paymentRegion);
+        return walletConverter.listToDto(entities);
+    }
+    
     @Override
     public List<Wallet> findByOwnerId(String ownerId) {
         List<WalletEntity> entities = walletMapper.findByOwnerId(ownerId);
@@ -75,6 +83,47 @@ public class WalletRepositoryImpl implements WalletRepository {
         walletMapper.updateById(entity);
     }
     
+    @Override
+    public Money addBalance(String id, Money delta) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", id);
+        params.put("delta", delta.getAmount());
+        params.put("updateTime", System.currentTimeMillis());
+        walletMapper.addBalance(params);
+        Object balance = params.get("balance");
+        return balance != null ? Money.create(((Number) balance).longValue(), delta.getCurrency(), delta.getScale()) : null;
+    }
+    
+    @Override
+    public Wallet credit(String ownerId, String paymentRegion, Money amount) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("ownerId", ownerId);
+        params.put("paymentRegion", paymentRegion);
+        params.put("delta", amount.getAmount());
+        long updateTime = System.currentTimeMillis();
+        params.put("updateTime", updateTime);
+        walletMapper.credit(params);
+        if (params.get("id") == null) {
+            return null;
+        }
+        Wallet wallet = new Wallet();
+        wallet.setId((String) params.get("id"));
+        wallet.setOwnerId(ownerId);
+        wallet.setOwnerType((String) params.get("ownerType"));
+        wallet.setPaymentRegion(paymentRegion);
+        wallet.setBalance(toMoney(params.get("balance"), amount));
+        wallet.setFrozenAmount(toMoney(params.get("frozenAmount"), amount));
+        wallet.setStatus("ACTIVE");
+        Object createTime = params.get("createTime");
+        wallet.setCreateTime(createTime != null ? ((Number) createTime).longValue() : null);
+        wallet.setUpdateTime(updateTime);
+        return wallet;
+    }
+    
+    private Money toMoney(Object amount, Money template) {
+        return amount != null ? Money.create(((Number) amount).longValue(), template.getCurrency(), template.getScale()) : null;
+    }
+    
     @Override
     public void updateFrozenAmount(String id, Money frozenAmount) {
         WalletEntity entity = new WalletEntity();
@@ -0,0 +1,83 @@
+package com.ares.cloud.pay.infrastructure.task;
+
+import com.ares.cloud.pay.domain.model.OutboxEvent;
+import com.ares.cloud.pay.domain.service.PaymentOutboxDomainService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 发件箱补偿任务
+ * 重发提交后未能派发的事件（线程池已满、派发失败或进程崩溃）
+ * 多个实例同时补偿时按事件认领，同一事件只由一个实例派发，派发中的事件在租约到期前不会被重发；
+ * 已派发的事件保留一段时间后分批删除
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentOutboxRelayTask {
+
+    /**
+     * 只补偿创建超过该时长的事件，避免与提交回调重复派发
+     */
+    private static final long RELAY_DELAY_MILLIS = 10_000L;
+
+    /**
+     * 每次补偿的最大条数
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 已派发事件的保留时长
+     */
+    private static final long SENT_RETENTION_MILLIS = 7L * 24 * 60 * 60_000L;
+
+    /**
+     * 每次删除已派发事件的最大条数和每轮清理的最大次数
+     */
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+    private static final int CLEANUP_MAX_BATCHES = 100;
+
+    private final PaymentOutboxDomainService paymentOutboxDomainService;
+
+    /**
+     * 补偿派发待派发事件
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void relay() {
+        List<OutboxEvent> events = paymentOutboxDomainService.findPending(
+                System.currentTimeMillis() - RELAY_DELAY_MILLIS, BATCH_SIZE);
+        for (OutboxEvent event : events) {
+            paymentOutboxDomainService.dispatch(event);
+        }
+        if (!events.isEmpty()) {
+            log.info("Relayed {} outbox events", events.size());
+        }
+    }
+
+    /**
+     * 删除超过保留时长的已派发事件，分批删除避免长事务
+     */
+    @Scheduled(fixedDelay = 3_600_000L, initialDelay = 60_000L)
+    public void cleanup() {
+        long sentBefore = System.currentTimeMillis() - SENT_RETENTION_MILLIS;
+        int total = 0;
+        try {
+            for (int i = 0; i < CLEANUP_MAX_BATCHES; i++) {
+                int deleted = paymentOutboxDomainService.purgeSent(sentBefore, CLEANUP_BATCH_SIZE);
+                total += deleted;
+                if (deleted < CLEANUP_BATCH_SIZE) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to purge sent outbox events", e);
+        }
+        if (total > 0) {
+            log.info("Purged {} sent outbox events", total);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.ares.cloud.pay.infrastructure.task;
+
+import com.ares.cloud.pay.domain.constant.PaymentConstants;
+import com.ares.cloud.pay.domain.service.PlatformLedgerDomainService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 平台账本归集任务
+ * 定期把平台余额重新均摊到各分片，避免余额集中在少数分片上
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlatformLedgerConsolidateTask {
+
+    private final PlatformLedgerDomainService platformLedgerDomainService;
+
+    /**
+     * 归集所有区域的平台账本
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void consolidate() {
+        for (String region : PaymentConstants.SUPPORTED_REGIONS) {
+            try {
+                platformLedgerDomainService.consolidate(region, null);
+            } catch (Exception e) {
+                log.error("Failed to consolidate platform ledger: {}", region, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- 创建平台钱包分片子账本表
+-- 平台商户钱包按区域拆分为多个分片，充值/回收只锁定并更新其中一个分片，
+-- 各分片余额之和即平台钱包的真实余额，平台钱包表中的余额不再更新
+CREATE TABLE platform_wallet_shards (
+    id VARCHAR2(50) PRIMARY KEY,
+    wallet_id VARCHAR2(50) NOT NULL,
+    payment_region VARCHAR2(10) NOT NULL,
+    shard_no NUMBER(5) NOT NULL,
+    balance NUMBER(20) DEFAULT 0 NOT NULL,
+    create_time NUMBER(20) NOT NULL,
+    update_time NUMBER(20),
+    creator VARCHAR2(50),
+    updater VARCHAR2(50),
+    version NUMBER(10) DEFAULT 1 NOT NULL,
+    deleted NUMBER(1) DEFAULT 0 NOT NULL,
+    CONSTRAINT uk_platform_shard_region_no UNIQUE (payment_region, shard_no)
+);
+
+-- 添加注释
+COMMENT ON TABLE platform_wallet_shards IS '平台钱包分片子账本表';
+COMMENT ON COLUMN platform_wallet_shards.id IS '主键ID';
+COMMENT ON COLUMN platform_wallet_shards.wallet_id IS '平台钱包ID';
+COMMENT ON COLUMN platform_wallet_shards.payment_region IS '支付区域(EUR/USD/CNY/CHF/GBP)';
+COMMENT ON COLUMN platform_wallet_shards.shard_no IS '分片编号(从0开始)';
+COMMENT ON COLUMN platform_wallet_shards.balance IS '分片余额(以分为单位)';
+COMMENT ON COLUMN platform_wallet_shards.create_time IS '创建时间';
+COMMENT ON COLUMN platform_wallet_shards.update_time IS '更新时间';
+COMMENT ON COLUMN platform_wallet_shards.creator IS '创建者';
+COMMENT ON COLUMN platform_wallet_shards.updater IS '更新者';
+COMMENT ON COLUMN platform_wallet_shards.version IS '版本号';
+COMMENT ON COLUMN platform_wallet_shards.deleted IS '删除标记(0:未删除,1:已删除)';
@@ -0,0 +1,35 @@
+-- 创建支付事件发件箱表
+-- 转账产生的领域事件与余额变更在同一事务内写入，事务提交后异步派发，派发失败或进程崩溃时由补偿任务重发
+CREATE TABLE payment_event_outbox (
+    id VARCHAR2(50) PRIMARY KEY,
+    event_type VARCHAR2(100) NOT NULL,
+    aggregate_id VARCHAR2(50),
+    payload CLOB NOT NULL,
+    status VARCHAR2(20) DEFAULT 'PENDING' NOT NULL,
+    retry_count NUMBER(10) DEFAULT 0 NOT NULL,
+    next_retry_time NUMBER(20) NOT NULL,
+    create_time NUMBER(20) NOT NULL,
+    update_time NUMBER(20),
+    creator VARCHAR2(50),
+    updater VARCHAR2(50),
+    version NUMBER(10) DEFAULT 1 NOT NULL,
+    deleted NUMBER(1) DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_outbox_status_retry ON payment_event_outbox (status, next_retry_time);
+
+-- 添加注释
+COMMENT ON TABLE payment_event_outbox IS '支付事件发件箱表';
+COMMENT ON COLUMN payment_event_outbox.id IS '主键ID';
+COMMENT ON COLUMN payment_event_outbox.event_type IS '事件类型';
+COMMENT ON COLUMN payment_event_outbox.aggregate_id IS '关联交易ID';
+COMMENT ON COLUMN payment_event_outbox.payload IS '事件内容(JSON)';
+COMMENT ON COLUMN payment_event_outbox.status IS '派发状态(PENDING:待派发,SENT:已派发)';
+COMMENT ON COLUMN payment_event_outbox.retry_count IS '重试次数';
+COMMENT ON COLUMN payment_event_outbox.next_retry_time IS '下次重试时间';
+COMMENT ON COLUMN payment_event_outbox.create_time IS '创建时间';
+COMMENT ON COLUMN payment_event_outbox.update_time IS '更新时间';
+COMMENT ON COLUMN payment_event_outbox.creator IS '创建者';
+COMMENT ON COLUMN payment_event_outbox.updater IS '更新者';
+COMMENT ON COLUMN payment_event_outbox.version IS '版本号';
+COMMENT ON COLUMN payment_event_outbox.deleted IS '删除标记(0:未删除,1:已删除)';
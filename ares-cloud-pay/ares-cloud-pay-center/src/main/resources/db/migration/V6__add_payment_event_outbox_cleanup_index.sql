@@ -0,0 +1,2 @@
+-- 已派发事件按更新时间定期清理
+CREATE INDEX idx_outbox_status_update ON payment_event_outbox (status, update_time);